@@ -8,6 +8,7 @@ import java.text.DateFormat;
 import java.util.*;
 
 import liquibase.change.CheckSum;
+import liquibase.change.CheckSumCache;
 import liquibase.changelog.*;
 import liquibase.changelog.filter.*;
 import liquibase.changelog.visitor.*;
@@ -67,6 +68,7 @@ public class Liquibase {
     private ChangeLogSyncListener changeLogSyncListener;
 
     private boolean ignoreClasspathPrefix = true;
+    private boolean resetServices = true;
 
     /**
      * Creates a Liquibase instance for a given DatabaseConnection. The Database instance used will be found with {@link DatabaseFactory#findCorrectDatabaseImplementation(liquibase.database.DatabaseConnection)}
@@ -193,11 +195,14 @@ public class Liquibase {
 
             checkLiquibaseTables(true, changeLog, contexts, labelExpression);
 
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator changeLogIterator = getStandardChangelogIterator(contexts, labelExpression, changeLog);
 
-            changeLogIterator.run(createUpdateVisitor(), new RuntimeEnvironment(database, contexts, labelExpression));
+            changeLogIterator.run(createUpdateVisitor(), runtimeEnvironment);
+            AbstractChangeLogHistoryService.flushHistory(database);
+            database.commit();
         } finally {
             database.setObjectQuotingStrategy(ObjectQuotingStrategy.LEGACY);
             try {
@@ -218,6 +223,14 @@ public class Liquibase {
         return databaseChangeLog;
     }
 
+    /**
+     * Sets the changelog to use instead of parsing {@link #getChangeLogFile()}, such as a changelog already parsed for another database.
+     * A parsed changelog can be used by several Liquibase instances at the same time: state that depends on the database being updated is kept in the {@link RuntimeEnvironment} of each run.
+     */
+    public void setDatabaseChangeLog(DatabaseChangeLog databaseChangeLog) {
+        this.databaseChangeLog = databaseChangeLog;
+    }
+
 
     protected UpdateVisitor createUpdateVisitor() {
         return new UpdateVisitor(database, changeExecListener);
@@ -284,7 +297,8 @@ public class Liquibase {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
 
             checkLiquibaseTables(true, changeLog, contexts, labelExpression);
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator logIterator = new ChangeLogIterator(changeLog,
                     new ShouldRunChangeSetFilter(database, ignoreClasspathPrefix),
@@ -293,7 +307,9 @@ public class Liquibase {
                     new DbmsChangeSetFilter(database),
                     new CountChangeSetFilter(changesToApply));
 
-            logIterator.run(createUpdateVisitor(), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(createUpdateVisitor(), runtimeEnvironment);
+            AbstractChangeLogHistoryService.flushHistory(database);
+            database.commit();
         } finally {
             lockService.releaseLock();
             resetServices();
@@ -387,7 +403,8 @@ public class Liquibase {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(false, changeLog, contexts, labelExpression);
 
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator logIterator = new ChangeLogIterator(database.getRanChangeSetList(), changeLog,
                     new AlreadyRanChangeSetFilter(database.getRanChangeSetList()),
@@ -396,7 +413,7 @@ public class Liquibase {
                     new DbmsChangeSetFilter(database),
                     new CountChangeSetFilter(changesToRollback));
 
-            logIterator.run(new RollbackVisitor(database), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(new RollbackVisitor(database), runtimeEnvironment);
         } finally {
             try {
                 lockService.releaseLock();
@@ -454,7 +471,8 @@ public class Liquibase {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(false, changeLog, contexts, labelExpression);
 
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
             ChangeLogIterator logIterator = new ChangeLogIterator(ranChangeSetList, changeLog,
@@ -464,7 +482,7 @@ public class Liquibase {
                     new LabelChangeSetFilter(labelExpression),
                     new DbmsChangeSetFilter(database));
 
-            logIterator.run(new RollbackVisitor(database), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(new RollbackVisitor(database), runtimeEnvironment);
         } finally {
             lockService.releaseLock();
         }
@@ -509,7 +527,8 @@ public class Liquibase {
         try {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(false, changeLog, contexts, labelExpression);
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             List<RanChangeSet> ranChangeSetList = database.getRanChangeSetList();
             ChangeLogIterator logIterator = new ChangeLogIterator(ranChangeSetList, changeLog,
@@ -519,7 +538,7 @@ public class Liquibase {
                     new LabelChangeSetFilter(labelExpression),
                     new DbmsChangeSetFilter(database));
 
-            logIterator.run(new RollbackVisitor(database), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(new RollbackVisitor(database), runtimeEnvironment);
         } finally {
             lockService.releaseLock();
         }
@@ -573,7 +592,8 @@ public class Liquibase {
         try {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(true, changeLog, contexts, labelExpression);
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator logIterator = new ChangeLogIterator(changeLog,
                     new NotRanChangeSetFilter(database.getRanChangeSetList()),
@@ -581,7 +601,9 @@ public class Liquibase {
                     new LabelChangeSetFilter(labelExpression),
                     new DbmsChangeSetFilter(database));
 
-            logIterator.run(new ChangeLogSyncVisitor(database, changeLogSyncListener), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(new ChangeLogSyncVisitor(database, changeLogSyncListener), runtimeEnvironment);
+            AbstractChangeLogHistoryService.flushHistory(database);
+            database.commit();
         } finally {
             lockService.releaseLock();
             resetServices();
@@ -629,7 +651,8 @@ public class Liquibase {
         try {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(false, changeLog, contexts, labelExpression);
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator logIterator = new ChangeLogIterator(changeLog,
                     new NotRanChangeSetFilter(database.getRanChangeSetList()),
@@ -638,7 +661,9 @@ public class Liquibase {
                     new DbmsChangeSetFilter(database),
                     new CountChangeSetFilter(1));
 
-            logIterator.run(new ChangeLogSyncVisitor(database), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(new ChangeLogSyncVisitor(database), runtimeEnvironment);
+            AbstractChangeLogHistoryService.flushHistory(database);
+            database.commit();
         } finally {
             lockService.releaseLock();
             resetServices();
@@ -669,7 +694,8 @@ public class Liquibase {
         try {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(false, changeLog, contexts, labelExpression);
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator logIterator;
             if (count == null) {
@@ -686,7 +712,7 @@ public class Liquibase {
                         new DbmsChangeSetFilter(database),
                         new CountChangeSetFilter(count));
                 final ListVisitor listVisitor = new ListVisitor();
-                forwardIterator.run(listVisitor, new RuntimeEnvironment(database, contexts, labelExpression));
+                forwardIterator.run(listVisitor, runtimeEnvironment);
 
                 logIterator = new ChangeLogIterator(changeLog,
                         new NotRanChangeSetFilter(database.getRanChangeSetList()),
@@ -701,7 +727,7 @@ public class Liquibase {
                         });
             }
 
-            logIterator.run(new RollbackVisitor(database), new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(new RollbackVisitor(database), runtimeEnvironment);
         } finally {
             lockService.releaseLock();
             ExecutorService.getInstance().setExecutor(database, oldTemplate);
@@ -717,6 +743,19 @@ public class Liquibase {
     }
 
     protected void resetServices() {
+        CheckSumCache checkSumCache = CheckSumCache.getInstance();
+        if (checkSumCache != null) {
+            checkSumCache.save();
+        }
+        if (resetServices) {
+            resetAllServices();
+        }
+    }
+
+    /**
+     * Resets the lock, history and executor services shared by all Liquibase instances.
+     */
+    public static void resetAllServices() {
         LockServiceFactory.getInstance().resetAll();
         ChangeLogHistoryServiceFactory.getInstance().resetAll();
         ExecutorService.getInstance().reset();
@@ -845,12 +884,13 @@ public class Liquibase {
 
         checkLiquibaseTables(true, changeLog, contexts, labels);
 
-        changeLog.validate(database, contexts, labels);
+        RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labels);
+        changeLog.validate(runtimeEnvironment);
 
         ChangeLogIterator logIterator = getStandardChangelogIterator(contexts, labels, changeLog);
 
         ListVisitor visitor = new ListVisitor();
-        logIterator.run(visitor, new RuntimeEnvironment(database, contexts, labels));
+        logIterator.run(visitor, runtimeEnvironment);
         return visitor.getSeenChangeSets();
     }
 
@@ -872,12 +912,13 @@ public class Liquibase {
 
         checkLiquibaseTables(true, changeLog, contexts, labelExpression);
 
-        changeLog.validate(database, contexts, labelExpression);
+        RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+        changeLog.validate(runtimeEnvironment);
 
         ChangeLogIterator logIterator = getStandardChangelogIterator(contexts, labelExpression, changeLog);
 
         StatusVisitor visitor = new StatusVisitor(database);
-        logIterator.run(visitor, new RuntimeEnvironment(database, contexts, labelExpression));
+        logIterator.run(visitor, runtimeEnvironment);
         return visitor.getStatuses();
     }
 
@@ -931,14 +972,15 @@ public class Liquibase {
         changeLogParameters.setLabels(labelExpression);
 
         DatabaseChangeLog changeLog = getDatabaseChangeLog();
-        changeLog.validate(database, contexts, labelExpression);
+        RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+        changeLog.validate(runtimeEnvironment);
 
         ChangeLogIterator logIterator = new ChangeLogIterator(changeLog,
                 new ContextChangeSetFilter(contexts),
                 new LabelChangeSetFilter(labelExpression),
                 new DbmsChangeSetFilter(database));
         ExpectedChangesVisitor visitor = new ExpectedChangesVisitor(database.getRanChangeSetList());
-        logIterator.run(visitor, new RuntimeEnvironment(database, contexts, labelExpression));
+        logIterator.run(visitor, runtimeEnvironment);
         return visitor.getUnexpectedChangeSets();
     }
 
@@ -1048,13 +1090,14 @@ public class Liquibase {
             DatabaseChangeLog changeLog = getDatabaseChangeLog();
             checkLiquibaseTables(false, changeLog, new Contexts(), new LabelExpression());
 
-            changeLog.validate(database, contexts, labelExpression);
+            RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+            changeLog.validate(runtimeEnvironment);
 
             ChangeLogIterator logIterator = new ChangeLogIterator(changeLog,
                     new DbmsChangeSetFilter(database));
 
             DBDocVisitor visitor = new DBDocVisitor(database);
-            logIterator.run(visitor, new RuntimeEnvironment(database, contexts, labelExpression));
+            logIterator.run(visitor, runtimeEnvironment);
 
             visitor.writeHTML(new File(outputDirectory), resourceAccessor);
         } catch (IOException e) {
@@ -1139,6 +1182,18 @@ public class Liquibase {
         this.changeLogSyncListener = changeLogSyncListener;
     }
 
+    public boolean isResetServices() {
+        return resetServices;
+    }
+
+    /**
+     * Whether the services shared by all Liquibase instances are reset after each operation, true by default.
+     * Set to false while other instances run at the same time, as resetting drops their services too, and call {@link #resetAllServices()} once all of them finished.
+     */
+    public void setResetServices(boolean resetServices) {
+        this.resetServices = resetServices;
+    }
+
     public void setIgnoreClasspathPrefix(boolean ignoreClasspathPrefix) {
         this.ignoreClasspathPrefix = ignoreClasspathPrefix;
     }
@@ -1,11 +1,34 @@
 package liquibase;
 
+import liquibase.changelog.ChangeSet;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.Database;
+import liquibase.snapshot.MetadataCache;
+import liquibase.sql.visitor.SqlVisitor;
+import liquibase.sqlgenerator.GeneratedSqlCache;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of a single validation or execution of a changelog.
+ * Anything that depends on the target database is kept here rather than on the {@link liquibase.changelog.DatabaseChangeLog} or its change sets,
+ * so one parsed changelog can be run against several databases at the same time.
+ */
 public class RuntimeEnvironment {
+    private static final ThreadLocal<RuntimeEnvironment> current = new ThreadLocal<RuntimeEnvironment>();
+
     private Database targetDatabase;
     private Contexts contexts;
     private final LabelExpression labels;
+    private final Set<ChangeSet> validationFailedChangeSets = Collections.newSetFromMap(new IdentityHashMap<ChangeSet, Boolean>());
+    private final Set<SqlVisitor> excludedSqlVisitors = Collections.newSetFromMap(new IdentityHashMap<SqlVisitor, Boolean>());
+    private MetadataCache metadataCache;
+    private GeneratedSqlCache generatedSqlCache;
 
     /**
      * @deprecated use version with LabelExpression
@@ -20,6 +43,21 @@ public class RuntimeEnvironment {
         this.labels = labelExpression;
     }
 
+    /**
+     * Returns the environment of the changelog run in progress in the current thread, or null if no {@link liquibase.changelog.ChangeLogIterator} is running in it.
+     */
+    public static RuntimeEnvironment getCurrent() {
+        return current.get();
+    }
+
+    public static void setCurrent(RuntimeEnvironment runtimeEnvironment) {
+        if (runtimeEnvironment == null) {
+            current.remove();
+        } else {
+            current.set(runtimeEnvironment);
+        }
+    }
+
     public Database getTargetDatabase() {
         return targetDatabase;
     }
@@ -31,4 +69,70 @@ public class RuntimeEnvironment {
     public LabelExpression getLabels() {
         return labels;
     }
+
+    /**
+     * Records that the change set failed validation against the target database and, because of its onValidationFail setting, should be marked as ran instead of executed.
+     */
+    public void markValidationFailed(ChangeSet changeSet) {
+        synchronized (validationFailedChangeSets) {
+            validationFailedChangeSets.add(changeSet);
+        }
+    }
+
+    public boolean isValidationFailed(ChangeSet changeSet) {
+        synchronized (validationFailedChangeSets) {
+            return validationFailedChangeSets.contains(changeSet);
+        }
+    }
+
+    /**
+     * Records that the sql visitor does not apply to this run because its contexts, labels or dbms do not match.
+     * Called by the change set filters instead of removing the visitor from the shared change set.
+     */
+    public void excludeSqlVisitor(SqlVisitor sqlVisitor) {
+        synchronized (excludedSqlVisitors) {
+            excludedSqlVisitors.add(sqlVisitor);
+        }
+    }
+
+    /**
+     * Returns the sql visitors of the change set that were not excluded with {@link #excludeSqlVisitor(SqlVisitor)}.
+     */
+    public List<SqlVisitor> getSqlVisitors(ChangeSet changeSet) {
+        List<SqlVisitor> sqlVisitors = changeSet.getSqlVisitors();
+        synchronized (excludedSqlVisitors) {
+            if (excludedSqlVisitors.isEmpty()) {
+                return sqlVisitors;
+            }
+            List<SqlVisitor> applicable = new ArrayList<SqlVisitor>(sqlVisitors.size());
+            for (SqlVisitor visitor : sqlVisitors) {
+                if (!excludedSqlVisitors.contains(visitor)) {
+                    applicable.add(visitor);
+                }
+            }
+            return applicable;
+        }
+    }
+
+    /**
+     * Returns the metadata cache shared by the preconditions of this run, or null if {@link GlobalConfiguration#PRECONDITION_METADATA_CACHE} is not enabled.
+     */
+    public synchronized MetadataCache getMetadataCache() {
+        if (metadataCache == null && targetDatabase != null
+                && LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getPreconditionMetadataCache()) {
+            metadataCache = new MetadataCache(targetDatabase);
+        }
+        return metadataCache;
+    }
+
+    /**
+     * Returns the cache of the statements and SQL generated for the changes of this run, or null if {@link GlobalConfiguration#GENERATED_SQL_CACHE} is not enabled.
+     */
+    public synchronized GeneratedSqlCache getGeneratedSqlCache() {
+        if (generatedSqlCache == null && targetDatabase != null
+                && LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getGeneratedSqlCache()) {
+            generatedSqlCache = new GeneratedSqlCache(targetDatabase);
+        }
+        return generatedSqlCache;
+    }
 }
@@ -12,6 +12,7 @@ import liquibase.structure.DatabaseObject;
 import liquibase.exception.*;
 import liquibase.resource.ResourceAccessor;
 import liquibase.serializer.core.string.StringChangeLogSerializer;
+import liquibase.sqlgenerator.GeneratedSqlCache;
 import liquibase.sqlgenerator.SqlGeneratorFactory;
 import liquibase.statement.SqlStatement;
 import liquibase.util.StringUtils;
@@ -257,16 +258,28 @@ public abstract class AbstractChange implements Change {
      */
     @Override
     public boolean generateStatementsVolatile(Database database) {
-        SqlStatement[] statements = generateStatements(database);
-        if (statements == null) {
-            return false;
+        GeneratedSqlCache cache = GeneratedSqlCache.getCurrent(database);
+        if (cache != null) {
+            Boolean statementsVolatile = cache.getStatementsVolatile(this);
+            if (statementsVolatile != null) {
+                return statementsVolatile;
+            }
         }
-        for (SqlStatement statement : statements) {
-            if (SqlGeneratorFactory.getInstance().generateStatementsVolatile(statement, database)) {
-                return true;
+
+        SqlStatement[] statements = generateStatements(database);
+        boolean statementsVolatile = false;
+        if (statements != null) {
+            for (SqlStatement statement : statements) {
+                if (SqlGeneratorFactory.getInstance().generateStatementsVolatile(statement, database)) {
+                    statementsVolatile = true;
+                    break;
+                }
             }
         }
-        return false;
+        if (cache != null) {
+            cache.setStatementsVolatile(this, statements, statementsVolatile);
+        }
+        return statementsVolatile;
     }
 
     /**
@@ -278,7 +291,7 @@ public abstract class AbstractChange implements Change {
         if (generateStatementsVolatile(database)) {
             return true;
         }
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
         if (statements == null) {
             return false;
         }
@@ -300,7 +313,7 @@ public abstract class AbstractChange implements Change {
         if (generateStatementsVolatile(database)) {
             return true;
         }
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
         if (statements == null) {
             return true;
         }
@@ -324,7 +337,7 @@ public abstract class AbstractChange implements Change {
             return warnings;
         }
 
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
         if (statements == null) {
             return warnings;
         }
@@ -364,7 +377,7 @@ public abstract class AbstractChange implements Change {
         } else if (!generateStatementsVolatile(database)) {
             boolean sawUnsupportedError = false;
             SqlStatement[] statements;
-            statements = generateStatements(database);
+            statements = GeneratedSqlCache.generateStatements(this, database);
             if (statements != null) {
                 for (SqlStatement statement : statements) {
                     boolean supported = SqlGeneratorFactory.getInstance().supports(statement, database);
@@ -478,7 +491,7 @@ public abstract class AbstractChange implements Change {
             return new HashSet<DatabaseObject>();
         }
         Set<DatabaseObject> affectedObjects = new HashSet<DatabaseObject>();
-        SqlStatement[] statements = generateStatements(database);
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(this, database);
 
         if (statements != null) {
             for (SqlStatement statement : statements) {
@@ -263,6 +263,8 @@ public class ChangeParameterMetaData {
             try {
                 if (dataType.equals("bigInteger")) {
                     value = new BigInteger((String) value);
+                } else if (dataType.equals("integer")) {
+                    value = Integer.valueOf((String) value);
                 } else if (dataType.equals("databaseFunction")) {
                     value = new DatabaseFunction((String) value);
                 } else {
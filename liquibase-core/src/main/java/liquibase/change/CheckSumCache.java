@@ -0,0 +1,253 @@
+package liquibase.change;
+
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.logging.LogFactory;
+import liquibase.resource.ResourceAccessor;
+import liquibase.util.MD5Util;
+import liquibase.util.StreamUtil;
+import liquibase.util.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Enumeration;
+import java.util.Properties;
+
+/**
+ * Opt-in cache of checksums computed from files referenced by changes, such as loadData CSV files and sqlFile scripts.
+ * Entries are keyed by the kind of checksum and the resolved resource URL, and store the resource size and last modified time along with
+ * the computed checksum. A cached checksum is reused without reading the file if size and last modified time match and it was computed
+ * by the current checksum version.
+ * <p></p>
+ * With {@link GlobalConfiguration#CHECKSUM_CACHE_VERIFY_CONTENT} set, entries also store a digest of the raw bytes, and a cached checksum
+ * is only reused if that digest still matches, so a file rewritten within the timestamp resolution is not missed.
+ * Only the raw digest is computed again then, not the checksum itself, which may involve parsing or normalizing the content.
+ * <p></p>
+ * The cache is enabled by setting {@link GlobalConfiguration#CHECKSUM_CACHE_FILE} and is persisted to that file by {@link #save()},
+ * so a later run can skip hashing files that have not changed.
+ * Resources that cannot be resolved to a single URL through the {@link ResourceAccessor} are never cached.
+ */
+public class CheckSumCache {
+
+    private static CheckSumCache instance;
+
+    private final File file;
+    private final Properties entries = new Properties();
+    private boolean modified = false;
+    private boolean verifyContent = false;
+
+    /**
+     * Computes the checksum when it is not in the cache.
+     */
+    public interface Generator {
+        CheckSum generate();
+    }
+
+    protected CheckSumCache(File file) {
+        this.file = file;
+        if (file.exists()) {
+            InputStream stream = null;
+            try {
+                stream = new FileInputStream(file);
+                entries.load(stream);
+            } catch (IOException e) {
+                LogFactory.getLogger().warning("Cannot read checksum cache " + file.getAbsolutePath() + ": " + e.getMessage());
+                entries.clear();
+            } finally {
+                StreamUtil.closeQuietly(stream);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache configured with {@link GlobalConfiguration#CHECKSUM_CACHE_FILE}, or null if checksum caching is not enabled.
+     */
+    public static synchronized CheckSumCache getInstance() {
+        String fileName = StringUtils.trimToNull(LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getCheckSumCacheFile());
+        if (fileName == null) {
+            return null;
+        }
+        File file = new File(fileName).getAbsoluteFile();
+        if (instance == null || !instance.file.equals(file)) {
+            instance = new CheckSumCache(file);
+        }
+        instance.setVerifyContent(LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getCheckSumCacheVerifyContent());
+        return instance;
+    }
+
+    public boolean isVerifyContent() {
+        return verifyContent;
+    }
+
+    /**
+     * Whether a digest of the file content must match before a cached checksum is reused. False by default, trusting size and last modified time.
+     */
+    public void setVerifyContent(boolean verifyContent) {
+        this.verifyContent = verifyContent;
+    }
+
+    /**
+     * Returns the checksum of the resource at the given path, calling the generator only if the resource changed since the checksum was cached.
+     * The type is part of the key and must identify everything besides the file content that the generator uses.
+     */
+    public CheckSum getCheckSum(String type, String path, ResourceAccessor resourceAccessor, Generator generator) {
+        URL url = resolve(path, resourceAccessor);
+        if (url == null) {
+            return generator.generate();
+        }
+
+        long size;
+        long lastModified;
+        try {
+            if (url.getProtocol().equals("file")) {
+                File resourceFile = new File(url.toURI());
+                size = resourceFile.length();
+                lastModified = resourceFile.lastModified();
+            } else {
+                URLConnection connection = url.openConnection();
+                connection.setUseCaches(false);
+                size = connection.getContentLength();
+                lastModified = connection.getLastModified();
+                StreamUtil.closeQuietly(connection.getInputStream());
+            }
+        } catch (IOException e) {
+            return generator.generate();
+        } catch (URISyntaxException e) {
+            return generator.generate();
+        } catch (IllegalArgumentException e) {
+            return generator.generate();
+        }
+        if (size < 0 || lastModified <= 0) {
+            return generator.generate();
+        }
+
+        String key = type + "|" + url.toExternalForm();
+        String prefix = size + ":" + lastModified + ":";
+        String value;
+        synchronized (this) {
+            value = entries.getProperty(key);
+        }
+        boolean verify = verifyContent;
+        String contentDigest = null;
+        if (value != null && value.startsWith(prefix)) {
+            String cached = value.substring(prefix.length());
+            int digestEnd = cached.indexOf(':');
+            if (digestEnd >= 0) {
+                String cachedDigest = cached.substring(0, digestEnd);
+                boolean contentMatches = true;
+                if (verify) {
+                    contentDigest = computeContentDigest(url);
+                    contentMatches = contentDigest != null && contentDigest.equals(cachedDigest);
+                }
+                if (contentMatches) {
+                    CheckSum checkSum = CheckSum.parse(cached.substring(digestEnd + 1));
+                    if (checkSum.getVersion() == CheckSum.getCurrentVersion()) {
+                        return checkSum;
+                    }
+                }
+            }
+        }
+
+        CheckSum checkSum = generator.generate();
+        if (checkSum != null) {
+            if (verify && contentDigest == null) {
+                contentDigest = computeContentDigest(url);
+                if (contentDigest == null) {
+                    return checkSum;
+                }
+            }
+            synchronized (this) {
+                entries.setProperty(key, prefix + (contentDigest == null ? "" : contentDigest) + ":" + checkSum.toString());
+                modified = true;
+            }
+        }
+        return checkSum;
+    }
+
+    /**
+     * Returns the MD5 digest of the raw bytes of the resource, or null if it cannot be read.
+     */
+    protected String computeContentDigest(URL url) {
+        InputStream stream = null;
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            stream = connection.getInputStream();
+            return MD5Util.computeMD5(stream);
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            LogFactory.getLogger().debug("Cannot compute digest of " + url + " for checksum caching", e);
+            return null;
+        } finally {
+            StreamUtil.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Writes the cache to disk if any entry was added or replaced since it was loaded or last saved.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        OutputStream stream = null;
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            stream = new FileOutputStream(file);
+            entries.store(stream, "Liquibase checksum cache");
+            modified = false;
+        } catch (IOException e) {
+            LogFactory.getLogger().warning("Cannot write checksum cache " + file.getAbsolutePath() + ": " + e.getMessage());
+        } finally {
+            StreamUtil.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Resolves the path the same way the resource accessors do: absolute files first, then the accessor's class loader, then files relative to the working directory.
+     * Returns null if the path does not resolve to exactly one resource.
+     */
+    protected URL resolve(String path, ResourceAccessor resourceAccessor) {
+        if (path == null || resourceAccessor == null) {
+            return null;
+        }
+        try {
+            File absoluteFile = new File(path);
+            if (absoluteFile.isAbsolute() && absoluteFile.isFile()) {
+                return absoluteFile.toURI().toURL();
+            }
+
+            ClassLoader classLoader = resourceAccessor.toClassLoader();
+            if (classLoader != null) {
+                Enumeration<URL> resources = classLoader.getResources(path);
+                if (resources != null && resources.hasMoreElements()) {
+                    URL url = resources.nextElement();
+                    if (resources.hasMoreElements()) {
+                        return null;
+                    }
+                    return url;
+                }
+            }
+
+            if (absoluteFile.isFile()) {
+                return absoluteFile.getAbsoluteFile().toURI().toURL();
+            }
+        } catch (IOException e) {
+            LogFactory.getLogger().debug("Cannot resolve " + path + " for checksum caching", e);
+        } catch (RuntimeException e) {
+            LogFactory.getLogger().debug("Cannot resolve " + path + " for checksum caching", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package liquibase.change;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatementHandler;
+
+/**
+ * Adding this interface to your Change class allows executors to consume its statements one at a time as they are generated
+ * rather than through the array returned by {@link Change#generateStatements(liquibase.database.Database)}.
+ * Useful for changes such as loadData that can generate an unbounded number of statements.
+ * <p></p>
+ * Implementations must still support {@link Change#generateStatements(liquibase.database.Database)} for callers that need all statements at once.
+ */
+public interface StreamingChange extends Change {
+
+    /**
+     * Generates the same statements as {@link Change#generateStatements(liquibase.database.Database)}, passing each one to the handler as soon as it is created.
+     * Statements should not be retained after they have been handled.
+     */
+    public void generateStatements(Database database, SqlStatementHandler handler) throws DatabaseException;
+
+}
@@ -3,6 +3,7 @@ package liquibase.change.core;
 import liquibase.change.*;
 import liquibase.database.AbstractJdbcDatabase;
 import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.exception.ValidationErrors;
 import liquibase.exception.Warnings;
@@ -10,7 +11,10 @@ import liquibase.logging.LogFactory;
 import liquibase.logging.Logger;
 import liquibase.resource.ResourceAccessor;
 import liquibase.resource.UtfBomAwareReader;
+import liquibase.statement.BatchInsertExecutablePreparedStatement;
+import liquibase.statement.DatabaseFunction;
 import liquibase.statement.SqlStatement;
+import liquibase.statement.SqlStatementHandler;
 import liquibase.statement.core.InsertStatement;
 import liquibase.structure.core.Column;
 import liquibase.util.StreamUtil;
@@ -19,7 +23,9 @@ import liquibase.util.csv.CSVReader;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 
@@ -33,7 +39,7 @@ import java.util.Set;
                 "Once the date format string is set, Liquibase will then call the SimpleDateFormat.parse() method attempting to parse the input string so that it can return a Date/Time. If problems occur, then a ParseException is thrown and the input string is treated as a String for the INSERT command to be generated.",
         priority = ChangeMetaData.PRIORITY_DEFAULT, appliesTo = "table",
         since="1.7")
-public class LoadDataChange extends AbstractChange implements ChangeWithColumns<LoadDataColumnConfig> {
+public class LoadDataChange extends AbstractChange implements ChangeWithColumns<LoadDataColumnConfig>, StreamingChange {
 
     private String catalogName;
     private String schemaName;
@@ -42,6 +48,8 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
     private String encoding = null;
     private String separator = liquibase.util.csv.opencsv.CSVReader.DEFAULT_SEPARATOR + "";
 	private String quotchar = liquibase.util.csv.opencsv.CSVReader.DEFAULT_QUOTE_CHARACTER + "";
+    private Integer batchSize;
+    private Boolean commitBatches;
 
 
     private List<LoadDataColumnConfig> columns = new ArrayList<LoadDataColumnConfig>();
@@ -124,6 +132,24 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
 		this.quotchar = quotchar;
 	}
 
+    @DatabaseChangeProperty(since = "3.3", exampleValue = "1000", description = "If set, rows are inserted with a single prepared statement executed as JDBC batches of this many rows. Columns of type COMPUTED disable batching")
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @DatabaseChangeProperty(since = "3.3", description = "If true, commit after each batch of rows is inserted. Only use with runInTransaction=\"false\" change sets")
+    public Boolean getCommitBatches() {
+        return commitBatches;
+    }
+
+    public void setCommitBatches(Boolean commitBatches) {
+        this.commitBatches = commitBatches;
+    }
+
 	@Override
     public void addColumn(LoadDataColumnConfig column) {
       	columns.add(column);
@@ -142,6 +168,45 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
 
     @Override
     public SqlStatement[] generateStatements(Database database) {
+        final List<SqlStatement> statements = new ArrayList<SqlStatement>();
+        try {
+            generateStatements(database, new SqlStatementHandler() {
+                @Override
+                public void handle(SqlStatement statement) {
+                    statements.add(statement);
+                }
+            }, false);
+        } catch (DatabaseException e) {
+            throw new UnexpectedLiquibaseException(e);
+        } catch (UnexpectedLiquibaseException ule) {
+            if (ignoreFailure(ule)) {
+                return new SqlStatement[0];
+            }
+            throw ule;
+        }
+        return statements.toArray(new SqlStatement[statements.size()]);
+    }
+
+    /**
+     * Reads the CSV file one line at a time, passing each statement to the handler as soon as it is created.
+     * Only the current batch of rows is held in memory, regardless of the size of the file.
+     * If the change set has failOnError=false, rows handled before an error are kept.
+     */
+    @Override
+    public void generateStatements(Database database, SqlStatementHandler handler) throws DatabaseException {
+        try {
+            generateStatements(database, handler, true);
+        } catch (UnexpectedLiquibaseException ule) {
+            if (!ignoreFailure(ule)) {
+                throw ule;
+            }
+        }
+    }
+
+    /**
+     * When streaming, rows are passed to the handler every batchSize rows. Otherwise all rows are combined into a single batch statement.
+     */
+    private void generateStatements(Database database, SqlStatementHandler handler, boolean streaming) throws DatabaseException {
         CSVReader reader = null;
         try {
             reader = getCSVReader();
@@ -155,7 +220,7 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
                 throw new UnexpectedLiquibaseException("Data file "+getFile()+" was empty");
             }
 
-            List<SqlStatement> statements = new ArrayList<SqlStatement>();
+            List<SqlStatement> batch = new ArrayList<SqlStatement>();
             String[] line;
             int lineNumber = 0;
 
@@ -215,20 +280,18 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
 
                     insertStatement.addColumnValue(columnName, value);
                 }
-                statements.add(insertStatement);
+                if (batchSize != null && batchSize > 0) {
+                    batch.add(insertStatement);
+                    if (streaming && batch.size() >= batchSize) {
+                        flushBatch(database, batch, handler);
+                    }
+                } else {
+                    handler.handle(insertStatement);
+                }
             }
-
-            return statements.toArray(new SqlStatement[statements.size()]);
+            flushBatch(database, batch, handler);
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } catch (UnexpectedLiquibaseException ule) {
-                if (getChangeSet() != null && getChangeSet().getFailOnError() != null && !getChangeSet().getFailOnError()) {
-                    Logger log = LogFactory.getLogger();
-                    log.info("Change set " + getChangeSet().toString(false) + " failed, but failOnError was false.  Error: " + ule.getMessage());        
-                    return new SqlStatement[0];
-                } else {
-                    throw ule;
-                }
         } finally {
             if (null != reader) {
 				try {
@@ -240,6 +303,29 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
 		}
     }
 
+    private boolean ignoreFailure(UnexpectedLiquibaseException ule) {
+        if (getChangeSet() != null && getChangeSet().getFailOnError() != null && !getChangeSet().getFailOnError()) {
+            Logger log = LogFactory.getLogger();
+            log.info("Change set " + getChangeSet().toString(false) + " failed, but failOnError was false.  Error: " + ule.getMessage());
+            return true;
+        }
+        return false;
+    }
+
+    private void flushBatch(Database database, List<SqlStatement> batch, SqlStatementHandler handler) throws DatabaseException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (canBatch(batch)) {
+            handler.handle(createBatchStatement(database, batch));
+        } else {
+            for (SqlStatement statement : batch) {
+                handler.handle(statement);
+            }
+        }
+        batch.clear();
+    }
+
     @Override
     public boolean generateStatementsVolatile(Database database) {
         return true;
@@ -276,6 +362,68 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
         return new CSVReader(streamReader, separator.charAt(0), quotchar );
     }
 
+    /**
+     * Returns true if the given statements can be replaced by a single {@link BatchInsertExecutablePreparedStatement}.
+     * Requires a batchSize, plain INSERTs with the same columns and only values that can be bound as parameters.
+     */
+    protected boolean canBatch(List<SqlStatement> statements) {
+        if (batchSize == null || batchSize < 1 || statements.isEmpty()) {
+            return false;
+        }
+        Set<String> columnNames = null;
+        for (SqlStatement statement : statements) {
+            if (!statement.getClass().equals(InsertStatement.class)) {
+                return false;
+            }
+            Map<String, Object> columnValues = ((InsertStatement) statement).getColumnValues();
+            if (columnNames == null) {
+                columnNames = columnValues.keySet();
+            } else if (!columnNames.equals(columnValues.keySet())) {
+                return false;
+            }
+            for (Object value : columnValues.values()) {
+                if (value instanceof DatabaseFunction) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    protected BatchInsertExecutablePreparedStatement createBatchStatement(Database database, List<SqlStatement> statements) {
+        List<ColumnConfig> columns = new ArrayList<ColumnConfig>();
+        for (String columnName : ((InsertStatement) statements.get(0)).getColumnValues().keySet()) {
+            columns.add(new ColumnConfig().setName(columnName));
+        }
+
+        List<List<ColumnConfig>> rows = new ArrayList<List<ColumnConfig>>(statements.size());
+        for (SqlStatement statement : statements) {
+            List<ColumnConfig> row = new ArrayList<ColumnConfig>(columns.size());
+            for (Map.Entry<String, Object> entry : ((InsertStatement) statement).getColumnValues().entrySet()) {
+                row.add(toValueConfig(entry.getKey(), entry.getValue()));
+            }
+            rows.add(row);
+        }
+
+        return new BatchInsertExecutablePreparedStatement(database, getCatalogName(), getSchemaName(), getTableName(), columns, rows, batchSize, Boolean.TRUE.equals(commitBatches), getChangeSet(), getResourceAccessor());
+    }
+
+    private ColumnConfig toValueConfig(String columnName, Object value) {
+        ColumnConfig config = new ColumnConfig().setName(columnName);
+        if (value == null || "NULL".equalsIgnoreCase(value.toString())) {
+            return config;
+        } else if (value instanceof Boolean) {
+            config.setValueBoolean((Boolean) value);
+        } else if (value instanceof Number) {
+            config.setValueNumeric((Number) value);
+        } else if (value instanceof Date) {
+            config.setValueDate((Date) value);
+        } else {
+            config.setValue(value.toString());
+        }
+        return config;
+    }
+
     protected InsertStatement createStatement(String catalogName, String schemaName, String tableName){
         return new InsertStatement(catalogName, schemaName,tableName);
     }
@@ -308,6 +456,20 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
 
     @Override
     public CheckSum generateCheckSum() {
+        CheckSumCache checkSumCache = CheckSumCache.getInstance();
+        if (checkSumCache == null) {
+            return CheckSum.compute(getTableName()+":"+generateFileCheckSum());
+        }
+        CheckSum fileCheckSum = checkSumCache.getCheckSum("loadData", getFile(), getResourceAccessor(), new CheckSumCache.Generator() {
+            @Override
+            public CheckSum generate() {
+                return generateFileCheckSum();
+            }
+        });
+        return CheckSum.compute(getTableName()+":"+fileCheckSum);
+    }
+
+    protected CheckSum generateFileCheckSum() {
         InputStream stream = null;
         try {
             stream = StreamUtil.singleInputStream(getFile(), getResourceAccessor());
@@ -315,7 +477,7 @@ public class LoadDataChange extends AbstractChange implements ChangeWithColumns<
                 throw new UnexpectedLiquibaseException(getFile() + " could not be found");
             }
             stream = new BufferedInputStream(stream);
-            return CheckSum.compute(getTableName()+":"+CheckSum.compute(stream, true));
+            return CheckSum.compute(stream, true);
         } catch (IOException e) {
             throw new UnexpectedLiquibaseException(e);
         } finally {
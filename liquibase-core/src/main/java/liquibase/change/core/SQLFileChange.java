@@ -155,6 +155,25 @@ public class SQLFileChange extends AbstractSQLChange {
         }
     }
 
+    /**
+     * Uses the {@link CheckSumCache}, if enabled, so the file is only read again if it changed since its checksum was cached.
+     */
+    @Override
+    public CheckSum generateCheckSum() {
+        CheckSumCache checkSumCache = CheckSumCache.getInstance();
+        if (checkSumCache == null || path == null || super.getSql() != null) {
+            return super.generateCheckSum();
+        }
+
+        String type = "sqlFile:" + getEndDelimiter() + ":" + isSplitStatements() + ":" + isStripComments();
+        return checkSumCache.getCheckSum(type, StreamUtil.resolvePath(path, isRelativeToChangelogFile(), getChangeSet()), getResourceAccessor(), new CheckSumCache.Generator() {
+            @Override
+            public CheckSum generate() {
+                return SQLFileChange.super.generateCheckSum();
+            }
+        });
+    }
+
     @Override
     public void setSql(String sql) {
         if (getChangeSet() != null && getChangeSet().getChangeLogParameters() != null) {
@@ -34,6 +34,7 @@ public class CustomChangeWrapper extends AbstractChange {
 
     /**
      * Non-private access only for testing.
+     * The instance is shared by every run of the change set, so methods configuring and calling it are synchronized on this wrapper.
      */
     CustomChange customChange;
     
@@ -136,7 +137,7 @@ public class CustomChangeWrapper extends AbstractChange {
      * Call the {@link CustomChange#validate(liquibase.database.Database)} method and return the result.
      */
     @Override
-    public ValidationErrors validate(Database database) {
+    public synchronized ValidationErrors validate(Database database) {
         if (!configured) {
             try {
                 configureCustomChange();
@@ -168,7 +169,7 @@ public class CustomChangeWrapper extends AbstractChange {
      * If the CustomChange returns a null SqlStatement array, this method returns an empty array. If a CustomTaskChange is being used, this method will return an empty array.
      */
     @Override
-    public SqlStatement[] generateStatements(Database database) {
+    public synchronized SqlStatement[] generateStatements(Database database) {
         SqlStatement[] statements = null;
         try {
             if (!configured) {
@@ -199,7 +200,7 @@ public class CustomChangeWrapper extends AbstractChange {
      * Any {@link RollbackImpossibleException} exceptions thrown by the CustomChange will thrown by this method.
      */
     @Override
-    public SqlStatement[] generateRollbackStatements(Database database) throws RollbackImpossibleException {
+    public synchronized SqlStatement[] generateRollbackStatements(Database database) throws RollbackImpossibleException {
         SqlStatement[] statements = null;
         try {
             if (!configured) {
@@ -10,11 +10,17 @@ import liquibase.exception.DatabaseHistoryException;
 import liquibase.logging.LogFactory;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractChangeLogHistoryService implements ChangeLogHistoryService {
 
     private Database database;
 
+    private Map<String, RanChangeSet> ranChangeSetIndex;
+    private int indexedRanChangeSetCount;
+
     public Database getDatabase() {
         return database;
     }
@@ -29,6 +35,25 @@ public abstract class AbstractChangeLogHistoryService implements ChangeLogHistor
 
     }
 
+    /**
+     * Writes any history the service has held back and not sent to the database yet. Does not commit.
+     * Services that write history immediately have nothing to do.
+     */
+    public void flush() throws DatabaseException {
+
+    }
+
+    /**
+     * Calls {@link #flush()} on the change history service of the given database if it extends this class.
+     * Called on the update path before committing, so history held back for change sets that ran is committed with them.
+     */
+    public static void flushHistory(Database database) throws DatabaseException {
+        ChangeLogHistoryService changeLogHistoryService = ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database);
+        if (changeLogHistoryService instanceof AbstractChangeLogHistoryService) {
+            ((AbstractChangeLogHistoryService) changeLogHistoryService).flush();
+        }
+    }
+
     public ChangeSet.RunStatus getRunStatus(final ChangeSet changeSet) throws DatabaseException, DatabaseHistoryException {
         RanChangeSet foundRan = getRanChangeSet(changeSet);
 
@@ -73,12 +98,34 @@ public abstract class AbstractChangeLogHistoryService implements ChangeLogHistor
 
     @Override
     public RanChangeSet getRanChangeSet(final ChangeSet changeSet) throws DatabaseException, DatabaseHistoryException {
-        for (RanChangeSet ranChange : getRanChangeSets()) {
-            if (ranChange.isSameAs(changeSet)) {
-                return ranChange;
+        return getRanChangeSetIndex().get(DatabaseChangeLog.normalizeChangeSetKey(changeSet.getFilePath(), changeSet.getAuthor(), changeSet.getId()));
+    }
+
+    /**
+     * Returns the {@link #getRanChangeSets()} keyed by {@link DatabaseChangeLog#normalizeChangeSetKey(String, String, String)}.
+     * If more than one ran change set has the same key, the first one is used.
+     */
+    protected Map<String, RanChangeSet> getRanChangeSetIndex() throws DatabaseException {
+        List<RanChangeSet> ranChangeSets = getRanChangeSets();
+        if (ranChangeSetIndex == null || indexedRanChangeSetCount != ranChangeSets.size()) {
+            Map<String, RanChangeSet> index = new HashMap<String, RanChangeSet>();
+            for (RanChangeSet ranChangeSet : ranChangeSets) {
+                String key = DatabaseChangeLog.normalizeChangeSetKey(ranChangeSet.getChangeLog(), ranChangeSet.getAuthor(), ranChangeSet.getId());
+                if (!index.containsKey(key)) {
+                    index.put(key, ranChangeSet);
+                }
             }
+            ranChangeSetIndex = index;
+            indexedRanChangeSetCount = ranChangeSets.size();
         }
-        return null;
+        return ranChangeSetIndex;
+    }
+
+    /**
+     * Must be called by subclasses whenever the list returned by {@link #getRanChangeSets()} changes.
+     */
+    protected void resetRanChangeSetIndex() {
+        ranChangeSetIndex = null;
     }
 
     @Override
@@ -18,6 +18,7 @@ public class ChangeLogIterator {
     public ChangeLogIterator(DatabaseChangeLog databaseChangeLog, ChangeSetFilter... changeSetFilters) {
         this.databaseChangeLog = databaseChangeLog;
         this.changeSetFilters = Arrays.asList(changeSetFilters);
+        shareRanChangeSetIndexes();
     }
 
     public ChangeLogIterator(List<RanChangeSet> changeSetList, DatabaseChangeLog changeLog, ChangeSetFilter... changeSetFilters) {
@@ -36,11 +37,40 @@ public class ChangeLogIterator {
         });
 
         this.changeSetFilters = Arrays.asList(changeSetFilters);
+        shareRanChangeSetIndexes();
+    }
+
+    /**
+     * Builds one {@link RanChangeSetIndex} per distinct ran change set list and hands it to every filter using that list,
+     * so the ran change sets are indexed once per iterator rather than once per filter.
+     */
+    private void shareRanChangeSetIndexes() {
+        List<RanChangeSetIndex> indexes = new ArrayList<RanChangeSetIndex>();
+        for (ChangeSetFilter filter : this.changeSetFilters) {
+            if (filter instanceof RanChangeSetIndexAware) {
+                List<RanChangeSet> ranChangeSets = ((RanChangeSetIndexAware) filter).getRanChangeSets();
+                RanChangeSetIndex index = null;
+                for (RanChangeSetIndex existing : indexes) {
+                    if (existing.getRanChangeSets() == ranChangeSets || (existing.getRanChangeSets() != null && existing.getRanChangeSets().equals(ranChangeSets))) {
+                        index = existing;
+                        break;
+                    }
+                }
+                if (index == null) {
+                    index = new RanChangeSetIndex(ranChangeSets);
+                    indexes.add(index);
+                }
+                ((RanChangeSetIndexAware) filter).setRanChangeSetIndex(index);
+            }
+        }
     }
 
     public void run(ChangeSetVisitor visitor, RuntimeEnvironment env) throws LiquibaseException {
       Logger log = LogFactory.getLogger();
+      RuntimeEnvironment previousEnv = databaseChangeLog.getRuntimeEnvironment();
+      RuntimeEnvironment previousCurrentEnv = RuntimeEnvironment.getCurrent();
       databaseChangeLog.setRuntimeEnvironment(env);
+      RuntimeEnvironment.setCurrent(env);
       log.setChangeLog(databaseChangeLog);
         try {
             List<ChangeSet> changeSetList = new ArrayList<ChangeSet>(databaseChangeLog.getChangeSets());
@@ -48,40 +78,97 @@ public class ChangeLogIterator {
                 Collections.reverse(changeSetList);
             }
 
+            FilterResults acceptedResults = new FilterResults(changeSetFilters.size());
+            FilterResults deniedResults = new FilterResults(1);
             for (ChangeSet changeSet : changeSetList) {
                 boolean shouldVisit = true;
-                Set<ChangeSetFilterResult> reasonsAccepted = new HashSet<ChangeSetFilterResult>();
-                Set<ChangeSetFilterResult> reasonsDenied = new HashSet<ChangeSetFilterResult>();
-                if (changeSetFilters != null) {
-                    for (ChangeSetFilter filter : changeSetFilters) {
-                        ChangeSetFilterResult acceptsResult = filter.accepts(changeSet);
-                        if (acceptsResult.isAccepted()) {
-                            reasonsAccepted.add(acceptsResult);
-                        } else {
-                            shouldVisit = false;
-                            reasonsDenied.add(acceptsResult);
-                            break;
-                        }
+                acceptedResults.clear();
+                deniedResults.clear();
+                for (ChangeSetFilter filter : changeSetFilters) {
+                    ChangeSetFilterResult acceptsResult = filter.accepts(changeSet);
+                    if (acceptsResult.isAccepted()) {
+                        acceptedResults.add(acceptsResult);
+                    } else {
+                        shouldVisit = false;
+                        deniedResults.add(acceptsResult);
+                        break;
                     }
                 }
 
                 log.setChangeSet(changeSet);
                 if (shouldVisit) {
-                    visitor.visit(changeSet, databaseChangeLog, env.getTargetDatabase(), reasonsAccepted);
+                    visitor.visit(changeSet, databaseChangeLog, env.getTargetDatabase(), acceptedResults.toSet());
                 } else {
                     if (visitor instanceof SkippedChangeSetVisitor) {
-                        ((SkippedChangeSetVisitor) visitor).skipped(changeSet, databaseChangeLog, env.getTargetDatabase(), reasonsDenied);
+                        ((SkippedChangeSetVisitor) visitor).skipped(changeSet, databaseChangeLog, env.getTargetDatabase(), deniedResults.toSet());
                     }
                 }
                 log.setChangeSet(null);
             }
         } finally {
             log.setChangeLog(null);
-            databaseChangeLog.setRuntimeEnvironment(null);
+            databaseChangeLog.setRuntimeEnvironment(previousEnv);
+            RuntimeEnvironment.setCurrent(previousCurrentEnv);
         }
     }
 
     public List<ChangeSetFilter> getChangeSetFilters() {
         return Collections.unmodifiableList(changeSetFilters);
     }
+
+    /**
+     * Collects the filter results for one change set.
+     * Filters return shared result instances wherever the message does not depend on the change set,
+     * so when a change set produces the same results as the previous one the previously built set is handed out again instead of allocating a new one.
+     * The sets passed to visitors are unmodifiable because they may be shared between change sets.
+     */
+    private static class FilterResults {
+        private final ChangeSetFilterResult[] results;
+        private int size;
+
+        private ChangeSetFilterResult[] lastResults;
+        private int lastSize = -1;
+        private Set<ChangeSetFilterResult> lastSet;
+
+        private FilterResults(int capacity) {
+            this.results = new ChangeSetFilterResult[capacity];
+            this.lastResults = new ChangeSetFilterResult[capacity];
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private void add(ChangeSetFilterResult result) {
+            results[size++] = result;
+        }
+
+        private Set<ChangeSetFilterResult> toSet() {
+            if (lastSet != null && lastSize == size) {
+                boolean same = true;
+                for (int i = 0; i < size; i++) {
+                    if (results[i] != lastResults[i]) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    return lastSet;
+                }
+            }
+
+            Set<ChangeSetFilterResult> set;
+            if (size == 0) {
+                set = Collections.emptySet();
+            } else if (size == 1) {
+                set = Collections.singleton(results[0]);
+            } else {
+                set = Collections.unmodifiableSet(new HashSet<ChangeSetFilterResult>(Arrays.asList(results).subList(0, size)));
+            }
+            System.arraycopy(results, 0, lastResults, 0, size);
+            lastSize = size;
+            lastSet = set;
+            return set;
+        }
+    }
 }
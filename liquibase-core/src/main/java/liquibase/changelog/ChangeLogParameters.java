@@ -14,22 +14,29 @@ import liquibase.util.StringUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ChangeLogParameters {
 	
-    private List<ChangeLogParameter> changeLogParameters = new ArrayList<ChangeLogParameter>();
+    private List<ChangeLogParameter> changeLogParameters = new CopyOnWriteArrayList<ChangeLogParameter>();
     private ExpressionExpander expressionExpander;
     private Database currentDatabase;
     private Contexts currentContexts;
     private LabelExpression currentLabelExpression;
+    private final ThreadLocal<Recording> recording = new ThreadLocal<Recording>();
+    private final ChangeLogParameters parent;
+    private final Recording scopeRecording;
+    private volatile boolean merged;
 
     public ChangeLogParameters() {
-        this(null);
+        this((Database) null);
     }
 
     public ChangeLogParameters(Database database) {
+        this.parent = null;
+        this.scopeRecording = null;
         for (Map.Entry entry : System.getProperties().entrySet()) {
             changeLogParameters.add(new ChangeLogParameter(entry.getKey().toString(), entry.getValue()));
         }
@@ -79,6 +86,44 @@ public class ChangeLogParameters {
         this.currentLabelExpression = new LabelExpression();
     }
 
+    /**
+     * Scope for parsing an included file ahead of time, see {@link #createScope()}.
+     */
+    protected ChangeLogParameters(ChangeLogParameters parent) {
+        this.parent = parent;
+        this.scopeRecording = new Recording();
+        this.expressionExpander = new ExpressionExpander(this);
+        this.currentDatabase = parent.currentDatabase;
+        this.currentContexts = parent.currentContexts;
+        this.currentLabelExpression = parent.currentLabelExpression;
+    }
+
+    /**
+     * Returns parameters to parse an included file with before the files included ahead of it have been merged, typically in another thread.
+     * Lookups see the parameters defined in this object first, as they would when parsing sequentially, then the ones the included file defines itself.
+     * Definitions stay local to the scope and every definition and lookup is recorded until {@link #mergeScope(ChangeLogParameters)} applies them in changelog order.
+     */
+    public ChangeLogParameters createScope() {
+        return new ChangeLogParameters(this);
+    }
+
+    /**
+     * Replays the definitions and lookups recorded by a scope created with {@link #createScope()} against these parameters.
+     * Returns false if a lookup would now return a different value, for example because a file included earlier defined the same parameter.
+     * The file must then be parsed again with these parameters. Once merged, the scope reads and writes through to these parameters,
+     * so change sets that kept a reference to it see the same values as all others.
+     */
+    public boolean mergeScope(ChangeLogParameters scope) {
+        if (scope.parent != this || scope.merged) {
+            throw new IllegalArgumentException("Not an unmerged scope of these parameters");
+        }
+        if (!scope.scopeRecording.replay(this)) {
+            return false;
+        }
+        scope.merged = true;
+        return true;
+    }
+
     public void setContexts(Contexts contexts) {
         this.currentContexts = contexts;
     }
@@ -88,14 +133,38 @@ public class ChangeLogParameters {
     }
 
     public void set(String paramter, Object value) {
+        if (merged) {
+            parent.set(paramter, value);
+            return;
+        }
         changeLogParameters.add(new ChangeLogParameter(paramter, value));
+        if (scopeRecording != null) {
+            scopeRecording.addEvent(new RecordedEvent(true, paramter, value == null ? null : value.toString(), null, null, null));
+        }
     }
 
     public void set(String key, String value, String contexts, String labels, String databases) {
         set(key, value, new ContextExpression(contexts), new Labels(labels), databases);
     }
     public void set(String key, String value, ContextExpression contexts, Labels labels, String databases) {
+        if (merged) {
+            parent.set(key, value, contexts, labels, databases);
+            return;
+        }
         changeLogParameters.add(new ChangeLogParameter(key, value, contexts, labels, databases));
+        Recording recording = this.recording.get();
+        if (recording != null || scopeRecording != null) {
+            RecordedEvent event = new RecordedEvent(true, key, value,
+                    contexts == null ? null : StringUtils.join(contexts.getContexts(), ","),
+                    labels == null ? null : StringUtils.join(labels.getLabels(), ","),
+                    databases);
+            if (recording != null) {
+                recording.events.add(event);
+            }
+            if (scopeRecording != null) {
+                scopeRecording.addEvent(event);
+            }
+        }
     }
 
     /**
@@ -107,10 +176,58 @@ public class ChangeLogParameters {
      */
     public Object getValue(String key) {
         ChangeLogParameter parameter = findParameter(key);
-        return parameter != null ? parameter.getValue() : null;
+        Object value = parameter != null ? parameter.getValue() : null;
+        Recording recording = this.recording.get();
+        if (recording != null || (scopeRecording != null && !merged)) {
+            RecordedEvent event = new RecordedEvent(false, key, value == null ? null : value.toString(), null, null, null);
+            if (recording != null) {
+                recording.events.add(event);
+            }
+            if (scopeRecording != null && !merged) {
+                scopeRecording.addEvent(event);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Starts recording the parameters defined and looked up by the current thread, until {@link #stopRecording(liquibase.changelog.ChangeLogParameters.Recording)} is called.
+     * Used to cache the result of parsing a changelog file along with the parameter values it depended on.
+     * Recordings can be nested: everything recorded by the inner recording is also added to the enclosing one when it is stopped.
+     */
+    public Recording startRecording() {
+        Recording newRecording = new Recording(recording.get());
+        recording.set(newRecording);
+        return newRecording;
+    }
+
+    public void stopRecording(Recording recording) {
+        Recording previous = recording.previous;
+        if (previous == null) {
+            this.recording.remove();
+        } else {
+            previous.events.addAll(recording.events);
+            for (String dependency : recording.dependencies) {
+                previous.addDependency(dependency);
+            }
+            this.recording.set(previous);
+        }
+    }
+
+    /**
+     * Returns true if the current thread is recording parameter usage. Parsers can use this to record additional files they read through {@link #getRecording()}.
+     */
+    public Recording getRecording() {
+        return recording.get();
     }
 
     private ChangeLogParameter findParameter(String key) {
+        if (parent != null) {
+            ChangeLogParameter parameter = parent.findParameter(key);
+            if (parameter != null || merged) {
+                return parameter;
+            }
+        }
         for (ChangeLogParameter param : changeLogParameters) {
             if (param.getKey().equalsIgnoreCase(key) && param.isValid()) {
                 return param;
@@ -240,4 +357,110 @@ public class ChangeLogParameters {
             return text;
         }
     }
+
+    /**
+     * Parameters defined and looked up while recording, in the order it happened, plus any additional files the parser read.
+     */
+    public static class Recording {
+        private final Recording previous;
+        private final List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+        private final List<String> dependencies = new ArrayList<String>();
+
+        public Recording() {
+            this(null);
+        }
+
+        private Recording(Recording previous) {
+            this.previous = previous;
+        }
+
+        public List<RecordedEvent> getEvents() {
+            return events;
+        }
+
+        public void addEvent(RecordedEvent event) {
+            events.add(event);
+        }
+
+        /**
+         * Paths of files, other than the changelog itself, whose content went into the parsed result.
+         */
+        public List<String> getDependencies() {
+            return dependencies;
+        }
+
+        public void addDependency(String path) {
+            if (!dependencies.contains(path)) {
+                dependencies.add(path);
+            }
+        }
+
+        /**
+         * Replays the recorded events against the given parameters: definitions are set again and lookups are checked against the current values.
+         * Returns false as soon as a lookup returns a different value than when it was recorded. Definitions replayed up to that point are left in place,
+         * which is harmless because parsing the file again defines the same parameters in the same order.
+         */
+        public boolean replay(ChangeLogParameters changeLogParameters) {
+            for (RecordedEvent event : events) {
+                if (event.isDefinition()) {
+                    changeLogParameters.set(event.getKey(), event.getValue(),
+                            event.getContexts() == null ? null : new ContextExpression(event.getContexts()),
+                            event.getLabels() == null ? null : new Labels(event.getLabels()),
+                            event.getDatabases());
+                } else {
+                    Object value = changeLogParameters.getValue(event.getKey());
+                    String currentValue = value == null ? null : value.toString();
+                    if (currentValue == null ? event.getValue() != null : !currentValue.equals(event.getValue())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    public static class RecordedEvent {
+        private final boolean definition;
+        private final String key;
+        private final String value;
+        private final String contexts;
+        private final String labels;
+        private final String databases;
+
+        public RecordedEvent(boolean definition, String key, String value, String contexts, String labels, String databases) {
+            this.definition = definition;
+            this.key = key;
+            this.value = value;
+            this.contexts = contexts;
+            this.labels = labels;
+            this.databases = databases;
+        }
+
+        /**
+         * True if the parameter was defined, false if it was looked up.
+         */
+        public boolean isDefinition() {
+            return definition;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getContexts() {
+            return contexts;
+        }
+
+        public String getLabels() {
+            return labels;
+        }
+
+        public String getDatabases() {
+            return databases;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package liquibase.changelog;
 
 import liquibase.ContextExpression;
+import liquibase.RuntimeEnvironment;
 import liquibase.Labels;
 import liquibase.change.Change;
 import liquibase.change.ChangeFactory;
@@ -236,7 +237,7 @@ public class ChangeSet implements Conditional, LiquibaseSerializable {
             stringToMD5.append(change.generateCheckSum()).append(":");
         }
 
-        for (SqlVisitor visitor : this.getSqlVisitors()) {
+        for (SqlVisitor visitor : getSqlVisitors(RuntimeEnvironment.getCurrent())) {
             stringToMD5.append(visitor.generateCheckSum()).append(";");
         }
 
@@ -430,6 +431,11 @@ public class ChangeSet implements Conditional, LiquibaseSerializable {
         if (validationFailed) {
             return ExecType.MARK_RAN;
         }
+        RuntimeEnvironment runtimeEnvironment = databaseChangeLog == null ? null : databaseChangeLog.getRuntimeEnvironment();
+        if (runtimeEnvironment != null && runtimeEnvironment.isValidationFailed(this)) {
+            return ExecType.MARK_RAN;
+        }
+        List<SqlVisitor> sqlVisitors = getSqlVisitors(runtimeEnvironment == null ? RuntimeEnvironment.getCurrent() : runtimeEnvironment);
 
         long startTime = new Date().getTime();
 
@@ -594,6 +600,7 @@ public class ChangeSet implements Conditional, LiquibaseSerializable {
     }
 
     public void rollback(Database database) throws RollbackFailedException {
+        List<SqlVisitor> sqlVisitors = getSqlVisitors(RuntimeEnvironment.getCurrent());
         try {
             Executor executor = ExecutorService.getInstance().getExecutor(database);
             executor.comment("Rolling Back ChangeSet: " + toString());
@@ -869,6 +876,17 @@ public class ChangeSet implements Conditional, LiquibaseSerializable {
         return sqlVisitors;
     }
 
+    /**
+     * Returns the sql visitors that apply to the given run, leaving out those the run's change set filters excluded.
+     * Returns all sql visitors if runtimeEnvironment is null.
+     */
+    public List<SqlVisitor> getSqlVisitors(RuntimeEnvironment runtimeEnvironment) {
+        if (runtimeEnvironment == null) {
+            return sqlVisitors;
+        }
+        return runtimeEnvironment.getSqlVisitors(this);
+    }
+
     public ChangeLogParameters getChangeLogParameters() {
         return changeLogParameters;
     }
@@ -12,6 +12,7 @@ import liquibase.database.ObjectQuotingStrategy;
 import liquibase.exception.*;
 import liquibase.logging.LogFactory;
 import liquibase.logging.Logger;
+import liquibase.parser.ChangeLogParseExecutor;
 import liquibase.parser.ChangeLogParserFactory;
 import liquibase.parser.core.ParsedNode;
 import liquibase.parser.core.ParsedNodeException;
@@ -21,7 +22,9 @@ import liquibase.resource.ResourceAccessor;
 import liquibase.util.file.FilenameUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.FutureTask;
 
 /**
  * Encapsulates the information stored in the change log XML file.
@@ -32,10 +35,13 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
     private String logicalFilePath;
     private ObjectQuotingStrategy objectQuotingStrategy;
 
-    private List<ChangeSet> changeSets = new ArrayList<ChangeSet>();
+    private ChangeSetList changeSets = new ChangeSetList();
+    private Map<String, List<ChangeSet>> changeSetIndex;
+    private int indexedModificationCount;
     private ChangeLogParameters changeLogParameters;
+    private Map<String, PrefetchedInclude> prefetchedIncludes;
 
-    private RuntimeEnvironment runtimeEnvironment;
+    private final ThreadLocal<RuntimeEnvironment> runtimeEnvironment = new ThreadLocal<RuntimeEnvironment>();
 
     public DatabaseChangeLog() {
     }
@@ -44,12 +50,20 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         this.physicalFilePath = physicalFilePath;
     }
 
+    /**
+     * Returns the environment of the {@link ChangeLogIterator} currently running this changelog in the calling thread, or null if it is not being run.
+     * The environment is tracked per thread so the same changelog can be run against several databases concurrently.
+     */
     public RuntimeEnvironment getRuntimeEnvironment() {
-        return runtimeEnvironment;
+        return runtimeEnvironment.get();
     }
 
     public void setRuntimeEnvironment(RuntimeEnvironment runtimeEnvironment) {
-        this.runtimeEnvironment = runtimeEnvironment;
+        if (runtimeEnvironment == null) {
+            this.runtimeEnvironment.remove();
+        } else {
+            this.runtimeEnvironment.set(runtimeEnvironment);
+        }
     }
 
     @Override
@@ -123,15 +137,16 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
 
 
     public ChangeSet getChangeSet(String path, String author, String id) {
-        for (ChangeSet changeSet : changeSets) {
-            if (changeSet.getFilePath().equalsIgnoreCase(path)
-                    && changeSet.getAuthor().equalsIgnoreCase(author)
-                    && changeSet.getId().equalsIgnoreCase(id)
-                    && (changeSet.getDbmsSet() == null
+        List<ChangeSet> candidates = getChangeSetIndex().get(normalizeChangeSetKey(path, author, id));
+        if (candidates == null) {
+            return null;
+        }
+        for (ChangeSet changeSet : candidates) {
+            if (changeSet.getDbmsSet() == null
                     || changeLogParameters == null
                     || changeLogParameters.getValue("database.typeName") == null
                     || changeSet.getDbmsSet().isEmpty()
-                    || changeSet.getDbmsSet().contains(changeLogParameters.getValue("database.typeName").toString()))) {
+                    || changeSet.getDbmsSet().contains(changeLogParameters.getValue("database.typeName").toString())) {
                 return changeSet;
             }
         }
@@ -139,12 +154,62 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         return null;
     }
 
+    /**
+     * Returns the key used to look up change sets by path, author and id.
+     * Matching is case insensitive and treats back and forward slashes in paths as equivalent.
+     */
+    public static String normalizeChangeSetKey(String path, String author, String id) {
+        StringBuilder key = new StringBuilder();
+        if (path != null) {
+            key.append(path.replace('\\', '/').toLowerCase(Locale.ENGLISH));
+        }
+        key.append("::");
+        if (id != null) {
+            key.append(id.toLowerCase(Locale.ENGLISH));
+        }
+        key.append("::");
+        if (author != null) {
+            key.append(author.toLowerCase(Locale.ENGLISH));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Index of change sets by {@link #normalizeChangeSetKey(String, String, String)}, in changelog order.
+     * Rebuilt whenever the change set list was modified directly through {@link #getChangeSets()}.
+     */
+    private Map<String, List<ChangeSet>> getChangeSetIndex() {
+        if (changeSetIndex == null || indexedModificationCount != changeSets.getModificationCount()) {
+            changeSetIndex = new HashMap<String, List<ChangeSet>>();
+            for (ChangeSet changeSet : changeSets) {
+                addToIndex(changeSet);
+            }
+            indexedModificationCount = changeSets.getModificationCount();
+        }
+        return changeSetIndex;
+    }
+
+    private void addToIndex(ChangeSet changeSet) {
+        String key = normalizeChangeSetKey(changeSet.getFilePath(), changeSet.getAuthor(), changeSet.getId());
+        List<ChangeSet> indexed = changeSetIndex.get(key);
+        if (indexed == null) {
+            indexed = new ArrayList<ChangeSet>(1);
+            changeSetIndex.put(key, indexed);
+        }
+        indexed.add(changeSet);
+    }
+
     public List<ChangeSet> getChangeSets() {
         return changeSets;
     }
 
     public void addChangeSet(ChangeSet changeSet) {
+        boolean indexCurrent = changeSetIndex != null && indexedModificationCount == changeSets.getModificationCount();
         this.changeSets.add(changeSet);
+        if (indexCurrent) {
+            addToIndex(changeSet);
+            indexedModificationCount = changeSets.getModificationCount();
+        }
     }
 
     @Override
@@ -174,13 +239,35 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         this.validate(database, contexts, new LabelExpression());
     }
 
+    /**
+     * Validates the changelog against the database. Change sets that fail validation but should be marked as ran are flagged on the change set itself.
+     * Use {@link #validate(liquibase.RuntimeEnvironment)} and pass the same environment to the {@link ChangeLogIterator} that runs the changelog
+     * to keep that result out of the shared changelog.
+     */
     public void validate(Database database, Contexts contexts, LabelExpression labelExpression) throws LiquibaseException {
+        RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(database, contexts, labelExpression);
+        try {
+            validate(runtimeEnvironment);
+        } finally {
+            for (ChangeSet changeSet : getChangeSets()) {
+                if (runtimeEnvironment.isValidationFailed(changeSet)) {
+                    changeSet.setValidationFailed(true);
+                }
+            }
+        }
+    }
 
-        ChangeLogIterator logIterator = new ChangeLogIterator(this, new DbmsChangeSetFilter(database), new ContextChangeSetFilter(contexts), new LabelChangeSetFilter(labelExpression));
+    /**
+     * Validates the changelog against the environment's target database.
+     * Change sets that fail validation but should be marked as ran are recorded in the environment, which should then be used to run the changelog.
+     */
+    public void validate(RuntimeEnvironment runtimeEnvironment) throws LiquibaseException {
+        Database database = runtimeEnvironment.getTargetDatabase();
+        ChangeLogIterator logIterator = new ChangeLogIterator(this, new DbmsChangeSetFilter(database), new ContextChangeSetFilter(runtimeEnvironment.getContexts()), new LabelChangeSetFilter(runtimeEnvironment.getLabels()));
 
         ValidatingVisitor validatingVisitor = new ValidatingVisitor(database.getRanChangeSetList());
         validatingVisitor.validate(database, this);
-        logIterator.run(validatingVisitor, new RuntimeEnvironment(database, contexts, labelExpression));
+        logIterator.run(validatingVisitor, runtimeEnvironment);
 
         for (String message : validatingVisitor.getWarnings().getMessages()) {
             LogFactory.getLogger().warning(message);
@@ -198,9 +285,58 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
     public void load(ParsedNode parsedNode, ResourceAccessor resourceAccessor) throws ParsedNodeException, SetupException {
         setLogicalFilePath(parsedNode.getChildValue(null, "logicalFilePath", String.class));
 
-        for (ParsedNode childNode : parsedNode.getChildren()) {
-            handleChildNode(childNode, resourceAccessor);
+        ChangeLogParseExecutor parseExecutor = ChangeLogParseExecutor.getInstance();
+        if (parseExecutor != null) {
+            prefetchIncludes(parsedNode, parseExecutor, resourceAccessor);
+        }
+        try {
+            for (ParsedNode childNode : parsedNode.getChildren()) {
+                handleChildNode(childNode, resourceAccessor);
+            }
+        } finally {
+            if (prefetchedIncludes != null) {
+                for (PrefetchedInclude prefetched : prefetchedIncludes.values()) {
+                    prefetched.task.cancel(false);
+                }
+                prefetchedIncludes = null;
+            }
+        }
+    }
+
+    /**
+     * Queues every file included by the given node to be parsed by the parse executor.
+     * {@link #include(String, boolean, liquibase.resource.ResourceAccessor)} then picks up the results in changelog order, so the merged change sets are the same as with sequential parsing.
+     * Each file is parsed with its own {@link ChangeLogParameters#createScope() parameter scope}, merged in changelog order as well.
+     * A file whose parameter lookups depended on parameters defined by a file included before it is parsed again when it is reached.
+     * Includes that cannot be resolved up front are left to be parsed, and to report their errors, when they are reached.
+     */
+    protected void prefetchIncludes(ParsedNode parsedNode, ChangeLogParseExecutor parseExecutor, ResourceAccessor resourceAccessor) throws ParsedNodeException {
+        prefetchedIncludes = new HashMap<String, PrefetchedInclude>();
+        for (ParsedNode node : parsedNode.getChildren()) {
+            String nodeName = node.getName();
+            if (nodeName.equals("include")) {
+                String path = node.getChildValue(null, "file", String.class);
+                if (path != null) {
+                    prefetchInclude(getIncludeFilePath(path.replace('\\', '/'), node.getChildValue(null, "relativeToChangelogFile", false)), parseExecutor, resourceAccessor);
+                }
+            } else if (nodeName.equals("includeAll")) {
+                try {
+                    for (String path : findIncludeAllResources(node.getChildValue(null, "path", String.class), node.getChildValue(null, "relativeToChangelogFile", false), createIncludeAllFilter(node), getStandardChangeLogComparator(), resourceAccessor)) {
+                        prefetchInclude(path, parseExecutor, resourceAccessor);
+                    }
+                } catch (Exception e) {
+                    LogFactory.getLogger().debug("Not parsing includeAll ahead of time: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void prefetchInclude(String fileName, ChangeLogParseExecutor parseExecutor, ResourceAccessor resourceAccessor) {
+        if (isIgnoredInclude(fileName) || prefetchedIncludes.containsKey(fileName)) {
+            return;
         }
+        ChangeLogParameters scope = changeLogParameters == null ? null : changeLogParameters.createScope();
+        prefetchedIncludes.put(fileName, new PrefetchedInclude(parseExecutor.submit(fileName, scope, resourceAccessor), scope));
     }
 
     protected void handleChildNode(ParsedNode node, ResourceAccessor resourceAccessor) throws ParsedNodeException, SetupException {
@@ -217,17 +353,7 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
             }
         } else if (nodeName.equals("includeAll")) {
             String path = node.getChildValue(null, "path", String.class);
-            String resourceFilterDef = node.getChildValue(null, "resourceFilter", String.class);
-            IncludeAllFilter resourceFilter = null;
-            if (resourceFilterDef != null) {
-                try {
-                    resourceFilter = (IncludeAllFilter) Class.forName(resourceFilterDef).newInstance();
-                } catch (Exception e) {
-                    throw new SetupException(e);
-                }
-            }
-
-            includeAll(path, node.getChildValue(null, "relativeToChangelogFile", false), resourceFilter, getStandardChangeLogComparator(), resourceAccessor);
+            includeAll(path, node.getChildValue(null, "relativeToChangelogFile", false), createIncludeAllFilter(node), getStandardChangeLogComparator(), resourceAccessor);
         } else if (nodeName.equals("preConditions")) {
             this.preconditionContainer = new PreconditionContainer();
             try {
@@ -238,63 +364,91 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         }
     }
 
-    public void includeAll(String pathName, boolean isRelativeToChangelogFile, IncludeAllFilter resourceFilter, Comparator<String> resourceComparator, ResourceAccessor resourceAccessor) throws SetupException {
+    private IncludeAllFilter createIncludeAllFilter(ParsedNode node) throws ParsedNodeException, SetupException {
+        String resourceFilterDef = node.getChildValue(null, "resourceFilter", String.class);
+        if (resourceFilterDef == null) {
+            return null;
+        }
         try {
-            pathName = pathName.replace('\\', '/');
+            return (IncludeAllFilter) Class.forName(resourceFilterDef).newInstance();
+        } catch (Exception e) {
+            throw new SetupException(e);
+        }
+    }
 
-            if (!(pathName.endsWith("/"))) {
-                pathName = pathName + '/';
+    public void includeAll(String pathName, boolean isRelativeToChangelogFile, IncludeAllFilter resourceFilter, Comparator<String> resourceComparator, ResourceAccessor resourceAccessor) throws SetupException {
+        try {
+            for (String path : findIncludeAllResources(pathName, isRelativeToChangelogFile, resourceFilter, resourceComparator, resourceAccessor)) {
+                include(path, false, resourceAccessor);
             }
-            Logger log = LogFactory.getInstance().getLog();
-            log.debug("includeAll for " + pathName);
-            log.debug("Using file opener for includeAll: " + resourceAccessor.toString());
+        } catch (Exception e) {
+            throw new SetupException(e);
+        }
+    }
 
-            String relativeTo = null;
-            if (isRelativeToChangelogFile) {
-                relativeTo = this.getPhysicalFilePath();
-            }
+    /**
+     * Returns the files an includeAll of the given path includes, in the order they are included.
+     */
+    protected SortedSet<String> findIncludeAllResources(String pathName, boolean isRelativeToChangelogFile, IncludeAllFilter resourceFilter, Comparator<String> resourceComparator, ResourceAccessor resourceAccessor) throws IOException, SetupException {
+        pathName = pathName.replace('\\', '/');
 
-            Set<String> unsortedResources = resourceAccessor.list(relativeTo, pathName, true, false, true);
-            SortedSet<String> resources = new TreeSet<String>(resourceComparator);
-            if (unsortedResources != null) {
-                for (String resourcePath : unsortedResources) {
-                    if (resourceFilter == null || resourceFilter.include(resourcePath)) {
-                        resources.add(resourcePath);
-                    }
-                }
-            }
+        if (!(pathName.endsWith("/"))) {
+            pathName = pathName + '/';
+        }
+        Logger log = LogFactory.getInstance().getLog();
+        log.debug("includeAll for " + pathName);
+        log.debug("Using file opener for includeAll: " + resourceAccessor.toString());
 
-            if (resources.size() == 0) {
-                throw new SetupException("Could not find directory or directory was empty for includeAll '" + pathName + "'");
-            }
+        String relativeTo = null;
+        if (isRelativeToChangelogFile) {
+            relativeTo = this.getPhysicalFilePath();
+        }
 
-            for (String path : resources) {
-                include(path, false, resourceAccessor);
+        Set<String> unsortedResources = resourceAccessor.list(relativeTo, pathName, true, false, true);
+        SortedSet<String> resources = new TreeSet<String>(resourceComparator);
+        if (unsortedResources != null) {
+            for (String resourcePath : unsortedResources) {
+                if (resourceFilter == null || resourceFilter.include(resourcePath)) {
+                    resources.add(resourcePath);
+                }
             }
-        } catch (Exception e) {
-            throw new SetupException(e);
         }
+
+        if (resources.size() == 0) {
+            throw new SetupException("Could not find directory or directory was empty for includeAll '" + pathName + "'");
+        }
+        return resources;
     }
 
     protected boolean include(String fileName, boolean isRelativePath, ResourceAccessor resourceAccessor) throws LiquibaseException {
 
-        if (fileName.equalsIgnoreCase(".svn") || fileName.equalsIgnoreCase("cvs")) {
+        if (isIgnoredInclude(fileName)) {
             return false;
         }
 
         String relativeBaseFileName = this.getPhysicalFilePath();
-        if (isRelativePath) {
-            // workaround for FilenameUtils.normalize() returning null for relative paths like ../conf/liquibase.xml
-            String tempFile = FilenameUtils.concat(FilenameUtils.getFullPath(relativeBaseFileName), fileName);
-            if (tempFile != null && new File(tempFile).exists() == true) {
-                fileName = tempFile;
-            } else {
-                fileName = FilenameUtils.getFullPath(relativeBaseFileName) + fileName;
-            }
-        }
+        fileName = getIncludeFilePath(fileName, isRelativePath);
         DatabaseChangeLog changeLog;
         try {
-            changeLog = ChangeLogParserFactory.getInstance().getParser(fileName, resourceAccessor).parse(fileName, changeLogParameters, resourceAccessor);
+            PrefetchedInclude prefetched = prefetchedIncludes == null ? null : prefetchedIncludes.remove(fileName);
+            changeLog = null;
+            if (prefetched != null) {
+                try {
+                    changeLog = ChangeLogParseExecutor.getResult(prefetched.task);
+                } catch (LiquibaseException e) {
+                    if (prefetched.scope == null) {
+                        throw e;
+                    }
+                    LogFactory.getLogger().debug("Parsing " + fileName + " again because parsing it ahead of time failed: " + e.getMessage());
+                }
+                if (changeLog != null && prefetched.scope != null && !changeLogParameters.mergeScope(prefetched.scope)) {
+                    LogFactory.getLogger().debug("Parsing " + fileName + " again because it depends on changelog parameters defined by an earlier include");
+                    changeLog = null;
+                }
+            }
+            if (changeLog == null) {
+                changeLog = ChangeLogParserFactory.getInstance().getParser(fileName, resourceAccessor).parse(fileName, changeLogParameters, resourceAccessor);
+            }
         } catch (UnknownChangelogFormatException e) {
             LogFactory.getInstance().getLog().warning("included file " + relativeBaseFileName + "/" + fileName + " is not a recognized file type");
             return false;
@@ -307,12 +461,33 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
             this.getPreconditions().addNestedPrecondition(preconditions);
         }
         for (ChangeSet changeSet : changeLog.getChangeSets()) {
-            this.changeSets.add(changeSet);
+            addChangeSet(changeSet);
         }
 
         return true;
     }
 
+    private boolean isIgnoredInclude(String fileName) {
+        return fileName.equalsIgnoreCase(".svn") || fileName.equalsIgnoreCase("cvs");
+    }
+
+    /**
+     * Returns the path of an included file, resolved against this changelog's path if isRelativePath is true.
+     */
+    protected String getIncludeFilePath(String fileName, boolean isRelativePath) {
+        if (isRelativePath) {
+            String relativeBaseFileName = this.getPhysicalFilePath();
+            // workaround for FilenameUtils.normalize() returning null for relative paths like ../conf/liquibase.xml
+            String tempFile = FilenameUtils.concat(FilenameUtils.getFullPath(relativeBaseFileName), fileName);
+            if (tempFile != null && new File(tempFile).exists() == true) {
+                return tempFile;
+            } else {
+                return FilenameUtils.getFullPath(relativeBaseFileName) + fileName;
+            }
+        }
+        return fileName;
+    }
+
     protected ChangeSet createChangeSet(ParsedNode node, ResourceAccessor resourceAccessor) throws ParsedNodeException, SetupException {
         ChangeSet changeSet = new ChangeSet(this);
         changeSet.setChangeLogParameters(this.getChangeLogParameters());
@@ -333,4 +508,29 @@ public class DatabaseChangeLog implements Comparable<DatabaseChangeLog>, Conditi
         };
     }
 
+
+    private static class PrefetchedInclude {
+        private final FutureTask<DatabaseChangeLog> task;
+        private final ChangeLogParameters scope;
+
+        private PrefetchedInclude(FutureTask<DatabaseChangeLog> task, ChangeLogParameters scope) {
+            this.task = task;
+            this.scope = scope;
+        }
+    }
+
+    /**
+     * Change set list that counts every modification, including replacements, so the lookup index can tell when it is stale.
+     */
+    private static class ChangeSetList extends ArrayList<ChangeSet> {
+        private int getModificationCount() {
+            return modCount;
+        }
+
+        @Override
+        public ChangeSet set(int index, ChangeSet element) {
+            modCount++;
+            return super.set(index, element);
+        }
+    }
 }
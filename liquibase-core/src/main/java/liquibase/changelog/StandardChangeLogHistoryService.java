@@ -3,6 +3,8 @@ package liquibase.changelog;
 import liquibase.Contexts;
 import liquibase.LabelExpression;
 import liquibase.change.CheckSum;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.Database;
 import liquibase.database.core.SQLiteDatabase;
 import liquibase.exception.DatabaseException;
@@ -26,12 +28,22 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
+/**
+ * Stores the change history in the DATABASECHANGELOG table.
+ * <p></p>
+ * If {@link GlobalConfiguration#CHANGELOG_HISTORY_BATCH_SIZE} is greater than one, rows passed to {@link #setExecType(ChangeSet, ChangeSet.ExecType)}
+ * are held back and written as a single JDBC batch when the batch is full, when the history table is read or modified in another way,
+ * or when the database is committed. Callers that execute a change set commit right after marking it, so its row is still committed together with
+ * the rows held back before it, as soon as the change set itself has been committed.
+ */
 public class StandardChangeLogHistoryService extends AbstractChangeLogHistoryService {
 
     private List<RanChangeSet> ranChangeSetList;
 
     private Integer lastChangeSetSequenceValue;
 
+    private List<MarkChangeSetRanStatement> pendingStatements = new ArrayList<MarkChangeSetRanStatement>();
+
     @Override
     public int getPriority() {
         return PRIORITY_DEFAULT;
@@ -60,6 +72,7 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     public void reset() {
         this.ranChangeSetList = null;
+        resetRanChangeSetIndex();
     }
 
     public boolean hasDatabaseChangeLogTable() throws DatabaseException {
@@ -180,6 +193,7 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
     }
 
     public void upgradeChecksums(final DatabaseChangeLog databaseChangeLog, final Contexts contexts, LabelExpression labels) throws DatabaseException {
+        flush();
         super.upgradeChecksums(databaseChangeLog, contexts, labels);
         getDatabase().commit();
     }
@@ -231,12 +245,14 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
     }
 
     public List<Map<String, ?>> queryDatabaseChangeLogTable(Database database) throws DatabaseException {
+        flush();
         SelectFromDatabaseChangeLogStatement select = new SelectFromDatabaseChangeLogStatement("FILENAME", "AUTHOR", "ID", "MD5SUM", "DATEEXECUTED", "ORDEREXECUTED", "EXECTYPE", "DESCRIPTION", "COMMENTS", "TAG", "LIQUIBASE").setOrderBy("DATEEXECUTED ASC", "ORDEREXECUTED ASC");
         return ExecutorService.getInstance().getExecutor(database).queryForList(select);
     }
 
     @Override
     protected void replaceChecksum(ChangeSet changeSet) throws DatabaseException {
+        flush();
         ExecutorService.getInstance().getExecutor(getDatabase()).execute(new UpdateChangeSetChecksumStatement(changeSet));
 
         getDatabase().commit();
@@ -256,16 +272,28 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
     public void setExecType(ChangeSet changeSet, ChangeSet.ExecType execType) throws DatabaseException {
         Database database = getDatabase();
 
-        ExecutorService.getInstance().getExecutor(database).execute(new MarkChangeSetRanStatement(changeSet, execType));
-        getDatabase().commit();
+        int batchSize = getBatchSize();
+        if (batchSize > 1) {
+            pendingStatements.add(new MarkChangeSetRanStatement(changeSet, execType));
+            if (pendingStatements.size() >= batchSize) {
+                flush();
+                database.commit();
+            }
+        } else {
+            flush();
+            ExecutorService.getInstance().getExecutor(database).execute(new MarkChangeSetRanStatement(changeSet, execType));
+            database.commit();
+        }
         if (this.ranChangeSetList != null) {
             this.ranChangeSetList.add(new RanChangeSet(changeSet, execType));
         }
+        resetRanChangeSetIndex();
 
     }
 
     @Override
     public void removeFromHistory(final ChangeSet changeSet) throws DatabaseException {
+        flush();
         Database database = getDatabase();
         ExecutorService.getInstance().getExecutor(database).execute(new RemoveChangeSetRanStatusStatement(changeSet));
         getDatabase().commit();
@@ -273,6 +301,7 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
         if (this.ranChangeSetList != null) {
             this.ranChangeSetList.remove(new RanChangeSet(changeSet));
         }
+        resetRanChangeSetIndex();
     }
 
     @Override
@@ -288,11 +317,40 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
         return ++lastChangeSetSequenceValue;
     }
 
+    /**
+     * Writes the rows held back by {@link #setExecType(ChangeSet, ChangeSet.ExecType)} as one batch. Does not commit.
+     */
+    @Override
+    public void flush() throws DatabaseException {
+        if (pendingStatements.isEmpty()) {
+            return;
+        }
+        List<MarkChangeSetRanStatement> statements = new ArrayList<MarkChangeSetRanStatement>(pendingStatements);
+        pendingStatements.clear();
+
+        Executor executor = ExecutorService.getInstance().getExecutor(getDatabase());
+        if (statements.size() == 1) {
+            executor.execute(statements.get(0));
+        } else {
+            LogFactory.getLogger().debug("Writing " + statements.size() + " rows to " + getDatabaseChangeLogTableName() + " in one batch");
+            executor.execute(new BatchStatement(statements));
+        }
+    }
+
+    protected int getBatchSize() {
+        Integer batchSize = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getChangeLogHistoryBatchSize();
+        if (batchSize == null) {
+            return 1;
+        }
+        return batchSize;
+    }
+
     /**
      * Tags the database changelog with the given string.
      */
     @Override
     public void tag(final String tagString) throws DatabaseException {
+        flush();
         Database database = getDatabase();
         Executor executor = ExecutorService.getInstance().getExecutor(database);
         try {
@@ -300,6 +358,7 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
             if (totalRows == 0) {
                 ChangeSet emptyChangeSet = new ChangeSet(String.valueOf(new Date().getTime()), "liquibase", false, false, "liquibase-internal", null, null, getDatabase().getObjectQuotingStrategy(), null);
                 this.setExecType(emptyChangeSet, ChangeSet.ExecType.EXECUTED);
+                flush();
             }
 
 //            Timestamp lastExecutedDate = (Timestamp) this.getExecutor().queryForObject(createChangeToTagSQL(), Timestamp.class);
@@ -316,12 +375,14 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     @Override
     public boolean tagExists(final String tag) throws DatabaseException {
+        flush();
         int count = ExecutorService.getInstance().getExecutor(getDatabase()).queryForInt(new SelectFromDatabaseChangeLogStatement(new SelectFromDatabaseChangeLogStatement.ByTag(tag), "COUNT(*)"));
         return count > 0;
     }
 
     @Override
     public void clearAllCheckSums() throws LiquibaseException {
+        flush();
         Database database = getDatabase();
         UpdateStatement updateStatement = new UpdateStatement(database.getLiquibaseCatalogName(), database.getLiquibaseSchemaName(), database.getDatabaseChangeLogTableName());
         updateStatement.addNewColumnValue("MD5SUM", null);
@@ -331,6 +392,7 @@ public class StandardChangeLogHistoryService extends AbstractChangeLogHistorySer
 
     @Override
     public void destroy() throws DatabaseException {
+        pendingStatements.clear();
         Database database = getDatabase();
         try {
             if (SnapshotGeneratorFactory.getInstance().has(new Table().setName(database.getDatabaseChangeLogTableName()).setSchema(database.getLiquibaseCatalogName(), database.getLiquibaseSchemaName()), database)) {
@@ -7,6 +7,9 @@ import java.util.List;
 
 public class AlreadyRanChangeSetFilter extends RanChangeSetFilter {
 
+    private final ChangeSetFilterResult alreadyRanResult = new ChangeSetFilterResult(true, "Change set already ran", this.getClass());
+    private final ChangeSetFilterResult notRanResult = new ChangeSetFilterResult(false, "Change set has not ran", this.getClass());
+
     public AlreadyRanChangeSetFilter(List<RanChangeSet> ranChangeSets) {
         super(ranChangeSets);
     }
@@ -14,9 +17,9 @@ public class AlreadyRanChangeSetFilter extends RanChangeSetFilter {
     @Override
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
         if (getRanChangeSet(changeSet) != null) {
-            return new ChangeSetFilterResult(true, "Change set already ran", this.getClass());
+            return alreadyRanResult;
         } else {
-            return new ChangeSetFilterResult(false, "Change set has not ran", this.getClass());
+            return notRanResult;
         }
     }
 
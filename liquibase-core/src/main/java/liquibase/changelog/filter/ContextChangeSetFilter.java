@@ -1,6 +1,7 @@
 package liquibase.changelog.filter;
 
 import liquibase.Contexts;
+import liquibase.RuntimeEnvironment;
 import liquibase.changelog.ChangeSet;
 import liquibase.sql.visitor.SqlVisitor;
 
@@ -8,6 +9,9 @@ import java.util.*;
 
 public class ContextChangeSetFilter implements ChangeSetFilter {
     private Contexts contexts;
+    private ChangeSetFilterResult noContextsResult;
+    private ChangeSetFilterResult allContextsResult;
+    private ChangeSetFilterResult contextMatchesResult;
 
     public ContextChangeSetFilter() {
         this(new Contexts());
@@ -19,24 +23,34 @@ public class ContextChangeSetFilter implements ChangeSetFilter {
 
     @Override
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        List<SqlVisitor> visitorsToRemove = new ArrayList<SqlVisitor>();
-        for (SqlVisitor visitor : changeSet.getSqlVisitors()) {
-            if (visitor.getContexts() != null && !visitor.getContexts().matches(contexts)) {
-                visitorsToRemove.add(visitor);
+        RuntimeEnvironment runtimeEnvironment = RuntimeEnvironment.getCurrent();
+        if (runtimeEnvironment != null) {
+            for (SqlVisitor visitor : changeSet.getSqlVisitors()) {
+                if (visitor.getContexts() != null && !visitor.getContexts().matches(contexts)) {
+                    runtimeEnvironment.excludeSqlVisitor(visitor);
+                }
             }
         }
-        changeSet.getSqlVisitors().removeAll(visitorsToRemove);
 
         if (contexts == null || contexts.isEmpty()) {
-            return new ChangeSetFilterResult(true, "No runtime context specified, all contexts will run", this.getClass());
+            if (noContextsResult == null) {
+                noContextsResult = new ChangeSetFilterResult(true, "No runtime context specified, all contexts will run", this.getClass());
+            }
+            return noContextsResult;
         }
 
         if (changeSet.getContexts().isEmpty()) {
-            return new ChangeSetFilterResult(true, "Change set runs under all contexts", this.getClass());
+            if (allContextsResult == null) {
+                allContextsResult = new ChangeSetFilterResult(true, "Change set runs under all contexts", this.getClass());
+            }
+            return allContextsResult;
         }
 
         if (changeSet.getContexts().matches(contexts)) {
-            return new ChangeSetFilterResult(true, "Context matches '"+contexts.toString()+"'", this.getClass());
+            if (contextMatchesResult == null) {
+                contextMatchesResult = new ChangeSetFilterResult(true, "Context matches '"+contexts.toString()+"'", this.getClass());
+            }
+            return contextMatchesResult;
         } else {
             return new ChangeSetFilterResult(false, "Context does not match '"+contexts.toString()+"'", this.getClass());
         }
@@ -1,17 +1,16 @@
 package liquibase.changelog.filter;
 
+import liquibase.RuntimeEnvironment;
 import liquibase.changelog.ChangeSet;
 import liquibase.database.Database;
 import liquibase.database.DatabaseList;
 import liquibase.sql.visitor.SqlVisitor;
 import liquibase.util.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class DbmsChangeSetFilter implements ChangeSetFilter {
 
     private Database database;
+    private ChangeSetFilterResult allDatabasesResult;
 
     public DbmsChangeSetFilter(Database database) {
         this.database = database;
@@ -22,17 +21,21 @@ public class DbmsChangeSetFilter implements ChangeSetFilter {
         if (database == null) {
             return new ChangeSetFilterResult(true, "No database connection, cannot evaluate dbms attribute", this.getClass());
         }
-         List<SqlVisitor> visitorsToRemove = new ArrayList<SqlVisitor>();
-        for (SqlVisitor visitor : changeSet.getSqlVisitors()) {
-            if (!DatabaseList.definitionMatches(visitor.getApplicableDbms(), database, true)) {
-                visitorsToRemove.add(visitor);
+        RuntimeEnvironment runtimeEnvironment = RuntimeEnvironment.getCurrent();
+        if (runtimeEnvironment != null) {
+            for (SqlVisitor visitor : changeSet.getSqlVisitors()) {
+                if (!DatabaseList.definitionMatches(visitor.getApplicableDbms(), database, true)) {
+                    runtimeEnvironment.excludeSqlVisitor(visitor);
+                }
             }
         }
-        changeSet.getSqlVisitors().removeAll(visitorsToRemove);
 
         String dbmsList;
         if (changeSet.getDbmsSet() == null || changeSet.getDbmsSet().size() == 0) {
-            dbmsList = "all databases";
+            if (allDatabasesResult == null) {
+                allDatabasesResult = new ChangeSetFilterResult(true, "Database '" + database.getShortName() + "' matches all databases", this.getClass());
+            }
+            return allDatabasesResult;
         } else {
             dbmsList = "'"+StringUtils.join(changeSet.getDbmsSet(), ", ") + "'";
         }
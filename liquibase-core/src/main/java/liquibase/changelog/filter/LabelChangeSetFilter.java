@@ -2,14 +2,15 @@ package liquibase.changelog.filter;
 
 import liquibase.Contexts;
 import liquibase.LabelExpression;
+import liquibase.RuntimeEnvironment;
 import liquibase.changelog.ChangeSet;
 import liquibase.sql.visitor.SqlVisitor;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class LabelChangeSetFilter implements ChangeSetFilter {
     private LabelExpression labelExpression;
+    private ChangeSetFilterResult noLabelsResult;
+    private ChangeSetFilterResult allLabelsResult;
+    private ChangeSetFilterResult labelsMatchResult;
 
     public LabelChangeSetFilter() {
         this(new LabelExpression());
@@ -21,24 +22,34 @@ public class LabelChangeSetFilter implements ChangeSetFilter {
 
     @Override
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        List<SqlVisitor> visitorsToRemove = new ArrayList<SqlVisitor>();
-        for (SqlVisitor visitor : changeSet.getSqlVisitors()) {
-            if (visitor.getLabels() != null && !labelExpression.matches(visitor.getLabels())) {
-                visitorsToRemove.add(visitor);
+        RuntimeEnvironment runtimeEnvironment = RuntimeEnvironment.getCurrent();
+        if (runtimeEnvironment != null) {
+            for (SqlVisitor visitor : changeSet.getSqlVisitors()) {
+                if (visitor.getLabels() != null && !labelExpression.matches(visitor.getLabels())) {
+                    runtimeEnvironment.excludeSqlVisitor(visitor);
+                }
             }
         }
-        changeSet.getSqlVisitors().removeAll(visitorsToRemove);
 
         if (labelExpression == null || labelExpression.isEmpty()) {
-            return new ChangeSetFilterResult(true, "No runtime labels specified, all labels will run", this.getClass());
+            if (noLabelsResult == null) {
+                noLabelsResult = new ChangeSetFilterResult(true, "No runtime labels specified, all labels will run", this.getClass());
+            }
+            return noLabelsResult;
         }
 
         if (changeSet.getLabels() == null || changeSet.getLabels().isEmpty()) {
-            return new ChangeSetFilterResult(true, "Change set runs under all labels", this.getClass());
+            if (allLabelsResult == null) {
+                allLabelsResult = new ChangeSetFilterResult(true, "Change set runs under all labels", this.getClass());
+            }
+            return allLabelsResult;
         }
 
         if (labelExpression.matches(changeSet.getLabels())) {
-            return new ChangeSetFilterResult(true, "Labels matches '"+labelExpression.toString()+"'", this.getClass());
+            if (labelsMatchResult == null) {
+                labelsMatchResult = new ChangeSetFilterResult(true, "Labels matches '"+labelExpression.toString()+"'", this.getClass());
+            }
+            return labelsMatchResult;
         } else {
             return new ChangeSetFilterResult(false, "Labels does not match '"+labelExpression.toString()+"'", this.getClass());
         }
@@ -5,9 +5,14 @@ import liquibase.changelog.RanChangeSet;
 
 import java.util.List;
 
-public class NotRanChangeSetFilter implements ChangeSetFilter {
+public class NotRanChangeSetFilter implements ChangeSetFilter, RanChangeSetIndexAware {
 
     public List<RanChangeSet> ranChangeSets;
+    private RanChangeSetIndex ranChangeSetIndex;
+    private List<RanChangeSet> indexedRanChangeSets;
+
+    private final ChangeSetFilterResult alreadyRanResult = new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
+    private final ChangeSetFilterResult notRanResult = new ChangeSetFilterResult(true, "Change set not yet ran", this.getClass());
 
     public NotRanChangeSetFilter(List<RanChangeSet> ranChangeSets) {
         this.ranChangeSets = ranChangeSets;
@@ -16,13 +21,34 @@ public class NotRanChangeSetFilter implements ChangeSetFilter {
     @Override
     @SuppressWarnings({"RedundantIfStatement"})
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        for (RanChangeSet ranChangeSet : ranChangeSets) {
+        for (RanChangeSet ranChangeSet : getRanChangeSetIndex().getCandidates(changeSet)) {
             if (ranChangeSet.getId().equalsIgnoreCase(changeSet.getId())
                     && ranChangeSet.getAuthor().equalsIgnoreCase(changeSet.getAuthor())
                     && ranChangeSet.getChangeLog().equalsIgnoreCase(changeSet.getFilePath())) {
-                return new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
+                return alreadyRanResult;
             }
         }
-        return new ChangeSetFilterResult(true, "Change set not yet ran", this.getClass());
+        return notRanResult;
+    }
+
+    @Override
+    public List<RanChangeSet> getRanChangeSets() {
+        return ranChangeSets;
+    }
+
+    @Override
+    public void setRanChangeSetIndex(RanChangeSetIndex index) {
+        this.ranChangeSetIndex = index;
+        this.indexedRanChangeSets = ranChangeSets;
+    }
+
+    /**
+     * Returns the index of {@link #ranChangeSets}, rebuilding it if the public field was reassigned since the index was built.
+     */
+    protected RanChangeSetIndex getRanChangeSetIndex() {
+        if (ranChangeSetIndex == null || indexedRanChangeSets != ranChangeSets) {
+            setRanChangeSetIndex(new RanChangeSetIndex(ranChangeSets));
+        }
+        return ranChangeSetIndex;
     }
 }
@@ -5,15 +5,17 @@ import liquibase.changelog.RanChangeSet;
 
 import java.util.List;
 
-public abstract class RanChangeSetFilter implements ChangeSetFilter {
+public abstract class RanChangeSetFilter implements ChangeSetFilter, RanChangeSetIndexAware {
     public List<RanChangeSet> ranChangeSets;
+    private RanChangeSetIndex ranChangeSetIndex;
+    private List<RanChangeSet> indexedRanChangeSets;
 
     public RanChangeSetFilter(List<RanChangeSet> ranChangeSets) {
         this.ranChangeSets = ranChangeSets;
     }
 
     public RanChangeSet getRanChangeSet(ChangeSet changeSet) {
-        for (RanChangeSet ranChangeSet : ranChangeSets) {
+        for (RanChangeSet ranChangeSet : getRanChangeSetIndex().getCandidates(changeSet)) {
             if (ranChangeSet.getId().equalsIgnoreCase(changeSet.getId())
                     && ranChangeSet.getAuthor().equalsIgnoreCase(changeSet.getAuthor())
                     && ranChangeSet.getChangeLog().equalsIgnoreCase(changeSet.getFilePath())) {
@@ -23,4 +25,25 @@ public abstract class RanChangeSetFilter implements ChangeSetFilter {
         return null;
 
     }
+
+    @Override
+    public List<RanChangeSet> getRanChangeSets() {
+        return ranChangeSets;
+    }
+
+    @Override
+    public void setRanChangeSetIndex(RanChangeSetIndex index) {
+        this.ranChangeSetIndex = index;
+        this.indexedRanChangeSets = ranChangeSets;
+    }
+
+    /**
+     * Returns the index of {@link #ranChangeSets}, rebuilding it if the public field was reassigned since the index was built.
+     */
+    protected RanChangeSetIndex getRanChangeSetIndex() {
+        if (ranChangeSetIndex == null || indexedRanChangeSets != ranChangeSets) {
+            setRanChangeSetIndex(new RanChangeSetIndex(ranChangeSets));
+        }
+        return ranChangeSetIndex;
+    }
 }
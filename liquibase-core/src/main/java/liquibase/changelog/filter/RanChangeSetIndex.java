@@ -0,0 +1,70 @@
+package liquibase.changelog.filter;
+
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.changelog.RanChangeSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of {@link RanChangeSet}s by changelog path, author and id, built once so filters do not have to scan the full ran list for every change set.
+ * The index is deliberately loose: ids, authors and paths are compared case insensitively and any "classpath:" prefix is ignored.
+ * Filters use {@link #getCandidates(ChangeSet)} to narrow the search and then apply their own matching rules to the candidates.
+ */
+public class RanChangeSetIndex {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final List<RanChangeSet> ranChangeSets;
+    private final Map<String, List<RanChangeSet>> index;
+
+    public RanChangeSetIndex(List<RanChangeSet> ranChangeSets) {
+        this.ranChangeSets = ranChangeSets;
+        this.index = new HashMap<String, List<RanChangeSet>>();
+        if (ranChangeSets != null) {
+            for (RanChangeSet ranChangeSet : ranChangeSets) {
+                String key = getKey(ranChangeSet.getChangeLog(), ranChangeSet.getAuthor(), ranChangeSet.getId());
+                List<RanChangeSet> candidates = index.get(key);
+                if (candidates == null) {
+                    candidates = new ArrayList<RanChangeSet>(1);
+                    index.put(key, candidates);
+                }
+                candidates.add(ranChangeSet);
+            }
+        }
+    }
+
+    /**
+     * Returns the list this index was built from.
+     */
+    public List<RanChangeSet> getRanChangeSets() {
+        return ranChangeSets;
+    }
+
+    /**
+     * Returns the ran change sets that may match the given change set, in the order they appear in {@link #getRanChangeSets()}.
+     * Never returns null.
+     */
+    public List<RanChangeSet> getCandidates(ChangeSet changeSet) {
+        List<RanChangeSet> candidates = index.get(getKey(changeSet.getFilePath(), changeSet.getAuthor(), changeSet.getId()));
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return ranChangeSets == null ? 0 : ranChangeSets.size();
+    }
+
+    protected static String getKey(String path, String author, String id) {
+        if (path != null && path.regionMatches(true, 0, CLASSPATH_PREFIX, 0, CLASSPATH_PREFIX.length())) {
+            path = path.substring(CLASSPATH_PREFIX.length());
+        }
+        return DatabaseChangeLog.normalizeChangeSetKey(path, author, id);
+    }
+}
@@ -0,0 +1,16 @@
+package liquibase.changelog.filter;
+
+import liquibase.changelog.RanChangeSet;
+
+import java.util.List;
+
+/**
+ * Implemented by {@link ChangeSetFilter}s that look change sets up in the list of ran change sets.
+ * {@link liquibase.changelog.ChangeLogIterator} builds one {@link RanChangeSetIndex} per distinct ran list and shares it between all filters using that list.
+ */
+public interface RanChangeSetIndexAware {
+
+    List<RanChangeSet> getRanChangeSets();
+
+    void setRanChangeSetIndex(RanChangeSetIndex index);
+}
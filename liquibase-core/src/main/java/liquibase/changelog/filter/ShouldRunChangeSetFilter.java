@@ -7,10 +7,16 @@ import liquibase.changelog.RanChangeSet;
 import liquibase.database.Database;
 import liquibase.exception.DatabaseException;
 
-public class ShouldRunChangeSetFilter implements ChangeSetFilter {
+public class ShouldRunChangeSetFilter implements ChangeSetFilter, RanChangeSetIndexAware {
 
     private final List<RanChangeSet> ranChangeSets;
     private final boolean ignoreClasspathPrefix;
+    private RanChangeSetIndex ranChangeSetIndex;
+
+    private final ChangeSetFilterResult alwaysRunsResult = new ChangeSetFilterResult(true, "Change set always runs", this.getClass());
+    private final ChangeSetFilterResult checksumChangedResult = new ChangeSetFilterResult(true, "Change set checksum changed", this.getClass());
+    private final ChangeSetFilterResult alreadyRanResult = new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
+    private final ChangeSetFilterResult notRanResult = new ChangeSetFilterResult(true, "Change set has not ran yet", this.getClass());
 
     public ShouldRunChangeSetFilter(Database database, boolean ignoreClasspathPrefix) throws DatabaseException {
         this.ignoreClasspathPrefix = ignoreClasspathPrefix;
@@ -24,18 +30,39 @@ public class ShouldRunChangeSetFilter implements ChangeSetFilter {
     @Override
     @SuppressWarnings({"RedundantIfStatement"})
     public ChangeSetFilterResult accepts(ChangeSet changeSet) {
-        for (RanChangeSet ranChangeSet : ranChangeSets) {
+        for (RanChangeSet ranChangeSet : getRanChangeSetIndex().getCandidates(changeSet)) {
             if (changeSetsMatch(changeSet, ranChangeSet)) {
                 if (changeSet.shouldAlwaysRun()) {
-                    return new ChangeSetFilterResult(true, "Change set always runs", this.getClass());
+                    return alwaysRunsResult;
                 }
                 if (changeSet.shouldRunOnChange() && checksumChanged(changeSet, ranChangeSet)) {
-                    return new ChangeSetFilterResult(true, "Change set checksum changed", this.getClass());
+                    return checksumChangedResult;
                 }
-                return new ChangeSetFilterResult(false, "Change set already ran", this.getClass());
+                return alreadyRanResult;
             }
         }
-        return new ChangeSetFilterResult(true, "Change set has not ran yet", this.getClass());
+        return notRanResult;
+    }
+
+    @Override
+    public List<RanChangeSet> getRanChangeSets() {
+        return ranChangeSets;
+    }
+
+    @Override
+    public void setRanChangeSetIndex(RanChangeSetIndex index) {
+        this.ranChangeSetIndex = index;
+    }
+
+    /**
+     * Returns the index used to find candidate matches for {@link #changeSetsMatch(ChangeSet, RanChangeSet)}.
+     * Overrides of changeSetsMatch must not match change sets with a different case-insensitive id, author or path.
+     */
+    protected RanChangeSetIndex getRanChangeSetIndex() {
+        if (ranChangeSetIndex == null) {
+            ranChangeSetIndex = new RanChangeSetIndex(ranChangeSets);
+        }
+        return ranChangeSetIndex;
     }
 
     protected boolean changeSetsMatch(ChangeSet changeSet, RanChangeSet ranChangeSet) {
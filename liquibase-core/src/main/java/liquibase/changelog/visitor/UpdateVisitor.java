@@ -1,5 +1,7 @@
 package liquibase.changelog.visitor;
 
+import liquibase.RuntimeEnvironment;
+import liquibase.changelog.AbstractChangeLogHistoryService;
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.ChangeSet.ExecType;
 import liquibase.changelog.ChangeSet.RunStatus;
@@ -8,8 +10,13 @@ import liquibase.changelog.filter.ChangeSetFilterResult;
 import liquibase.database.Database;
 import liquibase.database.ObjectQuotingStrategy;
 import liquibase.exception.LiquibaseException;
+import liquibase.lockservice.LockService;
+import liquibase.lockservice.LockServiceFactory;
+import liquibase.lockservice.StandardLockService;
 import liquibase.logging.LogFactory;
 import liquibase.logging.Logger;
+import liquibase.snapshot.MetadataCache;
+import liquibase.sqlgenerator.GeneratedSqlCache;
 
 import java.util.Set;
 
@@ -37,10 +44,20 @@ public class UpdateVisitor implements ChangeSetVisitor {
 
     @Override
     public void visit(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database, Set<ChangeSetFilterResult> filterResults) throws LiquibaseException {
+        // do not run change sets after the lock lease was taken over by another instance
+        LockService lockService = LockServiceFactory.getInstance().getOpenLockService(this.database);
+        if (lockService instanceof StandardLockService) {
+            ((StandardLockService) lockService).checkLease();
+        }
+
         ChangeSet.RunStatus runStatus = this.database.getRunStatus(changeSet);
         log.debug("Running Changeset:" + changeSet);
         fireWillRun(changeSet, databaseChangeLog, database, runStatus);
         ChangeSet.ExecType execType = changeSet.execute(databaseChangeLog, execListener, this.database);
+        if (!execType.equals(ChangeSet.ExecType.MARK_RAN) && !execType.equals(ChangeSet.ExecType.SKIPPED)) {
+            invalidateMetadataCache(changeSet, databaseChangeLog);
+        }
+        removeGeneratedSql(changeSet, databaseChangeLog);
         if (!runStatus.equals(ChangeSet.RunStatus.NOT_RAN)) {
             execType = ChangeSet.ExecType.RERAN;
         }
@@ -49,7 +66,31 @@ public class UpdateVisitor implements ChangeSetVisitor {
         this.database.setObjectQuotingStrategy(ObjectQuotingStrategy.LEGACY);
         this.database.markChangeSetExecStatus(changeSet, execType);
 
-        this.database.commit();
+        // nothing was changed for change sets marked as ran, so their history can wait for the next commit
+        if (!execType.equals(ChangeSet.ExecType.MARK_RAN)) {
+            AbstractChangeLogHistoryService.flushHistory(this.database);
+            this.database.commit();
+        }
+    }
+
+    private void invalidateMetadataCache(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog) {
+        RuntimeEnvironment runtimeEnvironment = databaseChangeLog.getRuntimeEnvironment();
+        if (runtimeEnvironment != null) {
+            MetadataCache metadataCache = runtimeEnvironment.getMetadataCache();
+            if (metadataCache != null) {
+                metadataCache.invalidate(changeSet);
+            }
+        }
+    }
+
+    private void removeGeneratedSql(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog) {
+        RuntimeEnvironment runtimeEnvironment = databaseChangeLog.getRuntimeEnvironment();
+        if (runtimeEnvironment != null) {
+            GeneratedSqlCache generatedSqlCache = runtimeEnvironment.getGeneratedSqlCache();
+            if (generatedSqlCache != null) {
+                generatedSqlCache.remove(changeSet);
+            }
+        }
     }
 
     private void fireWillRun(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database2, RunStatus runStatus) {
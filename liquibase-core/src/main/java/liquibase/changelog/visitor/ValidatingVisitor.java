@@ -1,5 +1,6 @@
 package liquibase.changelog.visitor;
 
+import liquibase.RuntimeEnvironment;
 import liquibase.change.Change;
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.DatabaseChangeLog;
@@ -95,7 +96,12 @@ public class ValidatingVisitor implements ChangeSetVisitor {
                     if (foundErrors != null && foundErrors.hasErrors()) {
                         if (changeSet.getOnValidationFail().equals(ChangeSet.ValidationFailOption.MARK_RAN)) {
                             LogFactory.getLogger().info("Skipping changeSet "+changeSet+" due to validation error(s): "+ StringUtils.join(foundErrors.getErrorMessages(), ", "));
-                            changeSet.setValidationFailed(true);
+                            RuntimeEnvironment runtimeEnvironment = databaseChangeLog.getRuntimeEnvironment();
+                            if (runtimeEnvironment == null) {
+                                changeSet.setValidationFailed(true);
+                            } else {
+                                runtimeEnvironment.markValidationFailed(changeSet);
+                            }
                         } else {
                             validationErrors.addAll(foundErrors, changeSet);
                         }
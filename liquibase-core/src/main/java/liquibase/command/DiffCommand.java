@@ -7,6 +7,7 @@ import liquibase.diff.DiffResult;
 import liquibase.diff.compare.CompareControl;
 import liquibase.diff.output.report.DiffToReport;
 import liquibase.exception.DatabaseException;
+import liquibase.logging.LogFactory;
 import liquibase.snapshot.*;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.DatabaseObjectFactory;
@@ -28,6 +29,8 @@ public class DiffCommand extends AbstractCommand {
     private SnapshotControl referenceSnapshotControl;
     private SnapshotControl targetSnapshotControl;
     private CompareControl compareControl;
+    private SnapshotStatistics referenceSnapshotStatistics;
+    private SnapshotStatistics targetSnapshotStatistics;
 
 
     @Override
@@ -127,6 +130,20 @@ public class DiffCommand extends AbstractCommand {
         return this;
     }
 
+    /**
+     * Returns the statistics of the reference database snapshot taken by the last execution.
+     */
+    public SnapshotStatistics getReferenceSnapshotStatistics() {
+        return referenceSnapshotStatistics;
+    }
+
+    /**
+     * Returns the statistics of the target database snapshot taken by the last execution.
+     */
+    public SnapshotStatistics getTargetSnapshotStatistics() {
+        return targetSnapshotStatistics;
+    }
+
     @Override
     protected Object run() throws Exception {
         DiffResult diffResult = createDiffResult();
@@ -138,7 +155,12 @@ public class DiffCommand extends AbstractCommand {
 
     protected DiffResult createDiffResult() throws DatabaseException, InvalidExampleException {
         DatabaseSnapshot referenceSnapshot = createReferenceSnapshot();
+        referenceSnapshotStatistics = referenceSnapshot.getStatistics();
+        LogFactory.getLogger().info("Reference database: " + referenceSnapshotStatistics);
+
         DatabaseSnapshot targetSnapshot = createTargetSnapshot();
+        targetSnapshotStatistics = targetSnapshot.getStatistics();
+        LogFactory.getLogger().info("Target database: " + targetSnapshotStatistics);
 
         return DiffGeneratorFactory.getInstance().compare(referenceSnapshot, targetSnapshot, compareControl);
     }
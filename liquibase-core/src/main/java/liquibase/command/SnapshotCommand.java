@@ -2,12 +2,18 @@ package liquibase.command;
 
 import liquibase.CatalogAndSchema;
 import liquibase.database.Database;
+import liquibase.logging.LogFactory;
 import liquibase.serializer.SnapshotSerializerFactory;
 import liquibase.snapshot.*;
+import liquibase.util.LiquibaseUtil;
 import liquibase.util.StringUtils;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
 
 public class SnapshotCommand extends AbstractCommand {
 
@@ -15,6 +21,9 @@ public class SnapshotCommand extends AbstractCommand {
     private CatalogAndSchema[] schemas;
     private String serializerFormat = "txt";
     private SnapshotListener snapshotListener;
+    private File baselineFile;
+    private CatalogFingerprint catalogFingerprint = new CatalogFingerprint();
+    private SnapshotStatistics snapshotStatistics;
 
     @Override
     public String getName() {
@@ -71,16 +80,75 @@ public class SnapshotCommand extends AbstractCommand {
         this.snapshotListener = snapshotListener;
     }
 
+    public File getBaselineFile() {
+        return baselineFile;
+    }
+
+    /**
+     * Sets a file to keep the output of the last snapshot in. If the {@link CatalogFingerprint} of the schemas has not changed since,
+     * the output is returned from the file without reading the database metadata. Otherwise the schemas are snapshotted in full and the file is replaced.
+     */
+    public SnapshotCommand setBaselineFile(File baselineFile) {
+        this.baselineFile = baselineFile;
+        return this;
+    }
+
+    public CatalogFingerprint getCatalogFingerprint() {
+        return catalogFingerprint;
+    }
+
+    public SnapshotCommand setCatalogFingerprint(CatalogFingerprint catalogFingerprint) {
+        this.catalogFingerprint = catalogFingerprint;
+        return this;
+    }
+
     @Override
     protected Object run() throws Exception {
-        SnapshotControl snapshotControl = new SnapshotControl(database);
-        snapshotControl.setSnapshotListener(snapshotListener);
-
+        snapshotStatistics = null;
         CatalogAndSchema[] schemas = this.schemas;
         if (schemas == null) {
             schemas = new CatalogAndSchema[]{database.getDefaultSchema()};
         }
+        if (baselineFile == null) {
+            return snapshot(schemas);
+        }
+
+        String key = SnapshotBaseline.createKey(LiquibaseUtil.getBuildVersion(), database.getConnection().getURL(), database.getConnection().getConnectionUserName(),
+                Arrays.asList(schemas).toString(), getSerializerFormat());
+        SortedMap<String, String> fingerprint = catalogFingerprint.read(database, schemas);
+        SnapshotBaseline baseline = SnapshotBaseline.read(baselineFile);
+        if (fingerprint == null) {
+            LogFactory.getLogger().info("Changes to " + database.getShortName() + " schemas cannot be detected, taking a full snapshot");
+        } else if (baseline != null && baseline.matches(key, fingerprint)) {
+            LogFactory.getLogger().info("No changes since snapshot baseline " + baselineFile.getAbsolutePath());
+            return baseline.getOutput();
+        } else if (baseline != null && baseline.getKey().equals(key)) {
+            SortedSet<String> changed = baseline.getChangedObjects(fingerprint);
+            LogFactory.getLogger().info(changed.size() + " object(s) changed since snapshot baseline " + baselineFile.getAbsolutePath() + ", taking a full snapshot");
+            LogFactory.getLogger().debug("Changed objects: " + changed);
+        }
+
+        String output = snapshot(schemas);
+        if (fingerprint != null) {
+            new SnapshotBaseline(key, fingerprint, output).write(baselineFile);
+        }
+        return output;
+    }
+
+    /**
+     * Returns the statistics of the snapshot taken by the last execution, or null if the snapshot was reused from the baseline.
+     */
+    public SnapshotStatistics getSnapshotStatistics() {
+        return snapshotStatistics;
+    }
+
+    private String snapshot(CatalogAndSchema[] schemas) throws Exception {
+        SnapshotControl snapshotControl = new SnapshotControl(database);
+        snapshotControl.setSnapshotListener(snapshotListener);
+
         DatabaseSnapshot snapshot = SnapshotGeneratorFactory.getInstance().createSnapshot(schemas, database, snapshotControl);
+        snapshotStatistics = snapshot.getStatistics();
+        LogFactory.getLogger().info(snapshotStatistics.toString());
 
         return SnapshotSerializerFactory.getInstance().getSerializer(getSerializerFormat()).serialize(snapshot, true);
     }
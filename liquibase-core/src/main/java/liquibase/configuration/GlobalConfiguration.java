@@ -15,6 +15,13 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
     public static final String OUTPUT_ENCODING = "outputFileEncoding";
     public static final String CHANGELOGLOCK_WAIT_TIME = "changeLogLockWaitTimeInMinutes";
     public static final String CHANGELOGLOCK_POLL_RATE = "changeLogLockPollRate";
+    public static final String CHANGELOGLOCK_NATIVE = "useNativeChangeLogLock";
+    public static final String CHANGELOGLOCK_LEASE_TIME = "changeLogLockLeaseTimeInSeconds";
+    public static final String CHECKSUM_CACHE_FILE = "checkSumCacheFile";
+    public static final String CHECKSUM_CACHE_VERIFY_CONTENT = "checkSumCacheVerifyContent";
+    public static final String CHANGELOG_HISTORY_BATCH_SIZE = "changeLogHistoryBatchSize";
+    public static final String PRECONDITION_METADATA_CACHE = "preconditionMetadataCache";
+    public static final String GENERATED_SQL_CACHE = "generatedSqlCache";
 
     public GlobalConfiguration() {
         super("liquibase");
@@ -40,6 +47,14 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
                 .setDescription("Number of seconds wait between checks to the changelog lock when it is locked")
                 .setDefaultValue(10);
 
+        getContainer().addProperty(CHANGELOGLOCK_NATIVE, Boolean.class)
+                .setDescription("Should Liquibase wait on the database's own locks, where supported, before locking the changelog lock table instead of polling the table")
+                .setDefaultValue(true);
+
+        getContainer().addProperty(CHANGELOGLOCK_LEASE_TIME, Long.class)
+                .setDescription("Number of seconds the changelog lock stays valid without being renewed, after which other instances may take it over. 0 disables leases. Leases are only held if the lock service has a connection to renew them on")
+                .setDefaultValue(0);
+
         getContainer().addProperty(LIQUIBASE_TABLESPACE_NAME, String.class)
                 .setDescription("Tablespace to use for liquibase objects");
 
@@ -57,6 +72,25 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
                 .setDescription("Encoding to output text in. Defaults to file.encoding system property or UTF-8")
                 .setDefaultValue(System.getProperty("file.encoding") == null ? "UTF-8" : System.getProperty("file.encoding"))
                 .addAlias("file.encoding");
+
+        getContainer().addProperty(CHECKSUM_CACHE_FILE, String.class)
+                .setDescription("File to cache checksums of files referenced by change sets in between runs. Checksums are not cached if not set");
+
+        getContainer().addProperty(CHECKSUM_CACHE_VERIFY_CONTENT, Boolean.class)
+                .setDescription("Should cached checksums only be reused if a digest of the file content still matches, instead of trusting an unchanged file size and last modified time. Catches files rewritten within the timestamp resolution, but reads every cached file again")
+                .setDefaultValue(false);
+
+        getContainer().addProperty(CHANGELOG_HISTORY_BATCH_SIZE, Integer.class)
+                .setDescription("Maximum number of rows to write to the change history table in one batch. Rows of executed change sets are written no later than when the change set is committed, rows of change sets only marked as ran, such as by changeLogSync, may be held back until the end of the run")
+                .setDefaultValue(1);
+
+        getContainer().addProperty(PRECONDITION_METADATA_CACHE, Boolean.class)
+                .setDescription("Should existence preconditions share schema metadata snapshots for the whole update instead of querying the database for every check")
+                .setDefaultValue(false);
+
+        getContainer().addProperty(GENERATED_SQL_CACHE, Boolean.class)
+                .setDescription("Should the statements and SQL generated for a change be reused by validation, execution and SQL output of the same run instead of being generated again")
+                .setDefaultValue(true);
     }
 
     /**
@@ -119,6 +153,30 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
         return this;
     }
 
+    /**
+     * Use advisory locks of the database to wait for the changelog lock instead of polling the lock table.
+     */
+    public boolean getUseNativeChangeLogLock() {
+        return getContainer().getValue(CHANGELOGLOCK_NATIVE, Boolean.class);
+    }
+
+    public GlobalConfiguration setUseNativeChangeLogLock(boolean useNativeChangeLogLock) {
+        getContainer().setValue(CHANGELOGLOCK_NATIVE, useNativeChangeLogLock);
+        return this;
+    }
+
+    /**
+     * Time (in seconds) the changelog lock lease stays valid without being renewed. 0 if leases are not used.
+     */
+    public Long getDatabaseChangeLogLockLeaseTime() {
+        return getContainer().getValue(CHANGELOGLOCK_LEASE_TIME, Long.class);
+    }
+
+    public GlobalConfiguration setDatabaseChangeLogLockLeaseTime(Long seconds) {
+        getContainer().setValue(CHANGELOGLOCK_LEASE_TIME, seconds);
+        return this;
+    }
+
     /**
      * Name of the tablespace to use for liquibase database objects
      */
@@ -178,4 +236,64 @@ public class GlobalConfiguration extends AbstractConfigurationContainer {
         getContainer().setValue(OUTPUT_ENCODING, name);
         return this;
     }
+
+    /**
+     * File used to cache checksums of files referenced by change sets. Returns null if checksum caching is disabled.
+     */
+    public String getCheckSumCacheFile() {
+        return getContainer().getValue(CHECKSUM_CACHE_FILE, String.class);
+    }
+
+    public GlobalConfiguration setCheckSumCacheFile(String checkSumCacheFile) {
+        getContainer().setValue(CHECKSUM_CACHE_FILE, checkSumCacheFile);
+        return this;
+    }
+
+    /**
+     * Should the checksum cache verify a digest of the file content before reusing a cached checksum
+     */
+    public boolean getCheckSumCacheVerifyContent() {
+        return getContainer().getValue(CHECKSUM_CACHE_VERIFY_CONTENT, Boolean.class);
+    }
+
+    public GlobalConfiguration setCheckSumCacheVerifyContent(boolean checkSumCacheVerifyContent) {
+        getContainer().setValue(CHECKSUM_CACHE_VERIFY_CONTENT, checkSumCacheVerifyContent);
+        return this;
+    }
+
+    /**
+     * Maximum number of change history rows written in one batch. 1 writes every row as soon as the change set is marked.
+     */
+    public Integer getChangeLogHistoryBatchSize() {
+        return getContainer().getValue(CHANGELOG_HISTORY_BATCH_SIZE, Integer.class);
+    }
+
+    public GlobalConfiguration setChangeLogHistoryBatchSize(Integer changeLogHistoryBatchSize) {
+        getContainer().setValue(CHANGELOG_HISTORY_BATCH_SIZE, changeLogHistoryBatchSize);
+        return this;
+    }
+
+    /**
+     * Should existence preconditions be checked against schema metadata cached for the whole run
+     */
+    public boolean getPreconditionMetadataCache() {
+        return getContainer().getValue(PRECONDITION_METADATA_CACHE, Boolean.class);
+    }
+
+    public GlobalConfiguration setPreconditionMetadataCache(boolean preconditionMetadataCache) {
+        getContainer().setValue(PRECONDITION_METADATA_CACHE, preconditionMetadataCache);
+        return this;
+    }
+
+    /**
+     * Should statements and SQL generated for a change be reused within one run
+     */
+    public boolean getGeneratedSqlCache() {
+        return getContainer().getValue(GENERATED_SQL_CACHE, Boolean.class);
+    }
+
+    public GlobalConfiguration setGeneratedSqlCache(boolean generatedSqlCache) {
+        getContainer().setValue(GENERATED_SQL_CACHE, generatedSqlCache);
+        return this;
+    }
 }
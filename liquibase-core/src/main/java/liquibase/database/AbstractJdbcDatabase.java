@@ -2,6 +2,7 @@ package liquibase.database;
 
 import liquibase.CatalogAndSchema;
 import liquibase.change.Change;
+import liquibase.change.StreamingChange;
 import liquibase.change.core.DropTableChange;
 import liquibase.changelog.*;
 import liquibase.configuration.ConfigurationProperty;
@@ -25,11 +26,13 @@ import liquibase.snapshot.SnapshotControl;
 import liquibase.snapshot.SnapshotGeneratorFactory;
 import liquibase.sql.Sql;
 import liquibase.sql.visitor.SqlVisitor;
+import liquibase.sqlgenerator.GeneratedSqlCache;
 import liquibase.sqlgenerator.SqlGeneratorFactory;
 import liquibase.statement.DatabaseFunction;
 import liquibase.statement.SequenceCurrentValueFunction;
 import liquibase.statement.SequenceNextValueFunction;
 import liquibase.statement.SqlStatement;
+import liquibase.statement.SqlStatementHandler;
 import liquibase.statement.core.*;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.*;
@@ -1184,7 +1187,17 @@ public abstract class AbstractJdbcDatabase implements Database {
 
     @Override
     public void executeStatements(final Change change, final DatabaseChangeLog changeLog, final List<SqlVisitor> sqlVisitors) throws LiquibaseException {
-        SqlStatement[] statements = change.generateStatements(this);
+        if (change instanceof StreamingChange) {
+            ((StreamingChange) change).generateStatements(this, new SqlStatementHandler() {
+                @Override
+                public void handle(SqlStatement statement) throws DatabaseException {
+                    execute(statement, sqlVisitors);
+                }
+            });
+            return;
+        }
+
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(change, this);
 
         execute(statements, sqlVisitors);
     }
@@ -1199,22 +1212,44 @@ public abstract class AbstractJdbcDatabase implements Database {
     @Override
     public void execute(final SqlStatement[] statements, final List<SqlVisitor> sqlVisitors) throws LiquibaseException {
         for (SqlStatement statement : statements) {
-            if (statement.skipOnUnsupported() && !SqlGeneratorFactory.getInstance().supports(statement, this)) {
-                continue;
-            }
-            LogFactory.getLogger().debug("Executing Statement: " + statement.getClass().getName());
-            ExecutorService.getInstance().getExecutor(this).execute(statement, sqlVisitors);
+            execute(statement, sqlVisitors);
         }
     }
 
+    private void execute(final SqlStatement statement, final List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (statement.skipOnUnsupported() && !SqlGeneratorFactory.getInstance().supports(statement, this)) {
+            return;
+        }
+        LogFactory.getLogger().debug("Executing Statement: " + statement.getClass().getName());
+        ExecutorService.getInstance().getExecutor(this).execute(statement, sqlVisitors);
+    }
+
 
     @Override
     public void saveStatements(final Change change, final List<SqlVisitor> sqlVisitors, final Writer writer) throws IOException, StatementNotSupportedOnDatabaseException, LiquibaseException {
-        SqlStatement[] statements = change.generateStatements(this);
+        if (change instanceof StreamingChange) {
+            ((StreamingChange) change).generateStatements(this, new SqlStatementHandler() {
+                @Override
+                public void handle(SqlStatement statement) throws DatabaseException {
+                    try {
+                        saveStatement(statement, writer);
+                    } catch (IOException e) {
+                        throw new DatabaseException(e);
+                    }
+                }
+            });
+            return;
+        }
+
+        SqlStatement[] statements = GeneratedSqlCache.generateStatements(change, this);
         for (SqlStatement statement : statements) {
-            for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(statement, this)) {
-                writer.append(sql.toSql()).append(sql.getEndDelimiter()).append(StreamUtil.getLineSeparator()).append(StreamUtil.getLineSeparator());
-            }
+            saveStatement(statement, writer);
+        }
+    }
+
+    private void saveStatement(final SqlStatement statement, final Writer writer) throws IOException {
+        for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(statement, this)) {
+            writer.append(sql.toSql()).append(sql.getEndDelimiter()).append(StreamUtil.getLineSeparator()).append(StreamUtil.getLineSeparator());
         }
     }
 
@@ -11,15 +11,18 @@ import liquibase.structure.core.Schema;
 import liquibase.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DatabaseObjectComparatorFactory {
 
     private static DatabaseObjectComparatorFactory instance;
 
     private List<DatabaseObjectComparator> comparators = new ArrayList<DatabaseObjectComparator>();
+    private ThreadLocal<ComparisonCache> comparisonCache = new ThreadLocal<ComparisonCache>();
 
-    private Map<String, List<DatabaseObjectComparator>> validComparatorsByClassAndDatabase = new HashMap<String, List<DatabaseObjectComparator>>();
-    private Map<String, DatabaseObjectComparatorChain> comparatorChainsByClassAndDatabase = new HashMap<String, DatabaseObjectComparatorChain>();
+    private Map<String, List<DatabaseObjectComparator>> validComparatorsByClassAndDatabase = new ConcurrentHashMap<String, List<DatabaseObjectComparator>>();
+    private ConcurrentMap<Class<? extends DatabaseObject>, Map<String, DatabaseObjectComparatorChain>> comparatorChainsByClassAndDatabase = new ConcurrentHashMap<Class<? extends DatabaseObject>, Map<String, DatabaseObjectComparatorChain>>();
 
     private DatabaseObjectComparatorFactory() {
         Class[] classes;
@@ -72,8 +75,9 @@ public class DatabaseObjectComparatorFactory {
 
     protected List<DatabaseObjectComparator> getComparators(Class<? extends DatabaseObject> comparatorClass, Database database) {
         String key = comparatorClass.getName()+":"+database.getShortName();
-        if (validComparatorsByClassAndDatabase.containsKey(key)) {
-            return validComparatorsByClassAndDatabase.get(key);
+        List<DatabaseObjectComparator> cachedComparators = validComparatorsByClassAndDatabase.get(key);
+        if (cachedComparators != null) {
+            return cachedComparators;
         }
 
         List<DatabaseObjectComparator> validComparators = new ArrayList<DatabaseObjectComparator>();
@@ -96,11 +100,41 @@ public class DatabaseObjectComparatorFactory {
         instance = null;
     }
 
+    /**
+     * Remembers the hashes of each object and the result of {@link #isSameObject(DatabaseObject, DatabaseObject, Database)} for each pair of objects
+     * compared on the calling thread until {@link #endComparison()} is called, so containers like tables and schemas are not compared again for each object in them.
+     * Only use it while the compared objects do not change, such as while diffing two snapshots.
+     */
+    public void startComparison() {
+        if (comparisonCache.get() == null) {
+            comparisonCache.set(new ComparisonCache());
+        }
+    }
+
+    public void endComparison() {
+        comparisonCache.remove();
+    }
+
     public boolean isSameObject(DatabaseObject object1, DatabaseObject object2, Database accordingTo) {
         if (object1 == null && object2 == null) {
             return true;
         }
 
+        ComparisonCache cache = comparisonCache.get();
+        if (cache == null || object1 == null || object2 == null) {
+            return compareObjects(object1, object2, accordingTo);
+        }
+        ObjectKey key = new ObjectKey(object1, object2, accordingTo);
+        Boolean same = cache.sameObjects.get(key);
+        if (same == null) {
+            same = compareObjects(object1, object2, accordingTo);
+            cache.sameObjects.put(key, same);
+        }
+        return same;
+    }
+
+    private boolean compareObjects(DatabaseObject object1, DatabaseObject object2, Database accordingTo) {
+
         if (object1 instanceof Schema || object2 instanceof Schema) {
             if (object1 == null) {
                 object1 = new Schema();
@@ -148,6 +182,20 @@ public class DatabaseObjectComparatorFactory {
     }
 
     public String[] hash(DatabaseObject databaseObject, Database accordingTo) {
+        ComparisonCache cache = comparisonCache.get();
+        if (cache == null || databaseObject == null) {
+            return computeHash(databaseObject, accordingTo);
+        }
+        ObjectKey key = new ObjectKey(databaseObject, null, accordingTo);
+        String[] hash = cache.hashes.get(key);
+        if (hash == null) {
+            hash = computeHash(databaseObject, accordingTo);
+            cache.hashes.put(key, hash);
+        }
+        return hash.clone();
+    }
+
+    private String[] computeHash(DatabaseObject databaseObject, Database accordingTo) {
         String[] hash = null;
         if (databaseObject != null) {
             hash = createComparatorChain(databaseObject.getClass(), accordingTo).hash(databaseObject, accordingTo);
@@ -173,10 +221,17 @@ public class DatabaseObjectComparatorFactory {
     }
 
     private DatabaseObjectComparatorChain createComparatorChain(Class<? extends DatabaseObject> databaseObjectType, Database database) {
-        String key = databaseObjectType.getName()+":"+database.getShortName();
+        //looked up by class and then database name, chains are created for every hash and comparison so no key string is built per call
+        Map<String, DatabaseObjectComparatorChain> chainsByDatabase = comparatorChainsByClassAndDatabase.get(databaseObjectType);
+        if (chainsByDatabase == null) {
+            comparatorChainsByClassAndDatabase.putIfAbsent(databaseObjectType, new ConcurrentHashMap<String, DatabaseObjectComparatorChain>());
+            chainsByDatabase = comparatorChainsByClassAndDatabase.get(databaseObjectType);
+        }
+        String key = String.valueOf(database.getShortName());
 
-        if (comparatorChainsByClassAndDatabase.containsKey(key)) {
-            return comparatorChainsByClassAndDatabase.get(key).copy();
+        DatabaseObjectComparatorChain cachedChain = chainsByDatabase.get(key);
+        if (cachedChain != null) {
+            return cachedChain.copy();
         }
 
         List<DatabaseObjectComparator> comparators = DatabaseObjectComparatorFactory.getInstance().getComparators(databaseObjectType, database);
@@ -185,9 +240,39 @@ public class DatabaseObjectComparatorFactory {
         }
 
         DatabaseObjectComparatorChain chain = new DatabaseObjectComparatorChain(comparators);
-        comparatorChainsByClassAndDatabase.put(key, chain);
+        chainsByDatabase.put(key, chain);
         //noinspection unchecked
-        return chain;
+        return chain.copy();
     }
 
+    private static class ComparisonCache {
+        private final Map<ObjectKey, Boolean> sameObjects = new HashMap<ObjectKey, Boolean>();
+        private final Map<ObjectKey, String[]> hashes = new HashMap<ObjectKey, String[]>();
+    }
+
+    private static class ObjectKey {
+        private final DatabaseObject object1;
+        private final DatabaseObject object2;
+        private final Database accordingTo;
+
+        private ObjectKey(DatabaseObject object1, DatabaseObject object2, Database accordingTo) {
+            this.object1 = object1;
+            this.object2 = object2;
+            this.accordingTo = accordingTo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ObjectKey)) {
+                return false;
+            }
+            ObjectKey other = (ObjectKey) o;
+            return object1 == other.object1 && object2 == other.object2 && accordingTo == other.accordingTo;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(object1) + System.identityHashCode(object2)) + System.identityHashCode(accordingTo);
+        }
+    }
 }
@@ -13,7 +13,8 @@ import liquibase.snapshot.JdbcDatabaseSnapshot;
 import liquibase.structure.DatabaseObject;
 import liquibase.diff.compare.DatabaseObjectComparatorFactory;
 
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
 public class StandardDiffGenerator implements DiffGenerator {
 
@@ -45,9 +46,7 @@ public class StandardDiffGenerator implements DiffGenerator {
         typesToCompare.retainAll(referenceSnapshot.getSnapshotControl().getTypesToInclude());
         typesToCompare.retainAll(comparisonSnapshot.getSnapshotControl().getTypesToInclude());
 
-        for (Class<? extends DatabaseObject> typeToCompare : typesToCompare) {
-            compareObjectType(typeToCompare, referenceSnapshot, comparisonSnapshot, diffResult);
-        }
+        compareObjectTypes(typesToCompare, referenceSnapshot, comparisonSnapshot, diffResult);
 
 //        // Hack:  Sometimes Indexes or Unique Constraints with multiple columns get added twice (1 for each column),
 //        // so we're combining them back to a single Index or Unique Constraint here.
@@ -68,39 +67,188 @@ public class StandardDiffGenerator implements DiffGenerator {
 
     }
 
+    /**
+     * Compares the objects of the given type in the two snapshots. The objects of each snapshot are indexed by their comparator hashes once,
+     * so each object is only checked with {@link DatabaseObjectComparatorFactory#isSameObject} against the objects sharing a hash with it.
+     * When several threads are used, this is called on a worker thread with a DiffResult of its own that is merged into the final one afterwards.
+     */
     protected <T extends DatabaseObject> void compareObjectType(Class<T> type, DatabaseSnapshot referenceSnapshot, DatabaseSnapshot comparisonSnapshot, DiffResult diffResult) {
+        if (diffResult.getCompareControl().getSchemaComparisons() != null) {
+            new TypeComparison(type, referenceSnapshot, comparisonSnapshot, diffResult).run();
+        }
+
+        //todo: add logic for when container is missing or unexpected also
+    }
+
+    /**
+     * Returns the number of threads used to compare the given types, one per type up to the number of processors.
+     */
+    protected int getComparisonThreads(Set<Class<? extends DatabaseObject>> types) {
+        return Math.min(types.size(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compares each type with {@link #compareObjectType}, on {@link #getComparisonThreads(Set)} threads.
+     */
+    protected void compareObjectTypes(Set<Class<? extends DatabaseObject>> types, final DatabaseSnapshot referenceSnapshot, final DatabaseSnapshot comparisonSnapshot, DiffResult diffResult) {
+        int threads = getComparisonThreads(types);
+        if (threads <= 1 || diffResult.getCompareControl().getSchemaComparisons() == null) {
+            for (Class<? extends DatabaseObject> type : types) {
+                compareObjectType(type, referenceSnapshot, comparisonSnapshot, diffResult);
+            }
+            return;
+        }
+
+        //read lazily initialized database settings before the comparisons use them from several threads
+        for (Database database : new Database[]{referenceSnapshot.getDatabase(), comparisonSnapshot.getDatabase()}) {
+            if (database != null) {
+                database.isCaseSensitive();
+                database.getDefaultCatalogName();
+                database.getDefaultSchemaName();
+            }
+        }
+
+        final CompareControl compareControl = diffResult.getCompareControl();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<DiffResult>> futures = new ArrayList<Future<DiffResult>>();
+            for (final Class<? extends DatabaseObject> type : types) {
+                futures.add(executor.submit(new Callable<DiffResult>() {
+                    @Override
+                    public DiffResult call() {
+                        DiffResult typeResult = new DiffResult(referenceSnapshot, comparisonSnapshot, compareControl);
+                        compareObjectType(type, referenceSnapshot, comparisonSnapshot, typeResult);
+                        return typeResult;
+                    }
+                }));
+            }
+            for (Future<DiffResult> future : futures) {
+                DiffResult typeResult = future.get();
+                for (DatabaseObject object : typeResult.getMissingObjects()) {
+                    diffResult.addMissingObject(object);
+                }
+                for (DatabaseObject object : typeResult.getUnexpectedObjects()) {
+                    diffResult.addUnexpectedObject(object);
+                }
+                for (Map.Entry<DatabaseObject, ObjectDifferences> entry : typeResult.getChangedObjects().entrySet()) {
+                    diffResult.addChangedObject(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedLiquibaseException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UnexpectedLiquibaseException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class TypeComparison {
+
+        /**
+         * Orders candidate sets the way {@link liquibase.structure.DatabaseObjectCollection#get(DatabaseObject)} does: smallest first, then by their contents.
+         */
+        private static final Comparator<Set<DatabaseObject>> CANDIDATE_ORDER = new Comparator<Set<DatabaseObject>>() {
+            @Override
+            public int compare(Set<DatabaseObject> o1, Set<DatabaseObject> o2) {
+                int sizeComparison = Integer.valueOf(o1.size()).compareTo(o2.size());
+                if (sizeComparison == 0) {
+                    return o1.toString().compareTo(o2.toString());
+                }
+                return sizeComparison;
+            }
+        };
+
+        private final Class<? extends DatabaseObject> type;
+        private final DatabaseSnapshot referenceSnapshot;
+        private final DatabaseSnapshot comparisonSnapshot;
+        private final DiffResult diffResult;
+
+        private TypeComparison(Class<? extends DatabaseObject> type, DatabaseSnapshot referenceSnapshot, DatabaseSnapshot comparisonSnapshot, DiffResult diffResult) {
+            this.type = type;
+            this.referenceSnapshot = referenceSnapshot;
+            this.comparisonSnapshot = comparisonSnapshot;
+            this.diffResult = diffResult;
+        }
+
+        public void run() {
+            DatabaseObjectComparatorFactory comparatorFactory = DatabaseObjectComparatorFactory.getInstance();
+            comparatorFactory.startComparison();
+            try {
+                compare(comparatorFactory);
+            } finally {
+                comparatorFactory.endComparison();
+            }
+        }
 
-        CompareControl.SchemaComparison[] schemaComparisons = diffResult.getCompareControl().getSchemaComparisons();
-        if (schemaComparisons != null) {
-            for (CompareControl.SchemaComparison schemaComparison : schemaComparisons) {
-                for (T referenceObject : referenceSnapshot.get(type)) {
-                    //                if (referenceObject instanceof Table && referenceSnapshot.getDatabase().isLiquibaseTable(referenceSchema, referenceObject.getName())) {
-                    //                    continue;
-                    //                }
-                    T comparisonObject = comparisonSnapshot.get(referenceObject);
-                    if (comparisonObject == null) {
-                        diffResult.addMissingObject(referenceObject);
-                    } else {
-                        ObjectDifferences differences = DatabaseObjectComparatorFactory.getInstance().findDifferences(referenceObject, comparisonObject, comparisonSnapshot.getDatabase(), diffResult.getCompareControl());
-                        if (differences.hasDifferences()) {
-                            diffResult.addChangedObject(referenceObject, differences);
-                        }
+        private void compare(DatabaseObjectComparatorFactory comparatorFactory) {
+            Set<? extends DatabaseObject> referenceObjects = referenceSnapshot.get(type);
+            Set<? extends DatabaseObject> comparisonObjects = comparisonSnapshot.get(type);
+
+            //objects are looked up the way DatabaseSnapshot.get(example) does, according to the database of the snapshot searched
+            Database comparisonDatabase = comparisonSnapshot.getDatabase();
+            Map<String, Set<DatabaseObject>> comparisonIndex = index(comparisonObjects, comparisonDatabase);
+            for (DatabaseObject referenceObject : referenceObjects) {
+                DatabaseObject comparisonObject = find(referenceObject, comparisonIndex, comparisonDatabase);
+                if (comparisonObject == null) {
+                    diffResult.addMissingObject(referenceObject);
+                } else {
+                    ObjectDifferences differences = comparatorFactory.findDifferences(referenceObject, comparisonObject, comparisonDatabase, diffResult.getCompareControl());
+                    if (differences.hasDifferences()) {
+                        diffResult.addChangedObject(referenceObject, differences);
                     }
                 }
-                //
-                for (T comparisonObject : comparisonSnapshot.get(type)) {
-                    //                if (targetObject instanceof Table && comparisonSnapshot.getDatabase().isLiquibaseTable(comparisonSchema, targetObject.getName())) {
-                    //                    continue;
-                    //                }
-                    if (referenceSnapshot.get(comparisonObject) == null) {
-                        diffResult.addUnexpectedObject(comparisonObject);
+            }
+
+            Database referenceDatabase = referenceSnapshot.getDatabase();
+            Map<String, Set<DatabaseObject>> referenceIndex = index(referenceObjects, referenceDatabase);
+            for (DatabaseObject comparisonObject : comparisonObjects) {
+                if (find(comparisonObject, referenceIndex, referenceDatabase) == null) {
+                    diffResult.addUnexpectedObject(comparisonObject);
+                }
+            }
+        }
+
+        private Map<String, Set<DatabaseObject>> index(Set<? extends DatabaseObject> objects, Database database) {
+            Map<String, Set<DatabaseObject>> index = new HashMap<String, Set<DatabaseObject>>();
+            for (DatabaseObject object : objects) {
+                for (String hash : DatabaseObjectComparatorFactory.getInstance().hash(object, database)) {
+                    Set<DatabaseObject> candidates = index.get(hash);
+                    if (candidates == null) {
+                        candidates = new HashSet<DatabaseObject>();
+                        index.put(hash, candidates);
                     }
-                    //            }
+                    candidates.add(object);
                 }
             }
+            return index;
+        }
 
-            //todo: add logic for when container is missing or unexpected also
+        /**
+         * Returns the indexed object that is the same object as the example, checking the candidates in the order DatabaseObjectCollection does.
+         */
+        private DatabaseObject find(DatabaseObject example, Map<String, Set<DatabaseObject>> index, Database database) {
+            SortedSet<Set<DatabaseObject>> candidateSets = new TreeSet<Set<DatabaseObject>>(CANDIDATE_ORDER);
+            for (String hash : DatabaseObjectComparatorFactory.getInstance().hash(example, database)) {
+                Set<DatabaseObject> candidates = index.get(hash);
+                if (candidates != null) {
+                    candidateSets.add(candidates);
+                }
+            }
+            for (Set<DatabaseObject> candidates : candidateSets) {
+                for (DatabaseObject object : candidates) {
+                    if (DatabaseObjectComparatorFactory.getInstance().isSameObject(object, example, database)) {
+                        return object;
+                    }
+                }
+            }
+            return null;
         }
+    }
 
 //    /**
 //     * Removes duplicate Indexes from the DiffResult object.
@@ -188,5 +336,4 @@ public class StandardDiffGenerator implements DiffGenerator {
 //
 //        uniqueConstraints.removeAll( constraintsToRemove );
 //    }
-    }
 }
@@ -0,0 +1,14 @@
+package liquibase.diff.data;
+
+import liquibase.change.Change;
+
+/**
+ * Receives the changes found by a {@link TableDataComparison} as soon as each row is compared.
+ */
+public interface DataChangeListener {
+
+    /**
+     * Called with an insertData, updateData or deleteData change that makes a row of the comparison table match the reference table.
+     */
+    void changeGenerated(Change change);
+}
@@ -0,0 +1,377 @@
+package liquibase.diff.data;
+
+import liquibase.change.ColumnConfig;
+import liquibase.change.core.AbstractModifyDataChange;
+import liquibase.change.core.DeleteDataChange;
+import liquibase.change.core.InsertDataChange;
+import liquibase.change.core.UpdateDataChange;
+import liquibase.database.Database;
+import liquibase.database.core.MSSQLDatabase;
+import liquibase.database.core.MySQLDatabase;
+import liquibase.database.core.PostgresDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.diff.output.DiffOutputControl;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.DataType;
+import liquibase.structure.core.PrimaryKey;
+import liquibase.structure.core.Table;
+import liquibase.util.JdbcUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compares the rows of a table in two databases and generates the changes that make the comparison table contain the same rows as the reference table.
+ * Both tables are read ordered by the primary key of the reference table and merged as they are read,
+ * so only the current row of each table is kept in memory and changes are passed to the {@link DataChangeListener} as soon as they are found.
+ * Rows are compared on the columns both tables have. Tables without a primary key cannot be compared.
+ * <p>
+ * Character keys are ordered by their binary value on PostgreSQL, MySQL and SQL Server, so both databases order rows the same way.
+ * If a database returns rows in another order than expected, the comparison stops with an exception instead of generating wrong changes.
+ */
+public class TableDataComparison {
+
+    private Table referenceTable;
+    private Table comparisonTable;
+    private Database referenceDatabase;
+    private Database comparisonDatabase;
+    private DiffOutputControl outputControl;
+    private int fetchSize = 1000;
+
+    private long comparedRows;
+    private long insertedRows;
+    private long updatedRows;
+    private long deletedRows;
+
+    public TableDataComparison(Table referenceTable, Database referenceDatabase, Table comparisonTable, Database comparisonDatabase, DiffOutputControl outputControl) {
+        this.referenceTable = referenceTable;
+        this.referenceDatabase = referenceDatabase;
+        this.comparisonTable = comparisonTable;
+        this.comparisonDatabase = comparisonDatabase;
+        this.outputControl = outputControl;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the number of rows fetched from each database at a time.
+     */
+    public TableDataComparison setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public long getComparedRows() {
+        return comparedRows;
+    }
+
+    public long getInsertedRows() {
+        return insertedRows;
+    }
+
+    public long getUpdatedRows() {
+        return updatedRows;
+    }
+
+    public long getDeletedRows() {
+        return deletedRows;
+    }
+
+    public void compare(DataChangeListener listener) throws DatabaseException {
+        PrimaryKey primaryKey = referenceTable.getPrimaryKey();
+        if (primaryKey == null) {
+            throw new UnexpectedLiquibaseException("Cannot compare data in " + referenceTable.getName() + ", it has no primary key");
+        }
+
+        List<Column> referenceColumns = new ArrayList<Column>();
+        List<Column> comparisonColumns = new ArrayList<Column>();
+        for (Column column : referenceTable.getColumns()) {
+            Column comparisonColumn = comparisonTable.getColumn(column.getName());
+            if (comparisonColumn != null) {
+                referenceColumns.add(column);
+                comparisonColumns.add(comparisonColumn);
+            }
+        }
+        List<String> keyColumns = primaryKey.getColumnNamesAsList();
+        int[] keyIndexes = new int[keyColumns.size()];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            keyIndexes[i] = -1;
+            for (int j = 0; j < referenceColumns.size(); j++) {
+                if (referenceColumns.get(j).getName().equalsIgnoreCase(keyColumns.get(i))) {
+                    keyIndexes[i] = j;
+                }
+            }
+            if (keyIndexes[i] < 0) {
+                throw new UnexpectedLiquibaseException("Cannot compare data in " + referenceTable.getName() + ", primary key column " + keyColumns.get(i) + " is not in both tables");
+            }
+        }
+
+        RowCursor reference = new RowCursor(referenceTable, referenceColumns, keyIndexes, referenceDatabase, fetchSize);
+        try {
+            RowCursor comparison = new RowCursor(comparisonTable, comparisonColumns, keyIndexes, comparisonDatabase, fetchSize);
+            try {
+                Object[] referenceRow = reference.next();
+                Object[] comparisonRow = comparison.next();
+                while (referenceRow != null || comparisonRow != null) {
+                    int order;
+                    if (referenceRow == null) {
+                        order = 1;
+                    } else if (comparisonRow == null) {
+                        order = -1;
+                    } else {
+                        order = compareKeys(referenceRow, comparisonRow, keyIndexes);
+                    }
+
+                    if (order < 0) {
+                        listener.changeGenerated(createInsert(referenceColumns, referenceRow));
+                        insertedRows++;
+                        referenceRow = reference.next();
+                    } else if (order > 0) {
+                        listener.changeGenerated(createDelete(referenceColumns, comparisonRow, keyIndexes));
+                        deletedRows++;
+                        comparisonRow = comparison.next();
+                    } else {
+                        comparedRows++;
+                        UpdateDataChange update = createUpdate(referenceColumns, referenceRow, comparisonRow, keyIndexes);
+                        if (update != null) {
+                            listener.changeGenerated(update);
+                            updatedRows++;
+                        }
+                        referenceRow = reference.next();
+                        comparisonRow = comparison.next();
+                    }
+                }
+            } finally {
+                comparison.close();
+            }
+        } finally {
+            reference.close();
+        }
+    }
+
+    protected InsertDataChange createInsert(List<Column> columns, Object[] row) {
+        InsertDataChange change = new InsertDataChange();
+        setTable(change, referenceTable);
+        for (int i = 0; i < columns.size(); i++) {
+            change.addColumn(createColumnConfig(columns.get(i).getName(), row[i]));
+        }
+        return change;
+    }
+
+    protected UpdateDataChange createUpdate(List<Column> columns, Object[] referenceRow, Object[] comparisonRow, int[] keyIndexes) {
+        UpdateDataChange change = null;
+        for (int i = 0; i < columns.size(); i++) {
+            if (!valuesEqual(referenceRow[i], comparisonRow[i])) {
+                if (change == null) {
+                    change = new UpdateDataChange();
+                    setTable(change, referenceTable);
+                    setWhere(change, columns, comparisonRow, keyIndexes);
+                }
+                change.addColumn(createColumnConfig(columns.get(i).getName(), referenceRow[i]));
+            }
+        }
+        return change;
+    }
+
+    protected DeleteDataChange createDelete(List<Column> columns, Object[] row, int[] keyIndexes) {
+        DeleteDataChange change = new DeleteDataChange();
+        setTable(change, referenceTable);
+        setWhere(change, columns, row, keyIndexes);
+        return change;
+    }
+
+    /**
+     * Creates the column of an insertData or updateData change, typed the same way generateChangeLog types data of missing tables.
+     */
+    public static ColumnConfig createColumnConfig(String name, Object value) {
+        ColumnConfig column = new ColumnConfig();
+        column.setName(name);
+        if (value == null) {
+            column.setValue(null);
+        } else if (value instanceof Number) {
+            column.setValueNumeric((Number) value);
+        } else if (value instanceof Boolean) {
+            column.setValueBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            column.setValueDate((Date) value);
+        } else { // string
+            column.setValue(value.toString().replace("\\", "\\\\"));
+        }
+        return column;
+    }
+
+    private void setTable(InsertDataChange change, Table table) {
+        if (outputControl.getIncludeCatalog()) {
+            change.setCatalogName(table.getSchema().getCatalogName());
+        }
+        if (outputControl.getIncludeSchema()) {
+            change.setSchemaName(table.getSchema().getName());
+        }
+        change.setTableName(table.getName());
+    }
+
+    private void setTable(AbstractModifyDataChange change, Table table) {
+        if (outputControl.getIncludeCatalog()) {
+            change.setCatalogName(table.getSchema().getCatalogName());
+        }
+        if (outputControl.getIncludeSchema()) {
+            change.setSchemaName(table.getSchema().getName());
+        }
+        change.setTableName(table.getName());
+    }
+
+    private void setWhere(AbstractModifyDataChange change, List<Column> columns, Object[] row, int[] keyIndexes) {
+        StringBuilder where = new StringBuilder();
+        for (int keyIndex : keyIndexes) {
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            where.append(":name = :value");
+            change.addWhereParam(createColumnConfig(columns.get(keyIndex).getName(), row[keyIndex]));
+        }
+        change.setWhere(where.toString());
+    }
+
+    protected static int compareKeys(Object[] row1, Object[] row2, int[] keyIndexes) {
+        for (int keyIndex : keyIndexes) {
+            int order = compareValues(row1[keyIndex], row2[keyIndex]);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        }
+        if (value1 instanceof Number && value2 instanceof Number) {
+            return toBigDecimal((Number) value1).compareTo(toBigDecimal((Number) value2));
+        }
+        if (value1 instanceof Date && value2 instanceof Date) {
+            return Long.valueOf(((Date) value1).getTime()).compareTo(((Date) value2).getTime());
+        }
+        if (value1 instanceof Comparable && value1.getClass().equals(value2.getClass())) {
+            return ((Comparable) value1).compareTo(value2);
+        }
+        return value1.toString().compareTo(value2.toString());
+    }
+
+    protected static boolean valuesEqual(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == value2;
+        }
+        if (value1 instanceof byte[] && value2 instanceof byte[]) {
+            return Arrays.equals((byte[]) value1, (byte[]) value2);
+        }
+        if (value1 instanceof Boolean && value2 instanceof Number) {
+            return toBigDecimal((Number) value2).compareTo(((Boolean) value1) ? BigDecimal.ONE : BigDecimal.ZERO) == 0;
+        }
+        if (value1 instanceof Number && value2 instanceof Boolean) {
+            return valuesEqual(value2, value1);
+        }
+        if ((value1 instanceof Number && value2 instanceof Number) || (value1 instanceof Date && value2 instanceof Date)) {
+            return compareValues(value1, value2) == 0;
+        }
+        return value1.equals(value2) || value1.toString().equals(value2.toString());
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return new BigDecimal(number.doubleValue());
+        }
+        return new BigDecimal(number.toString());
+    }
+
+    /**
+     * Reads the rows of one table ordered by key, checking that the database returns them in the order the keys are compared in.
+     */
+    private static class RowCursor {
+        private final Table table;
+        private final int[] keyIndexes;
+        private final int columnCount;
+        private final TableDataQuery query;
+        private final ResultSet resultSet;
+        private Object[] previousRow;
+
+        private RowCursor(Table table, List<Column> columns, int[] keyIndexes, Database database, int fetchSize) throws DatabaseException {
+            this.table = table;
+            this.keyIndexes = keyIndexes;
+            this.columnCount = columns.size();
+
+            StringBuilder sql = new StringBuilder("SELECT ");
+            String catalogName = table.getSchema().getCatalogName();
+            String schemaName = table.getSchema().getName();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(database.escapeColumnName(catalogName, schemaName, table.getName(), columns.get(i).getName()));
+            }
+            sql.append(" FROM ").append(database.escapeTableName(catalogName, schemaName, table.getName())).append(" ORDER BY ");
+            for (int i = 0; i < keyIndexes.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                Column column = columns.get(keyIndexes[i]);
+                sql.append(getOrderByColumn(database.escapeColumnName(catalogName, schemaName, table.getName(), column.getName()), column, database));
+            }
+
+            query = new TableDataQuery(sql.toString(), database, (JdbcConnection) database.getConnection(), fetchSize);
+            resultSet = query.getResultSet();
+        }
+
+        private static String getOrderByColumn(String escapedName, Column column, Database database) {
+            DataType type = column.getType();
+            String typeName = type == null || type.getTypeName() == null ? "" : type.getTypeName().toLowerCase();
+            if (!typeName.contains("char") && !typeName.contains("text")) {
+                return escapedName;
+            }
+            if (database instanceof PostgresDatabase) {
+                return escapedName + " COLLATE \"C\"";
+            } else if (database instanceof MySQLDatabase) {
+                return "BINARY " + escapedName;
+            } else if (database instanceof MSSQLDatabase) {
+                return escapedName + " COLLATE Latin1_General_BIN2";
+            }
+            return escapedName;
+        }
+
+        private Object[] next() throws DatabaseException {
+            try {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                Object[] row = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = JdbcUtils.getResultSetValue(resultSet, i + 1);
+                }
+                if (previousRow != null && compareKeys(previousRow, row, keyIndexes) >= 0) {
+                    throw new UnexpectedLiquibaseException("Cannot compare data in " + table.getName() + ", the database does not return rows in the order of their primary key values");
+                }
+                previousRow = row;
+                return row;
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        private void close() throws DatabaseException {
+            query.close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package liquibase.diff.data;
+
+import liquibase.database.Database;
+import liquibase.database.core.MySQLDatabase;
+import liquibase.database.core.PostgresDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.util.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Runs a query over table data with a forward only result set that fetches rows in batches, so large tables are not read into memory at once.
+ * PostgreSQL only fetches in batches inside a transaction, so auto commit is turned off until the query is closed.
+ * MySQL only streams rows with a fetch size of Integer.MIN_VALUE, which is used instead of the given fetch size.
+ */
+public class TableDataQuery {
+
+    private final JdbcConnection connection;
+    private boolean restoreAutoCommit;
+    private Statement statement;
+    private ResultSet resultSet;
+
+    public TableDataQuery(String sql, Database database, JdbcConnection connection, int fetchSize) throws DatabaseException {
+        this.connection = connection;
+        try {
+            if (database instanceof PostgresDatabase && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (database instanceof MySQLDatabase) {
+                statement.setFetchSize(Integer.MIN_VALUE);
+            } else {
+                statement.setFetchSize(fetchSize);
+            }
+            resultSet = statement.executeQuery(sql);
+        } catch (SQLException e) {
+            close();
+            throw new DatabaseException(e);
+        } catch (DatabaseException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    public void close() throws DatabaseException {
+        JdbcUtils.close(resultSet, statement);
+        if (restoreAutoCommit) {
+            restoreAutoCommit = false;
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class DiffOutputControl {
     private boolean includeSchema;
     private boolean includeCatalog;
     private boolean includeTablespace;
+    private MissingDataExternalFileChangeGenerator dataExport;
 
     private DatabaseObjectCollection alreadyHandledMissing= new DatabaseObjectCollection(new DatabaseForHash());
     private DatabaseObjectCollection alreadyHandledUnexpected = new DatabaseObjectCollection(new DatabaseForHash());
@@ -67,11 +68,37 @@ public class DiffOutputControl {
     public DiffOutputControl setDataDir(String dataDir) {
 
         if (dataDir != null) {
-            ChangeGeneratorFactory.getInstance().register(new MissingDataExternalFileChangeGenerator(dataDir));
+            dataExport = new MissingDataExternalFileChangeGenerator(dataDir);
+            ChangeGeneratorFactory.getInstance().register(dataExport);
         }
         return this;
     }
 
+    /**
+     * Returns the generator exporting data to the {@link #setDataDir(String) data directory}, to configure fetch size and parallel exports. Null if no data directory is set.
+     */
+    public MissingDataExternalFileChangeGenerator getDataExport() {
+        return dataExport;
+    }
+
+    /**
+     * Waits until data exported in the background is written to the data directory.
+     */
+    public void waitForDataExport() {
+        if (dataExport != null) {
+            dataExport.waitForExports();
+        }
+    }
+
+    /**
+     * Stops data exports still running in the background, when the changelog they belong to cannot be generated.
+     */
+    public void cancelDataExport() {
+        if (dataExport != null) {
+            dataExport.cancelExports();
+        }
+    }
+
     public void setAlreadyHandledMissing(DatabaseObject missingObject) {
         this.alreadyHandledMissing.add(missingObject);
     }
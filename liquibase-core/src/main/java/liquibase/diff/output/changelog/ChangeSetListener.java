@@ -0,0 +1,11 @@
+package liquibase.diff.output.changelog;
+
+import liquibase.changelog.ChangeSet;
+
+/**
+ * Receives the changeSets generated by {@link DiffToChangeLog} one at a time, in the order they belong in the changelog.
+ */
+public interface ChangeSetListener {
+
+    void changeSetGenerated(ChangeSet changeSet);
+}
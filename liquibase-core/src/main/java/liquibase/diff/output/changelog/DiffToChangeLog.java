@@ -7,8 +7,11 @@ import liquibase.configuration.GlobalConfiguration;
 import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.Database;
 import liquibase.database.ObjectQuotingStrategy;
+import liquibase.database.jvm.JdbcConnection;
 import liquibase.diff.DiffResult;
 import liquibase.diff.ObjectDifferences;
+import liquibase.diff.data.DataChangeListener;
+import liquibase.diff.data.TableDataComparison;
 import liquibase.diff.output.DiffOutputControl;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
@@ -16,6 +19,7 @@ import liquibase.logging.LogFactory;
 import liquibase.serializer.ChangeLogSerializer;
 import liquibase.serializer.ChangeLogSerializerFactory;
 import liquibase.serializer.LiquibaseSerializable;
+import liquibase.serializer.StreamingChangeLogSerializer;
 import liquibase.serializer.core.xml.XMLChangeLogSerializer;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.DatabaseObjectComparator;
@@ -40,6 +44,8 @@ public class DiffToChangeLog {
     private DiffOutputControl diffOutputControl;
 
 
+    private static final int DATA_CHANGES_PER_CHANGE_SET = 1000;
+
     private static Set<Class> loggedOrderFor = new HashSet<Class>();
 
     public DiffToChangeLog(DiffResult diffResult, DiffOutputControl diffOutputControl) {
@@ -73,8 +79,11 @@ public class DiffToChangeLog {
         if (!file.exists()) {
             LogFactory.getLogger().info(file + " does not exist, creating");
             FileOutputStream stream = new FileOutputStream(file);
-            print(new PrintStream(stream), changeLogSerializer);
+            print(new PrintStream(new BufferedOutputStream(stream)), changeLogSerializer);
             stream.close();
+        } else if (changeLogSerializer instanceof StreamingChangeLogSerializer) {
+            LogFactory.getLogger().info(file + " exists, appending");
+            append(file, (StreamingChangeLogSerializer) changeLogSerializer);
         } else {
             LogFactory.getLogger().info(file + " exists, appending");
             ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -90,19 +99,7 @@ public class DiffToChangeLog {
             }
 
             String lineSeparator = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getOutputLineSeparator();
-            BufferedReader fileReader = new BufferedReader(new FileReader(file));
-            String line;
-            long offset = 0;
-            while ((line = fileReader.readLine()) != null) {
-                int index = line.indexOf("</databaseChangeLog>");
-                if (index >= 0) {
-                    offset += index;
-                } else {
-                    offset += line.getBytes().length;
-                    offset += lineSeparator.getBytes().length;
-                }
-            }
-            fileReader.close();
+            long offset = getChangeLogEnd(file);
 
             // System.out.println("resulting XML: " + xml.trim());
 
@@ -121,60 +118,268 @@ public class DiffToChangeLog {
         }
     }
 
+    /**
+     * Writes the existing changelog up to its footer, then the changeSets as they are generated and the footer again, to a temporary file next to it.
+     * The temporary file only replaces the changelog once generation has finished, so the changelog is not touched if there are no changes or generation fails.
+     */
+    protected void append(File file, final StreamingChangeLogSerializer changeLogSerializer) throws IOException {
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            final int[] written = new int[1];
+            try {
+                copy(file, getChangeLogEnd(file), out);
+                generateChangeSets(new ChangeSetListener() {
+                    @Override
+                    public void changeSetGenerated(ChangeSet changeSet) {
+                        write(changeSet, changeLogSerializer, out);
+                        written[0]++;
+                    }
+                });
+                if (written[0] > 0) {
+                    changeLogSerializer.writeFooter(out);
+                }
+            } catch (UnexpectedLiquibaseException e) {
+                throw rethrow(e);
+            } finally {
+                out.close();
+            }
+
+            if (written[0] == 0) {
+                LogFactory.getLogger().info("No changes found, nothing to do");
+                return;
+            }
+            if (!tempFile.renameTo(file)) {
+                // some platforms cannot rename over an existing file
+                file.delete();
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("Cannot rename " + tempFile.getAbsolutePath() + " to " + file.getAbsolutePath());
+                }
+            }
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private void copy(File file, long length, OutputStream out) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            long remaining = length;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the position of the closing databaseChangeLog tag in the file, or the end of the file if there is none.
+     */
+    private long getChangeLogEnd(File file) throws IOException {
+        String lineSeparator = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getOutputLineSeparator();
+        BufferedReader fileReader = new BufferedReader(new FileReader(file));
+        String line;
+        long offset = 0;
+        try {
+            while ((line = fileReader.readLine()) != null) {
+                int index = line.indexOf("</databaseChangeLog>");
+                if (index >= 0) {
+                    offset += index;
+                    return offset;
+                } else {
+                    offset += line.getBytes().length;
+                    offset += lineSeparator.getBytes().length;
+                }
+            }
+        } finally {
+            fileReader.close();
+        }
+        return Math.min(offset, file.length());
+    }
+
     /**
      * Prints changeLog that would bring the target database to be the same as
      * the reference database
      */
     public void print(PrintStream out, ChangeLogSerializer changeLogSerializer) throws ParserConfigurationException, IOException, DatabaseException {
 
-        List<ChangeSet> changeSets = generateChangeSets();
+        if (changeLogSerializer instanceof StreamingChangeLogSerializer) {
+            stream(out, (StreamingChangeLogSerializer) changeLogSerializer);
+        } else {
+            List<ChangeSet> changeSets = generateChangeSets();
 
-        changeLogSerializer.write(changeSets, out);
+            changeLogSerializer.write(changeSets, out);
+        }
 
         out.flush();
     }
 
+    /**
+     * Serializes each changeSet as soon as it is generated, so only the current changeSet is kept in memory.
+     * The header is written with the first changeSet, an empty changelog is written by {@link ChangeLogSerializer#write(List, OutputStream)}.
+     */
+    protected void stream(final OutputStream out, final StreamingChangeLogSerializer changeLogSerializer) throws IOException {
+        final int[] written = new int[1];
+        try {
+            generateChangeSets(new ChangeSetListener() {
+                @Override
+                public void changeSetGenerated(ChangeSet changeSet) {
+                    try {
+                        if (written[0] == 0) {
+                            changeLogSerializer.writeHeader(out);
+                        }
+                    } catch (IOException e) {
+                        throw new UnexpectedLiquibaseException(e);
+                    }
+                    write(changeSet, changeLogSerializer, out);
+                    written[0]++;
+                }
+            });
+        } catch (UnexpectedLiquibaseException e) {
+            throw rethrow(e);
+        }
+
+        if (written[0] == 0) {
+            changeLogSerializer.write(new ArrayList<ChangeSet>(), out);
+        } else {
+            changeLogSerializer.writeFooter(out);
+        }
+    }
+
+    private void write(ChangeSet changeSet, StreamingChangeLogSerializer changeLogSerializer, OutputStream out) {
+        try {
+            changeLogSerializer.writeChangeSet(changeSet, out);
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    private IOException rethrow(UnexpectedLiquibaseException e) {
+        if (e.getCause() instanceof IOException) {
+            return (IOException) e.getCause();
+        }
+        throw e;
+    }
+
     public List<ChangeSet> generateChangeSets() {
-        final ChangeGeneratorFactory changeGeneratorFactory = ChangeGeneratorFactory.getInstance();
-        DatabaseObjectComparator comparator = new DatabaseObjectComparator();
-
-        List<ChangeSet> changeSets = new ArrayList<ChangeSet>();
-        List<Class<? extends DatabaseObject>> types = getOrderedOutputTypes(MissingObjectChangeGenerator.class);
-        for (Class<? extends DatabaseObject> type : types) {
-            ObjectQuotingStrategy quotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS;
-            for (DatabaseObject object : diffResult.getMissingObjects(type, comparator)) {
-                if (object == null) {
-                    continue;
+        final List<ChangeSet> changeSets = new ArrayList<ChangeSet>();
+        generateChangeSets(new ChangeSetListener() {
+            @Override
+            public void changeSetGenerated(ChangeSet changeSet) {
+                changeSets.add(changeSet);
+            }
+        });
+        return changeSets;
+    }
+
+    /**
+     * Generates the changeSets that would bring the target database to be the same as the reference database and passes each one to the listener as soon as it is generated.
+     * Only the ordering of the object types is computed up front.
+     */
+    public void generateChangeSets(ChangeSetListener listener) {
+        boolean generated = false;
+        try {
+            final ChangeGeneratorFactory changeGeneratorFactory = ChangeGeneratorFactory.getInstance();
+            DatabaseObjectComparator comparator = new DatabaseObjectComparator();
+
+            List<Class<? extends DatabaseObject>> types = getOrderedOutputTypes(MissingObjectChangeGenerator.class);
+            for (Class<? extends DatabaseObject> type : types) {
+                ObjectQuotingStrategy quotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS;
+                for (DatabaseObject object : diffResult.getMissingObjects(type, comparator)) {
+                    if (object == null) {
+                        continue;
+                    }
+                    if (!diffResult.getReferenceSnapshot().getDatabase().isLiquibaseObject(object) && !diffResult.getReferenceSnapshot().getDatabase().isSystemObject(object)) {
+                        Change[] changes = changeGeneratorFactory.fixMissing(object, diffOutputControl, diffResult.getReferenceSnapshot().getDatabase(), diffResult.getComparisonSnapshot().getDatabase());
+                        addToChangeSets(changes, listener, quotingStrategy);
+                    }
                 }
-                if (!diffResult.getReferenceSnapshot().getDatabase().isLiquibaseObject(object) && !diffResult.getReferenceSnapshot().getDatabase().isSystemObject(object)) {
-                    Change[] changes = changeGeneratorFactory.fixMissing(object, diffOutputControl, diffResult.getReferenceSnapshot().getDatabase(), diffResult.getComparisonSnapshot().getDatabase());
-                    addToChangeSets(changes, changeSets, quotingStrategy);
+            }
+
+            types = getOrderedOutputTypes(UnexpectedObjectChangeGenerator.class);
+            for (Class<? extends DatabaseObject> type : types) {
+                ObjectQuotingStrategy quotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS;
+                for (DatabaseObject object : diffResult.getUnexpectedObjects(type, comparator)) {
+                    if (!diffResult.getComparisonSnapshot().getDatabase().isLiquibaseObject(object) && !diffResult.getComparisonSnapshot().getDatabase().isSystemObject(object)) {
+                        Change[] changes = changeGeneratorFactory.fixUnexpected(object, diffOutputControl, diffResult.getReferenceSnapshot().getDatabase(), diffResult.getComparisonSnapshot().getDatabase());
+                        addToChangeSets(changes, listener, quotingStrategy);
+                    }
                 }
             }
-        }
 
-        types = getOrderedOutputTypes(UnexpectedObjectChangeGenerator.class);
-        for (Class<? extends DatabaseObject> type : types) {
-            ObjectQuotingStrategy quotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS;
-            for (DatabaseObject object : diffResult.getUnexpectedObjects(type, comparator)) {
-                if (!diffResult.getComparisonSnapshot().getDatabase().isLiquibaseObject(object) && !diffResult.getComparisonSnapshot().getDatabase().isSystemObject(object)) {
-                    Change[] changes = changeGeneratorFactory.fixUnexpected(object, diffOutputControl, diffResult.getReferenceSnapshot().getDatabase(), diffResult.getComparisonSnapshot().getDatabase());
-                    addToChangeSets(changes, changeSets, quotingStrategy);
+            types = getOrderedOutputTypes(ChangedObjectChangeGenerator.class);
+            for (Class<? extends DatabaseObject> type : types) {
+                ObjectQuotingStrategy quotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS;
+                for (Map.Entry<? extends DatabaseObject, ObjectDifferences> entry : diffResult.getChangedObjects(type, comparator).entrySet()) {
+                    if (!diffResult.getReferenceSnapshot().getDatabase().isLiquibaseObject(entry.getKey()) && !diffResult.getReferenceSnapshot().getDatabase().isSystemObject(entry.getKey())) {
+                        Change[] changes = changeGeneratorFactory.fixChanged(entry.getKey(), entry.getValue(), diffOutputControl, diffResult.getReferenceSnapshot().getDatabase(), diffResult.getComparisonSnapshot().getDatabase());
+                        addToChangeSets(changes, listener, quotingStrategy);
+                    }
                 }
             }
+
+            if (diffResult.getReferenceSnapshot().getSnapshotControl().shouldInclude(Data.class)
+                    && diffResult.getComparisonSnapshot().getSnapshotControl().shouldInclude(Data.class)) {
+                addDataChangeSets(listener);
+            }
+            generated = true;
+        } finally {
+            if (generated) {
+                diffOutputControl.waitForDataExport();
+            } else {
+                diffOutputControl.cancelDataExport();
+            }
         }
+    }
 
-        types = getOrderedOutputTypes(ChangedObjectChangeGenerator.class);
-        for (Class<? extends DatabaseObject> type : types) {
-            ObjectQuotingStrategy quotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS;
-            for (Map.Entry<? extends DatabaseObject, ObjectDifferences> entry : diffResult.getChangedObjects(type, comparator).entrySet()) {
-                if (!diffResult.getReferenceSnapshot().getDatabase().isLiquibaseObject(entry.getKey()) && !diffResult.getReferenceSnapshot().getDatabase().isSystemObject(entry.getKey())) {
-                    Change[] changes = changeGeneratorFactory.fixChanged(entry.getKey(), entry.getValue(), diffOutputControl, diffResult.getReferenceSnapshot().getDatabase(), diffResult.getComparisonSnapshot().getDatabase());
-                    addToChangeSets(changes, changeSets, quotingStrategy);
-                }
+    /**
+     * Adds the changes that make the data of tables in both databases match the reference database, compared with {@link TableDataComparison}.
+     * Data of missing tables is added by the {@link MissingObjectChangeGenerator} for {@link Data}.
+     */
+    protected void addDataChangeSets(final ChangeSetListener listener) {
+        Database referenceDatabase = diffResult.getReferenceSnapshot().getDatabase();
+        Database comparisonDatabase = diffResult.getComparisonSnapshot().getDatabase();
+        if (!(referenceDatabase.getConnection() instanceof JdbcConnection) || !(comparisonDatabase.getConnection() instanceof JdbcConnection)) {
+            return;
+        }
+
+        SortedSet<Table> tables = new TreeSet<Table>(new DatabaseObjectComparator());
+        tables.addAll(diffResult.getReferenceSnapshot().get(Table.class));
+        for (Table referenceTable : tables) {
+            Table comparisonTable = diffResult.getComparisonSnapshot().get(referenceTable);
+            if (comparisonTable == null || referenceDatabase.isLiquibaseObject(referenceTable) || referenceDatabase.isSystemObject(referenceTable)) {
+                continue;
+            }
+            if (referenceTable.getPrimaryKey() == null) {
+                LogFactory.getLogger().warning("Not comparing data in " + referenceTable.getName() + ", it has no primary key");
+                continue;
+            }
+
+            final List<Change> changes = new ArrayList<Change>();
+            try {
+                new TableDataComparison(referenceTable, referenceDatabase, comparisonTable, comparisonDatabase, diffOutputControl).compare(new DataChangeListener() {
+                    @Override
+                    public void changeGenerated(Change change) {
+                        changes.add(change);
+                        if (changes.size() >= DATA_CHANGES_PER_CHANGE_SET) {
+                            addToChangeSets(changes.toArray(new Change[changes.size()]), listener, ObjectQuotingStrategy.QUOTE_ALL_OBJECTS);
+                            changes.clear();
+                        }
+                    }
+                });
+            } catch (DatabaseException e) {
+                throw new UnexpectedLiquibaseException(e);
+            }
+            if (!changes.isEmpty()) {
+                addToChangeSets(changes.toArray(new Change[changes.size()]), listener, ObjectQuotingStrategy.QUOTE_ALL_OBJECTS);
             }
         }
-        return changeSets;
     }
 
     protected List<Class<? extends DatabaseObject>> getOrderedOutputTypes(Class<? extends ChangeGenerator> generatorType) {
@@ -198,14 +403,14 @@ public class DiffToChangeLog {
         return types;
     }
 
-    private void addToChangeSets(Change[] changes, List<ChangeSet> changeSets, ObjectQuotingStrategy quotingStrategy) {
+    private void addToChangeSets(Change[] changes, ChangeSetListener listener, ObjectQuotingStrategy quotingStrategy) {
         if (changes != null) {
             ChangeSet changeSet = new ChangeSet(generateId(), getChangeSetAuthor(), false, false, null, changeSetContext,
                     null, quotingStrategy, null);
             for (Change change : changes) {
                 changeSet.addChange(change);
             }
-            changeSets.add(changeSet);
+            listener.changeSetGenerated(changeSet);
         }
     }
 
@@ -5,6 +5,7 @@ import liquibase.change.ColumnConfig;
 import liquibase.change.core.InsertDataChange;
 import liquibase.database.Database;
 import liquibase.database.jvm.JdbcConnection;
+import liquibase.diff.data.TableDataComparison;
 import liquibase.diff.output.DiffOutputControl;
 import liquibase.diff.output.changelog.ChangeGeneratorChain;
 import liquibase.diff.output.changelog.MissingObjectChangeGenerator;
@@ -17,7 +18,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 public class MissingDataChangeGenerator implements MissingObjectChangeGenerator {
@@ -80,22 +80,7 @@ public class MissingDataChangeGenerator implements MissingObjectChangeGenerator
 
                 // loop over all columns for this row
                 for (int i = 0; i < columnNames.size(); i++) {
-                    ColumnConfig column = new ColumnConfig();
-                    column.setName(columnNames.get(i));
-
-                    Object value = JdbcUtils.getResultSetValue(rs, i + 1);
-                    if (value == null) {
-                        column.setValue(null);
-                    } else if (value instanceof Number) {
-                        column.setValueNumeric((Number) value);
-                    } else if (value instanceof Boolean) {
-                        column.setValueBoolean((Boolean) value);
-                    } else if (value instanceof Date) {
-                        column.setValueDate((Date) value);
-                    } else { // string
-                        column.setValue(value.toString().replace("\\", "\\\\"));
-                    }
-
+                    ColumnConfig column = TableDataComparison.createColumnConfig(columnNames.get(i), JdbcUtils.getResultSetValue(rs, i + 1));
                     change.addColumn(column);
 
                 }
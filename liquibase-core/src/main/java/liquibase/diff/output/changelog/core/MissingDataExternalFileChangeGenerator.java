@@ -4,33 +4,65 @@ import liquibase.change.Change;
 import liquibase.change.core.LoadDataChange;
 import liquibase.change.core.LoadDataColumnConfig;
 import liquibase.database.Database;
-import liquibase.database.core.PostgresDatabase;
 import liquibase.database.jvm.JdbcConnection;
+import liquibase.diff.data.TableDataQuery;
 import liquibase.diff.output.DiffOutputControl;
 import liquibase.diff.output.changelog.ChangeGeneratorChain;
+import liquibase.exception.DatabaseException;
 import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.logging.LogFactory;
 import liquibase.servicelocator.LiquibaseService;
+import liquibase.snapshot.SnapshotConnectionSupplier;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.Data;
 import liquibase.structure.core.Table;
 import liquibase.util.ISODateFormat;
 import liquibase.util.JdbcUtils;
-import liquibase.util.csv.CSVWriter;
-
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 
+/**
+ * Exports the data of missing tables to CSV files in the data directory and generates loadData changes for them.
+ * Files are named after the table, prefixed with the schema for tables outside the default schema of the reference database.
+ * <p>
+ * Rows are read with {@link TableDataQuery} and a large fetch size. How each column is read and formatted is decided once from the result set metadata,
+ * so rows are written straight to a buffered file without converting each value to a generic object first.
+ * <p>
+ * If a {@link SnapshotConnectionSupplier} is set, tables are exported in the background on up to {@link #getParallelConnections()} extra connections
+ * while the changelog is generated. {@link #waitForExports()} must be called before the files are used, or {@link #cancelExports()} if generation failed.
+ */
 @LiquibaseService(skip = true)
 public class MissingDataExternalFileChangeGenerator extends MissingDataChangeGenerator {
 
+    private static final int STRING = 0;
+    private static final int INTEGER = 1;
+    private static final int DECIMAL = 2;
+    private static final int DOUBLE = 3;
+    private static final int FLOAT = 4;
+    private static final int BOOLEAN = 5;
+    private static final int DATE = 6;
+    private static final int TIME = 7;
+    private static final int TIMESTAMP = 8;
+    private static final int OBJECT = 9;
+
     private String dataDir;
+    private int fetchSize = 10000;
+    private SnapshotConnectionSupplier connectionSupplier;
+    private int parallelConnections = 4;
+
+    private ExecutorService executor;
+    private List<Future<Long>> exports = new ArrayList<Future<Long>>();
+    private BlockingQueue<JdbcConnection> idleConnections = new LinkedBlockingQueue<JdbcConnection>();
+    private List<JdbcConnection> openedConnections = new ArrayList<JdbcConnection>();
+    private Set<String> exportedFileNames = new HashSet<String>();
 
     public MissingDataExternalFileChangeGenerator(String dataDir) {
         this.dataDir = dataDir;
@@ -44,10 +76,44 @@ public class MissingDataExternalFileChangeGenerator extends MissingDataChangeGen
         return PRIORITY_NONE;
     }
 
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Number of rows fetched from the database at a time. Defaults to 10000.
+     */
+    public MissingDataExternalFileChangeGenerator setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public SnapshotConnectionSupplier getConnectionSupplier() {
+        return connectionSupplier;
+    }
+
+    /**
+     * Enables parallel exports over connections opened by the given supplier. Set to null to export each table on the reference database connection when its change is generated.
+     */
+    public MissingDataExternalFileChangeGenerator setConnectionSupplier(SnapshotConnectionSupplier connectionSupplier) {
+        this.connectionSupplier = connectionSupplier;
+        return this;
+    }
+
+    public int getParallelConnections() {
+        return parallelConnections;
+    }
+
+    /**
+     * Maximum number of connections opened by the {@link #getConnectionSupplier() connection supplier}. Defaults to 4.
+     */
+    public MissingDataExternalFileChangeGenerator setParallelConnections(int parallelConnections) {
+        this.parallelConnections = parallelConnections;
+        return this;
+    }
+
     @Override
-    public Change[] fixMissing(DatabaseObject missingObject, DiffOutputControl outputControl, Database referenceDatabase, Database comparisionDatabase, ChangeGeneratorChain chain) {
-        Statement stmt = null;
-        ResultSet rs = null;
+    public Change[] fixMissing(DatabaseObject missingObject, DiffOutputControl outputControl, final Database referenceDatabase, Database comparisionDatabase, ChangeGeneratorChain chain) {
         try {
             Data data = (Data) missingObject;
 
@@ -56,20 +122,15 @@ public class MissingDataExternalFileChangeGenerator extends MissingDataChangeGen
                 return null;
             }
 
-            String sql = "SELECT * FROM " + referenceDatabase.escapeTableName(table.getSchema().getCatalogName(), table.getSchema().getName(), table.getName());
-
-            stmt = ((JdbcConnection) referenceDatabase.getConnection()).createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-            if (!(referenceDatabase instanceof PostgresDatabase)) {
-                stmt.setFetchSize(Integer.MIN_VALUE);
-            }
-            rs = stmt.executeQuery(sql);
+            final String sql = "SELECT * FROM " + referenceDatabase.escapeTableName(table.getSchema().getCatalogName(), table.getSchema().getName(), table.getName());
 
-            List<String> columnNames = new ArrayList<String>();
-            for (int i=0; i< rs.getMetaData().getColumnCount(); i++) {
-                columnNames.add(rs.getMetaData().getColumnName(i+1));
+            String fileName = getFileName(table, referenceDatabase);
+            synchronized (this) {
+                if (!exportedFileNames.add(fileName)) {
+                    throw new UnexpectedLiquibaseException("Cannot export the data of " + table.getSchema().getCatalogName() + "." + table.getSchema().getName() + "." + table.getName()
+                            + ", another table was already exported to " + fileName);
+                }
             }
-
-            String fileName = table.getName().toLowerCase() + ".csv";
             if (dataDir != null) {
                 fileName = dataDir + "/" + fileName;
             }
@@ -83,49 +144,32 @@ public class MissingDataExternalFileChangeGenerator extends MissingDataChangeGen
                         + " is not a directory");
             }
 
-            CSVWriter outputFile = new CSVWriter(new BufferedWriter(new FileWriter(fileName)));
-            String[] dataTypes = new String[columnNames.size()];
-            String[] line = new String[columnNames.size()];
-            for (int i = 0; i < columnNames.size(); i++) {
-                line[i] = columnNames.get(i);
-            }
-            outputFile.writeNext(line);
-
-            int rowNum = 0;
-            while (rs.next()) {
-                line = new String[columnNames.size()];
-
-                for (int i = 0; i < columnNames.size(); i++) {
-                    Object value = JdbcUtils.getResultSetValue(rs, i + 1);
-                    if (dataTypes[i] == null && value != null) {
-                        if (value instanceof Number) {
-                            dataTypes[i] = "NUMERIC";
-                        } else if (value instanceof Boolean) {
-                            dataTypes[i] = "BOOLEAN";
-                        } else if (value instanceof Date) {
-                            dataTypes[i] = "DATE";
-                        } else {
-                            dataTypes[i] = "STRING";
-                        }
-                    }
-                    if (value == null) {
-                        line[i] = "NULL";
-                    } else {
-                        if (value instanceof Date) {
-                            line[i] = new ISODateFormat().format(((Date) value));
-                        } else {
-                            line[i] = value.toString();
-                        }
-                    }
+            final File file = new File(fileName);
+            String[] columnNames;
+            String[] dataTypes;
+            if (connectionSupplier == null) {
+                TableDataQuery query = new TableDataQuery(sql, referenceDatabase, (JdbcConnection) referenceDatabase.getConnection(), fetchSize);
+                try {
+                    ResultSetMetaData metaData = query.getResultSet().getMetaData();
+                    columnNames = getColumnNames(metaData);
+                    dataTypes = getDataTypes(metaData);
+                    export(query.getResultSet(), file);
+                } finally {
+                    query.close();
                 }
-                outputFile.writeNext(line);
-                rowNum++;
-                if (rowNum % 5000 == 0) {
-                    outputFile.flush();
+            } else {
+                Statement statement = null;
+                ResultSet resultSet = null;
+                try {
+                    statement = ((JdbcConnection) referenceDatabase.getConnection()).createStatement();
+                    resultSet = statement.executeQuery(sql + " WHERE 1=0");
+                    columnNames = getColumnNames(resultSet.getMetaData());
+                    dataTypes = getDataTypes(resultSet.getMetaData());
+                } finally {
+                    JdbcUtils.close(resultSet, statement);
                 }
+                submitExport(sql, file, referenceDatabase);
             }
-            outputFile.flush();
-            outputFile.close();
 
             LoadDataChange change = new LoadDataChange();
             change.setFile(fileName);
@@ -138,8 +182,8 @@ public class MissingDataExternalFileChangeGenerator extends MissingDataChangeGen
             }
             change.setTableName(table.getName());
 
-            for (int i = 0; i < columnNames.size(); i++) {
-                String colName = columnNames.get(i);
+            for (int i = 0; i < columnNames.length; i++) {
+                String colName = columnNames[i];
                 LoadDataColumnConfig columnConfig = new LoadDataColumnConfig();
                 columnConfig.setHeader(colName);
                 columnConfig.setName(colName);
@@ -153,17 +197,288 @@ public class MissingDataExternalFileChangeGenerator extends MissingDataChangeGen
             };
         } catch (Exception e) {
             throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    /**
+     * Returns the name of the CSV file for the table, lower case and prefixed with the schema if the table is not in the default schema of the database.
+     */
+    protected String getFileName(Table table, Database database) {
+        String fileName = table.getName().toLowerCase() + ".csv";
+        String schemaName = table.getSchema() == null ? null : table.getSchema().getName();
+        if (schemaName != null && !schemaName.equalsIgnoreCase(database.getDefaultSchemaName())) {
+            fileName = schemaName.toLowerCase() + "." + fileName;
+        }
+        return fileName;
+    }
+
+    /**
+     * Waits until all background exports finished and closes their connections. Throws an exception if any export failed.
+     */
+    public synchronized void waitForExports() {
+        try {
+            for (Future<Long> export : exports) {
+                try {
+                    export.get();
+                } catch (InterruptedException e) {
+                    throw new UnexpectedLiquibaseException(e);
+                } catch (ExecutionException e) {
+                    throw new UnexpectedLiquibaseException(e.getCause());
+                }
+            }
         } finally {
-            if (rs != null) {
+            cancelExports();
+        }
+    }
+
+    /**
+     * Stops background exports that did not finish yet and closes their connections, so running queries are aborted. Used when the changelog cannot be generated.
+     */
+    public synchronized void cancelExports() {
+        for (Future<Long> export : exports) {
+            export.cancel(true);
+        }
+        exports.clear();
+        exportedFileNames.clear();
+        ExecutorService stoppedExecutor = executor;
+        executor = null;
+        if (stoppedExecutor != null) {
+            stoppedExecutor.shutdownNow();
+        }
+        idleConnections.clear();
+        synchronized (openedConnections) {
+            for (JdbcConnection connection : openedConnections) {
                 try {
-                    rs.close();
-                } catch (SQLException ignore) { }
+                    connection.close();
+                } catch (DatabaseException e) {
+                    LogFactory.getLogger().debug("Cannot close export connection: " + e.getMessage());
+                }
+            }
+            openedConnections.clear();
+        }
+        if (stoppedExecutor != null) {
+            try {
+                if (!stoppedExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LogFactory.getLogger().warning("Data exports did not stop within 10 seconds");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-            if (stmt != null) {
+        }
+    }
+
+    private synchronized void submitExport(final String sql, final File file, final Database database) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelConnections, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "liquibase-data-export");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        final ExecutorService taskExecutor = executor;
+        exports.add(executor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                JdbcConnection connection = idleConnections.poll();
+                if (connection == null) {
+                    connection = (JdbcConnection) connectionSupplier.openConnection(database);
+                    synchronized (openedConnections) {
+                        if (taskExecutor.isShutdown()) {
+                            connection.close();
+                            throw new CancellationException();
+                        }
+                        openedConnections.add(connection);
+                    }
+                }
                 try {
-                    stmt.close();
-                } catch (SQLException ignore) { }
+                    TableDataQuery query = new TableDataQuery(sql, database, connection, fetchSize);
+                    try {
+                        return export(query.getResultSet(), file);
+                    } finally {
+                        query.close();
+                    }
+                } finally {
+                    synchronized (openedConnections) {
+                        //connections closed by cancelExports are not reused
+                        if (openedConnections.contains(connection)) {
+                            idleConnections.add(connection);
+                        }
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Writes the rows of the result set to the file as CSV with a header line, quoting every value. Returns the number of rows written.
+     */
+    protected long export(ResultSet resultSet, File file) throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        int[] columnTypes = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnTypes[i] = getColumnType(metaData, i + 1);
+        }
+
+        ISODateFormat dateFormat = new ISODateFormat();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 1024 * 64);
+        long rows = 0;
+        try {
+            String[] columnNames = getColumnNames(metaData);
+            for (int i = 0; i < columnCount; i++) {
+                writeValue(columnNames[i], i, writer);
+            }
+            writer.write('\n');
+
+            while (resultSet.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    writeValue(getValue(resultSet, i + 1, columnTypes[i], dateFormat), i, writer);
+                }
+                writer.write('\n');
+                rows++;
+            }
+        } finally {
+            writer.close();
+        }
+        return rows;
+    }
+
+    private String getValue(ResultSet resultSet, int index, int columnType, ISODateFormat dateFormat) throws SQLException {
+        String value;
+        switch (columnType) {
+            case STRING:
+                value = resultSet.getString(index);
+                break;
+            case INTEGER:
+                long longValue = resultSet.getLong(index);
+                value = resultSet.wasNull() ? null : Long.toString(longValue);
+                break;
+            case DECIMAL:
+                BigDecimal decimalValue = resultSet.getBigDecimal(index);
+                value = decimalValue == null ? null : decimalValue.toString();
+                break;
+            case DOUBLE:
+                double doubleValue = resultSet.getDouble(index);
+                value = resultSet.wasNull() ? null : Double.toString(doubleValue);
+                break;
+            case FLOAT:
+                float floatValue = resultSet.getFloat(index);
+                value = resultSet.wasNull() ? null : Float.toString(floatValue);
+                break;
+            case BOOLEAN:
+                boolean booleanValue = resultSet.getBoolean(index);
+                value = resultSet.wasNull() ? null : Boolean.toString(booleanValue);
+                break;
+            case DATE:
+                java.sql.Date dateValue = resultSet.getDate(index);
+                value = dateValue == null ? null : dateFormat.format(dateValue);
+                break;
+            case TIME:
+                Time timeValue = resultSet.getTime(index);
+                value = timeValue == null ? null : dateFormat.format(timeValue);
+                break;
+            case TIMESTAMP:
+                Timestamp timestampValue = resultSet.getTimestamp(index);
+                value = timestampValue == null ? null : dateFormat.format(timestampValue);
+                break;
+            default:
+                Object objectValue = JdbcUtils.getResultSetValue(resultSet, index);
+                if (objectValue instanceof Date) {
+                    value = dateFormat.format((Date) objectValue);
+                } else {
+                    value = objectValue == null ? null : objectValue.toString();
+                }
+        }
+        if (value == null) {
+            return "NULL";
+        }
+        return value;
+    }
+
+    /**
+     * Writes a value quoted the same way as {@link liquibase.util.csv.CSVWriter}.
+     */
+    private void writeValue(String value, int column, Writer writer) throws IOException {
+        if (column > 0) {
+            writer.write(',');
+        }
+        writer.write('"');
+        if (value.indexOf('"') < 0) {
+            writer.write(value);
+        } else {
+            writer.write(value.replace("\"", "\"\""));
+        }
+        writer.write('"');
+    }
+
+    private int getColumnType(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.BIGINT:
+                return STRING;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return INTEGER;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return DECIMAL;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return DOUBLE;
+            case Types.REAL:
+                return FLOAT;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.DATE:
+                String className = metaData.getColumnClassName(index);
+                if ("java.sql.Timestamp".equals(className) || "oracle.sql.TIMESTAMP".equals(className)) {
+                    return TIMESTAMP;
+                }
+                return DATE;
+            case Types.TIME:
+                return TIME;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            default:
+                return OBJECT;
+        }
+    }
+
+    private String[] getColumnNames(ResultSetMetaData metaData) throws SQLException {
+        String[] columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
+        return columnNames;
+    }
+
+    /**
+     * Returns the loadData column type of each column: NUMERIC, BOOLEAN, DATE or STRING.
+     */
+    private String[] getDataTypes(ResultSetMetaData metaData) throws SQLException {
+        String[] dataTypes = new String[metaData.getColumnCount()];
+        for (int i = 0; i < dataTypes.length; i++) {
+            int columnType = metaData.getColumnType(i + 1);
+            if (columnType == Types.BIT || columnType == Types.BOOLEAN) {
+                dataTypes[i] = "BOOLEAN";
+            } else if (JdbcUtils.isNumeric(columnType)) {
+                dataTypes[i] = "NUMERIC";
+            } else if (columnType == Types.DATE || columnType == Types.TIME || columnType == Types.TIMESTAMP) {
+                dataTypes[i] = "DATE";
+            } else {
+                dataTypes[i] = "STRING";
             }
         }
+        return dataTypes;
     }
 }
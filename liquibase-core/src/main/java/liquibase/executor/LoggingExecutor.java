@@ -1,6 +1,7 @@
 package liquibase.executor;
 
 import liquibase.change.Change;
+import liquibase.change.StreamingChange;
 import liquibase.database.Database;
 import liquibase.database.core.MSSQLDatabase;
 import liquibase.database.core.SybaseASADatabase;
@@ -10,6 +11,7 @@ import liquibase.servicelocator.LiquibaseService;
 import liquibase.sql.visitor.SqlVisitor;
 import liquibase.sqlgenerator.SqlGeneratorFactory;
 import liquibase.statement.SqlStatement;
+import liquibase.statement.SqlStatementHandler;
 import liquibase.statement.core.*;
 import liquibase.util.StreamUtil;
 
@@ -41,7 +43,17 @@ public class LoggingExecutor extends AbstractExecutor implements Executor {
     }
 
     @Override
-    public void execute(Change change, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+    public void execute(Change change, final List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (change instanceof StreamingChange) {
+            ((StreamingChange) change).generateStatements(database, new SqlStatementHandler() {
+                @Override
+                public void handle(SqlStatement statement) throws DatabaseException {
+                    execute(statement, sqlVisitors);
+                }
+            });
+            return;
+        }
+
         SqlStatement[] sqlStatements = change.generateStatements(database);
         if (sqlStatements != null) {
             for (SqlStatement statement : sqlStatements) {
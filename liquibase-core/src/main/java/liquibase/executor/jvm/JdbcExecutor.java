@@ -1,6 +1,7 @@
 package liquibase.executor.jvm;
 
 import liquibase.change.Change;
+import liquibase.change.StreamingChange;
 import liquibase.database.Database;
 import liquibase.database.DatabaseConnection;
 import liquibase.database.OfflineConnection;
@@ -15,6 +16,7 @@ import liquibase.logging.Logger;
 import liquibase.sql.UnparsedSql;
 import liquibase.sql.visitor.SqlVisitor;
 import liquibase.statement.*;
+import liquibase.statement.core.BatchStatement;
 import liquibase.statement.core.RawSqlStatement;
 import liquibase.util.JdbcUtils;
 import liquibase.util.StringUtils;
@@ -72,7 +74,17 @@ public class JdbcExecutor extends AbstractExecutor implements Executor {
     }
 
     @Override
-    public void execute(Change change, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+    public void execute(Change change, final List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (change instanceof StreamingChange) {
+            ((StreamingChange) change).generateStatements(database, new SqlStatementHandler() {
+                @Override
+                public void handle(SqlStatement statement) throws DatabaseException {
+                    execute(statement, sqlVisitors);
+                }
+            });
+            return;
+        }
+
         SqlStatement[] sqlStatements = change.generateStatements(database);
         if (sqlStatements != null) {
             for (SqlStatement statement : sqlStatements) {
@@ -297,21 +309,27 @@ public class JdbcExecutor extends AbstractExecutor implements Executor {
 
         @Override
         public Object doInStatement(Statement stmt) throws SQLException, DatabaseException {
-            for (String statement : applyVisitors(sql, sqlVisitors)) {
+            String[] statements = applyVisitors(sql, sqlVisitors);
+            boolean batch = sql instanceof BatchStatement && statements.length > 1 && stmt.getConnection().getMetaData().supportsBatchUpdates();
+            for (String statement : statements) {
                 if (database instanceof OracleDatabase) {
                     statement = statement.replaceFirst("/\\s*/\\s*$", ""); //remove duplicated /'s
                 }
 
-                log.debug("Executing EXECUTE database command: "+statement);
                 if (statement.contains("?")) {
                     stmt.setEscapeProcessing(false);
                 }
-                try {
+                if (batch) {
+                    log.debug("Adding EXECUTE database command to batch: "+statement);
+                    stmt.addBatch(statement);
+                } else {
+                    log.debug("Executing EXECUTE database command: "+statement);
                     stmt.execute(statement);
-                } catch (SQLException e) {
-                    throw e;
                 }
             }
+            if (batch) {
+                stmt.executeBatch();
+            }
             return null;
         }
 
@@ -6,11 +6,16 @@ import liquibase.command.DiffCommand;
 import liquibase.command.DiffToChangeLogCommand;
 import liquibase.command.GenerateChangeLogCommand;
 import liquibase.database.Database;
+import liquibase.database.DatabaseConnection;
 import liquibase.database.DatabaseFactory;
 import liquibase.diff.DiffStatusListener;
 import liquibase.diff.compare.CompareControl;
 import liquibase.diff.output.DiffOutputControl;
 import liquibase.exception.*;
+import liquibase.lockservice.LockConnectionSupplier;
+import liquibase.lockservice.LockService;
+import liquibase.lockservice.LockServiceFactory;
+import liquibase.lockservice.StandardLockService;
 import liquibase.logging.LogFactory;
 import liquibase.resource.ClassLoaderResourceAccessor;
 import liquibase.snapshot.InvalidExampleException;
@@ -54,6 +59,30 @@ public class CommandLineUtils {
         }
     }
 
+    /**
+     * Renews the lock lease of the given database on connections opened with the same settings as the database, see {@link StandardLockService}.
+     * Call only for databases whose changelog lock is taken, since it creates their lock service.
+     */
+    public static void attachLockConnectionSupplier(Database database,
+                                                    ClassLoader classLoader,
+                                                    final String url,
+                                                    final String username,
+                                                    final String password,
+                                                    final String driver,
+                                                    final String databaseClass,
+                                                    final String driverPropertiesFile) {
+        final ClassLoaderResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor(classLoader);
+        LockService lockService = LockServiceFactory.getInstance().getLockService(database);
+        if (lockService instanceof StandardLockService) {
+            ((StandardLockService) lockService).setConnectionSupplier(new LockConnectionSupplier() {
+                @Override
+                public DatabaseConnection openConnection(Database database) throws DatabaseException {
+                    return DatabaseFactory.getInstance().openConnection(url, username, password, driver, databaseClass, driverPropertiesFile, resourceAccessor);
+                }
+            });
+        }
+    }
+
     public static void doDiff(Database referenceDatabase, Database targetDatabase, String snapshotTypes) throws LiquibaseException {
         doDiff(referenceDatabase, targetDatabase, snapshotTypes, null);
     }
@@ -5,6 +5,7 @@ import liquibase.Contexts;
 import liquibase.LabelExpression;
 import liquibase.Liquibase;
 import liquibase.change.CheckSum;
+import liquibase.changelog.ChangeLogParameters;
 import liquibase.command.ExecuteSqlCommand;
 import liquibase.command.SnapshotCommand;
 import liquibase.configuration.LiquibaseConfiguration;
@@ -21,6 +22,7 @@ import liquibase.lockservice.LockServiceFactory;
 import liquibase.logging.LogFactory;
 import liquibase.logging.LogLevel;
 import liquibase.logging.Logger;
+import liquibase.parser.core.precompiled.PrecompiledChangeLogParser;
 import liquibase.resource.ClassLoaderResourceAccessor;
 import liquibase.resource.CompositeResourceAccessor;
 import liquibase.resource.FileSystemResourceAccessor;
@@ -244,7 +246,7 @@ public class Main {
         } else if (!isCommand(command)) {
             messages.add("Unknown command: " + command);
         } else {
-            if (url == null) {
+            if (url == null && !"compileChangeLog".equalsIgnoreCase(command)) {
                 messages.add("--url is required");
             }
 
@@ -272,6 +274,7 @@ public class Main {
             || "rollbackCountSQL".equalsIgnoreCase(command)
             || "calculateCheckSum".equalsIgnoreCase(command)
             || "dbDoc".equalsIgnoreCase(command)
+            || "compileChangeLog".equalsIgnoreCase(command)
             || "tag".equalsIgnoreCase(command)) {
 
             if (commandParams.size() > 0 && commandParams.iterator().next().startsWith("-")) {
@@ -314,6 +317,8 @@ public class Main {
         if (commandParams.isEmpty() || commandParams.iterator().next().startsWith("-")) {
             if ("calculateCheckSum".equalsIgnoreCase(command)) {
                 messages.add("missing changeSet identifier");
+            } else if ("compileChangeLog".equalsIgnoreCase(command)) {
+                messages.add("missing output directory");
             }
         }
     }
@@ -343,6 +348,7 @@ public class Main {
                 || "validate".equalsIgnoreCase(command)
                 || "changeLogSync".equalsIgnoreCase(command)
                 || "changeLogSyncSql".equalsIgnoreCase(command)
+                || "compileChangeLog".equalsIgnoreCase(command)
                 || "generateChangeLog".equalsIgnoreCase(command);
     }
 
@@ -379,6 +385,7 @@ public class Main {
                 || "calculateCheckSum".equalsIgnoreCase(arg)
                 || "clearCheckSums".equalsIgnoreCase(arg)
                 || "dbDoc".equalsIgnoreCase(arg)
+                || "compileChangeLog".equalsIgnoreCase(arg)
                 || "changelogSync".equalsIgnoreCase(arg)
                 || "changelogSyncSQL".equalsIgnoreCase(arg)
                 || "markNextChangeSetRan".equalsIgnoreCase(arg)
@@ -493,8 +500,13 @@ public class Main {
         stream.println("                                of the database to standard out");
         stream.println(" snapshot                       Writes the current state");
         stream.println("                                of the database to standard out");
+        stream.println(" snapshot --baselineFile=<file> Reuses the snapshot kept in <file> if the");
+        stream.println("                                database has not changed since, otherwise");
+        stream.println("                                writes a new snapshot and keeps it in <file>");
         stream.println(" snapshotReference              Writes the current state");
         stream.println("                                of the referenceUrl database to standard out");
+        stream.println("                                Snapshots log the time spent per metadata");
+        stream.println("                                query and object type with --logLevel=info");
         stream.println("");
         stream.println("Diff Commands");
         stream.println(" diff [diff parameters]          Writes description of differences");
@@ -502,6 +514,8 @@ public class Main {
         stream.println(" diffChangeLog [diff parameters] Writes Change Log XML to update");
         stream.println("                                 the database");
         stream.println("                                 to the reference database to standard out");
+        stream.println("                                 Both log the time spent per metadata");
+        stream.println("                                 query and object type with --logLevel=info");
         stream.println("");
         stream.println("Documentation Commands");
         stream.println(" dbDoc <outputDirectory>         Generates Javadoc-like documentation");
@@ -514,6 +528,10 @@ public class Main {
         stream.println("                           Outputs count (list if --verbose) of changesets run");
         stream.println("                           in the database that do not exist in the changelog.");
         stream.println(" validate                  Checks changelog for errors");
+        stream.println(" compileChangeLog <outputDirectory>");
+        stream.println("                           Writes precompiled snapshots of the changelog and");
+        stream.println("                           its included files for faster parsing. Does not");
+        stream.println("                           require --url");
         stream.println(" calculateCheckSum <id>    Calculates and prints a checksum for the changeset");
         stream.println("                           with the given id in the format filepath::id::author.");
         stream.println(" clearCheckSums            Removes all saved checksums from database log.");
@@ -851,6 +869,15 @@ public class Main {
 
         FileSystemResourceAccessor fsOpener = new FileSystemResourceAccessor();
         CommandLineResourceAccessor clOpener = new CommandLineResourceAccessor(classLoader);
+        if ("compileChangeLog".equalsIgnoreCase(command)) {
+            ChangeLogParameters parameters = new ChangeLogParameters();
+            for (Map.Entry<String, Object> entry : changeLogParameters.entrySet()) {
+                parameters.set(entry.getKey(), entry.getValue());
+            }
+            List<File> compiledFiles = PrecompiledChangeLogParser.compile(changeLogFile, parameters, new CompositeResourceAccessor(fsOpener, clOpener), new File(commandParams.iterator().next()));
+            System.err.println("Wrote " + compiledFiles.size() + " precompiled changelog file(s)");
+            return;
+        }
         Database database = CommandLineUtils.createDatabaseObject(classLoader, this.url,
             this.username, this.password, this.driver, this.defaultCatalogName,this.defaultSchemaName,  Boolean.parseBoolean(outputDefaultCatalog), Boolean.parseBoolean(outputDefaultSchema), this.databaseClass, this.driverPropertiesFile, this.liquibaseCatalogName, this.liquibaseSchemaName);
         try {
@@ -912,6 +939,10 @@ public class Main {
                 SnapshotCommand command = new SnapshotCommand();
                 command.setDatabase(database);
                 command.setSchemas(getCommandParam("schemas", database.getDefaultSchema().getSchemaName()));
+                String baselineFile = getCommandParam("baselineFile", null);
+                if (baselineFile != null) {
+                    command.setBaselineFile(new File(baselineFile));
+                }
                 System.out.println(command.execute());
                 return;
             } else if ("executeSql".equalsIgnoreCase(command)) {
@@ -997,6 +1028,9 @@ public class Main {
                 return;
             }
 
+            //the remaining commands take the changelog lock, its lease is renewed on a separate connection
+            CommandLineUtils.attachLockConnectionSupplier(database, classLoader, this.url, this.username, this.password, this.driver, this.databaseClass, this.driverPropertiesFile);
+
             try {
                 if ("update".equalsIgnoreCase(command)) {
                     liquibase.update(new Contexts(contexts), new LabelExpression(labels));
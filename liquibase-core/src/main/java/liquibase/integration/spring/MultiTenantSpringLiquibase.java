@@ -4,9 +4,20 @@
 package liquibase.integration.spring;
 
 import java.io.File;
+import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -15,9 +26,15 @@ import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.DatabaseChangeLog;
 import liquibase.exception.LiquibaseException;
 import liquibase.logging.LogFactory;
 import liquibase.logging.Logger;
+import liquibase.parser.ChangeLogParseExecutor;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ResourceLoaderAware;
@@ -41,6 +58,17 @@ import org.springframework.core.io.ResourceLoader;
  *	&lt;property name="changeLog" value="classpath:db/migration/db-changelog.xml" /&gt;	
  * &lt;/bean&gt;
  * </pre>
+ * <br/>
+ * Tenants are migrated one after another unless {@link #setParallelThreads(int)} is greater than one,
+ * in which case up to that many tenants are migrated at the same time.
+ * By default the first failure stops the remaining tenants from being migrated; with {@link #setFailFast(boolean)} set to false
+ * every tenant is attempted and all failures are reported together.<br/>
+ * <br/>
+ * By default the changelog is parsed separately for each tenant. With {@link #setShareChangeLog(boolean)} set to true it is parsed once
+ * and shared by all tenants for which parsing would give the same result, i.e. every changelog parameter looked up while parsing has the same value for them.
+ * The shared change sets keep the changelog parameters of the tenant the changelog was parsed for, and those are still used while change sets run:
+ * files such as sqlFile scripts are expanded with them and the dbms of change sets looked up by id is matched against that tenant's database type.
+ * Only enable sharing if all tenants run on the same type of database and such files do not use tenant specific parameters.
  * 
  * @see SpringLiquibase
  * 
@@ -74,6 +102,18 @@ public class MultiTenantSpringLiquibase implements InitializingBean, ResourceLoa
     private boolean shouldRun = true;
 
     private File rollbackFile;
+
+    private int parallelThreads = 1;
+
+    private boolean failFast = true;
+
+    private volatile boolean runningInParallel;
+
+    private volatile boolean stopped;
+
+    private boolean shareChangeLog = false;
+
+    private final List<SharedChangeLog> sharedChangeLogs = new ArrayList<SharedChangeLog>();
 	
 
 	@Override
@@ -125,29 +165,122 @@ public class MultiTenantSpringLiquibase implements InitializingBean, ResourceLoa
 	}
 
 	private void runOnAllDataSources() throws LiquibaseException {
+		List<TenantMigration> migrations = new ArrayList<TenantMigration>();
 		for(DataSource aDataSource : dataSources) {
-			log.info("Initializing Liquibase for data source " + aDataSource);
-			SpringLiquibase liquibase = getSpringLiquibase(aDataSource);
-			liquibase.afterPropertiesSet();
-			log.info("Liquibase ran for data source " + aDataSource);
+			migrations.add(new TenantMigration("data source " + aDataSource, aDataSource, defaultSchema));
 		}
+		run(migrations);
 	}
 	
 	private void runOnAllSchemas() throws LiquibaseException {
+		List<TenantMigration> migrations = new ArrayList<TenantMigration>();
 		for(String schema : schemas) {
 			if(schema.equals("default")) {
 				schema = null;
 			}
-			log.info("Initializing Liquibase for schema " + schema);
-			SpringLiquibase liquibase = getSpringLiquibase(dataSource);
-			liquibase.setDefaultSchema(schema);
-			liquibase.afterPropertiesSet();
-			log.info("Liquibase ran for schema " + schema);
+			migrations.add(new TenantMigration("schema " + schema, dataSource, schema));
 		}
+		run(migrations);
+	}
+
+	/**
+	 * Runs the migrations, in parallel if configured, and reports every failure once all of them are finished.
+	 * In fail fast mode the first failure is thrown unchanged once the tenants that were already running finished, the failures of those are only logged.
+	 */
+	private void run(List<TenantMigration> migrations) throws LiquibaseException {
+		List<TenantMigration> failed = new ArrayList<TenantMigration>();
+		if (parallelThreads <= 1 || migrations.size() <= 1) {
+			for (TenantMigration migration : migrations) {
+				if (!migration.run()) {
+					failed.add(migration);
+					if (failFast) {
+						break;
+					}
+				}
+			}
+		} else {
+			runningInParallel = true;
+			stopped = false;
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelThreads, migrations.size()), new ThreadFactory() {
+				private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "liquibase-tenant-" + threadNumber.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			try {
+				CompletionService<TenantMigration> completionService = new ExecutorCompletionService<TenantMigration>(executor);
+				Map<Future<TenantMigration>, TenantMigration> futures = new HashMap<Future<TenantMigration>, TenantMigration>();
+				for (TenantMigration migration : migrations) {
+					futures.put(completionService.submit(migration), migration);
+				}
+				for (int i = 0; i < futures.size(); i++) {
+					TenantMigration migration = futures.get(completionService.take());
+					if (migration.failure != null) {
+						failed.add(migration);
+					}
+				}
+				executor.shutdown();
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+				throw new LiquibaseException("Interrupted while migrating tenants", e);
+			} finally {
+				//the services shared by the tenants are only reset once all of them finished
+				runningInParallel = false;
+				Liquibase.resetAllServices();
+			}
+		}
+
+		if (failed.isEmpty()) {
+			return;
+		}
+		if (failFast) {
+			throw failed.get(0).failure;
+		}
+		StringBuilder message = new StringBuilder("Liquibase failed for ").append(failed.size()).append(" of ").append(migrations.size()).append(" tenants:");
+		for (TenantMigration migration : failed) {
+			message.append("\n  ").append(migration.name).append(": ").append(migration.failure.getMessage());
+		}
+		throw new LiquibaseException(message.toString(), failed.get(0).failure);
+	}
+
+	/**
+	 * Returns a changelog already parsed for another tenant if every parameter looked up while parsing it has the same value for this one,
+	 * otherwise parses the changelog for this tenant and keeps it for the following ones.
+	 * Parsing is done while holding the lock so concurrent tenants wait for the first parse instead of parsing the changelog at the same time.
+	 */
+	private synchronized DatabaseChangeLog getSharedChangeLog(Liquibase liquibase) throws LiquibaseException {
+		ChangeLogParameters changeLogParameters = liquibase.getChangeLogParameters();
+		changeLogParameters.setContexts(new Contexts(contexts));
+		changeLogParameters.setLabels(new LabelExpression(labels));
+		for (SharedChangeLog shared : sharedChangeLogs) {
+			if (shared.recording.replay(changeLogParameters)) {
+				return shared.changeLog;
+			}
+		}
+
+		ChangeLogParameters.Recording recording = changeLogParameters.startRecording();
+		ChangeLogParseExecutor.setDisabledForCurrentThread(true);
+		DatabaseChangeLog changeLog;
+		try {
+			changeLog = liquibase.getDatabaseChangeLog();
+		} finally {
+			ChangeLogParseExecutor.setDisabledForCurrentThread(false);
+			changeLogParameters.stopRecording(recording);
+		}
+		sharedChangeLogs.add(new SharedChangeLog(recording, changeLog));
+		if (sharedChangeLogs.size() > 1) {
+			log.info("Parsed changelog " + changeLog.getPhysicalFilePath() + " again because tenant specific parameters are used while parsing it");
+		}
+		return changeLog;
 	}
 
 	private SpringLiquibase getSpringLiquibase(DataSource dataSource) {
-		SpringLiquibase liquibase = new SpringLiquibase();
+		SpringLiquibase liquibase = shareChangeLog || runningInParallel ? new TenantSpringLiquibase() : new SpringLiquibase();
 		liquibase.setChangeLog(changeLog);
 		liquibase.setChangeLogParameters(parameters);
 		liquibase.setContexts(contexts);
@@ -254,5 +387,118 @@ public class MultiTenantSpringLiquibase implements InitializingBean, ResourceLoa
 		this.dataSource = dataSource;
 	}
 
+	public int getParallelThreads() {
+		return parallelThreads;
+	}
+
+	/**
+	 * Sets how many tenants are migrated at the same time. Defaults to 1, which migrates tenants one after another.
+	 */
+	public void setParallelThreads(int parallelThreads) {
+		this.parallelThreads = parallelThreads;
+	}
+
+	public boolean isFailFast() {
+		return failFast;
+	}
+
+	/**
+	 * If true, which is the default, no further tenants are migrated after one fails. Otherwise every tenant is attempted.
+	 * Either way all failures are reported in a single exception.
+	 */
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	public boolean isShareChangeLog() {
+		return shareChangeLog;
+	}
+
+	/**
+	 * If true, tenants share one parsed changelog as long as the changelog parameters used while parsing it are the same.
+	 * Defaults to false. See the class documentation for the restrictions on sharing.
+	 */
+	public void setShareChangeLog(boolean shareChangeLog) {
+		this.shareChangeLog = shareChangeLog;
+	}
+
+	private class TenantMigration implements Callable<TenantMigration> {
+		private final String name;
+		private final DataSource dataSource;
+		private final String schema;
+		private LiquibaseException failure;
+
+		private TenantMigration(String name, DataSource dataSource, String schema) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.schema = schema;
+		}
+
+		/**
+		 * Migrates the tenant, returning false if it failed. Failures are kept in {@link #failure} so they can be reported together.
+		 */
+		private boolean run() {
+			log.info("Initializing Liquibase for " + name);
+			long start = System.currentTimeMillis();
+			try {
+				SpringLiquibase liquibase = getSpringLiquibase(dataSource);
+				liquibase.setDefaultSchema(schema);
+				liquibase.afterPropertiesSet();
+			} catch (LiquibaseException e) {
+				failure = e;
+			} catch (RuntimeException e) {
+				failure = new LiquibaseException(e);
+			}
+			long time = System.currentTimeMillis() - start;
+			if (failure == null) {
+				log.info("Liquibase ran for " + name + " in " + time + "ms");
+				return true;
+			}
+			log.severe("Liquibase failed for " + name + " after " + time + "ms", failure);
+			return false;
+		}
+
+		/**
+		 * Migrates the tenant on a worker thread. In fail fast mode the first failure keeps tenants that did not start yet from starting,
+		 * tenants already running finish their migration.
+		 */
+		@Override
+		public TenantMigration call() {
+			if (stopped) {
+				return this;
+			}
+			if (!run() && failFast) {
+				stopped = true;
+			}
+			return this;
+		}
+	}
+
+	private static class SharedChangeLog {
+		private final ChangeLogParameters.Recording recording;
+		private final DatabaseChangeLog changeLog;
+
+		private SharedChangeLog(ChangeLogParameters.Recording recording, DatabaseChangeLog changeLog) {
+			this.recording = recording;
+			this.changeLog = changeLog;
+		}
+	}
+
+	/**
+	 * Uses the changelog shared between tenants instead of parsing it for each tenant if it is shared,
+	 * and leaves resetting the services shared by all tenants to {@link #run(List)} while tenants run in parallel.
+	 */
+	private class TenantSpringLiquibase extends SpringLiquibase {
+		@Override
+		protected Liquibase createLiquibase(Connection c) throws LiquibaseException {
+			Liquibase liquibase = super.createLiquibase(c);
+			liquibase.setResetServices(!runningInParallel);
+			if (shareChangeLog) {
+				liquibase.setDatabaseChangeLog(getSharedChangeLog(liquibase));
+			}
+			return liquibase;
+		}
+	}
+
 	
 }
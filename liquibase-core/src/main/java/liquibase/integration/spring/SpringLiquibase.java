@@ -7,10 +7,15 @@ import liquibase.configuration.ConfigurationProperty;
 import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.configuration.GlobalConfiguration;
 import liquibase.database.Database;
+import liquibase.database.DatabaseConnection;
 import liquibase.database.DatabaseFactory;
 import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.LiquibaseException;
+import liquibase.lockservice.LockConnectionSupplier;
+import liquibase.lockservice.LockService;
+import liquibase.lockservice.LockServiceFactory;
+import liquibase.lockservice.StandardLockService;
 import liquibase.logging.LogFactory;
 import liquibase.logging.Logger;
 import liquibase.resource.AbstractResourceAccessor;
@@ -360,6 +365,22 @@ public class SpringLiquibase implements InitializingBean, BeanNameAware, Resourc
 	protected Liquibase createLiquibase(Connection c) throws LiquibaseException {
 		Liquibase liquibase = new Liquibase(getChangeLog(), createResourceOpener(), createDatabase(c));
         liquibase.setIgnoreClasspathPrefix(isIgnoreClasspathPrefix());
+
+		//the lock lease is renewed on a separate connection while the update runs
+		LockService lockService = LockServiceFactory.getInstance().getLockService(liquibase.getDatabase());
+		if (lockService instanceof StandardLockService) {
+			((StandardLockService) lockService).setConnectionSupplier(new LockConnectionSupplier() {
+				@Override
+				public DatabaseConnection openConnection(Database database) throws DatabaseException {
+					try {
+						return new JdbcConnection(getDataSource().getConnection());
+					} catch (SQLException e) {
+						throw new DatabaseException(e);
+					}
+				}
+			});
+		}
+
 		if (parameters != null) {
 			for (Map.Entry<String, String> entry : parameters.entrySet()) {
 				liquibase.setChangeLogParameter(entry.getKey(), entry.getValue());
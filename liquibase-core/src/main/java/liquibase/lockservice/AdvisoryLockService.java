@@ -0,0 +1,159 @@
+package liquibase.lockservice;
+
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.LockException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.logging.LogFactory;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.core.AdvisoryLockDatabaseChangeLogStatement;
+import liquibase.statement.core.AdvisoryUnlockDatabaseChangeLogStatement;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Date;
+
+/**
+ * Waits for the changelog lock on a lock the database grants to one session at a time, such as pg_advisory_lock or GET_LOCK,
+ * so waiting instances are woken by the database as soon as the lock is released instead of polling the lock table.
+ * <p></p>
+ * The lock table is still locked once the advisory lock is granted, so instances that poll the table are kept out as well and the lock shows in {@link #listLocks()}.
+ * If the advisory lock is not granted before the wait time runs out, the usual "Could not acquire change log lock" {@link LockException} is thrown.
+ * If the database refuses the advisory lock, for example because of missing privileges, the lock table is polled like {@link StandardLockService} does.
+ * Can be turned off with {@link GlobalConfiguration#CHANGELOGLOCK_NATIVE}.
+ */
+public class AdvisoryLockService extends StandardLockService {
+
+    /**
+     * SQL state of the Postgres lock_not_available error, raised when lock_timeout runs out.
+     */
+    private static final String LOCK_NOT_AVAILABLE_STATE = "55P03";
+
+    private Database database;
+
+    private boolean hasAdvisoryLock = false;
+
+    @Override
+    public int getPriority() {
+        return PRIORITY_DEFAULT + 1;
+    }
+
+    @Override
+    public boolean supports(Database database) {
+        return LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getUseNativeChangeLogLock()
+                && SqlGeneratorFactory.getInstance().supports(new AdvisoryLockDatabaseChangeLogStatement(0), database);
+    }
+
+    @Override
+    public void setDatabase(Database database) {
+        super.setDatabase(database);
+        this.database = database;
+    }
+
+    public boolean hasAdvisoryLock() {
+        return hasAdvisoryLock;
+    }
+
+    @Override
+    public void waitForLock() throws LockException {
+        if (hasChangeLogLock()) {
+            return;
+        }
+
+        long timeToGiveUp = new Date().getTime() + (getChangeLogLockWaitTime() * 1000 * 60);
+        Executor executor = ExecutorService.getInstance().getExecutor(database);
+        if (!executor.updatesDatabase()) {
+            waitForLock(timeToGiveUp);
+            return;
+        }
+
+        if (!acquireAdvisoryLock(executor, timeToGiveUp)) {
+            //refused by the database, the lock table tells who has the lock
+            waitForLock(timeToGiveUp);
+            return;
+        }
+
+        try {
+            if (!acquireLock()) {
+                //locked by an instance that does not use advisory locks
+                waitForLock(timeToGiveUp);
+            }
+        } catch (LockException e) {
+            releaseAdvisoryLock();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the advisory lock until the given time. Returns false if the database refuses the advisory lock,
+     * and throws a {@link LockException} if another instance held it until the time ran out.
+     */
+    protected boolean acquireAdvisoryLock(Executor executor, long timeToGiveUp) throws LockException {
+        long timeoutSeconds = Math.max(0, (timeToGiveUp - new Date().getTime()) / 1000);
+        try {
+            hasAdvisoryLock = executor.queryForInt(new AdvisoryLockDatabaseChangeLogStatement(timeoutSeconds)) == 1;
+        } catch (DatabaseException e) {
+            if (!isLockTimeout(e)) {
+                LogFactory.getLogger().info("Advisory lock refused by the database, checking the change log lock table instead: " + e.getMessage());
+                return false;
+            }
+            hasAdvisoryLock = false;
+        } finally {
+            try {
+                database.rollback();
+            } catch (DatabaseException e) {
+                ;
+            }
+        }
+        if (!hasAdvisoryLock) {
+            throw createLockNotAcquiredException();
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the advisory lock statement failed because the lock was not granted in time, such as a lock_timeout error on Postgres.
+     */
+    protected boolean isLockTimeout(DatabaseException e) {
+        Throwable cause = e.getCause();
+        while (cause != null) {
+            if (cause instanceof SQLTimeoutException
+                    || (cause instanceof SQLException && LOCK_NOT_AVAILABLE_STATE.equals(((SQLException) cause).getSQLState()))) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    @Override
+    public void releaseLock() throws LockException {
+        try {
+            super.releaseLock();
+        } finally {
+            releaseAdvisoryLock();
+        }
+    }
+
+    protected void releaseAdvisoryLock() {
+        if (!hasAdvisoryLock) {
+            return;
+        }
+        try {
+            ExecutorService.getInstance().getExecutor(database).execute(new AdvisoryUnlockDatabaseChangeLogStatement());
+        } catch (DatabaseException e) {
+            LogFactory.getLogger().warning("Could not release advisory lock, it is released when the connection is closed: " + e.getMessage());
+        } finally {
+            hasAdvisoryLock = false;
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        hasAdvisoryLock = false;
+    }
+}
@@ -0,0 +1,18 @@
+package liquibase.lockservice;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseConnection;
+import liquibase.exception.DatabaseException;
+
+/**
+ * Opens the connection a {@link StandardLockService} renews its lock lease on, since the connection of the update is busy running change sets.
+ * Attach instances with {@link StandardLockService#setConnectionSupplier(LockConnectionSupplier)}.
+ */
+public interface LockConnectionSupplier {
+
+    /**
+     * Opens a new connection to the same database, logged in as the same user, as the given database.
+     * The lock service closes the connection when it releases the lock.
+     */
+    public DatabaseConnection openConnection(Database database) throws DatabaseException;
+}
@@ -91,6 +91,13 @@ public class LockServiceFactory {
 
 	}
 
+	/**
+	 * Returns the lock service {@link #getLockService(Database)} already returned for the database, or null if there is none yet.
+	 */
+	public LockService getOpenLockService(Database database) {
+		return openLockServices.get(database);
+	}
+
 	public void resetAll() {
 		for (LockService lockService : registry) {
 			lockService.reset();
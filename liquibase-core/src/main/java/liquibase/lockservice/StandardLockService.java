@@ -3,6 +3,7 @@ package liquibase.lockservice;
 import liquibase.configuration.GlobalConfiguration;
 import liquibase.configuration.LiquibaseConfiguration;
 import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
 import liquibase.database.core.DerbyDatabase;
 import liquibase.exception.DatabaseException;
 import liquibase.exception.LiquibaseException;
@@ -16,15 +17,31 @@ import liquibase.snapshot.SnapshotGeneratorFactory;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.*;
 import liquibase.structure.core.Table;
+import liquibase.util.NetUtil;
 
 import java.text.DateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
-
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Locks the changelog by setting LOCKED in the lock table.
+ * <p></p>
+ * If {@link GlobalConfiguration#CHANGELOGLOCK_LEASE_TIME} is set and a {@link LockConnectionSupplier} is attached, the lock is held as a lease:
+ * LOCKEDBY is marked with the lease time and a background thread renews LOCKGRANTED on its own connection three times per lease time.
+ * An instance waiting for the lock takes over a lease whose LOCKGRANTED did not change for the lease time, measured on its own clock so clocks of different hosts do not need to agree.
+ * The take over only updates the row if LOCKGRANTED and LOCKEDBY still have the values that were seen, so only one waiter gets the lock.
+ * Locks without the lease marker, such as the ones of older versions, are never taken over.
+ * A holder whose lease was taken over, or could not be renewed for the lease time, marks the lease as lost and {@link #checkLease()} stops further change sets.
+ */
 public class StandardLockService implements LockService {
 
+    private static final Pattern LEASE_PATTERN = Pattern.compile("\\[lease (\\d+)s [0-9a-f]+\\]$");
+
     private Database database;
 
     private boolean hasChangeLogLock = false;
@@ -35,6 +52,17 @@ public class StandardLockService implements LockService {
     private boolean hasDatabaseChangeLogLockTable = false;
     private boolean isDatabaseChangeLogLockTableInitialized = false;
 
+    private LockConnectionSupplier connectionSupplier;
+    private String leaseOwner;
+    private ScheduledExecutorService heartbeat;
+    private Database heartbeatDatabase;
+    private Executor heartbeatExecutor;
+    private volatile boolean leaseLost;
+    private volatile long lastRenewal;
+
+    private DatabaseChangeLogLock observedLock;
+    private long observedSince;
+
     public StandardLockService() {
     }
 
@@ -77,6 +105,25 @@ public class StandardLockService implements LockService {
         return LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getDatabaseChangeLogLockPollRate();
     }
 
+    /**
+     * Time in seconds the lock lease stays valid without being renewed, or 0 if leases are not used.
+     */
+    public Long getChangeLogLockLeaseTime() {
+        Long leaseTime = LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).getDatabaseChangeLogLockLeaseTime();
+        return leaseTime == null ? 0 : leaseTime;
+    }
+
+    public LockConnectionSupplier getConnectionSupplier() {
+        return connectionSupplier;
+    }
+
+    /**
+     * Sets where the connection to renew the lock lease on comes from. Without one, the lock is held without a lease.
+     */
+    public void setConnectionSupplier(LockConnectionSupplier connectionSupplier) {
+        this.connectionSupplier = connectionSupplier;
+    }
+
     @Override
     public void init() throws DatabaseException {
 
@@ -146,9 +193,14 @@ public class StandardLockService implements LockService {
 
     @Override
     public void waitForLock() throws LockException {
+        waitForLock(new Date().getTime() + (getChangeLogLockWaitTime() * 1000 * 60));
+    }
 
+    /**
+     * Polls the lock table every {@link #getChangeLogLockRecheckTime()} seconds until the lock is acquired or the given time is reached.
+     */
+    protected void waitForLock(long timeToGiveUp) throws LockException {
         boolean locked = false;
-        long timeToGiveUp = new Date().getTime() + (getChangeLogLockWaitTime() * 1000 * 60);
         while (!locked && new Date().getTime() < timeToGiveUp) {
             locked = acquireLock();
             if (!locked) {
@@ -162,18 +214,25 @@ public class StandardLockService implements LockService {
         }
 
         if (!locked) {
-            DatabaseChangeLogLock[] locks = listLocks();
-            String lockedBy;
-            if (locks.length > 0) {
-                DatabaseChangeLogLock lock = locks[0];
-                lockedBy = lock.getLockedBy() + " since " + DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT).format(lock.getLockGranted());
-            } else {
-                lockedBy = "UNKNOWN";
-            }
-            throw new LockException("Could not acquire change log lock.  Currently locked by " + lockedBy);
+            throw createLockNotAcquiredException();
         }
     }
 
+    /**
+     * Returns the exception thrown when the lock could not be acquired in time, naming the current owner from the lock table.
+     */
+    protected LockException createLockNotAcquiredException() throws LockException {
+        DatabaseChangeLogLock[] locks = listLocks();
+        String lockedBy;
+        if (locks.length > 0) {
+            DatabaseChangeLogLock lock = locks[0];
+            lockedBy = lock.getLockedBy() + " since " + DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT).format(lock.getLockGranted());
+        } else {
+            lockedBy = "UNKNOWN";
+        }
+        return new LockException("Could not acquire change log lock.  Currently locked by " + lockedBy);
+    }
+
     @Override
     public boolean acquireLock() throws LockException {
         if (hasChangeLogLock) {
@@ -188,29 +247,45 @@ public class StandardLockService implements LockService {
 
             Boolean locked = (Boolean) ExecutorService.getInstance().getExecutor(database).queryForObject(new SelectFromDatabaseChangeLogLockStatement("LOCKED"), Boolean.class);
 
+            DatabaseChangeLogLock expiredLock = null;
             if (locked) {
+                expiredLock = getExpiredLease();
+            }
+            if (locked && expiredLock == null) {
                 return false;
             } else {
+                String lockedBy = openLease(executor);
 
                 executor.comment("Lock Database");
-                int rowsUpdated = executor.update(new LockDatabaseChangeLogStatement());
+                int rowsUpdated = executor.update(new LockDatabaseChangeLogStatement(lockedBy).setExpiredLock(expiredLock));
                 if (rowsUpdated > 1) {
                     throw new LockException("Did not update change log lock correctly");
                 }
                 if (rowsUpdated == 0)
                 {
                     // another node was faster
+                    closeLease();
                     return false;
                 }
                 database.commit();
+                if (expiredLock != null) {
+                    LogFactory.getLogger().warning("Took over the change log lock of " + expiredLock.getLockedBy() + ", its lease was not renewed since " + DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT).format(expiredLock.getLockGranted()));
+                }
                 LogFactory.getLogger().info("Successfully acquired change log lock");
 
                 hasChangeLogLock = true;
+                observedLock = null;
+                leaseLost = false;
+                lastRenewal = currentTimeMillis();
+                startHeartbeat();
 
                 database.setCanCacheLiquibaseTableInfo(true);
                 return true;
             }
         } catch (Exception e) {
+            if (!hasChangeLogLock) {
+                closeLease();
+            }
             throw new LockException(e);
         } finally {
             try {
@@ -222,14 +297,188 @@ public class StandardLockService implements LockService {
 
     }
 
+    /**
+     * Returns the current lock if it is a lease that was not renewed for its lease time while this service checked it, and so may be taken over.
+     * Returns null if there is no such lock.
+     */
+    protected DatabaseChangeLogLock getExpiredLease() throws LockException {
+        DatabaseChangeLogLock[] locks = listLocks();
+        Long leaseTime = locks.length == 0 ? null : getLeaseTime(locks[0].getLockedBy());
+        if (leaseTime == null) {
+            observedLock = null;
+            return null;
+        }
+
+        DatabaseChangeLogLock lock = locks[0];
+        long now = currentTimeMillis();
+        if (observedLock == null || !lock.getLockedBy().equals(observedLock.getLockedBy()) || !lock.getLockGranted().equals(observedLock.getLockGranted())) {
+            observedLock = lock;
+            observedSince = now;
+            return null;
+        }
+        if (now - observedSince < leaseTime * 1000) {
+            return null;
+        }
+        return lock;
+    }
+
+    /**
+     * Returns the current time in milliseconds of the clock lease expiry is measured on.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the lease time in seconds a LOCKEDBY value was marked with, or null if the lock is not a lease.
+     */
+    public static Long getLeaseTime(String lockedBy) {
+        if (lockedBy == null) {
+            return null;
+        }
+        Matcher matcher = LEASE_PATTERN.matcher(lockedBy);
+        if (!matcher.find()) {
+            return null;
+        }
+        return Long.valueOf(matcher.group(1));
+    }
+
+    /**
+     * Opens the connection to renew the lease on if leases are used, and returns the LOCKEDBY value of the lease. Returns null to lock without a lease.
+     */
+    protected String openLease(Executor executor) throws Exception {
+        long leaseTime = getChangeLogLockLeaseTime();
+        if (leaseTime <= 0 || !executor.updatesDatabase()) {
+            return null;
+        }
+        if (connectionSupplier == null) {
+            LogFactory.getLogger().info("No connection to renew the change log lock lease on, locking without a lease");
+            return null;
+        }
+
+        try {
+            heartbeatDatabase = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(connectionSupplier.openConnection(database));
+            heartbeatDatabase.setLiquibaseCatalogName(database.getLiquibaseCatalogName());
+            heartbeatDatabase.setLiquibaseSchemaName(database.getLiquibaseSchemaName());
+            heartbeatDatabase.setDatabaseChangeLogLockTableName(database.getDatabaseChangeLogLockTableName());
+            heartbeatExecutor = ExecutorService.getInstance().getExecutor(heartbeatDatabase);
+        } catch (DatabaseException e) {
+            LogFactory.getLogger().warning("Could not open a connection to renew the change log lock lease on, locking without a lease: " + e.getMessage());
+            closeLease();
+            return null;
+        }
+
+        leaseOwner = NetUtil.getLocalHostName() + " (" + NetUtil.getLocalHostAddress() + ") [lease " + leaseTime + "s " + UUID.randomUUID().toString().substring(0, 8) + "]";
+        return leaseOwner;
+    }
+
+    private void startHeartbeat() {
+        if (leaseOwner == null) {
+            return;
+        }
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "liquibase-lock-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(1, getLeaseTime(leaseOwner) * 1000 / 3);
+        final String owner = leaseOwner;
+        final Database renewDatabase = heartbeatDatabase;
+        final Executor renewExecutor = heartbeatExecutor;
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (!renewLease(owner, renewDatabase, renewExecutor)) {
+                    scheduler.shutdown();
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        heartbeat = scheduler;
+    }
+
+    /**
+     * Called by the heartbeat thread to set LOCKGRANTED of the lease to the current time.
+     * Returns false and marks the lease as lost if it was taken over, or if it could not be renewed for its lease time so another instance may take it over.
+     */
+    protected boolean renewLease(String owner, Database renewDatabase, Executor renewExecutor) {
+        try {
+            int rowsUpdated = renewExecutor.update(new RenewDatabaseChangeLogLockStatement(owner));
+            renewDatabase.getConnection().commit();
+            if (rowsUpdated == 0) {
+                leaseLost = true;
+                LogFactory.getLogger().severe("The change log lock lease of " + owner + " was taken over by another instance, it was not renewed in time");
+                return false;
+            }
+            lastRenewal = currentTimeMillis();
+        } catch (DatabaseException e) {
+            LogFactory.getLogger().warning("Could not renew the change log lock lease of " + owner + ": " + e.getMessage());
+            try {
+                renewDatabase.getConnection().rollback();
+            } catch (DatabaseException rollbackException) {
+                ;
+            }
+            Long leaseTime = getLeaseTime(owner);
+            if (leaseTime != null && currentTimeMillis() - lastRenewal >= leaseTime * 1000) {
+                leaseLost = true;
+                LogFactory.getLogger().severe("The change log lock lease of " + owner + " was not renewed for its lease time, another instance may have taken it over");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Throws a LockException if the lease of the lock held by this service was lost, so no further change sets are run without the lock.
+     */
+    public void checkLease() throws LockException {
+        if (leaseLost) {
+            throw new LockException("The change log lock lease was lost, it was taken over by another instance or could not be renewed in time");
+        }
+    }
+
+    /**
+     * Stops renewing the lease and closes its connection.
+     */
+    private void closeLease() {
+        if (heartbeat != null) {
+            heartbeat.shutdown();
+            try {
+                heartbeat.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            heartbeat = null;
+        }
+        if (heartbeatDatabase != null) {
+            try {
+                heartbeatDatabase.close();
+            } catch (DatabaseException e) {
+                LogFactory.getLogger().info("Could not close the change log lock lease connection: " + e.getMessage());
+            } finally {
+                ExecutorService.getInstance().clearExecutor(heartbeatDatabase);
+            }
+            heartbeatDatabase = null;
+        }
+        heartbeatExecutor = null;
+        leaseOwner = null;
+    }
+
     @Override
     public void releaseLock() throws LockException {
         Executor executor = ExecutorService.getInstance().getExecutor(database);
+        String lockedBy = leaseOwner;
+        closeLease();
         try {
             if (this.hasDatabaseChangeLogLockTable()) {
                 executor.comment("Release Database Lock");
                 database.rollback();
-                int updatedRows = executor.update(new UnlockDatabaseChangeLogStatement());
+                int updatedRows = executor.update(new UnlockDatabaseChangeLogStatement(lockedBy));
+                if (updatedRows == 0 && lockedBy != null) {
+                    throw new LockException("Did not release change log lock, the lease of " + lockedBy + " was taken over by another instance");
+                }
                 if (updatedRows != 1) {
                     throw new LockException("Did not update change log lock correctly.\n\n" + updatedRows + " rows were updated instead of the expected 1 row using executor " + executor.getClass().getName()+" there are "+executor.queryForInt(new RawSqlStatement("select count(*) from "+database.getDatabaseChangeLogLockTableName()))+" rows in the table");
                 }
@@ -294,6 +543,9 @@ public class StandardLockService implements LockService {
     @Override
     public void reset() {
         hasChangeLogLock = false;
+        observedLock = null;
+        leaseLost = false;
+        closeLease();
     }
 
     @Override
@@ -8,8 +8,8 @@ import liquibase.logging.Logger;
 
 public abstract class AbstractLogger implements Logger {
     private LogLevel logLevel;
-    private DatabaseChangeLog databaseChangeLog;
-    private ChangeSet changeSet;
+    private final ThreadLocal<DatabaseChangeLog> databaseChangeLog = new ThreadLocal<DatabaseChangeLog>();
+    private final ThreadLocal<ChangeSet> changeSet = new ThreadLocal<ChangeSet>();
 
     @Override
     public LogLevel getLogLevel() {
@@ -39,9 +39,11 @@ public abstract class AbstractLogger implements Logger {
 
     protected String buildMessage(String message) {
         StringBuilder msg = new StringBuilder();
+        DatabaseChangeLog databaseChangeLog = this.databaseChangeLog.get();
         if(databaseChangeLog != null) {
             msg.append(databaseChangeLog.getFilePath()).append(": ");
         }
+        ChangeSet changeSet = this.changeSet.get();
         if(changeSet != null) {
             String changeSetName = changeSet.toString(false);
             msg.append(changeSetName.replace(changeSetName + "::", "")).append(": ");
@@ -57,11 +59,19 @@ public abstract class AbstractLogger implements Logger {
 
     @Override
     public void setChangeLog(DatabaseChangeLog databaseChangeLog) {
-        this.databaseChangeLog = databaseChangeLog;
+        if (databaseChangeLog == null) {
+            this.databaseChangeLog.remove();
+        } else {
+            this.databaseChangeLog.set(databaseChangeLog);
+        }
     }
 
     @Override
     public void setChangeSet(ChangeSet changeSet) {
-        this.changeSet = changeSet;
+        if (changeSet == null) {
+            this.changeSet.remove();
+        } else {
+            this.changeSet.set(changeSet);
+        }
     }
 }
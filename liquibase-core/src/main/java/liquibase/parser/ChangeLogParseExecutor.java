@@ -0,0 +1,121 @@
+package liquibase.parser;
+
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.exception.ChangeLogParseException;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ResourceAccessor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses changelog files on a bounded pool of daemon threads so {@link DatabaseChangeLog} can parse the files it includes concurrently.
+ * Only used if {@link ChangeLogParserCofiguration#getParseThreads()} is greater than one.
+ * <p></p>
+ * Results are always consumed in include order through {@link #getResult(java.util.concurrent.FutureTask)},
+ * which parses the file in the calling thread if no pool thread has picked it up yet.
+ * That keeps nested includes from waiting on a pool that is busy with their parents.
+ */
+public class ChangeLogParseExecutor {
+
+    private static ChangeLogParseExecutor instance;
+    private static final ThreadLocal<Boolean> disabled = new ThreadLocal<Boolean>();
+
+    private final int threads;
+    private final ExecutorService executorService;
+
+    protected ChangeLogParseExecutor(int threads) {
+        this.threads = threads;
+        this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "liquibase-changelog-parser-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the executor for the configured number of parse threads, or null if changelogs should be parsed sequentially.
+     */
+    public static synchronized ChangeLogParseExecutor getInstance() {
+        if (Boolean.TRUE.equals(disabled.get())) {
+            return null;
+        }
+        Integer threads = LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration.class).getParseThreads();
+        if (threads == null || threads <= 1) {
+            return null;
+        }
+        if (instance == null || instance.threads != threads) {
+            if (instance != null) {
+                instance.executorService.shutdown();
+            }
+            instance = new ChangeLogParseExecutor(threads);
+        }
+        return instance;
+    }
+
+    /**
+     * Forces changelogs parsed by the current thread to be parsed sequentially, regardless of the configured number of parse threads.
+     * Used by callers that rely on thread local state while parsing.
+     */
+    public static void setDisabledForCurrentThread(boolean disable) {
+        if (disable) {
+            disabled.set(Boolean.TRUE);
+        } else {
+            disabled.remove();
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Queues the given file to be parsed with the parser {@link ChangeLogParserFactory} selects for it.
+     */
+    public FutureTask<DatabaseChangeLog> submit(final String physicalChangeLogLocation, final ChangeLogParameters changeLogParameters, final ResourceAccessor resourceAccessor) {
+        FutureTask<DatabaseChangeLog> task = new FutureTask<DatabaseChangeLog>(new Callable<DatabaseChangeLog>() {
+            @Override
+            public DatabaseChangeLog call() throws Exception {
+                return ChangeLogParserFactory.getInstance().getParser(physicalChangeLogLocation, resourceAccessor).parse(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+            }
+        });
+        executorService.execute(task);
+        return task;
+    }
+
+    /**
+     * Returns the parsed changelog, running the parse in the current thread if it has not been started yet.
+     * Exceptions thrown by the parser are rethrown unchanged.
+     */
+    public static DatabaseChangeLog getResult(FutureTask<DatabaseChangeLog> task) throws LiquibaseException {
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChangeLogParseException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof LiquibaseException) {
+                throw (LiquibaseException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ChangeLogParseException(cause);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import liquibase.configuration.AbstractConfigurationContainer;
 public class ChangeLogParserCofiguration extends AbstractConfigurationContainer {
 
     public static final String SUPPORT_PROPERTY_ESCAPING = "supportPropertyEscaping";
+    public static final String PARSE_THREADS = "parseThreads";
 
     public ChangeLogParserCofiguration() {
         super("liquibase");
@@ -16,6 +17,11 @@ public class ChangeLogParserCofiguration extends AbstractConfigurationContainer
                 .setDescription("Support escaping changelog parameters using a colon. Example: ${:user.name}")
                 .setDefaultValue(false)
                 .addAlias("enableEscaping");
+
+        getContainer().addProperty(PARSE_THREADS, Integer.class)
+                .setDescription("Number of threads used to parse included changelog files. Files are parsed one at a time if 1 or less. " +
+                        "Files that depend on changelog parameters defined by a file included before them are parsed again in order")
+                .setDefaultValue(1);
     }
 
     public boolean getSupportPropertyEscaping() {
@@ -26,4 +32,16 @@ public class ChangeLogParserCofiguration extends AbstractConfigurationContainer
         getContainer().setValue(SUPPORT_PROPERTY_ESCAPING, support);
         return this;
     }
+
+    /**
+     * Number of threads used to parse included changelog files. Values of 1 or less parse sequentially.
+     */
+    public Integer getParseThreads() {
+        return getContainer().getValue(PARSE_THREADS, Integer.class);
+    }
+
+    public ChangeLogParserCofiguration setParseThreads(Integer threads) {
+        getContainer().setValue(PARSE_THREADS, threads);
+        return this;
+    }
 }
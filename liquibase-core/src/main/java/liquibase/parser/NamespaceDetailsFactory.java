@@ -17,7 +17,7 @@ public class NamespaceDetailsFactory {
         instance = null;
     }
 
-    public static NamespaceDetailsFactory getInstance() {
+    public static synchronized NamespaceDetailsFactory getInstance() {
         if (instance == null) {
             instance = new NamespaceDetailsFactory();
         }
@@ -0,0 +1,456 @@
+package liquibase.parser.core.precompiled;
+
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.exception.ChangeLogParseException;
+import liquibase.exception.LiquibaseException;
+import liquibase.logging.LogFactory;
+import liquibase.parser.ChangeLogParseExecutor;
+import liquibase.parser.ChangeLogParser;
+import liquibase.parser.ChangeLogParserCofiguration;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.ParsedNodeException;
+import liquibase.parser.core.xml.AbstractChangeLogParser;
+import liquibase.resource.ResourceAccessor;
+import liquibase.util.LiquibaseUtil;
+import liquibase.util.MD5Util;
+import liquibase.util.StreamUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads changelog files from a precompiled snapshot of their {@link ParsedNode} tree, skipping XML schema validation and SAX or YAML parsing.
+ * A snapshot is stored next to its changelog with the {@link #FILE_EXTENSION} extension and is produced at build time with {@link #compile(String, liquibase.changelog.ChangeLogParameters, liquibase.resource.ResourceAccessor, java.io.File)}.
+ * <p></p>
+ * Each snapshot records the MD5 of the changelog file and of any properties files it read, the Liquibase version that wrote it,
+ * and every changelog parameter the file defined or looked up. A snapshot is only used if all of them still match,
+ * otherwise the file is parsed again by the parser that would normally handle it.
+ * Snapshots are never written during a normal parse.
+ * <p></p>
+ * Changes are not serialized: the snapshot tree is still loaded into the {@link liquibase.changelog.DatabaseChangeLog} the same way a freshly parsed tree is.
+ */
+public class PrecompiledChangeLogParser extends AbstractChangeLogParser {
+
+    public static final String FILE_EXTENSION = ".compiled";
+
+    private static final int MAGIC = 0x4C42434C;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_FLOAT = 6;
+    private static final byte TYPE_BIG_DECIMAL = 7;
+    private static final byte TYPE_BIG_INTEGER = 8;
+    private static final byte TYPE_DATE = 9;
+    private static final byte TYPE_LIST = 10;
+
+    private static final ThreadLocal<CompileContext> compileContext = new ThreadLocal<CompileContext>();
+    private static String buildVersion;
+
+    @Override
+    public int getPriority() {
+        return PRIORITY_DEFAULT + 10;
+    }
+
+    @Override
+    public boolean supports(String changeLogFile, ResourceAccessor resourceAccessor) {
+        if (getDelegate(changeLogFile, resourceAccessor) == null) {
+            return false;
+        }
+        return compileContext.get() != null || snapshotExists(changeLogFile, resourceAccessor);
+    }
+
+    /**
+     * Parses the given changelog and every changelog it includes, writing a snapshot for each file to the output directory.
+     * Snapshots of changelogs referenced by absolute path are written next to the changelog instead.
+     * The passed parameters should match the ones used at runtime: a snapshot whose files looked up parameters that have a different value at runtime is not used.
+     *
+     * @return the snapshot files written
+     */
+    public static List<File> compile(String changeLogFile, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor, File outputDirectory) throws LiquibaseException {
+        CompileContext previous = compileContext.get();
+        CompileContext context = new CompileContext(outputDirectory);
+        compileContext.set(context);
+        ChangeLogParseExecutor.setDisabledForCurrentThread(true);
+        try {
+            ChangeLogParser parser = ChangeLogParserFactory.getInstance().getParser(changeLogFile, resourceAccessor);
+            parser.parse(changeLogFile, changeLogParameters == null ? new ChangeLogParameters() : changeLogParameters, resourceAccessor);
+        } finally {
+            ChangeLogParseExecutor.setDisabledForCurrentThread(false);
+            if (previous == null) {
+                compileContext.remove();
+            } else {
+                compileContext.set(previous);
+            }
+        }
+        return context.writtenFiles;
+    }
+
+    @Override
+    protected ParsedNode parseToNode(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) throws ChangeLogParseException {
+        AbstractChangeLogParser delegate = getDelegate(physicalChangeLogLocation, resourceAccessor);
+        if (delegate == null) {
+            throw new ChangeLogParseException("No parser supports " + physicalChangeLogLocation);
+        }
+        if (changeLogParameters == null) {
+            return delegate.parseToParsedNode(physicalChangeLogLocation, null, resourceAccessor);
+        }
+
+        CompileContext context = compileContext.get();
+        if (context != null) {
+            return compile(physicalChangeLogLocation, changeLogParameters, resourceAccessor, delegate, context);
+        }
+
+        ParsedNode node = readSnapshot(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+        if (node == null) {
+            return delegate.parseToParsedNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the parser that handles the given file when no snapshot is used. Only parsers that produce a {@link ParsedNode} tree can be precompiled.
+     */
+    protected AbstractChangeLogParser getDelegate(String changeLogFile, ResourceAccessor resourceAccessor) {
+        for (ChangeLogParser parser : ChangeLogParserFactory.getInstance().getParsers()) {
+            if (parser instanceof PrecompiledChangeLogParser) {
+                continue;
+            }
+            if (parser.supports(changeLogFile, resourceAccessor)) {
+                if (parser instanceof AbstractChangeLogParser) {
+                    return (AbstractChangeLogParser) parser;
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    protected boolean snapshotExists(String changeLogFile, ResourceAccessor resourceAccessor) {
+        Set<InputStream> streams;
+        try {
+            streams = resourceAccessor.getResourcesAsStream(changeLogFile + FILE_EXTENSION);
+        } catch (IOException e) {
+            return false;
+        }
+        if (streams == null) {
+            return false;
+        }
+        for (InputStream stream : streams) {
+            StreamUtil.closeQuietly(stream);
+        }
+        return !streams.isEmpty();
+    }
+
+    protected ParsedNode compile(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor, AbstractChangeLogParser delegate, CompileContext context) throws ChangeLogParseException {
+        ChangeLogParameters.Recording recording = changeLogParameters.startRecording();
+        ParsedNode node;
+        try {
+            node = delegate.parseToParsedNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+        } finally {
+            changeLogParameters.stopRecording(recording);
+        }
+        if (node == null) {
+            return null;
+        }
+
+        File file = getSnapshotFile(context.outputDirectory, physicalChangeLogLocation);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        DataOutputStream out = null;
+        boolean written = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, getBuildVersion());
+            out.writeBoolean(isEscapingEnabled());
+            writeString(out, physicalChangeLogLocation);
+            writeString(out, computeMD5(physicalChangeLogLocation, resourceAccessor));
+
+            out.writeInt(recording.getDependencies().size());
+            for (String dependency : recording.getDependencies()) {
+                writeString(out, dependency);
+                writeString(out, computeMD5(dependency, resourceAccessor));
+            }
+
+            out.writeInt(recording.getEvents().size());
+            for (ChangeLogParameters.RecordedEvent event : recording.getEvents()) {
+                out.writeBoolean(event.isDefinition());
+                writeString(out, event.getKey());
+                writeString(out, event.getValue());
+                writeString(out, event.getContexts());
+                writeString(out, event.getLabels());
+                writeString(out, event.getDatabases());
+            }
+
+            writeNode(out, node);
+            written = true;
+        } catch (IOException e) {
+            LogFactory.getLogger().warning("Cannot compile " + physicalChangeLogLocation + ": " + e.getMessage());
+        } finally {
+            StreamUtil.closeQuietly(out);
+        }
+
+        if (written) {
+            context.writtenFiles.add(file);
+        } else {
+            file.delete();
+        }
+        return node;
+    }
+
+    /**
+     * Returns the tree stored in the snapshot of the given file, or null if there is no snapshot or it is out of date.
+     * Parameter definitions recorded in the snapshot are applied to the passed ChangeLogParameters.
+     */
+    protected ParsedNode readSnapshot(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) {
+        DataInputStream in = null;
+        try {
+            InputStream stream = StreamUtil.singleInputStream(physicalChangeLogLocation + FILE_EXTENSION, resourceAccessor);
+            if (stream == null) {
+                return null;
+            }
+            in = new DataInputStream(new BufferedInputStream(stream));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return outOfDate(physicalChangeLogLocation, "unknown format");
+            }
+            if (!getBuildVersion().equals(readString(in))) {
+                return outOfDate(physicalChangeLogLocation, "written by a different Liquibase version");
+            }
+            if (in.readBoolean() != isEscapingEnabled()) {
+                return outOfDate(physicalChangeLogLocation, "property escaping setting changed");
+            }
+            if (!physicalChangeLogLocation.equals(readString(in))) {
+                return outOfDate(physicalChangeLogLocation, "compiled from a different path");
+            }
+            if (!equals(readString(in), computeMD5(physicalChangeLogLocation, resourceAccessor))) {
+                return outOfDate(physicalChangeLogLocation, "changelog changed");
+            }
+
+            int dependencies = in.readInt();
+            for (int i = 0; i < dependencies; i++) {
+                String dependency = readString(in);
+                if (!equals(readString(in), computeMD5(dependency, resourceAccessor))) {
+                    return outOfDate(physicalChangeLogLocation, dependency + " changed");
+                }
+            }
+
+            ChangeLogParameters.Recording recording = new ChangeLogParameters.Recording();
+            int events = in.readInt();
+            for (int i = 0; i < events; i++) {
+                recording.addEvent(new ChangeLogParameters.RecordedEvent(in.readBoolean(), readString(in), readString(in), readString(in), readString(in), readString(in)));
+            }
+
+            ParsedNode node = readNode(in);
+
+            if (!recording.replay(changeLogParameters)) {
+                return outOfDate(physicalChangeLogLocation, "changelog parameters changed");
+            }
+            LogFactory.getLogger().debug("Loaded " + physicalChangeLogLocation + " from " + physicalChangeLogLocation + FILE_EXTENSION);
+            return node;
+        } catch (IOException e) {
+            LogFactory.getLogger().debug("Cannot read " + physicalChangeLogLocation + FILE_EXTENSION + ": " + e.getMessage());
+            return null;
+        } catch (ParsedNodeException e) {
+            LogFactory.getLogger().debug("Cannot read " + physicalChangeLogLocation + FILE_EXTENSION + ": " + e.getMessage());
+            return null;
+        } finally {
+            StreamUtil.closeQuietly(in);
+        }
+    }
+
+    private ParsedNode outOfDate(String physicalChangeLogLocation, String reason) {
+        LogFactory.getLogger().debug("Not using " + physicalChangeLogLocation + FILE_EXTENSION + ": " + reason);
+        return null;
+    }
+
+    protected static File getSnapshotFile(File outputDirectory, String physicalChangeLogLocation) {
+        String path = physicalChangeLogLocation.replace('\\', '/');
+        if (path.regionMatches(true, 0, "classpath:", 0, "classpath:".length())) {
+            path = path.substring("classpath:".length());
+        }
+        if (new File(path).isAbsolute()) {
+            return new File(path + FILE_EXTENSION);
+        }
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return new File(outputDirectory, path + FILE_EXTENSION);
+    }
+
+    protected String computeMD5(String path, ResourceAccessor resourceAccessor) throws IOException {
+        InputStream stream = StreamUtil.singleInputStream(path, resourceAccessor);
+        if (stream == null) {
+            return null;
+        }
+        try {
+            return MD5Util.computeMD5(stream);
+        } finally {
+            StreamUtil.closeQuietly(stream);
+        }
+    }
+
+    protected boolean isEscapingEnabled() {
+        return Boolean.TRUE.equals(LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration.class).getSupportPropertyEscaping());
+    }
+
+    private static synchronized String getBuildVersion() {
+        if (buildVersion == null) {
+            buildVersion = LiquibaseUtil.getBuildVersion();
+        }
+        return buildVersion;
+    }
+
+    private static boolean equals(String expected, String actual) {
+        return expected == null ? actual == null : expected.equals(actual);
+    }
+
+    private void writeNode(DataOutputStream out, ParsedNode node) throws IOException {
+        writeString(out, node.getNamespace());
+        writeString(out, node.getName());
+        writeValue(out, node.getValue(), node);
+        out.writeInt(node.getChildren().size());
+        for (ParsedNode child : node.getChildren()) {
+            writeNode(out, child);
+        }
+    }
+
+    private ParsedNode readNode(DataInputStream in) throws IOException, ParsedNodeException {
+        ParsedNode node = new ParsedNode(readString(in), readString(in));
+        node.setValue(readValue(in));
+        int children = in.readInt();
+        for (int i = 0; i < children; i++) {
+            node.addChild(readNode(in));
+        }
+        return node;
+    }
+
+    private void writeValue(DataOutputStream out, Object value, ParsedNode node) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(TYPE_BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(TYPE_BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value.getClass().equals(Date.class)) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof List) {
+            out.writeByte(TYPE_LIST);
+            out.writeInt(((List) value).size());
+            for (Object item : (List) value) {
+                writeValue(out, item, node);
+            }
+        } else {
+            throw new IOException("Unsupported value type " + value.getClass().getName() + " in " + node.getName());
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case TYPE_DATE:
+                return new Date(in.readLong());
+            case TYPE_LIST:
+                int size = in.readInt();
+                List list = new ArrayList(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Strings are written as a length and UTF-8 bytes rather than with {@link DataOutputStream#writeUTF(String)}, which is limited to 64KB.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    protected static class CompileContext {
+        private final File outputDirectory;
+        private final List<File> writtenFiles = new ArrayList<File>();
+
+        protected CompileContext(File outputDirectory) {
+            this.outputDirectory = outputDirectory;
+        }
+    }
+}
@@ -30,5 +30,13 @@ public abstract class AbstractChangeLogParser implements ChangeLogParser {
         return changeLog;
     }
 
+    /**
+     * Returns the {@link ParsedNode} tree {@link #parse(String, liquibase.changelog.ChangeLogParameters, liquibase.resource.ResourceAccessor)} loads into the {@link DatabaseChangeLog},
+     * without creating the changelog itself. Property definitions are applied to the passed ChangeLogParameters the same way as when parsing.
+     */
+    public ParsedNode parseToParsedNode(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) throws ChangeLogParseException {
+        return parseToNode(physicalChangeLogLocation, changeLogParameters, resourceAccessor);
+    }
+
     protected abstract ParsedNode parseToNode(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) throws ChangeLogParseException;
 }
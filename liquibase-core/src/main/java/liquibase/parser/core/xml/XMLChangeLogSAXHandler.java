@@ -85,6 +85,10 @@ class XMLChangeLogSAXHandler extends DefaultHandler {
                 if (StringUtils.trimToNull(attributes.getValue("file")) == null) {
                     this.changeLogParameters.set(attributes.getValue("name"), changeLogParameters.expandExpressions(attributes.getValue("value")), context, labels, dbms);
                 } else {
+                    ChangeLogParameters.Recording recording = changeLogParameters.getRecording();
+                    if (recording != null) {
+                        recording.addDependency(attributes.getValue("file"));
+                    }
                     Properties props = new Properties();
                     InputStream propertiesStream = StreamUtil.singleInputStream(attributes.getValue("file"), resourceAccessor);
                     if (propertiesStream == null) {
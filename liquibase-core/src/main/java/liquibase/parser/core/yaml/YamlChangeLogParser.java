@@ -3,12 +3,11 @@ package liquibase.parser.core.yaml;
 import liquibase.ContextExpression;
 import liquibase.Labels;
 import liquibase.changelog.ChangeLogParameters;
-import liquibase.changelog.DatabaseChangeLog;
 import liquibase.exception.ChangeLogParseException;
 import liquibase.logging.LogFactory;
 import liquibase.logging.Logger;
-import liquibase.parser.ChangeLogParser;
 import liquibase.parser.core.ParsedNode;
+import liquibase.parser.core.xml.AbstractChangeLogParser;
 import liquibase.resource.ResourceAccessor;
 import liquibase.util.StreamUtil;
 import org.yaml.snakeyaml.Yaml;
@@ -16,7 +15,7 @@ import org.yaml.snakeyaml.Yaml;
 import java.io.InputStream;
 import java.util.*;
 
-public class YamlChangeLogParser implements ChangeLogParser {
+public class YamlChangeLogParser extends AbstractChangeLogParser {
 
     protected Logger log = LogFactory.getLogger();
 
@@ -40,7 +39,7 @@ public class YamlChangeLogParser implements ChangeLogParser {
     }
 
     @Override
-    public DatabaseChangeLog parse(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) throws ChangeLogParseException {
+    protected ParsedNode parseToNode(String physicalChangeLogLocation, ChangeLogParameters changeLogParameters, ResourceAccessor resourceAccessor) throws ChangeLogParseException {
         Yaml yaml = new Yaml();
 
         try {
@@ -72,6 +71,10 @@ public class YamlChangeLogParser implements ChangeLogParser {
                         }
                         changeLogParameters.set((String) property.get("name"), (String) value, context, labels, (String) property.get("dbms"));
                     } else if (property.containsKey("file")) {
+                        ChangeLogParameters.Recording recording = changeLogParameters.getRecording();
+                        if (recording != null) {
+                            recording.addDependency((String) property.get("file"));
+                        }
                         Properties props = new Properties();
                         InputStream propertiesStream = StreamUtil.singleInputStream((String) property.get("file"), resourceAccessor);
                         if (propertiesStream == null) {
@@ -90,14 +93,10 @@ public class YamlChangeLogParser implements ChangeLogParser {
 
             replaceParameters(parsedYaml, changeLogParameters);
 
-            DatabaseChangeLog changeLog = new DatabaseChangeLog(physicalChangeLogLocation);
-            changeLog.setChangeLogParameters(changeLogParameters);
             ParsedNode databaseChangeLogNode = new ParsedNode(null, "databaseChangeLog");
             databaseChangeLogNode.setValue(rootList);
 
-            changeLog.load(databaseChangeLogNode, resourceAccessor);
-
-            return changeLog;
+            return databaseChangeLogNode;
         } catch (Throwable e) {
             if (e instanceof ChangeLogParseException) {
                 throw (ChangeLogParseException) e;
@@ -4,7 +4,7 @@ import liquibase.changelog.DatabaseChangeLog;
 import liquibase.changelog.ChangeSet;
 import liquibase.database.Database;
 import liquibase.precondition.AbstractPrecondition;
-import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.snapshot.MetadataCache;
 import liquibase.structure.core.ForeignKey;
 import liquibase.exception.*;
 import liquibase.precondition.Precondition;
@@ -76,7 +76,7 @@ public class ForeignKeyExistsPrecondition extends AbstractPrecondition {
             }
             example.getForeignKeyTable().setSchema(new Schema(getCatalogName(), getSchemaName()));
 
-            if (!SnapshotGeneratorFactory.getInstance().has(example, database)) {
+            if (!MetadataCache.has(example, database, changeLog)) {
                     throw new PreconditionFailedException("Foreign Key "+database.escapeIndexName(catalogName, schemaName, foreignKeyName)+" does not exist", changeLog, this);
             }
         } catch (PreconditionFailedException e) {
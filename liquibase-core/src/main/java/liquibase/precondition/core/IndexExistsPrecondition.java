@@ -5,8 +5,7 @@ import liquibase.changelog.ChangeSet;
 import liquibase.database.Database;
 import liquibase.logging.LogFactory;
 import liquibase.precondition.AbstractPrecondition;
-import liquibase.snapshot.SnapshotGeneratorFactory;
-import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.snapshot.MetadataCache;
 import liquibase.structure.core.Column;
 import liquibase.structure.core.Index;
 import liquibase.structure.core.Schema;
@@ -98,7 +97,7 @@ public class IndexExistsPrecondition extends AbstractPrecondition {
                     example.getColumns().add(database.correctObjectName(column, Column.class));
                 }
             }
-            if (!SnapshotGeneratorFactory.getInstance().has(example, database)) {
+            if (!MetadataCache.has(example, database, changeLog)) {
                 String name = "";
 
                 if (getIndexName() != null) {
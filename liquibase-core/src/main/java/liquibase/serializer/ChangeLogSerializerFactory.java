@@ -18,7 +18,7 @@ public class ChangeLogSerializerFactory {
         instance = new ChangeLogSerializerFactory();
     }
 
-    public static ChangeLogSerializerFactory getInstance() {
+    public static synchronized ChangeLogSerializerFactory getInstance() {
         if (instance == null) {
              instance = new ChangeLogSerializerFactory();
         }
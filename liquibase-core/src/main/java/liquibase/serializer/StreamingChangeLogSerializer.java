@@ -0,0 +1,20 @@
+package liquibase.serializer;
+
+import liquibase.changelog.ChangeSet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link ChangeLogSerializer} that can write a changelog one changeSet at a time, so the changeSets do not have to be in memory together.
+ * Writing the header, each changeSet and then the footer gives the same changelog as {@link #write(java.util.List, java.io.OutputStream)}.
+ * The header can be left out when appending changeSets to an existing changelog.
+ */
+public interface StreamingChangeLogSerializer extends ChangeLogSerializer {
+
+    void writeHeader(OutputStream out) throws IOException;
+
+    void writeChangeSet(ChangeSet changeSet, OutputStream out) throws IOException;
+
+    void writeFooter(OutputStream out) throws IOException;
+}
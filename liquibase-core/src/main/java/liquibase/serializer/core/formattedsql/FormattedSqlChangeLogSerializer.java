@@ -7,8 +7,8 @@ import liquibase.database.Database;
 import liquibase.database.DatabaseFactory;
 import liquibase.database.core.OracleDatabase;
 import liquibase.exception.UnexpectedLiquibaseException;
-import liquibase.serializer.ChangeLogSerializer;
 import liquibase.serializer.LiquibaseSerializable;
+import liquibase.serializer.StreamingChangeLogSerializer;
 import liquibase.sql.Sql;
 import liquibase.sqlgenerator.SqlGeneratorFactory;
 import liquibase.statement.SqlStatement;
@@ -20,7 +20,7 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class FormattedSqlChangeLogSerializer  implements ChangeLogSerializer {
+public class FormattedSqlChangeLogSerializer  implements StreamingChangeLogSerializer {
 
     private static Pattern fileNamePatter = Pattern.compile(".*\\.(\\w+)\\.sql");
 
@@ -80,16 +80,25 @@ public class FormattedSqlChangeLogSerializer  implements ChangeLogSerializer {
 
     @Override
     public void write(List<ChangeSet> changeSets, OutputStream out) throws IOException {
-        StringBuilder builder = new StringBuilder();
-        builder.append("--liquibase formatted sql\n\n");
-
+        writeHeader(out);
         for (ChangeSet changeSet : changeSets) {
-            builder.append(serialize(changeSet, true));
-            builder.append("\n");
+            writeChangeSet(changeSet, out);
         }
+        writeFooter(out);
+    }
+
+    @Override
+    public void writeHeader(OutputStream out) throws IOException {
+        out.write("--liquibase formatted sql\n\n".getBytes("UTF-8"));
+    }
 
-        out.write(builder.toString().getBytes("UTF-8"));
+    @Override
+    public void writeChangeSet(ChangeSet changeSet, OutputStream out) throws IOException {
+        out.write((serialize(changeSet, true) + "\n").getBytes("UTF-8"));
+    }
 
+    @Override
+    public void writeFooter(OutputStream out) throws IOException {
     }
 
     @Override
@@ -7,8 +7,8 @@ import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.parser.NamespaceDetails;
 import liquibase.parser.NamespaceDetailsFactory;
 import liquibase.parser.core.xml.LiquibaseEntityResolver;
-import liquibase.serializer.ChangeLogSerializer;
 import liquibase.serializer.LiquibaseSerializable;
+import liquibase.serializer.StreamingChangeLogSerializer;
 import liquibase.util.ISODateFormat;
 import liquibase.util.StreamUtil;
 import liquibase.util.StringUtils;
@@ -22,9 +22,12 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
 import java.util.*;
 
-public class XMLChangeLogSerializer implements ChangeLogSerializer {
+public class XMLChangeLogSerializer implements StreamingChangeLogSerializer {
 
     private Document currentChangeLogFileDOM;
+    private String changeLogHeader;
+    private String changeLogFooter;
+    private DefaultXmlWriter streamingWriter;
 
     public XMLChangeLogSerializer() {
         try {
@@ -65,6 +68,68 @@ public class XMLChangeLogSerializer implements ChangeLogSerializer {
 
     @Override
     public void write(List<ChangeSet> changeSets, OutputStream out) throws IOException {
+        Document doc = createChangeLogDocument();
+
+        for (ChangeSet changeSet : changeSets) {
+            doc.getDocumentElement().appendChild(createNode(changeSet));
+        }
+
+        new DefaultXmlWriter().write(doc, out);
+    }
+
+    /**
+     * Writes everything before the first changeSet.
+     * The header and footer are cut from a changelog with a single placeholder changeSet, so the streamed changelog is formatted like {@link #write(List, OutputStream)}.
+     */
+    @Override
+    public void writeHeader(OutputStream out) throws IOException {
+        startStreaming();
+        out.write(changeLogHeader.getBytes("UTF-8"));
+    }
+
+    @Override
+    public void writeChangeSet(ChangeSet changeSet, OutputStream out) throws IOException {
+        if (changeLogHeader == null) {
+            startStreaming();
+        }
+        Document doc = currentChangeLogFileDOM;
+        Element node = createNode(changeSet);
+        doc.getDocumentElement().appendChild(node);
+        String xml = toXml(doc);
+        doc.getDocumentElement().removeChild(node);
+
+        out.write(xml.substring(changeLogHeader.length(), xml.length() - changeLogFooter.length()).getBytes("UTF-8"));
+    }
+
+    @Override
+    public void writeFooter(OutputStream out) throws IOException {
+        if (changeLogFooter == null) {
+            startStreaming();
+        }
+        out.write(changeLogFooter.getBytes("UTF-8"));
+    }
+
+    private void startStreaming() throws IOException {
+        Document doc = createChangeLogDocument();
+        Element placeholder = doc.createElementNS(LiquibaseSerializable.STANDARD_CHANGELOG_NAMESPACE, "changeSet");
+        doc.getDocumentElement().appendChild(placeholder);
+        streamingWriter = new DefaultXmlWriter();
+        String xml = toXml(doc);
+        doc.getDocumentElement().removeChild(placeholder);
+
+        int headerEnd = xml.indexOf('>', xml.indexOf("<databaseChangeLog")) + 1;
+        int footerStart = xml.lastIndexOf('>', xml.lastIndexOf("</databaseChangeLog>")) + 1;
+        changeLogHeader = xml.substring(0, headerEnd);
+        changeLogFooter = xml.substring(footerStart);
+    }
+
+    private String toXml(Document doc) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamingWriter.write(doc, out);
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    private Document createChangeLogDocument() {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         factory.setNamespaceAware(true);
         DocumentBuilder documentBuilder;
@@ -115,12 +180,7 @@ public class XMLChangeLogSerializer implements ChangeLogSerializer {
 
         doc.appendChild(changeLogElement);
         setCurrentChangeLogFileDOM(doc);
-
-        for (ChangeSet changeSet : changeSets) {
-            doc.getDocumentElement().appendChild(createNode(changeSet));
-        }
-
-        new DefaultXmlWriter().write(doc, out);
+        return doc;
     }
 
     @Override
@@ -3,8 +3,8 @@ package liquibase.serializer.core.yaml;
 import liquibase.changelog.ChangeSet;
 import liquibase.changelog.DatabaseChangeLog;
 import liquibase.exception.UnexpectedLiquibaseException;
-import liquibase.serializer.ChangeLogSerializer;
 import liquibase.serializer.LiquibaseSerializable;
+import liquibase.serializer.StreamingChangeLogSerializer;
 import liquibase.statement.DatabaseFunction;
 import liquibase.statement.SequenceCurrentValueFunction;
 import liquibase.statement.SequenceNextValueFunction;
@@ -27,7 +27,7 @@ import java.lang.reflect.Type;
 import java.sql.Timestamp;
 import java.util.*;
 
-public class YamlChangeLogSerializer implements ChangeLogSerializer {
+public class YamlChangeLogSerializer implements StreamingChangeLogSerializer {
 
     protected Yaml yaml;
 
@@ -97,15 +97,32 @@ public class YamlChangeLogSerializer implements ChangeLogSerializer {
 
     @Override
     public void write(List<ChangeSet> changeSets, OutputStream out) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
-        writer.write("databaseChangeLog:\n");
+        writeHeader(out);
         for (ChangeSet changeSet : changeSets) {
-            writer.write(StringUtils.indent(serialize(changeSet, true), 2));
-            writer.write("\n");
+            writeChangeSet(changeSet, out);
         }
+        writeFooter(out);
+    }
+
+    @Override
+    public void writeHeader(OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+        writer.write("databaseChangeLog:\n");
         writer.flush();
     }
 
+    @Override
+    public void writeChangeSet(ChangeSet changeSet, OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+        writer.write(StringUtils.indent(serialize(changeSet, true), 2));
+        writer.write("\n");
+        writer.flush();
+    }
+
+    @Override
+    public void writeFooter(OutputStream out) throws IOException {
+    }
+
     @Override
     public void append(ChangeSet changeSet, File changeLogFile) throws IOException {
         //To change body of implemented methods use File | Settings | File Templates.
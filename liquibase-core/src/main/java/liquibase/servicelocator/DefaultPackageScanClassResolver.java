@@ -24,6 +24,7 @@ public class DefaultPackageScanClassResolver implements PackageScanClassResolver
     private Set<PackageScanFilter> scanFilters;
     private Map<String, Set<Class>> allClassesByPackage = new HashMap<String, Set<Class>>();
     private Set<String> loadedPackages = new HashSet<String>();
+    private List<ServiceIndex> serviceIndexes = new ArrayList<ServiceIndex>();
 
     @Override
     public void addClassLoader(ClassLoader classLoader) {
@@ -69,6 +70,13 @@ public class DefaultPackageScanClassResolver implements PackageScanClassResolver
         this.classLoaders = classLoaders;
     }
 
+    /**
+     * Sets the {@link ServiceIndex}es of the jars and directories that should not be scanned for the packages the indexes cover.
+     */
+    public void setServiceIndexes(List<ServiceIndex> serviceIndexes) {
+        this.serviceIndexes = serviceIndexes;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public Set<Class<?>> findImplementations(Class parent, String... packageNames) {
@@ -141,6 +149,11 @@ public class DefaultPackageScanClassResolver implements PackageScanClassResolver
                 url = urls.nextElement();
                 log.debug("URL from classloader: " + url);
 
+                if (isIndexed(url, packageName)) {
+                    log.debug("Skipping " + url + ", its classes are listed in a service index");
+                    continue;
+                }
+
                 url = customResourceLocator(url);
 
                 String urlPath = url.getFile();
@@ -237,6 +250,15 @@ public class DefaultPackageScanClassResolver implements PackageScanClassResolver
         }
     }
 
+    protected boolean isIndexed(URL url, String packageName) {
+        for (ServiceIndex index : serviceIndexes) {
+            if (index.covers(url, packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected void findInAllClasses(PackageScanFilter test, String packageName, Set<Class<?>> classes) {
         log.debug("Searching for: " + test + " in package: " + packageName );
 
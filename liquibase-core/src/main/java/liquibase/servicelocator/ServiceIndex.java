@@ -0,0 +1,265 @@
+package liquibase.servicelocator;
+
+import liquibase.util.StringUtils;
+
+import java.io.*;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+import java.util.jar.Manifest;
+
+/**
+ * Lists the Liquibase services in one jar or classes directory by the types they implement, so the {@link ServiceLocator}
+ * can find them without scanning the jar. It is written to {@link #INDEX_FILE} at build time by {@link #main(String[])}.
+ * A jar or directory with an index is only scanned for packages the index does not cover.
+ */
+public class ServiceIndex {
+
+    public static final String INDEX_FILE = "META-INF/liquibase/services.index";
+
+    private static final String HEADER = "# Liquibase service index";
+    private static final String PACKAGE = "package: ";
+    private static final String SERVICE = "service: ";
+
+    private String root;
+    private SortedSet<String> packages;
+    private SortedMap<String, SortedSet<String>> implementations;
+
+    public ServiceIndex(String root, SortedSet<String> packages, SortedMap<String, SortedSet<String>> implementations) {
+        this.root = root;
+        this.packages = packages;
+        this.implementations = implementations;
+    }
+
+    /**
+     * The URL of the jar or directory the index was read from, ending with the separator that comes before the package paths.
+     */
+    public String getRoot() {
+        return root;
+    }
+
+    public SortedSet<String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * Returns true if the package and all of its subpackages were indexed.
+     */
+    public boolean covers(String packageName) {
+        packageName = packageName.replace('/', '.');
+        for (String indexed : packages) {
+            if (isInPackage(packageName, indexed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given URL, returned by a classloader for the package path, is in the indexed jar or directory and the index covers the package.
+     */
+    public boolean covers(URL packageUrl, String packagePath) {
+        if (root == null) {
+            return false;
+        }
+        String url = packageUrl.toString();
+        if (!packagePath.endsWith("/")) {
+            packagePath = packagePath + "/";
+        }
+        if (!url.endsWith("/")) {
+            url = url + "/";
+        }
+        return url.endsWith(packagePath)
+                && url.substring(0, url.length() - packagePath.length()).equals(root)
+                && covers(packagePath);
+    }
+
+    /**
+     * Returns the names of the indexed classes that can be assigned to the given type and are in one of the given packages or their subpackages.
+     */
+    public List<String> getImplementations(String typeName, Collection<String> packageNames) {
+        List<String> found = new ArrayList<String>();
+        SortedSet<String> classes = implementations.get(typeName);
+        if (classes == null) {
+            return found;
+        }
+        for (String className : classes) {
+            for (String packageName : packageNames) {
+                if (isInPackage(className, packageName)) {
+                    found.add(className);
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean isInPackage(String name, String packageName) {
+        return name.equals(packageName) || name.startsWith(packageName + ".");
+    }
+
+    public void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write(HEADER + "\n");
+            for (String packageName : packages) {
+                writer.write(PACKAGE + packageName + "\n");
+            }
+            for (Map.Entry<String, SortedSet<String>> entry : implementations.entrySet()) {
+                writer.write(SERVICE + entry.getKey() + "\t" + StringUtils.join(entry.getValue(), ",") + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write(File)} from the given URL. Returns null if it is not a service index.
+     */
+    public static ServiceIndex read(URL url) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+        try {
+            if (!HEADER.equals(reader.readLine())) {
+                return null;
+            }
+            SortedSet<String> packages = new TreeSet<String>();
+            SortedMap<String, SortedSet<String>> implementations = new TreeMap<String, SortedSet<String>>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PACKAGE)) {
+                    packages.add(line.substring(PACKAGE.length()));
+                } else if (line.startsWith(SERVICE)) {
+                    String[] typeAndClasses = line.substring(SERVICE.length()).split("\t", 2);
+                    if (typeAndClasses.length != 2) {
+                        return null;
+                    }
+                    implementations.put(typeAndClasses[0], new TreeSet<String>(Arrays.asList(typeAndClasses[1].split(","))));
+                }
+            }
+
+            String urlString = url.toString();
+            String root = urlString.endsWith(INDEX_FILE) ? urlString.substring(0, urlString.length() - INDEX_FILE.length()) : null;
+            return new ServiceIndex(root, packages, implementations);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Indexes the classes under the given directory that are in the given packages or their subpackages.
+     * Like the {@link ServiceLocator}, only public concrete classes with a no-argument constructor are indexed, under every class and interface they extend.
+     */
+    public static ServiceIndex create(File classesDirectory, Collection<String> packageNames, ClassLoader classLoader) {
+        SortedSet<String> packages = new TreeSet<String>(packageNames);
+        SortedMap<String, SortedSet<String>> implementations = new TreeMap<String, SortedSet<String>>();
+        for (String packageName : packages) {
+            File packageDirectory = new File(classesDirectory, packageName.replace('.', File.separatorChar));
+            addClasses(packageDirectory, packageName, classLoader, implementations);
+        }
+        return new ServiceIndex(null, packages, implementations);
+    }
+
+    private static void addClasses(File directory, String packageName, ClassLoader classLoader, SortedMap<String, SortedSet<String>> implementations) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                addClasses(file, packageName + "." + name, classLoader, implementations);
+            } else if (name.endsWith(".class")) {
+                Class<?> clazz;
+                try {
+                    clazz = classLoader.loadClass(packageName + "." + name.substring(0, name.length() - ".class".length()));
+                    if (!isService(clazz)) {
+                        continue;
+                    }
+                    for (String type : getTypeNames(clazz)) {
+                        if (!implementations.containsKey(type)) {
+                            implementations.put(type, new TreeSet<String>());
+                        }
+                        implementations.get(type).add(clazz.getName());
+                    }
+                } catch (ClassNotFoundException e) {
+                    continue;
+                } catch (LinkageError e) {
+                    continue;
+                }
+            }
+        }
+    }
+
+    private static boolean isService(Class<?> clazz) {
+        int modifiers = clazz.getModifiers();
+        if (Modifier.isAbstract(modifiers) || Modifier.isInterface(modifiers) || !Modifier.isPublic(modifiers)) {
+            return false;
+        }
+        LiquibaseService annotation = clazz.getAnnotation(LiquibaseService.class);
+        if (annotation != null && annotation.skip()) {
+            return false;
+        }
+        try {
+            clazz.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Set<String> getTypeNames(Class<?> clazz) {
+        Set<String> types = new HashSet<String>();
+        List<Class<?>> toCheck = new ArrayList<Class<?>>();
+        toCheck.add(clazz);
+        while (!toCheck.isEmpty()) {
+            Class<?> type = toCheck.remove(toCheck.size() - 1);
+            if (type == null || type.equals(Object.class) || !types.add(type.getName())) {
+                continue;
+            }
+            toCheck.add(type.getSuperclass());
+            toCheck.addAll(Arrays.asList(type.getInterfaces()));
+        }
+        return types;
+    }
+
+    /**
+     * Writes the index of a classes directory to its {@link #INDEX_FILE}. The arguments are the classes directory followed by the packages to index.
+     * Without packages, the Liquibase-Package entries of the directory's META-INF/MANIFEST.MF are indexed.
+     * The classes must be loadable by the classloader of this class or be on the given directory.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: ServiceIndex <classes directory> [package...]");
+        }
+        File classesDirectory = new File(args[0]);
+        List<String> packages = new ArrayList<String>(Arrays.asList(args).subList(1, args.length));
+        if (packages.isEmpty()) {
+            packages.addAll(getManifestPackages(classesDirectory));
+        }
+
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classesDirectory.toURI().toURL()}, ServiceIndex.class.getClassLoader());
+        create(classesDirectory, packages, classLoader).write(new File(classesDirectory, INDEX_FILE));
+    }
+
+    private static List<String> getManifestPackages(File classesDirectory) throws IOException {
+        List<String> packages = new ArrayList<String>();
+        File manifestFile = new File(classesDirectory, "META-INF/MANIFEST.MF");
+        if (!manifestFile.exists()) {
+            return packages;
+        }
+        InputStream stream = new FileInputStream(manifestFile);
+        try {
+            String attributes = StringUtils.trimToNull(new Manifest(stream).getMainAttributes().getValue("Liquibase-Package"));
+            if (attributes != null) {
+                for (String value : attributes.split(",")) {
+                    packages.add(value.trim());
+                }
+            }
+        } finally {
+            stream.close();
+        }
+        return packages;
+    }
+}
@@ -36,6 +36,7 @@ public class ServiceLocator {
 
     private Map<Class, List<Class>> classesBySuperclass;
     private List<String> packagesToScan;
+    private List<ServiceIndex> serviceIndexes;
     private Logger logger = new DefaultLogger(); //cannot look up regular logger because you get a stackoverflow since we are in the servicelocator
     private PackageScanClassResolver classResolver;
 
@@ -127,6 +128,39 @@ public class ServiceLocator {
                 addPackageToScan("liquibase.ext");
             }
         }
+
+        serviceIndexes = readServiceIndexes(resourceAccessor);
+        if (classResolver instanceof DefaultPackageScanClassResolver) {
+            ((DefaultPackageScanClassResolver) classResolver).setServiceIndexes(serviceIndexes);
+        }
+    }
+
+    /**
+     * Reads the {@link ServiceIndex} of each jar and directory that has one.
+     * Indexes are only used with a {@link DefaultPackageScanClassResolver}, which can skip scanning what they cover,
+     * and can be turned off with the liquibase.scan.index=false system property when an index may be out of date.
+     */
+    protected List<ServiceIndex> readServiceIndexes(ResourceAccessor resourceAccessor) {
+        List<ServiceIndex> indexes = new ArrayList<ServiceIndex>();
+        if (!(classResolver instanceof DefaultPackageScanClassResolver) || "false".equalsIgnoreCase(System.getProperty("liquibase.scan.index"))) {
+            return indexes;
+        }
+        try {
+            Enumeration<URL> urls = resourceAccessor.toClassLoader().getResources(ServiceIndex.INDEX_FILE);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                ServiceIndex index = ServiceIndex.read(url);
+                if (index == null || index.getRoot() == null) {
+                    logger.warning("Ignoring service index " + url + ", it is not a valid index");
+                } else {
+                    logger.debug("Using service index " + url);
+                    indexes.add(index);
+                }
+            }
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+        return indexes;
     }
 
     public void addPackageToScan(String packageName) {
@@ -198,8 +232,10 @@ public class ServiceLocator {
 
         List<Class> classes = new ArrayList<Class>();
 
+        Set<Class<?>> candidates = new LinkedHashSet<Class<?>>(findIndexedClasses(requiredInterface));
         classResolver.addClassLoader(resourceAccessor.toClassLoader());
-        for (Class<?> clazz : classResolver.findImplementations(requiredInterface, packagesToScan.toArray(new String[packagesToScan.size()]))) {
+        candidates.addAll(classResolver.findImplementations(requiredInterface, packagesToScan.toArray(new String[packagesToScan.size()])));
+        for (Class<?> clazz : candidates) {
             if (clazz.getAnnotation(LiquibaseService.class ) != null  && clazz.getAnnotation(LiquibaseService.class).skip()) {
                 continue;
             }
@@ -226,6 +262,23 @@ public class ServiceLocator {
         return classes;
     }
 
+    private List<Class<?>> findIndexedClasses(Class requiredInterface) {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        ClassLoader classLoader = resourceAccessor.toClassLoader();
+        for (ServiceIndex index : serviceIndexes) {
+            for (String className : index.getImplementations(requiredInterface.getName(), packagesToScan)) {
+                try {
+                    classes.add(classLoader.loadClass(className));
+                } catch (ClassNotFoundException e) {
+                    logger.debug("Cannot load indexed class " + className + ": " + e.getMessage());
+                } catch (LinkageError e) {
+                    logger.debug("Cannot load indexed class " + className + ": " + e.getMessage());
+                }
+            }
+        }
+        return classes;
+    }
+
     public static void reset() {
         instance = new ServiceLocator();
     }
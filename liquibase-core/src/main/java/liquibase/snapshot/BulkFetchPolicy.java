@@ -0,0 +1,22 @@
+package liquibase.snapshot;
+
+import liquibase.CatalogAndSchema;
+
+/**
+ * Decides whether a {@link JdbcDatabaseSnapshot.CachingDatabaseMetaData} lookup reads only the rows it needs or every row of the schema,
+ * which answers all further lookups of the method in the schema. Attach instances to {@link liquibase.snapshot.SnapshotControl}
+ *
+ * @see DefaultBulkFetchPolicy
+ */
+public interface BulkFetchPolicy {
+
+    /**
+     * Called before each lookup that is not answered from the rows already read.
+     * @param method Method making the lookup, such as "getColumns". Table lookups include the types read, such as "getTables.TABLE"
+     * @param schema Schema the lookup is in
+     * @param singleQueries Number of lookups of the method in the schema that have already read only the rows they needed
+     * @param suggested Whether the method itself would read the whole schema now
+     * @param snapshot Snapshot being created
+     */
+    public boolean shouldBulkSelect(String method, CatalogAndSchema schema, int singleQueries, boolean suggested, DatabaseSnapshot snapshot);
+}
@@ -0,0 +1,110 @@
+package liquibase.snapshot;
+
+import liquibase.CatalogAndSchema;
+import liquibase.database.AbstractJdbcDatabase;
+import liquibase.database.Database;
+import liquibase.database.core.MySQLDatabase;
+import liquibase.database.core.OracleDatabase;
+import liquibase.database.core.PostgresDatabase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.util.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reads a marker for each object in a schema that changes whenever DDL changes the object, without reading the object itself.
+ * Used by {@link SnapshotBaseline} to tell whether a schema changed since a snapshot was taken.
+ * <ul>
+ * <li>Oracle uses ALL_OBJECTS.LAST_DDL_TIME and OBJECT_ID.</li>
+ * <li>PostgreSQL uses the xmin of the pg_class, pg_attribute, pg_attrdef, pg_constraint, pg_rewrite and pg_description rows of the schema.</li>
+ * <li>MySQL has no reliable DDL time, so the information_schema definitions of tables, columns, indexes, constraints and views are used.</li>
+ * </ul>
+ * Other databases have no fingerprint and are always snapshotted in full.
+ * Objects changed in the last seconds have a null marker, since a time based marker may not see another change in the same second.
+ */
+public class CatalogFingerprint {
+
+    /**
+     * Returns the marker of each object in the given schemas, keyed by schema and object name, or null if the database has no fingerprint.
+     */
+    public SortedMap<String, String> read(Database database, CatalogAndSchema... schemas) throws DatabaseException {
+        if (!(database instanceof AbstractJdbcDatabase) || !(database.getConnection() instanceof JdbcConnection)) {
+            return null;
+        }
+        SortedMap<String, String> fingerprint = new TreeMap<String, String>();
+        for (CatalogAndSchema schema : schemas) {
+            schema = schema.customize(database);
+            String sql = getFingerprintSql(schema, database);
+            if (sql == null) {
+                return null;
+            }
+            query(sql, schema.toString() + " ", fingerprint, database);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns a query selecting the name and the marker of each object in the schema, or null if changes cannot be detected.
+     */
+    protected String getFingerprintSql(CatalogAndSchema schema, Database database) {
+        String catalogName = database.escapeStringForDatabase(((AbstractJdbcDatabase) database).getJdbcCatalogName(schema));
+        String schemaName = database.escapeStringForDatabase(((AbstractJdbcDatabase) database).getJdbcSchemaName(schema));
+
+        if (database instanceof OracleDatabase) {
+            return "select object_type || ' ' || object_name || case when subobject_name is not null then '.' || subobject_name end, "
+                    + "case when last_ddl_time > sysdate - 2/86400 then null else object_id || ' ' || to_char(last_ddl_time, 'YYYY-MM-DD HH24:MI:SS') end "
+                    + "from all_objects where owner='" + schemaName + "'";
+        } else if (database instanceof PostgresDatabase) {
+            String namespace = "join pg_catalog.pg_namespace n on n.oid = c.relnamespace where n.nspname='" + schemaName + "'";
+            return "select 'class ' || c.relname, c.xmin::text from pg_catalog.pg_class c " + namespace
+                    + " union all select 'column ' || c.relname || '.' || a.attname, a.xmin::text from pg_catalog.pg_attribute a "
+                    + "join pg_catalog.pg_class c on c.oid = a.attrelid " + namespace + " and a.attnum > 0"
+                    + " union all select 'default ' || c.relname || '.' || d.adnum, d.xmin::text from pg_catalog.pg_attrdef d "
+                    + "join pg_catalog.pg_class c on c.oid = d.adrelid " + namespace
+                    + " union all select 'constraint ' || co.conname, co.xmin::text from pg_catalog.pg_constraint co "
+                    + "join pg_catalog.pg_namespace n on n.oid = co.connamespace where n.nspname='" + schemaName + "'"
+                    + " union all select 'rule ' || c.relname || '.' || r.rulename, r.xmin::text from pg_catalog.pg_rewrite r "
+                    + "join pg_catalog.pg_class c on c.oid = r.ev_class " + namespace
+                    + " union all select 'comment ' || c.relname || '.' || ds.objsubid, ds.xmin::text from pg_catalog.pg_description ds "
+                    + "join pg_catalog.pg_class c on c.oid = ds.objoid " + namespace + " and ds.classoid = 'pg_catalog.pg_class'::regclass";
+        } else if (database instanceof MySQLDatabase) {
+            return "select concat('table ', table_name), case when create_time > now() - interval 2 second then null "
+                    + "else concat_ws(' ', table_type, engine, create_time, table_collation, table_comment) end "
+                    + "from information_schema.tables where table_schema='" + catalogName + "'"
+                    + " union all select concat('column ', table_name, '.', column_name), "
+                    + "md5(concat_ws(' ', ordinal_position, column_type, is_nullable, coalesce(column_default, '(null)'), extra, column_comment)) "
+                    + "from information_schema.columns where table_schema='" + catalogName + "'"
+                    + " union all select concat('index ', table_name, '.', index_name, '.', seq_in_index), concat_ws(' ', column_name, non_unique, index_type) "
+                    + "from information_schema.statistics where table_schema='" + catalogName + "'"
+                    + " union all select concat('constraint ', table_name, '.', constraint_name, '.', ordinal_position), "
+                    + "concat_ws(' ', column_name, referenced_table_name, referenced_column_name) "
+                    + "from information_schema.key_column_usage where table_schema='" + catalogName + "'"
+                    + " union all select concat('rule ', constraint_name), concat_ws(' ', update_rule, delete_rule) "
+                    + "from information_schema.referential_constraints where constraint_schema='" + catalogName + "'"
+                    + " union all select concat('view ', table_name), md5(view_definition) "
+                    + "from information_schema.views where table_schema='" + catalogName + "'";
+        }
+        return null;
+    }
+
+    private void query(String sql, String prefix, SortedMap<String, String> fingerprint, Database database) throws DatabaseException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = ((JdbcConnection) database.getConnection()).createStatement();
+            resultSet = statement.executeQuery(sql);
+            while (resultSet.next()) {
+                fingerprint.put(prefix + resultSet.getString(1), resultSet.getString(2));
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        } finally {
+            JdbcUtils.close(resultSet, statement);
+        }
+    }
+}
@@ -24,13 +24,20 @@ public abstract class DatabaseSnapshot implements LiquibaseSerializable{
     private Map<Class<? extends DatabaseObject>, Set<DatabaseObject>> knownNull = new HashMap<Class<? extends DatabaseObject>, Set<DatabaseObject>>();
 
     private Map<String, ResultSetCache> resultSetCaches = new HashMap<String, ResultSetCache>();
+    private DatabaseObject[] originalExamples;
+
+    private Map<Class<? extends DatabaseObject>, ObjectTypeStatistics> objectTypeStatistics = new HashMap<Class<? extends DatabaseObject>, ObjectTypeStatistics>();
+    private long includedTime;
+    private long snapshotTime;
 
     DatabaseSnapshot(DatabaseObject[] examples, Database database, SnapshotControl snapshotControl) throws DatabaseException, InvalidExampleException {
         this.database = database;
         allFound = new DatabaseObjectCollection(database);
         this.snapshotControl = snapshotControl;
 
+        long started = System.nanoTime();
         init(examples);
+        this.snapshotTime = System.nanoTime() - started;
 
         this.serializableFields =  new HashSet<String>();
         this.serializableFields.add("snapshotControl");
@@ -38,6 +45,7 @@ public abstract class DatabaseSnapshot implements LiquibaseSerializable{
     }
 
     protected void init(DatabaseObject[] examples) throws DatabaseException, InvalidExampleException {
+        this.originalExamples = examples;
         if (examples != null) {
             Set<Catalog> catalogs = new HashSet<Catalog>();
             for (DatabaseObject object : examples) {
@@ -106,13 +114,49 @@ public abstract class DatabaseSnapshot implements LiquibaseSerializable{
         return database;
     }
 
+    /**
+     * Returns the objects this snapshot was created for.
+     */
+    public DatabaseObject[] getOriginalExamples() {
+        return originalExamples;
+    }
+
     public ResultSetCache getResultSetCache(String key) {
         if (!resultSetCaches.containsKey(key)) {
-            resultSetCaches.put(key, new ResultSetCache());
+            resultSetCaches.put(key, new ResultSetCache(key, this));
         }
         return resultSetCaches.get(key);
     }
 
+    /**
+     * Returns the number of metadata queries made and rows read while creating this snapshot, by method, sorted by method.
+     */
+    public List<MetadataQueryStatistics> getMetadataQueryStatistics() {
+        List<MetadataQueryStatistics> statistics = new ArrayList<MetadataQueryStatistics>();
+        for (String key : new TreeSet<String>(resultSetCaches.keySet())) {
+            MetadataQueryStatistics cacheStatistics = resultSetCaches.get(key).getStatistics();
+            if (cacheStatistics.getQueries() > 0 || cacheStatistics.getCacheHits() > 0) {
+                statistics.add(cacheStatistics);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the number of objects read and the time spent on them while creating this snapshot, by object type, sorted by type name.
+     */
+    public List<ObjectTypeStatistics> getObjectTypeStatistics() {
+        SortedMap<String, ObjectTypeStatistics> statistics = new TreeMap<String, ObjectTypeStatistics>();
+        for (ObjectTypeStatistics typeStatistics : objectTypeStatistics.values()) {
+            statistics.put(typeStatistics.getType().getName(), typeStatistics);
+        }
+        return new ArrayList<ObjectTypeStatistics>(statistics.values());
+    }
+
+    public SnapshotStatistics getStatistics() {
+        return new SnapshotStatistics(snapshotTime / 1000000, getMetadataQueryStatistics(), getObjectTypeStatistics());
+    }
+
     /**
      * Include the object described by the passed example object in this snapshot. Returns the object snapshot or null if the object does not exist in the database.
      * If the same object was returned by an earlier include() call, the same object instance will be returned.
@@ -150,6 +194,9 @@ public abstract class DatabaseSnapshot implements LiquibaseSerializable{
             snapshotListener.willSnapshot(example, database);
         }
 
+        long started = System.nanoTime();
+        long includedBefore = includedTime;
+
         T object = chain.snapshot(example, this);
 
         if (object == null) {
@@ -172,6 +219,11 @@ public abstract class DatabaseSnapshot implements LiquibaseSerializable{
             }
         }
 
+        long time = System.nanoTime() - started;
+        //time of the objects included while this one was read is recorded for their own types
+        getObjectTypeStatistics(example.getClass()).recordObject(object != null, time - (includedTime - includedBefore));
+        includedTime = includedBefore + time;
+
         if (snapshotListener != null) {
             snapshotListener.finishedSnapshot(example, object, database);
         }
@@ -179,6 +231,15 @@ public abstract class DatabaseSnapshot implements LiquibaseSerializable{
         return object;
     }
 
+    private ObjectTypeStatistics getObjectTypeStatistics(Class<? extends DatabaseObject> type) {
+        ObjectTypeStatistics statistics = objectTypeStatistics.get(type);
+        if (statistics == null) {
+            statistics = new ObjectTypeStatistics(type);
+            objectTypeStatistics.put(type, statistics);
+        }
+        return statistics;
+    }
+
     private void includeNestedObjects(DatabaseObject object) throws DatabaseException, InvalidExampleException, InstantiationException, IllegalAccessException {
             for (String field : new HashSet<String>(object.getAttributes())) {
                 Object fieldValue = object.getAttribute(field, Object.class);
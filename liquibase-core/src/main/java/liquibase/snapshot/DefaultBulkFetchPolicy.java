@@ -0,0 +1,238 @@
+package liquibase.snapshot;
+
+import liquibase.CatalogAndSchema;
+import liquibase.database.AbstractJdbcDatabase;
+import liquibase.database.Database;
+import liquibase.database.core.*;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.LogFactory;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Schema;
+import liquibase.util.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default {@link BulkFetchPolicy}. Lookups follow the suggestion of the method, which for most methods is to read the whole schema
+ * once three lookups in it have read only what they needed, with these adjustments based on the number of tables in the schema:
+ * <ul>
+ * <li>Schemas with no more than {@link #getSmallSchemaTables(Database)} tables are never read in bulk, the lookups of the objects in them cost less.</li>
+ * <li>Schemas with at least {@link #getLargeSchemaTables(Database)} tables are read in bulk by the first lookup when the whole schema is being snapshotted.</li>
+ * </ul>
+ * Unless set, both limits depend on the database, see {@link #getDefaultSmallSchemaTables(Database)} and {@link #getDefaultLargeSchemaTables(Database)}.
+ * The number of tables is counted with a query on the database catalog the first time it is needed and kept for the rest of the snapshot.
+ * It is only known for Oracle, MySQL, PostgreSQL, SQL Server, DB2, H2 and HSQLDB, other databases always follow the suggestion of the method.
+ * The number of lookups before a method reads the whole schema can also be set per method with {@link #setThreshold(String, int)}.
+ */
+public class DefaultBulkFetchPolicy implements BulkFetchPolicy {
+
+    private Integer smallSchemaTables;
+    private Integer largeSchemaTables;
+    private Map<String, Integer> thresholds = new HashMap<String, Integer>();
+    private final Map<DatabaseSnapshot, Map<String, Integer>> tableCounts = new WeakHashMap<DatabaseSnapshot, Map<String, Integer>>();
+
+    /**
+     * Returns the number of tables set with {@link #setSmallSchemaTables(int)}, or null if the default of the database is used.
+     */
+    public Integer getSmallSchemaTables() {
+        return smallSchemaTables;
+    }
+
+    /**
+     * Returns the number of tables up to which schemas of the given database are never read in bulk. Negative values disable this.
+     */
+    public int getSmallSchemaTables(Database database) {
+        if (smallSchemaTables != null) {
+            return smallSchemaTables;
+        }
+        return getDefaultSmallSchemaTables(database);
+    }
+
+    /**
+     * Schemas with no more than the given number of tables are never read in bulk. Negative values disable this.
+     */
+    public DefaultBulkFetchPolicy setSmallSchemaTables(int smallSchemaTables) {
+        this.smallSchemaTables = smallSchemaTables;
+        return this;
+    }
+
+    /**
+     * Returns the number of tables set with {@link #setLargeSchemaTables(int)}, or null if the default of the database is used.
+     */
+    public Integer getLargeSchemaTables() {
+        return largeSchemaTables;
+    }
+
+    /**
+     * Returns the number of tables from which schemas of the given database are read in bulk by the first lookup. {@link Integer#MAX_VALUE} disables this.
+     */
+    public int getLargeSchemaTables(Database database) {
+        if (largeSchemaTables != null) {
+            return largeSchemaTables;
+        }
+        return getDefaultLargeSchemaTables(database);
+    }
+
+    /**
+     * Schemas with at least the given number of tables are read in bulk by the first lookup when the whole schema is being snapshotted.
+     * {@link Integer#MAX_VALUE} disables this.
+     */
+    public DefaultBulkFetchPolicy setLargeSchemaTables(int largeSchemaTables) {
+        this.largeSchemaTables = largeSchemaTables;
+        return this;
+    }
+
+    /**
+     * Databases that answer metadata queries over the network default to 3: lookups in schemas with a few tables cost less than reading the whole schema.
+     * Embedded databases answer both from memory, so the adjustment is disabled for H2, HSQLDB and databases whose tables cannot be counted.
+     */
+    protected int getDefaultSmallSchemaTables(Database database) {
+        if (database instanceof OracleDatabase || database instanceof MSSQLDatabase || database instanceof PostgresDatabase
+                || database instanceof MySQLDatabase || database instanceof DB2Database) {
+            return 3;
+        }
+        return -1;
+    }
+
+    /**
+     * Oracle and DB2 catalog views are slow to query table by table, so their schemas are read in bulk from 100 tables.
+     * SQL Server, PostgreSQL and MySQL from 250 tables. Disabled for other databases.
+     */
+    protected int getDefaultLargeSchemaTables(Database database) {
+        if (database instanceof OracleDatabase || database instanceof DB2Database) {
+            return 100;
+        }
+        if (database instanceof MSSQLDatabase || database instanceof PostgresDatabase || database instanceof MySQLDatabase) {
+            return 250;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of lookups of the given method in a schema after which it reads the whole schema, or null if the method decides.
+     * Thresholds set for "getTables" also apply to "getTables.TABLE" and "getTables.VIEW".
+     */
+    public Integer getThreshold(String method) {
+        Integer threshold = thresholds.get(method);
+        if (threshold == null && method.contains(".")) {
+            threshold = thresholds.get(method.substring(0, method.indexOf(".")));
+        }
+        return threshold;
+    }
+
+    public DefaultBulkFetchPolicy setThreshold(String method, int singleQueries) {
+        thresholds.put(method, singleQueries);
+        return this;
+    }
+
+    @Override
+    public boolean shouldBulkSelect(String method, CatalogAndSchema schema, int singleQueries, boolean suggested, DatabaseSnapshot snapshot) {
+        Integer threshold = getThreshold(method);
+        boolean wholeSchema = isSnapshotOfSchema(schema, snapshot);
+        Database database = snapshot.getDatabase();
+        int small = getSmallSchemaTables(database);
+        int large = getLargeSchemaTables(database);
+        if ((small >= 0 || large < Integer.MAX_VALUE) && (singleQueries > 0 || wholeSchema)) {
+            int tables = countTables(schema, snapshot);
+            if (tables >= 0 && tables <= small) {
+                return false;
+            }
+            if (wholeSchema && tables >= large) {
+                return true;
+            }
+        }
+        if (threshold != null) {
+            return singleQueries >= threshold;
+        }
+        return suggested;
+    }
+
+    protected boolean isSnapshotOfSchema(CatalogAndSchema schema, DatabaseSnapshot snapshot) {
+        DatabaseObject[] examples = snapshot.getOriginalExamples();
+        if (examples == null) {
+            return false;
+        }
+        for (DatabaseObject example : examples) {
+            if (example instanceof Schema && ((Schema) example).toCatalogAndSchema().equals(schema, snapshot.getDatabase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of tables in the schema, or -1 if it cannot be counted. The count is kept for the rest of the snapshot.
+     */
+    protected int countTables(CatalogAndSchema schema, DatabaseSnapshot snapshot) {
+        Map<String, Integer> counts;
+        synchronized (tableCounts) {
+            counts = tableCounts.get(snapshot);
+            if (counts == null) {
+                counts = new ConcurrentHashMap<String, Integer>();
+                tableCounts.put(snapshot, counts);
+            }
+        }
+        String key = schema.toString();
+        Integer count = counts.get(key);
+        if (count == null) {
+            count = -1;
+            String sql = getCountTablesSql(schema, snapshot.getDatabase());
+            if (sql != null) {
+                try {
+                    count = queryForInt(sql, snapshot.getDatabase());
+                } catch (DatabaseException e) {
+                    LogFactory.getLogger().debug("Cannot count tables in " + schema + ": " + e.getMessage());
+                }
+            }
+            counts.put(key, count);
+        }
+        return count;
+    }
+
+    protected String getCountTablesSql(CatalogAndSchema schema, Database database) {
+        if (!(database instanceof AbstractJdbcDatabase) || !(database.getConnection() instanceof JdbcConnection)) {
+            return null;
+        }
+        String catalogName = database.escapeStringForDatabase(((AbstractJdbcDatabase) database).getJdbcCatalogName(schema));
+        String schemaName = database.escapeStringForDatabase(((AbstractJdbcDatabase) database).getJdbcSchemaName(schema));
+
+        if (database instanceof OracleDatabase) {
+            return "select count(*) from all_tables where owner='" + schemaName + "'";
+        } else if (database instanceof MySQLDatabase) {
+            return "select count(*) from information_schema.tables where table_schema='" + catalogName + "' and table_type='BASE TABLE'";
+        } else if (database instanceof PostgresDatabase || database instanceof MSSQLDatabase) {
+            return "select count(*) from information_schema.tables where table_catalog='" + catalogName + "' and table_schema='" + schemaName + "' and table_type='BASE TABLE'";
+        } else if (database instanceof DB2Database) {
+            return "select count(*) from syscat.tables where tabschema='" + schemaName + "' and type='T'";
+        } else if (database instanceof H2Database) {
+            return "select count(*) from information_schema.tables where table_schema='" + schemaName + "' and table_type='TABLE'";
+        } else if (database instanceof HsqlDatabase) {
+            return "select count(*) from information_schema.tables where table_schema='" + schemaName + "' and table_type='BASE TABLE'";
+        }
+        return null;
+    }
+
+    private int queryForInt(String sql, Database database) throws DatabaseException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = ((JdbcConnection) database.getConnection()).createStatement();
+            resultSet = statement.executeQuery(sql);
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
+            return -1;
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        } finally {
+            JdbcUtils.close(resultSet, statement);
+        }
+    }
+}
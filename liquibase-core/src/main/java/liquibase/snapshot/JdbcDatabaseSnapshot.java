@@ -14,6 +14,7 @@ import liquibase.util.StringUtils;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
     private CachingDatabaseMetaData cachingDatabaseMetaData;
@@ -26,6 +27,106 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
         super(examples, database);
     }
 
+    @Override
+    protected void init(DatabaseObject[] examples) throws DatabaseException, InvalidExampleException {
+        if (examples != null && getSnapshotControl().getConnectionSupplier() != null) {
+            prefetch(examples);
+        }
+        super.init(examples);
+
+        for (MetadataQueryStatistics statistics : getMetadataQueryStatistics()) {
+            LogFactory.getLogger().debug("Snapshot metadata " + statistics);
+        }
+    }
+
+    /**
+     * Reads the metadata of each included object type in the example schemas in bulk, in parallel over connections opened by the {@link SnapshotControl#getConnectionSupplier()}.
+     * The rows are only added to the result set caches once everything has been read, so the snapshot itself is still built by the calling thread in the usual order.
+     * If anything fails, the metadata is read on the database connection as usual.
+     */
+    protected void prefetch(DatabaseObject[] examples) throws DatabaseException {
+        final Database database = getDatabase();
+        if (database.getConnection() == null || !(database instanceof AbstractJdbcDatabase)) {
+            return;
+        }
+
+        final Queue<PrefetchTask> tasks = new ConcurrentLinkedQueue<PrefetchTask>();
+        Set<String> seenSchemas = new HashSet<String>();
+        for (DatabaseObject example : examples) {
+            if (!(example instanceof Schema)) {
+                continue;
+            }
+            CatalogAndSchema catalogAndSchema = ((Schema) example).toCatalogAndSchema().customize(database);
+            if (!seenSchemas.add(catalogAndSchema.toString())) {
+                continue;
+            }
+            for (Class<? extends DatabaseObject> type : new Class[] {Table.class, View.class, Column.class, ForeignKey.class, Index.class, UniqueConstraint.class}) {
+                if (getSnapshotControl().shouldInclude(type)) {
+                    tasks.add(new PrefetchTask(type, new Schema(catalogAndSchema.getCatalogName(), catalogAndSchema.getSchemaName())));
+                }
+            }
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        database.isCaseSensitive(); //looked up on the database connection the first time, so do it before the other threads need it
+
+        int connections = Math.max(1, Math.min(tasks.size(), getSnapshotControl().getParallelConnections()));
+        LogFactory.getLogger().debug("Reading metadata of "+StringUtils.join(seenSchemas, ", ")+" over "+connections+" connections");
+
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Map<String, ResultSetCache>>> futures = new ArrayList<Future<Map<String, ResultSetCache>>>();
+            for (int i = 0; i < connections; i++) {
+                futures.add(executor.submit(new Callable<Map<String, ResultSetCache>>() {
+                    @Override
+                    public Map<String, ResultSetCache> call() throws Exception {
+                        return prefetch(tasks);
+                    }
+                }));
+            }
+
+            List<Map<String, ResultSetCache>> results = new ArrayList<Map<String, ResultSetCache>>();
+            for (Future<Map<String, ResultSetCache>> future : futures) {
+                results.add(future.get());
+            }
+            for (Map<String, ResultSetCache> result : results) {
+                for (Map.Entry<String, ResultSetCache> entry : result.entrySet()) {
+                    getResultSetCache(entry.getKey()).merge(entry.getValue());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException(e);
+        } catch (ExecutionException e) {
+            LogFactory.getLogger().warning("Cannot read metadata in parallel, reading it on the database connection: "+e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs tasks from the queue on a new connection until it is empty and returns the result set caches they filled.
+     */
+    private Map<String, ResultSetCache> prefetch(Queue<PrefetchTask> tasks) throws DatabaseException, SQLException {
+        JdbcConnection connection = (JdbcConnection) getSnapshotControl().getConnectionSupplier().openConnection(getDatabase());
+        try {
+            try {
+                connection.getUnderlyingConnection().setReadOnly(true);
+            } catch (SQLException e) {
+                LogFactory.getLogger().debug("Cannot make snapshot connection read only: "+e.getMessage());
+            }
+            CachingDatabaseMetaData metaData = new CachingDatabaseMetaData(getDatabase(), connection);
+            PrefetchTask task;
+            while ((task = tasks.poll()) != null) {
+                task.run(metaData);
+            }
+            return metaData.resultSetCaches;
+        } finally {
+            connection.close();
+        }
+    }
+
     public CachingDatabaseMetaData getMetaData() throws SQLException {
         if (cachingDatabaseMetaData == null) {
             DatabaseMetaData databaseMetaData = null;
@@ -41,16 +142,44 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
     public class CachingDatabaseMetaData {
         private DatabaseMetaData databaseMetaData;
         private Database database;
+        private JdbcConnection connection;
+        private Map<String, ResultSetCache> resultSetCaches;
 
         public CachingDatabaseMetaData(Database database, DatabaseMetaData metaData) {
             this.databaseMetaData = metaData;
             this.database = database;
         }
 
+        /**
+         * Reads through the given connection instead of the database connection, keeping the rows in its own result set caches which bulk select every schema.
+         */
+        protected CachingDatabaseMetaData(Database database, JdbcConnection connection) throws SQLException {
+            this(database, connection.getUnderlyingConnection().getMetaData());
+            this.connection = connection;
+            this.resultSetCaches = new HashMap<String, ResultSetCache>();
+        }
+
         public DatabaseMetaData getDatabaseMetaData() {
             return databaseMetaData;
         }
 
+        protected JdbcConnection getJdbcConnection() {
+            if (connection == null) {
+                return (JdbcConnection) database.getConnection();
+            }
+            return connection;
+        }
+
+        protected ResultSetCache getResultSetCache(String key) {
+            if (resultSetCaches == null) {
+                return JdbcDatabaseSnapshot.this.getResultSetCache(key);
+            }
+            if (!resultSetCaches.containsKey(key)) {
+                resultSetCaches.put(key, new ResultSetCache(key));
+            }
+            return resultSetCaches.get(key);
+        }
+
         public List<CachedRow> getForeignKeys(final String catalogName, final String schemaName, final String tableName, final String fkName) throws DatabaseException {
             return getResultSetCache("getImportedKeys").get(new ResultSetCache.UnionResultSetExtractor(database) {
 
@@ -69,6 +198,9 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 
                 @Override
 				public List<CachedRow> fastFetch() throws SQLException, DatabaseException {
+                    if (database instanceof OracleDatabase) {
+                        return oracleQuery(false);
+                    }
                     CatalogAndSchema catalogAndSchema = new CatalogAndSchema(catalogName, schemaName).customize(database);
 
                     List<CachedRow> returnList = new ArrayList<CachedRow>();
@@ -86,11 +218,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 
 
                     for (String foundTable : tables) {
-                        if (database instanceof OracleDatabase) {
-                            throw new RuntimeException("Should have bulk selected");
-                        } else {
-                            returnList.addAll(extract(databaseMetaData.getImportedKeys(jdbcCatalogName, jdbcSchemaName, foundTable)));
-                        }
+                        returnList.addAll(extract(databaseMetaData.getImportedKeys(jdbcCatalogName, jdbcSchemaName, foundTable)));
                     }
 
                     return returnList;
@@ -100,49 +228,68 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
                 @Override
 				public List<CachedRow> bulkFetch() throws SQLException, DatabaseException {
                     if (database instanceof OracleDatabase) {
-                        CatalogAndSchema catalogAndSchema = new CatalogAndSchema(catalogName, schemaName).customize(database);
-
-                        String jdbcSchemaName = ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema);
-
-                        String sql = "SELECT  " +
-                                "  NULL AS pktable_cat,  " +
-                                "  p.owner as pktable_schem,  " +
-                                "  p.table_name as pktable_name,  " +
-                                "  pc.column_name as pkcolumn_name,  " +
-                                "  NULL as fktable_cat,  " +
-                                "  f.owner as fktable_schem,  " +
-                                "  f.table_name as fktable_name,  " +
-                                "  fc.column_name as fkcolumn_name,  " +
-                                "  fc.position as key_seq,  " +
-                                "  NULL as update_rule,  " +
-                                "  decode (f.delete_rule, 'CASCADE', 0, 'SET NULL', 2, 1) as delete_rule,  " +
-                                "  f.constraint_name as fk_name,  " +
-                                "  p.constraint_name as pk_name,  " +
-                                "  decode(f.deferrable, 'DEFERRABLE', 5, 'NOT DEFERRABLE', 7, 'DEFERRED', 6) deferrability  " +
-                                "FROM " +
-                                "all_constraints p " +
-                                "INNER JOIN all_cons_columns pc " +
-                                "ON pc.owner = p.owner " +
-                                "AND pc.constraint_name = p.constraint_name " +
-                                "AND pc.table_name = p.table_name " +
-                                "INNER JOIN all_constraints f " +
-                                "ON p.owner = f.r_owner " +
-                                "AND p.constraint_name = f.r_constraint_name " +
-                                "INNER JOIN all_cons_columns fc " +
-                                "ON fc.owner = f.owner " +
-                                "AND fc.constraint_name = f.constraint_name " +
-                                "AND fc.table_name = f.table_name " +
-                                "AND fc.position = pc.position " +
-                                "WHERE p.owner = '" +jdbcSchemaName+"' "+
-                                "AND p.constraint_type in ('P', 'U') " +
-                                "AND f.constraint_type = 'R' " +
-                                "ORDER BY fktable_schem, fktable_name, key_seq";
-                        return executeAndExtract(sql, database);
+                        return oracleQuery(true);
+                    } else if (tableName == null && fkName == null) {
+                        return fastFetch(); //already reads the keys of every table
                     } else {
                         throw new RuntimeException("Cannot bulk select");
                     }
                 }
 
+                protected List<CachedRow> oracleQuery(boolean bulk) throws DatabaseException, SQLException {
+                    CatalogAndSchema catalogAndSchema = new CatalogAndSchema(catalogName, schemaName).customize(database);
+
+                    String jdbcSchemaName = ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema);
+
+                    String sql = "SELECT  " +
+                            "  NULL AS pktable_cat,  " +
+                            "  p.owner as pktable_schem,  " +
+                            "  p.table_name as pktable_name,  " +
+                            "  pc.column_name as pkcolumn_name,  " +
+                            "  NULL as fktable_cat,  " +
+                            "  f.owner as fktable_schem,  " +
+                            "  f.table_name as fktable_name,  " +
+                            "  fc.column_name as fkcolumn_name,  " +
+                            "  fc.position as key_seq,  " +
+                            "  NULL as update_rule,  " +
+                            "  decode (f.delete_rule, 'CASCADE', 0, 'SET NULL', 2, 1) as delete_rule,  " +
+                            "  f.constraint_name as fk_name,  " +
+                            "  p.constraint_name as pk_name,  " +
+                            "  decode(f.deferrable, 'DEFERRABLE', 5, 'NOT DEFERRABLE', 7, 'DEFERRED', 6) deferrability  " +
+                            "FROM " +
+                            "all_constraints p " +
+                            "INNER JOIN all_cons_columns pc " +
+                            "ON pc.owner = p.owner " +
+                            "AND pc.constraint_name = p.constraint_name " +
+                            "AND pc.table_name = p.table_name " +
+                            "INNER JOIN all_constraints f " +
+                            "ON p.owner = f.r_owner " +
+                            "AND p.constraint_name = f.r_constraint_name " +
+                            "INNER JOIN all_cons_columns fc " +
+                            "ON fc.owner = f.owner " +
+                            "AND fc.constraint_name = f.constraint_name " +
+                            "AND fc.table_name = f.table_name " +
+                            "AND fc.position = pc.position " +
+                            "WHERE p.owner = '" +jdbcSchemaName+"' "+
+                            "AND p.constraint_type in ('P', 'U') " +
+                            "AND f.constraint_type = 'R' ";
+                    if (!bulk) {
+                        if (tableName != null) {
+                            sql += "AND f.table_name = '" + database.correctObjectName(tableName, Table.class) + "' ";
+                        }
+                        if (fkName != null) {
+                            sql += "AND f.constraint_name = '" + database.correctObjectName(fkName, ForeignKey.class) + "' ";
+                        }
+                    }
+                    sql += "ORDER BY fktable_schem, fktable_name, key_seq";
+                    return executeAndExtract(sql, getJdbcConnection());
+                }
+
+                @Override
+                boolean supportsBulkSelect() {
+                    return database instanceof OracleDatabase;
+                }
+
 
                 @Override
                 boolean shouldBulkSelect(String schemaKey, ResultSetCache resultSetCache) {
@@ -191,7 +338,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 
                         sql += " ORDER BY c.INDEX_NAME, ORDINAL_POSITION";
 
-                        returnList.addAll(executeAndExtract(sql, database));
+                        returnList.addAll(executeAndExtract(sql, getJdbcConnection()));
                     } else {
                         List<String> tables = new ArrayList<String>();
                         if (tableName == null) {
@@ -220,11 +367,8 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 
 
                 @Override
-                boolean shouldBulkSelect(String schemaKey, ResultSetCache resultSetCache) {
-                    if (database instanceof OracleDatabase) {
-                        return super.shouldBulkSelect(schemaKey, resultSetCache);
-                    }
-                    return false;
+                boolean supportsBulkSelect() {
+                    return database instanceof OracleDatabase;
                 }
             });
         }
@@ -330,7 +474,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
                     }
                     sql += " ORDER BY OWNER, TABLE_NAME, c.COLUMN_ID";
 
-                    return this.executeAndExtract(sql, database);
+                    return this.executeAndExtract(sql, getJdbcConnection());
                 }
             });
         }
@@ -400,7 +544,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
                             sql += " AND "+nameColumn+"='" + database.correctObjectName(tableName, Table.class) + "'";
                         }
                         sql += " AND a."+nameColumn+" not in (select mv.name from all_registered_mviews mv where mv.owner='"+ownerName+"')";
-                        results.addAll(executeAndExtract(sql, database));
+                        results.addAll(executeAndExtract(sql, getJdbcConnection()));
                     }
                     return results;
                 }
@@ -438,7 +582,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 
 
                 @Override
-                boolean shouldBulkSelect(String schemaKey, ResultSetCache resultSetCache) {
+                boolean supportsBulkSelect() {
                     return false;
                 }
             });
@@ -464,7 +608,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 				public List<CachedRow> fastFetchQuery() throws SQLException, DatabaseException {
                     CatalogAndSchema catalogAndSchema = new CatalogAndSchema(catalogName, schemaName).customize(database);
 
-                    return executeAndExtract(createSql(((AbstractJdbcDatabase) database).getJdbcCatalogName(catalogAndSchema), ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema), tableName), JdbcDatabaseSnapshot.this.getDatabase());
+                    return executeAndExtract(createSql(((AbstractJdbcDatabase) database).getJdbcCatalogName(catalogAndSchema), ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema), tableName), getJdbcConnection());
                 }
 
 
@@ -472,7 +616,7 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
 				public List<CachedRow> bulkFetchQuery() throws SQLException, DatabaseException {
                     CatalogAndSchema catalogAndSchema = new CatalogAndSchema(catalogName, schemaName).customize(database);
 
-                    return executeAndExtract(createSql(((AbstractJdbcDatabase) database).getJdbcCatalogName(catalogAndSchema), ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema), null), JdbcDatabaseSnapshot.this.getDatabase());
+                    return executeAndExtract(createSql(((AbstractJdbcDatabase) database).getJdbcCatalogName(catalogAndSchema), ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema), null), getJdbcConnection());
                 }
 
                 private String createSql(String catalogName, String schemaName, String tableName) throws SQLException {
@@ -571,4 +715,35 @@ public class JdbcDatabaseSnapshot extends DatabaseSnapshot {
         }
     }
 
+    /**
+     * Reads every row of one object type in a schema, the same way the snapshot generators for the type look them up.
+     */
+    private static class PrefetchTask {
+        private final Class<? extends DatabaseObject> type;
+        private final Schema schema;
+
+        private PrefetchTask(Class<? extends DatabaseObject> type, Schema schema) {
+            this.type = type;
+            this.schema = schema;
+        }
+
+        public void run(CachingDatabaseMetaData metaData) throws DatabaseException, SQLException {
+            AbstractJdbcDatabase database = (AbstractJdbcDatabase) metaData.database;
+            String catalogName = database.getJdbcCatalogName(schema);
+            String schemaName = database.getJdbcSchemaName(schema);
+            if (type.equals(Table.class)) {
+                metaData.getTables(catalogName, schemaName, null, new String[]{"TABLE"});
+            } else if (type.equals(View.class)) {
+                metaData.getTables(catalogName, schemaName, null, new String[]{"VIEW"});
+            } else if (type.equals(Column.class)) {
+                metaData.getColumns(catalogName, schemaName, null, null);
+            } else if (type.equals(ForeignKey.class)) {
+                metaData.getForeignKeys(catalogName, schemaName, null, null);
+            } else if (type.equals(Index.class)) {
+                metaData.getIndexInfo(catalogName, schemaName, null, null);
+            } else if (type.equals(UniqueConstraint.class)) {
+                metaData.getUniqueConstraints(schema.getCatalogName(), schema.getName(), null);
+            }
+        }
+    }
 }
@@ -0,0 +1,215 @@
+package liquibase.snapshot;
+
+import liquibase.CatalogAndSchema;
+import liquibase.RuntimeEnvironment;
+import liquibase.change.Change;
+import liquibase.change.StreamingChange;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.database.Database;
+import liquibase.diff.compare.DatabaseObjectComparatorFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.LogFactory;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.SqlStatement;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Catalog;
+import liquibase.structure.core.Relation;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.Table;
+import liquibase.structure.core.View;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers {@link SnapshotGeneratorFactory#has(DatabaseObject, Database)} for the existence preconditions of a single run
+ * from snapshots of the whole schema, taken the first time an object type is checked in it.
+ * Enabled with {@link liquibase.configuration.GlobalConfiguration#PRECONDITION_METADATA_CACHE} and kept in the {@link RuntimeEnvironment} of the run.
+ * <p></p>
+ * After each change set executes, {@link #invalidate(ChangeSet)} records the objects its statements affect, as reported by their SQL generators.
+ * Checks involving those objects, or tables they belong to, go to the database again. A change set containing a statement that does not report
+ * what it affects, such as raw SQL or a custom change, discards the cached snapshots.
+ */
+public class MetadataCache {
+
+    private final Database database;
+    private final Map<String, DatabaseSnapshot> snapshots = new HashMap<String, DatabaseSnapshot>();
+    private final Set<String> changedNames = new HashSet<String>();
+
+    public MetadataCache(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Checks if the object exists, using the metadata cache of the run that is executing the changelog in the current thread if there is one.
+     */
+    public static boolean has(DatabaseObject example, Database database, DatabaseChangeLog changeLog) throws DatabaseException, InvalidExampleException {
+        if (changeLog != null) {
+            RuntimeEnvironment runtimeEnvironment = changeLog.getRuntimeEnvironment();
+            if (runtimeEnvironment != null) {
+                MetadataCache cache = runtimeEnvironment.getMetadataCache();
+                if (cache != null && cache.database == database) {
+                    return cache.has(example);
+                }
+            }
+        }
+        return SnapshotGeneratorFactory.getInstance().has(example, database);
+    }
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    public boolean has(DatabaseObject example) throws DatabaseException, InvalidExampleException {
+        Set<String> names = getNames(example);
+        if (names.isEmpty() || isChanged(names)) {
+            return hasInDatabase(example);
+        }
+
+        DatabaseSnapshot snapshot = getSnapshot(example);
+        if (snapshot == null) {
+            return hasInDatabase(example);
+        }
+
+        DatabaseObject found = snapshot.get(example);
+        if (found == null) {
+            for (DatabaseObject obj : snapshot.get(example.getClass())) {
+                if (DatabaseObjectComparatorFactory.getInstance().isSameObject(example, obj, database)) {
+                    found = obj;
+                    break;
+                }
+            }
+        }
+
+        if (found == null) {
+            //objects such as sequences, indexes and constraints can be created as a side effect of changes to other objects
+            if (changedNames.isEmpty() || example instanceof Table || example instanceof View || !getRelationNames(example).isEmpty()) {
+                return false;
+            }
+            return hasInDatabase(example);
+        }
+        if (isChanged(getNames(found))) {
+            return hasInDatabase(example);
+        }
+        return true;
+    }
+
+    protected boolean hasInDatabase(DatabaseObject example) throws DatabaseException, InvalidExampleException {
+        return SnapshotGeneratorFactory.getInstance().has(example, database);
+    }
+
+    /**
+     * Records the objects affected by the given change set, which has just been executed.
+     */
+    public void invalidate(ChangeSet changeSet) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        try {
+            for (Change change : changeSet.getChanges()) {
+                if (change instanceof StreamingChange || change.generateStatementsVolatile(database)) {
+                    clear();
+                    return;
+                }
+                SqlStatement[] statements = change.generateStatements(database);
+                if (statements == null) {
+                    continue;
+                }
+                for (SqlStatement statement : statements) {
+                    Set<DatabaseObject> affectedObjects = SqlGeneratorFactory.getInstance().getAffectedDatabaseObjects(statement, database);
+                    if (affectedObjects.isEmpty()) {
+                        clear();
+                        return;
+                    }
+                    for (DatabaseObject affectedObject : affectedObjects) {
+                        if (affectedObject instanceof Catalog || affectedObject instanceof Schema) {
+                            continue;
+                        }
+                        Set<String> names = getNames(affectedObject);
+                        if (names.isEmpty()) {
+                            clear();
+                            return;
+                        }
+                        changedNames.addAll(names);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LogFactory.getLogger().debug("Cannot determine objects affected by " + changeSet + ", clearing metadata cache", e);
+            clear();
+        }
+    }
+
+    public void clear() {
+        snapshots.clear();
+        changedNames.clear();
+    }
+
+    protected DatabaseSnapshot getSnapshot(DatabaseObject example) throws DatabaseException {
+        CatalogAndSchema catalogAndSchema;
+        if (example.getSchema() == null) {
+            catalogAndSchema = database.getDefaultSchema();
+        } else {
+            catalogAndSchema = example.getSchema().toCatalogAndSchema();
+        }
+        catalogAndSchema = catalogAndSchema.customize(database);
+
+        String key = catalogAndSchema.toString() + ":" + example.getClass().getName();
+        if (snapshots.containsKey(key)) {
+            return snapshots.get(key);
+        }
+
+        List<Class<? extends DatabaseObject>> types = new ArrayList<Class<? extends DatabaseObject>>(SnapshotGeneratorFactory.getInstance().getContainerTypes(example.getClass(), database));
+        types.add(example.getClass());
+
+        DatabaseSnapshot snapshot;
+        try {
+            snapshot = createSnapshot(catalogAndSchema, types);
+        } catch (InvalidExampleException e) {
+            LogFactory.getLogger().debug("Cannot cache metadata of " + catalogAndSchema, e);
+            snapshot = null;
+        }
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    protected DatabaseSnapshot createSnapshot(CatalogAndSchema catalogAndSchema, List<Class<? extends DatabaseObject>> types) throws DatabaseException, InvalidExampleException {
+        return SnapshotGeneratorFactory.getInstance().createSnapshot(catalogAndSchema, database, new SnapshotControl(database, types.toArray(new Class[types.size()])));
+    }
+
+    private boolean isChanged(Set<String> names) {
+        for (String name : names) {
+            if (changedNames.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the lower case names of the object and of the tables or views it belongs to.
+     */
+    protected Set<String> getNames(DatabaseObject object) {
+        Set<String> names = getRelationNames(object);
+        if (object.getName() != null) {
+            names.add(object.getName().toLowerCase());
+        }
+        return names;
+    }
+
+    protected Set<String> getRelationNames(DatabaseObject object) {
+        Set<String> names = new HashSet<String>();
+        for (String attribute : object.getAttributes()) {
+            Object value = object.getAttribute(attribute, Object.class);
+            if (value instanceof Relation && ((Relation) value).getName() != null) {
+                names.add(((Relation) value).getName().toLowerCase());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,88 @@
+package liquibase.snapshot;
+
+/**
+ * Number of queries made, rows read and time spent by one {@link JdbcDatabaseSnapshot.CachingDatabaseMetaData} method during a snapshot.
+ */
+public class MetadataQueryStatistics {
+
+    private String method;
+    private int singleQueries;
+    private int bulkQueries;
+    private int rows;
+    private int cacheHits;
+    private long time;
+
+    public MetadataQueryStatistics(String method) {
+        this.method = method;
+    }
+
+    /**
+     * The method and, for getTables, the table types read.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Number of lookups that read the rows of a single object or table.
+     */
+    public int getSingleQueries() {
+        return singleQueries;
+    }
+
+    /**
+     * Number of lookups that read the rows of a whole schema.
+     */
+    public int getBulkQueries() {
+        return bulkQueries;
+    }
+
+    public int getQueries() {
+        return singleQueries + bulkQueries;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Number of lookups answered from rows read by earlier queries.
+     */
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Time spent in the queries, in milliseconds.
+     */
+    public long getTime() {
+        return time / 1000000;
+    }
+
+    void recordQuery(boolean bulk, int rows, long nanos) {
+        if (bulk) {
+            this.bulkQueries++;
+        } else {
+            this.singleQueries++;
+        }
+        this.rows += rows;
+        this.time += nanos;
+    }
+
+    void recordCacheHit() {
+        this.cacheHits++;
+    }
+
+    void add(MetadataQueryStatistics other) {
+        this.singleQueries += other.singleQueries;
+        this.bulkQueries += other.bulkQueries;
+        this.rows += other.rows;
+        this.cacheHits += other.cacheHits;
+        this.time += other.time;
+    }
+
+    @Override
+    public String toString() {
+        return method + ": " + getQueries() + " queries (" + bulkQueries + " bulk), " + rows + " rows, " + cacheHits + " cache hits, " + getTime() + "ms";
+    }
+}
@@ -0,0 +1,58 @@
+package liquibase.snapshot;
+
+import liquibase.structure.DatabaseObject;
+
+/**
+ * Number of objects of one type included in a snapshot and the time spent reading them.
+ * The time of an object does not include the time spent on the objects nested in it, so the times of all types add up to the time of the snapshot.
+ */
+public class ObjectTypeStatistics {
+
+    private Class<? extends DatabaseObject> type;
+    private int objects;
+    private int notFound;
+    private long time;
+
+    public ObjectTypeStatistics(Class<? extends DatabaseObject> type) {
+        this.type = type;
+    }
+
+    public Class<? extends DatabaseObject> getType() {
+        return type;
+    }
+
+    /**
+     * Number of objects found in the database.
+     */
+    public int getObjects() {
+        return objects;
+    }
+
+    /**
+     * Number of examples looked up that do not exist in the database.
+     */
+    public int getNotFound() {
+        return notFound;
+    }
+
+    /**
+     * Time spent reading the objects, in milliseconds.
+     */
+    public long getTime() {
+        return time / 1000000;
+    }
+
+    void recordObject(boolean found, long nanos) {
+        if (found) {
+            objects++;
+        } else {
+            notFound++;
+        }
+        time += nanos;
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + ": " + objects + " objects, " + notFound + " not found, " + getTime() + "ms";
+    }
+}
@@ -1,12 +1,12 @@
 package liquibase.snapshot;
 
+import liquibase.CatalogAndSchema;
 import liquibase.database.Database;
 import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
 import liquibase.executor.jvm.ColumnMapRowMapper;
 import liquibase.executor.jvm.RowMapperResultSetExtractor;
 import liquibase.util.JdbcUtils;
-import liquibase.util.StringUtils;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -17,33 +17,66 @@ class ResultSetCache {
     private Map<String, Integer> timesSingleQueried = new HashMap<String, Integer>();
     private Map<String, Boolean> didBulkQuery = new HashMap<String, Boolean>();
 
-    private Map<String, Map<String, List<CachedRow>>> cacheBySchema = new HashMap<String, Map<String, List<CachedRow>>>();
+    private Map<String, RowIndex> cacheBySchema = new HashMap<String, RowIndex>();
 
     private Map<String, Object> info = new HashMap<String, Object>();
 
+    private String method;
+    private DatabaseSnapshot snapshot;
+    private boolean alwaysBulkSelect;
+    private MetadataQueryStatistics statistics;
+
+    /**
+     * @param method name of the lookup method the cache is for
+     * @param snapshot snapshot whose {@link SnapshotControl} decides when to bulk select
+     */
+    ResultSetCache(String method, DatabaseSnapshot snapshot) {
+        this.method = method;
+        this.snapshot = snapshot;
+        this.statistics = new MetadataQueryStatistics(method);
+    }
+
+    /**
+     * Creates a cache in which the first lookup in a schema reads every row of the schema.
+     */
+    ResultSetCache(String method) {
+        this.method = method;
+        this.alwaysBulkSelect = true;
+        this.statistics = new MetadataQueryStatistics(method);
+    }
+
+    public MetadataQueryStatistics getStatistics() {
+        return statistics;
+    }
+
     public List<CachedRow> get(ResultSetExtractor resultSetExtractor) throws DatabaseException {
         try {
-            String wantedKey = resultSetExtractor.wantedKeyParameters().createParamsKey(resultSetExtractor.database);
-
-            String schemaKey = resultSetExtractor.wantedKeyParameters().createSchemaKey(resultSetExtractor.database);
+            RowData wanted = resultSetExtractor.wantedKeyParameters();
+            String schemaKey = wanted.createSchemaKey(resultSetExtractor.database);
 
-            Map<String, List<CachedRow>> cache = cacheBySchema.get(schemaKey);
+            RowIndex cache = cacheBySchema.get(schemaKey);
             if (cache == null ) {
-                cache = new HashMap<String, List<CachedRow>>();
+                cache = new RowIndex(resultSetExtractor.database.isCaseSensitive());
                 cacheBySchema.put(schemaKey, cache);
             }
 
-            if (cache.containsKey(wantedKey)) {
-                return cache.get(wantedKey);
+            List<CachedRow> cachedRows = cache.get(wanted.parameters);
+            if (cachedRows != null) {
+                statistics.recordCacheHit();
+                return cachedRows;
             }
 
             if (didBulkQuery.containsKey(schemaKey) && didBulkQuery.get(schemaKey)) {
+                statistics.recordCacheHit();
                 return new ArrayList<CachedRow>();
             }
 
             List<CachedRow> results;
-            if (resultSetExtractor.shouldBulkSelect(schemaKey, this)) {
-                cache.clear(); //remove any existing single fetches that may be duplicated
+            long started = System.nanoTime();
+            boolean bulk = shouldBulkSelect(schemaKey, wanted, resultSetExtractor);
+            if (bulk) {
+                cache = new RowIndex(resultSetExtractor.database.isCaseSensitive()); //remove any existing single fetches that may be duplicated
+                cacheBySchema.put(schemaKey, cache);
                 results = resultSetExtractor.bulkFetch();
                 didBulkQuery.put(schemaKey, true);
             } else {
@@ -54,28 +87,58 @@ class ResultSetCache {
                 timesSingleQueried.put(schemaKey, previousCount+1);
                 results = resultSetExtractor.fastFetch();
             }
+            statistics.recordQuery(bulk, results == null ? 0 : results.size(), System.nanoTime() - started);
 
             for (CachedRow row : results) {
-                for (String rowKey : resultSetExtractor.rowKeyParameters(row).getKeyPermutations()) {
-                    if (!cache.containsKey(rowKey)) {
-                        cache.put(rowKey, new ArrayList<CachedRow>());
-                    }
-                    cache.get(rowKey).add(row);
-                }
+                cache.add(row, resultSetExtractor.rowKeyParameters(row).parameters);
             }
 
-            List<CachedRow> returnList = cache.get(wantedKey);
+            List<CachedRow> returnList = cache.get(wanted.parameters);
             if (returnList == null) {
                 returnList = new ArrayList<CachedRow>();
             }
             return returnList;
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
 
+    private boolean shouldBulkSelect(String schemaKey, RowData wanted, ResultSetExtractor resultSetExtractor) {
+        if (alwaysBulkSelect) {
+            return true;
+        }
+        SnapshotControl snapshotControl = snapshot == null ? null : snapshot.getSnapshotControl();
+        if (snapshotControl == null) {
+            return resultSetExtractor.supportsBulkSelect() && resultSetExtractor.shouldBulkSelect(schemaKey, this);
+        }
+        if (snapshotControl.getFetchMode() == SnapshotControl.FetchMode.SINGLE || !resultSetExtractor.supportsBulkSelect()) {
+            return false;
+        }
+        if (snapshotControl.getFetchMode() == SnapshotControl.FetchMode.BULK) {
+            return true;
+        }
 
+        boolean suggested = resultSetExtractor.shouldBulkSelect(schemaKey, this);
+        BulkFetchPolicy policy = snapshotControl.getBulkFetchPolicy();
+        if (policy == null) {
+            return suggested;
+        }
+        CatalogAndSchema schema = new CatalogAndSchema(wanted.catalog, wanted.schema).customize(snapshot.getDatabase());
+        return policy.shouldBulkSelect(method, schema, getTimesSingleQueried(schemaKey), suggested, snapshot);
+    }
 
-
-        } catch (SQLException e) {
-            throw new DatabaseException(e);
+    /**
+     * Adds the rows of the schemas the other cache has bulk selected and this cache has not.
+     */
+    void merge(ResultSetCache other) {
+        for (Map.Entry<String, Boolean> entry : other.didBulkQuery.entrySet()) {
+            String schemaKey = entry.getKey();
+            if (entry.getValue() && !(didBulkQuery.containsKey(schemaKey) && didBulkQuery.get(schemaKey))) {
+                cacheBySchema.put(schemaKey, other.cacheBySchema.get(schemaKey));
+                didBulkQuery.put(schemaKey, true);
+            }
         }
+        statistics.add(other.statistics);
     }
 
     public <T> T getInfo(String key, Class<T> type) {
@@ -92,8 +155,6 @@ class ResultSetCache {
         private String catalog;
         private String schema;
 
-        private String[] keyPermutations;
-
         protected RowData(String catalog, String schema, Database database, String... parameters) {
             this.database = database;
             this.catalog = catalog;
@@ -102,36 +163,6 @@ class ResultSetCache {
             this.parameters = parameters;
         }
 
-        public String[] getKeyPermutations() {
-            if (keyPermutations == null) {
-                this.keyPermutations = permutations(parameters);
-
-            }
-            return keyPermutations;
-        }
-
-        protected String[] permutations(String[] params) {
-            return permute(params, 0);
-        }
-
-        private String[] permute(String[] params, int fromIndex) {
-            String[] nullVersion = Arrays.copyOf(params, params.length);
-            nullVersion[fromIndex] = null;
-            if (params.length == fromIndex + 1) {
-                return new String[] {
-                        createKey(database, params),
-                        createKey(database, nullVersion)
-                };
-            } else {
-                List<String> permutations = new ArrayList<String>();
-
-                Collections.addAll(permutations, permute(params, fromIndex + 1));
-                Collections.addAll(permutations, permute(nullVersion, fromIndex + 1));
-
-                return permutations.toArray(new String[permutations.size()]);
-            }
-        }
-
         public String createSchemaKey(Database database) {
             if (!database.supportsCatalogs() && ! database.supportsSchemas()) {
                 return "all";
@@ -148,17 +179,122 @@ class ResultSetCache {
                 }
             }
         }
+    }
 
-        public String createKey(Database database, String... params) {
-            String key = StringUtils.join(params, ":");
-            if (!database.isCaseSensitive()) {
-                return key.toLowerCase();
+    /**
+     * Rows of one schema, indexed by their key parameters with one level per parameter, such as table name and then column name.
+     * Every level keeps the rows below it in the order they were added, so lookups that only leave trailing parameters null are answered without copying.
+     * A null parameter in a lookup matches any value. Names are lower cased unless the database is case sensitive, and each distinct name is only stored once.
+     */
+    static class RowIndex {
+        private final boolean caseSensitive;
+        private final Map<String, String> names = new HashMap<String, String>();
+        private final Level root = new Level();
+
+        RowIndex(boolean caseSensitive) {
+            this.caseSensitive = caseSensitive;
+        }
+
+        void add(CachedRow row, String[] parameters) {
+            Level level = root;
+            level.rows.add(row);
+            for (String parameter : parameters) {
+                String key = intern(parameter);
+                if (level.children == null) {
+                    level.children = new HashMap<String, Level>();
+                }
+                Level child = level.children.get(key);
+                if (child == null) {
+                    child = new Level();
+                    level.children.put(key, child);
+                }
+                child.rows.add(row);
+                level = child;
             }
-            return key;
         }
 
-        public String createParamsKey(Database database) {
-            return createKey(database, parameters);
+        /**
+         * Returns the rows matching the given parameters in the order they were added, or null if there are none.
+         */
+        List<CachedRow> get(String[] parameters) {
+            String[] keys = new String[parameters.length];
+            int lastKey = -1;
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] != null) {
+                    keys[i] = normalize(parameters[i]);
+                    lastKey = i;
+                }
+            }
+
+            Level level = root;
+            int depth = 0;
+            while (depth < parameters.length && keys[depth] != null) {
+                level = level.children == null ? null : level.children.get(keys[depth]);
+                if (level == null) {
+                    return null;
+                }
+                depth++;
+            }
+
+            if (depth > lastKey) {
+                return level.rows.isEmpty() ? null : level.rows;
+            }
+
+            //a null parameter before others: find the matching rows below this level, then return them in the order they were added
+            Set<CachedRow> found = Collections.newSetFromMap(new IdentityHashMap<CachedRow, Boolean>());
+            collect(level, depth, keys, lastKey, found);
+            if (found.isEmpty()) {
+                return null;
+            }
+            List<CachedRow> matches = new ArrayList<CachedRow>(found.size());
+            for (CachedRow row : level.rows) {
+                if (found.contains(row)) {
+                    matches.add(row);
+                }
+            }
+            return matches;
+        }
+
+        private void collect(Level level, int depth, String[] keys, int lastKey, Set<CachedRow> found) {
+            if (depth > lastKey) {
+                found.addAll(level.rows);
+            } else if (level.children != null) {
+                if (keys[depth] == null) {
+                    for (Level child : level.children.values()) {
+                        collect(child, depth + 1, keys, lastKey, found);
+                    }
+                } else {
+                    Level child = level.children.get(keys[depth]);
+                    if (child != null) {
+                        collect(child, depth + 1, keys, lastKey, found);
+                    }
+                }
+            }
+        }
+
+        private String intern(String name) {
+            if (name == null) {
+                return null;
+            }
+            String interned = names.get(name);
+            if (interned == null) {
+                interned = caseSensitive ? name : name.toLowerCase();
+                names.put(name, interned);
+            }
+            return interned;
+        }
+
+        private String normalize(String name) {
+            String interned = names.get(name);
+            if (interned != null) {
+                return interned;
+            }
+            return caseSensitive ? name : name.toLowerCase();
+        }
+
+        private static class Level {
+            private final List<CachedRow> rows = new ArrayList<CachedRow>(1);
+            private Map<String, Level> children;
         }
     }
 
@@ -174,14 +310,25 @@ class ResultSetCache {
             return resultSetCache.getTimesSingleQueried(schemaKey) >= 3;
         }
 
+        /**
+         * Returns false if {@link #bulkFetch()} cannot read the rows of the whole schema.
+         */
+        boolean supportsBulkSelect() {
+            return true;
+        }
+
         List<CachedRow> executeAndExtract(String sql, Database database) throws DatabaseException, SQLException {
+            return executeAndExtract(sql, (JdbcConnection) database.getConnection());
+        }
+
+        List<CachedRow> executeAndExtract(String sql, JdbcConnection connection) throws DatabaseException, SQLException {
             if (sql == null) {
                 return new ArrayList<CachedRow>();
             }
             Statement statement = null;
             ResultSet resultSet = null;
             try {
-                statement = ((JdbcConnection) database.getConnection()).createStatement();
+                statement = connection.createStatement();
                 resultSet = statement.executeQuery(sql);
                 return extract(resultSet);
             } finally {
@@ -0,0 +1,210 @@
+package liquibase.snapshot;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A serialized snapshot saved together with the {@link CatalogFingerprint} read before it was taken.
+ * A later snapshot of the same schemas can reuse the saved output if the fingerprint has not changed since.
+ * The key identifies what was snapshotted, a baseline with another key is never reused.
+ * Baselines are written to a temporary file that replaces the baseline once complete, and the output is followed by its length check and an end marker,
+ * so a baseline cut short by a crash or a concurrent writer is never read.
+ */
+public class SnapshotBaseline {
+
+    private static final String HEADER = "# Liquibase snapshot baseline";
+    private static final String KEY = "key: ";
+    private static final String OBJECT = "object: ";
+    private static final String NULL_MARKER = "\\0";
+    private static final String OUTPUT = "output: ";
+    private static final String END = "# end of baseline";
+
+    private String key;
+    private SortedMap<String, String> fingerprint;
+    private String output;
+
+    public SnapshotBaseline(String key, SortedMap<String, String> fingerprint, String output) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.output = output;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public SortedMap<String, String> getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns true if the baseline can be reused for a snapshot with the given key and fingerprint.
+     * Objects with a null marker changed too recently to compare, so they never match.
+     */
+    public boolean matches(String key, Map<String, String> fingerprint) {
+        return this.key.equals(key) && fingerprint != null && !fingerprint.containsValue(null) && this.fingerprint.equals(fingerprint);
+    }
+
+    /**
+     * Returns the names of the objects that were added, removed or changed between this baseline and the given fingerprint.
+     */
+    public SortedSet<String> getChangedObjects(Map<String, String> fingerprint) {
+        SortedSet<String> changed = new TreeSet<String>();
+        for (Map.Entry<String, String> entry : fingerprint.entrySet()) {
+            String marker = entry.getValue();
+            if (marker == null || !marker.equals(this.fingerprint.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String name : this.fingerprint.keySet()) {
+            if (!fingerprint.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns a key made of the given parts that does not reveal them, so connection details such as URLs with credentials are not stored in the baseline.
+     */
+    public static String createKey(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes("UTF-8"));
+                digest.update((byte) 0);
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the baseline to a temporary file next to the given one, then renames it over the given file.
+     */
+    public void write(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), "UTF-8"));
+            try {
+                writer.write(HEADER + "\n");
+                writer.write(KEY + escape(key) + "\n");
+                for (Map.Entry<String, String> entry : fingerprint.entrySet()) {
+                    String marker = entry.getValue() == null ? NULL_MARKER : escape(entry.getValue());
+                    writer.write(OBJECT + escape(entry.getKey()) + "\t" + marker + "\n");
+                }
+                writer.write(OUTPUT + output.length() + "\n");
+                writer.write(output);
+                writer.write("\n" + END + "\n");
+            } finally {
+                writer.close();
+            }
+            if (!tempFile.renameTo(file)) {
+                // some platforms cannot rename over an existing file
+                file.delete();
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("Cannot rename " + tempFile.getAbsolutePath() + " to " + file.getAbsolutePath());
+                }
+            }
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads a baseline written by {@link #write(File)}. Returns null if the file does not exist or is not a complete baseline.
+     */
+    public static SnapshotBaseline read(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            if (!HEADER.equals(reader.readLine())) {
+                return null;
+            }
+            String line = reader.readLine();
+            if (line == null || !line.startsWith(KEY)) {
+                return null;
+            }
+            String key = unescape(line.substring(KEY.length()));
+            SortedMap<String, String> fingerprint = new TreeMap<String, String>();
+            while ((line = reader.readLine()) != null && line.startsWith(OBJECT)) {
+                String[] nameAndMarker = line.substring(OBJECT.length()).split("\t", 2);
+                if (nameAndMarker.length != 2) {
+                    return null;
+                }
+                fingerprint.put(unescape(nameAndMarker[0]), NULL_MARKER.equals(nameAndMarker[1]) ? null : unescape(nameAndMarker[1]));
+            }
+            if (line == null || !line.startsWith(OUTPUT)) {
+                return null;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(line.substring(OUTPUT.length()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            char[] output = new char[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = reader.read(output, offset, length - offset);
+                if (read == -1) {
+                    return null;
+                }
+                offset += read;
+            }
+            if (reader.read() != '\n' || !END.equals(reader.readLine()) || reader.readLine() != null) {
+                return null;
+            }
+            return new SnapshotBaseline(key, fingerprint, new String(output));
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                if (next == 't') {
+                    c = '\t';
+                } else if (next == 'n') {
+                    c = '\n';
+                } else if (next == 'r') {
+                    c = '\r';
+                } else {
+                    c = next;
+                }
+            }
+            unescaped.append(c);
+        }
+        return unescaped.toString();
+    }
+}
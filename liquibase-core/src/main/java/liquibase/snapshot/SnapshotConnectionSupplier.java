@@ -0,0 +1,18 @@
+package liquibase.snapshot;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseConnection;
+import liquibase.exception.DatabaseException;
+
+/**
+ * Opens additional connections used to read database metadata in parallel. Attach instances to {@link liquibase.snapshot.SnapshotControl}
+ */
+public interface SnapshotConnectionSupplier {
+
+    /**
+     * Opens a new connection to the same database, logged in as the same user, as the given database.
+     * The snapshot only reads through the connection and closes it when it is done.
+     * @param database Database being snapshotted
+     */
+    public DatabaseConnection openConnection(Database database) throws DatabaseException;
+}
@@ -13,8 +13,30 @@ import java.util.*;
 
 public class SnapshotControl implements LiquibaseSerializable {
 
+    /**
+     * How metadata lookups choose between reading the rows of one object and reading the whole schema.
+     */
+    public enum FetchMode {
+        /**
+         * The {@link BulkFetchPolicy} decides.
+         */
+        AUTO,
+        /**
+         * Read the whole schema on the first lookup, where the lookup supports it.
+         */
+        BULK,
+        /**
+         * Only read the rows each lookup needs.
+         */
+        SINGLE
+    }
+
     private Set<Class<? extends DatabaseObject>> types;
     private SnapshotListener snapshotListener;
+    private SnapshotConnectionSupplier connectionSupplier;
+    private int parallelConnections = 4;
+    private FetchMode fetchMode = FetchMode.AUTO;
+    private BulkFetchPolicy bulkFetchPolicy = new DefaultBulkFetchPolicy();
 
     public SnapshotControl(Database database) {
         setTypes(DatabaseObjectFactory.getInstance().getStandardTypes(), database);
@@ -40,6 +62,48 @@ public class SnapshotControl implements LiquibaseSerializable {
         this.snapshotListener = snapshotListener;
     }
 
+    public SnapshotConnectionSupplier getConnectionSupplier() {
+        return connectionSupplier;
+    }
+
+    /**
+     * Enables parallel snapshots. The metadata of each included object type is read in bulk over up to {@link #getParallelConnections()} connections
+     * opened by the given supplier before the snapshot is assembled from it on the original connection. Set to null to read everything on the original connection.
+     */
+    public void setConnectionSupplier(SnapshotConnectionSupplier connectionSupplier) {
+        this.connectionSupplier = connectionSupplier;
+    }
+
+    public int getParallelConnections() {
+        return parallelConnections;
+    }
+
+    /**
+     * Maximum number of connections opened by the {@link #getConnectionSupplier() connection supplier}. Defaults to 4.
+     */
+    public void setParallelConnections(int parallelConnections) {
+        this.parallelConnections = parallelConnections;
+    }
+
+    public FetchMode getFetchMode() {
+        return fetchMode;
+    }
+
+    public void setFetchMode(FetchMode fetchMode) {
+        this.fetchMode = fetchMode;
+    }
+
+    public BulkFetchPolicy getBulkFetchPolicy() {
+        return bulkFetchPolicy;
+    }
+
+    /**
+     * Sets the policy used in {@link FetchMode#AUTO} mode. Defaults to a {@link DefaultBulkFetchPolicy}.
+     */
+    public void setBulkFetchPolicy(BulkFetchPolicy bulkFetchPolicy) {
+        this.bulkFetchPolicy = bulkFetchPolicy;
+    }
+
     @Override
     public String getSerializedObjectName() {
         return "snapshotControl";
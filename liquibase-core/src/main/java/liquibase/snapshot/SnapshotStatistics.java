@@ -0,0 +1,60 @@
+package liquibase.snapshot;
+
+import java.util.List;
+
+/**
+ * Where the time of a snapshot went: the metadata queries made by each {@link JdbcDatabaseSnapshot.CachingDatabaseMetaData} method
+ * and the objects read of each type. Returned by {@link DatabaseSnapshot#getStatistics()}.
+ */
+public class SnapshotStatistics {
+
+    private long time;
+    private List<MetadataQueryStatistics> metadataQueryStatistics;
+    private List<ObjectTypeStatistics> objectTypeStatistics;
+
+    public SnapshotStatistics(long time, List<MetadataQueryStatistics> metadataQueryStatistics, List<ObjectTypeStatistics> objectTypeStatistics) {
+        this.time = time;
+        this.metadataQueryStatistics = metadataQueryStatistics;
+        this.objectTypeStatistics = objectTypeStatistics;
+    }
+
+    /**
+     * Time the snapshot took, in milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public List<MetadataQueryStatistics> getMetadataQueryStatistics() {
+        return metadataQueryStatistics;
+    }
+
+    public List<ObjectTypeStatistics> getObjectTypeStatistics() {
+        return objectTypeStatistics;
+    }
+
+    public int getQueries() {
+        int queries = 0;
+        for (MetadataQueryStatistics statistics : metadataQueryStatistics) {
+            queries += statistics.getQueries();
+        }
+        return queries;
+    }
+
+    /**
+     * Returns a summary with one line per metadata method and object type.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Snapshot took " + time + "ms with " + getQueries() + " metadata queries");
+        summary.append("\n  Metadata queries:");
+        for (MetadataQueryStatistics statistics : metadataQueryStatistics) {
+            summary.append("\n    ").append(statistics);
+        }
+        summary.append("\n  Object types:");
+        for (ObjectTypeStatistics statistics : objectTypeStatistics) {
+            summary.append("\n    ").append(statistics);
+        }
+        return summary.toString();
+    }
+}
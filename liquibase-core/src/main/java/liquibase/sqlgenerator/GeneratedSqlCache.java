@@ -0,0 +1,194 @@
+package liquibase.sqlgenerator;
+
+import liquibase.RuntimeEnvironment;
+import liquibase.change.Change;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.database.ObjectQuotingStrategy;
+import liquibase.sql.Sql;
+import liquibase.statement.SqlStatement;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the statements and SQL generated for the changes of a single run, so validation, execution and SQL output do not generate them again.
+ * Enabled with {@link liquibase.configuration.GlobalConfiguration#GENERATED_SQL_CACHE} and kept in the {@link RuntimeEnvironment} of the run.
+ * <p></p>
+ * Only changes whose {@link Change#generateStatementsVolatile(Database)} is false are cached, the statements of other changes depend on the state of the database.
+ * Statements are generated again when the database uses another {@link ObjectQuotingStrategy} than when they were cached, since each change set sets its own.
+ * The entries of a change set are removed by {@link #remove(ChangeSet)} once it has run.
+ */
+public class GeneratedSqlCache {
+
+    private final Database database;
+    private final Map<Change, Entry> entries = new IdentityHashMap<Change, Entry>();
+    private final Map<SqlStatement, GeneratedSql> sqlByStatement = new IdentityHashMap<SqlStatement, GeneratedSql>();
+
+    public GeneratedSqlCache(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Returns the cache of the run that is executing a changelog against the database in the current thread, or null if there is none.
+     */
+    public static GeneratedSqlCache getCurrent(Database database) {
+        RuntimeEnvironment runtimeEnvironment = RuntimeEnvironment.getCurrent();
+        if (runtimeEnvironment == null || runtimeEnvironment.getTargetDatabase() != database) {
+            return null;
+        }
+        return runtimeEnvironment.getGeneratedSqlCache();
+    }
+
+    /**
+     * Calls {@link Change#generateStatements(Database)}, using the cache of the current run if there is one.
+     */
+    public static SqlStatement[] generateStatements(Change change, Database database) {
+        GeneratedSqlCache cache = getCurrent(database);
+        if (cache == null) {
+            return change.generateStatements(database);
+        }
+        return cache.getStatements(change);
+    }
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    public synchronized SqlStatement[] getStatements(Change change) {
+        Entry entry = getEntry(change, true);
+        if (entry.checkingVolatile) {
+            //generateStatementsVolatile of the change needs its statements
+            return change.generateStatements(database);
+        }
+        if (entry.changeVolatile == null) {
+            entry.checkingVolatile = true;
+            boolean changeVolatile;
+            try {
+                changeVolatile = change.generateStatementsVolatile(database);
+            } finally {
+                entry.checkingVolatile = false;
+            }
+            entry = getEntry(change, true);
+            entry.changeVolatile = changeVolatile;
+        }
+
+        if (entry.changeVolatile) {
+            return change.generateStatements(database);
+        }
+        if (!entry.generated) {
+            setStatements(entry, change.generateStatements(database));
+        }
+        return entry.statements;
+    }
+
+    /**
+     * Returns what {@link liquibase.change.AbstractChange#generateStatementsVolatile(Database)} found for the statements of the change, or null if it was not checked yet.
+     */
+    public synchronized Boolean getStatementsVolatile(Change change) {
+        Entry entry = getEntry(change, false);
+        if (entry == null) {
+            return null;
+        }
+        return entry.statementsVolatile;
+    }
+
+    /**
+     * Records if the generators of the statements the change generated are volatile. The statements are kept if they are not.
+     */
+    public synchronized void setStatementsVolatile(Change change, SqlStatement[] statements, boolean statementsVolatile) {
+        Entry entry = getEntry(change, true);
+        entry.statementsVolatile = statementsVolatile;
+        if (!statementsVolatile && !entry.generated) {
+            setStatements(entry, statements);
+        }
+    }
+
+    /**
+     * Returns the SQL generated for a statement of a cached change, or null if it was not generated yet or the statement is not cached.
+     */
+    public synchronized Sql[] getSql(SqlStatement statement) {
+        GeneratedSql generatedSql = sqlByStatement.get(statement);
+        if (generatedSql == null || generatedSql.sql == null || generatedSql.quotingStrategy != database.getObjectQuotingStrategy()) {
+            return null;
+        }
+        return generatedSql.sql.clone();
+    }
+
+    /**
+     * Keeps the SQL generated for the statement if it is a statement of a cached change.
+     */
+    public synchronized void setSql(SqlStatement statement, Sql[] sql) {
+        GeneratedSql generatedSql = sqlByStatement.get(statement);
+        if (generatedSql != null && sql != null) {
+            generatedSql.quotingStrategy = database.getObjectQuotingStrategy();
+            generatedSql.sql = sql.clone();
+        }
+    }
+
+    /**
+     * Removes the statements and SQL of the changes in the change set.
+     */
+    public synchronized void remove(ChangeSet changeSet) {
+        for (Change change : changeSet.getChanges()) {
+            Entry entry = entries.remove(change);
+            if (entry != null) {
+                removeStatements(entry);
+            }
+        }
+    }
+
+    private Entry getEntry(Change change, boolean create) {
+        Entry entry = entries.get(change);
+        if (entry != null && entry.quotingStrategy != database.getObjectQuotingStrategy()) {
+            removeStatements(entry);
+            entries.remove(change);
+            entry = null;
+        }
+        if (entry == null && create) {
+            entry = new Entry(database.getObjectQuotingStrategy());
+            entries.put(change, entry);
+        }
+        return entry;
+    }
+
+    private void setStatements(Entry entry, SqlStatement[] statements) {
+        entry.statements = statements;
+        entry.generated = true;
+        if (statements != null) {
+            for (SqlStatement statement : statements) {
+                if (statement != null) {
+                    sqlByStatement.put(statement, new GeneratedSql());
+                }
+            }
+        }
+    }
+
+    private void removeStatements(Entry entry) {
+        if (entry.statements != null) {
+            for (SqlStatement statement : entry.statements) {
+                if (statement != null) {
+                    sqlByStatement.remove(statement);
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        private final ObjectQuotingStrategy quotingStrategy;
+        private SqlStatement[] statements;
+        private boolean generated;
+        private Boolean statementsVolatile;
+        private Boolean changeVolatile;
+        private boolean checkingVolatile;
+
+        private Entry(ObjectQuotingStrategy quotingStrategy) {
+            this.quotingStrategy = quotingStrategy;
+        }
+    }
+
+    private static class GeneratedSql {
+        private ObjectQuotingStrategy quotingStrategy;
+        private Sql[] sql;
+    }
+}
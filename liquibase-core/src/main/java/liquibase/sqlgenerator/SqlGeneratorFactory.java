@@ -10,10 +10,13 @@ import liquibase.servicelocator.ServiceLocator;
 import liquibase.sql.Sql;
 import liquibase.statement.SqlStatement;
 
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * SqlGeneratorFactory is a singleton registry of SqlGenerators.
@@ -22,14 +25,13 @@ import java.util.*;
  */
 public class SqlGeneratorFactory {
 
-    private static SqlGeneratorFactory instance;
+    private static volatile SqlGeneratorFactory instance;
 
-    private List<SqlGenerator> generators = new ArrayList<SqlGenerator>();
+    private List<SqlGenerator> generators = new CopyOnWriteArrayList<SqlGenerator>();
 
-    //caches for expensive reflection based calls that slow down Liquibase initialization: CORE-1207
-    private final Map<Class<?>, Type[]> genericInterfacesCache = new HashMap<Class<?>, Type[]>();
-    private final Map<Class<?>, Type> genericSuperClassCache = new HashMap<Class<?>, Type>();
-    private Map<String, SortedSet<SqlGenerator>> generatorsByKey = new HashMap<String, SortedSet<SqlGenerator>>();
+    //the generic type arguments of each generator class are only read with reflection once, on first use: CORE-1207
+    private final Map<Class<?>, List<Class<?>>> statementTypesByGeneratorClass = new ConcurrentHashMap<Class<?>, List<Class<?>>>();
+    private final Map<Class<?>, StatementGenerators> generatorsByStatementClass = new ConcurrentHashMap<Class<?>, StatementGenerators>();
 
     private SqlGeneratorFactory() {
         Class[] classes;
@@ -50,23 +52,35 @@ public class SqlGeneratorFactory {
      * Return singleton SqlGeneratorFactory
      */
     public static SqlGeneratorFactory getInstance() {
-        if (instance == null) {
-            instance = new SqlGeneratorFactory();
+        SqlGeneratorFactory factory = instance;
+        if (factory == null) {
+            synchronized (SqlGeneratorFactory.class) {
+                if (instance == null) {
+                    instance = new SqlGeneratorFactory();
+                }
+                factory = instance;
+            }
         }
-        return instance;
+        return factory;
     }
 
-    public static void reset() {
+    public static synchronized void reset() {
         instance = new SqlGeneratorFactory();
     }
 
 
+    /**
+     * Registers a generator. Generators should be registered before the factory is used by several threads,
+     * lookups that run while a generator is registered may not see it.
+     */
     public void register(SqlGenerator generator) {
         generators.add(generator);
+        clearCaches();
     }
 
     public void unregister(SqlGenerator generator) {
         generators.remove(generator);
+        clearCaches();
     }
 
     public void unregister(Class generatorClass) {
@@ -80,6 +94,26 @@ public class SqlGeneratorFactory {
         unregister(toRemove);
     }
 
+    private void clearCaches() {
+        generatorsByStatementClass.clear();
+    }
+
+    /**
+     * Reads the statement types of all registered generators and builds the table of generators for each concrete statement class they handle,
+     * so the reflection is done up front instead of while the first changeSets run.
+     * Which of the generators support a statement on a database still depends on the statement, that is checked and cached on first use.
+     */
+    public void warmup() {
+        Set<Class<?>> statementClasses = new HashSet<Class<?>>();
+        for (SqlGenerator generator : getGenerators()) {
+            statementClasses.addAll(getStatementTypes(generator.getClass()));
+        }
+        for (Class<?> statementClass : statementClasses) {
+            if (!Modifier.isAbstract(statementClass.getModifiers()) && !statementClass.isInterface()) {
+                getStatementGenerators(statementClass);
+            }
+        }
+    }
 
     protected Collection<SqlGenerator> getGenerators() {
         return generators;
@@ -92,59 +126,83 @@ public class SqlGeneratorFactory {
         } else {
             databaseName = database.getShortName();
         }
-        String key = statement.getClass().getName()+":"+ databaseName;
+        StatementGenerators statementGenerators = getStatementGenerators(statement.getClass());
 
-        if (generatorsByKey.containsKey(key)) {
-            return generatorsByKey.get(key);
+        SortedSet<SqlGenerator> validGenerators = statementGenerators.generatorsByDatabase.get(databaseName);
+        if (validGenerators != null) {
+            return validGenerators;
         }
 
-        SortedSet<SqlGenerator> validGenerators = new TreeSet<SqlGenerator>(new SqlGeneratorComparator());
+        validGenerators = new TreeSet<SqlGenerator>(new SqlGeneratorComparator());
+        for (SqlGenerator generator : statementGenerators.generators) {
+            //noinspection unchecked
+            if (generator.supports(statement, database)) {
+                validGenerators.add(generator);
+            }
+        }
 
-        for (SqlGenerator generator : getGenerators()) {
-            Class clazz = generator.getClass();
-            Type classType = null;
-            while (clazz != null) {
-                if (classType instanceof ParameterizedType) {
-                    checkType(classType, statement, generator, database, validGenerators);
-                }
+        statementGenerators.generatorsByDatabase.put(databaseName, validGenerators);
+        return validGenerators;
+    }
+
+    private StatementGenerators getStatementGenerators(Class<?> statementClass) {
+        StatementGenerators statementGenerators = generatorsByStatementClass.get(statementClass);
+        if (statementGenerators == null) {
+            statementGenerators = new StatementGenerators(getGenerators(statementClass));
+            generatorsByStatementClass.put(statementClass, statementGenerators);
+        }
+        return statementGenerators;
+    }
 
-                for (Type type : getGenericInterfaces(clazz)) {
-                    if (type instanceof ParameterizedType) {
-                        checkType(type, statement, generator, database, validGenerators);
-                    } else if (isTypeEqual(type, SqlGenerator.class)) {
-                        //noinspection unchecked
-                        if (generator.supports(statement, database)) {
-                            validGenerators.add(generator);
-                        }
-                    }
+    /**
+     * Returns the generators, in registration order, whose generic statement type matches the given statement class.
+     */
+    protected List<SqlGenerator> getGenerators(Class<?> statementClass) {
+        List<SqlGenerator> matchingGenerators = new ArrayList<SqlGenerator>();
+        for (SqlGenerator generator : getGenerators()) {
+            for (Class<?> statementType : getStatementTypes(generator.getClass())) {
+                if (statementType.isAssignableFrom(statementClass)) {
+                    matchingGenerators.add(generator);
+                    break;
                 }
-                classType = getGenericSuperclass(clazz);
-                clazz = clazz.getSuperclass();
             }
         }
 
-        generatorsByKey.put(key, validGenerators);
-        return validGenerators;
+        return matchingGenerators;
     }
 
-    private Type[] getGenericInterfaces(Class<?> clazz) {
-        if(genericInterfacesCache.containsKey(clazz)) {
-            return genericInterfacesCache.get(clazz);
+    /**
+     * Returns the statement types the generator class declares as type arguments of its superclasses and SqlGenerator interfaces.
+     * A generator that implements the raw SqlGenerator interface handles all statements, it is returned as SqlStatement.
+     */
+    private List<Class<?>> getStatementTypes(Class<?> generatorClass) {
+        List<Class<?>> statementTypes = statementTypesByGeneratorClass.get(generatorClass);
+        if (statementTypes != null) {
+            return statementTypes;
         }
 
-        Type[] genericInterfaces = clazz.getGenericInterfaces();
-        genericInterfacesCache.put(clazz, genericInterfaces);
-        return genericInterfaces;
-    }
+        statementTypes = new ArrayList<Class<?>>();
+        Class clazz = generatorClass;
+        Type classType = null;
+        while (clazz != null) {
+            if (classType instanceof ParameterizedType) {
+                addStatementTypes(classType, statementTypes);
+            }
 
-    private Type getGenericSuperclass(Class<?> clazz) {
-        if(genericSuperClassCache.containsKey(clazz)) {
-            return genericSuperClassCache.get(clazz);
+            for (Type type : clazz.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType) {
+                    addStatementTypes(type, statementTypes);
+                } else if (isTypeEqual(type, SqlGenerator.class)) {
+                    statementTypes.add(SqlStatement.class);
+                }
+            }
+            classType = clazz.getGenericSuperclass();
+            clazz = clazz.getSuperclass();
         }
 
-        Type genericSuperclass = clazz.getGenericSuperclass();
-        genericSuperClassCache.put(clazz, genericSuperclass);
-        return genericSuperclass;
+        statementTypes = Collections.unmodifiableList(statementTypes);
+        statementTypesByGeneratorClass.put(generatorClass, statementTypes);
+        return statementTypes;
     }
 
     private boolean isTypeEqual(Type aType, Class aClass) {
@@ -154,7 +212,7 @@ public class SqlGeneratorFactory {
         return aType.equals(aClass);
     }
 
-    private void checkType(Type type, SqlStatement statement, SqlGenerator generator, Database database, SortedSet<SqlGenerator> validGenerators) {
+    private void addStatementTypes(Type type, List<Class<?>> statementTypes) {
         for (Type typeClass : ((ParameterizedType) type).getActualTypeArguments()) {
             if (typeClass instanceof TypeVariable) {
                 typeClass = ((TypeVariable) typeClass).getBounds()[0];
@@ -164,15 +222,23 @@ public class SqlGeneratorFactory {
                 return;
             }
 
-            if (((Class) typeClass).isAssignableFrom(statement.getClass())) {
-                if (generator.supports(statement, database)) {
-                    validGenerators.add(generator);
-                }
-            }
+            statementTypes.add((Class<?>) typeClass);
         }
 
     }
 
+    /**
+     * The generators whose statement type matches one statement class, and the ones among them that support the statements on each database.
+     */
+    private static class StatementGenerators {
+        private final List<SqlGenerator> generators;
+        private final Map<String, SortedSet<SqlGenerator>> generatorsByDatabase = new ConcurrentHashMap<String, SortedSet<SqlGenerator>>();
+
+        private StatementGenerators(List<SqlGenerator> generators) {
+            this.generators = generators;
+        }
+    }
+
     private SqlGeneratorChain createGeneratorChain(SqlStatement statement, Database database) {
         SortedSet<SqlGenerator> sqlGenerators = getGenerators(statement, database);
         if (sqlGenerators == null || sqlGenerators.size() == 0) {
@@ -194,18 +260,33 @@ public class SqlGeneratorFactory {
     public Sql[] generateSql(SqlStatement[] statements, Database database) {
         List<Sql> returnList = new ArrayList<Sql>();
         for (SqlStatement statement : statements) {
-            returnList.addAll(Arrays.asList(SqlGeneratorFactory.getInstance().generateSql(statement, database)));
+            returnList.addAll(Arrays.asList(generateSql(statement, database)));
         }
 
         return returnList.toArray(new Sql[returnList.size()]);
     }
 
+    /**
+     * Generates the SQL for the statement. SQL generated for the statements of a change is reused for the rest of the run, see {@link GeneratedSqlCache}.
+     */
     public Sql[] generateSql(SqlStatement statement, Database database) {
+        GeneratedSqlCache cache = GeneratedSqlCache.getCurrent(database);
+        if (cache != null) {
+            Sql[] sql = cache.getSql(statement);
+            if (sql != null) {
+                return sql;
+            }
+        }
+
         SqlGeneratorChain generatorChain = createGeneratorChain(statement, database);
         if (generatorChain == null) {
             throw new IllegalStateException("Cannot find generators for database " + database.getClass() + ", statement: " + statement);
         }
-        return generatorChain.generateSql(statement, database);
+        Sql[] sql = generatorChain.generateSql(statement, database);
+        if (cache != null) {
+            cache.setSql(statement, sql);
+        }
+        return sql;
     }
 
     /**
@@ -251,10 +332,8 @@ public class SqlGeneratorFactory {
     public Set<DatabaseObject> getAffectedDatabaseObjects(SqlStatement statement, Database database) {
         Set<DatabaseObject> affectedObjects = new HashSet<DatabaseObject>();
 
-        SqlGeneratorChain sqlGeneratorChain = createGeneratorChain(statement, database);
-        if (sqlGeneratorChain != null) {
-            //noinspection unchecked
-            Sql[] sqls = sqlGeneratorChain.generateSql(statement, database);
+        if (supports(statement, database)) {
+            Sql[] sqls = generateSql(statement, database);
             if (sqls != null) {
                 for (Sql sql : sqls) {
                     affectedObjects.addAll(sql.getAffectedDatabaseObjects());
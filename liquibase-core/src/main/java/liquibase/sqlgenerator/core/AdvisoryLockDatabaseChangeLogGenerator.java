@@ -0,0 +1,102 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.Database;
+import liquibase.database.core.MSSQLDatabase;
+import liquibase.database.core.MySQLDatabase;
+import liquibase.database.core.OracleDatabase;
+import liquibase.database.core.PostgresDatabase;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.sql.Sql;
+import liquibase.sql.UnparsedSql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.statement.core.AdvisoryLockDatabaseChangeLogStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Requests a session level lock from the database: pg_advisory_lock on Postgres, GET_LOCK on MySQL, DBMS_LOCK on Oracle and sp_getapplock on MSSQL.
+ * The lock is named after the changelog lock table so separate Liquibase schemas do not wait on each other.
+ */
+public class AdvisoryLockDatabaseChangeLogGenerator extends AbstractSqlGenerator<AdvisoryLockDatabaseChangeLogStatement> {
+
+    private static final int MAX_LOCK_NAME_LENGTH = 64;
+
+    @Override
+    public boolean supports(AdvisoryLockDatabaseChangeLogStatement statement, Database database) {
+        return supportsAdvisoryLock(database);
+    }
+
+    @Override
+    public ValidationErrors validate(AdvisoryLockDatabaseChangeLogStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        ValidationErrors validationErrors = new ValidationErrors();
+        if (statement.getTimeoutSeconds() < 0) {
+            validationErrors.addError("timeoutSeconds cannot be negative");
+        }
+        return validationErrors;
+    }
+
+    @Override
+    public Sql[] generateSql(AdvisoryLockDatabaseChangeLogStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        long timeout = statement.getTimeoutSeconds();
+        String sql;
+        if (database instanceof PostgresDatabase) {
+            //lock_timeout of 0 waits forever, and is only set for the current transaction. Running out of it fails with lock_not_available instead of returning 0
+            String lockTimeout = timeout == 0 ? "1ms" : timeout + "s";
+            sql = "SELECT CASE WHEN set_config('lock_timeout', '" + lockTimeout + "', true) IS NULL THEN 0 " +
+                    "WHEN pg_advisory_lock(" + getLockId(database) + ")::text IS NULL THEN 0 ELSE 1 END";
+        } else if (database instanceof MySQLDatabase) {
+            sql = "SELECT COALESCE(GET_LOCK('" + getLockName(database) + "', " + timeout + "), 0)";
+        } else if (database instanceof OracleDatabase) {
+            //0 is success, 4 is already owned by the session
+            sql = "SELECT CASE DBMS_LOCK.REQUEST(" + getLockId(database) + ", 6, " + timeout + ") WHEN 0 THEN 1 WHEN 4 THEN 1 ELSE 0 END FROM DUAL";
+        } else if (database instanceof MSSQLDatabase) {
+            sql = "SET NOCOUNT ON; DECLARE @result INT; " +
+                    "EXEC @result = sp_getapplock @Resource = '" + getLockName(database) + "', @LockMode = 'Exclusive', @LockOwner = 'Session', @LockTimeout = " + (timeout * 1000) + "; " +
+                    "SELECT CASE WHEN @result >= 0 THEN 1 ELSE 0 END";
+        } else {
+            throw new UnexpectedLiquibaseException("Advisory locks are not supported on " + database.getShortName());
+        }
+        return new Sql[]{
+                new UnparsedSql(sql)
+        };
+    }
+
+    public static boolean supportsAdvisoryLock(Database database) {
+        return database instanceof PostgresDatabase
+                || database instanceof MySQLDatabase
+                || database instanceof OracleDatabase
+                || database instanceof MSSQLDatabase;
+    }
+
+    /**
+     * Name of the lock for databases that use named locks. Long names are replaced by their hash, MySQL allows no more than 64 characters.
+     */
+    public static String getLockName(Database database) {
+        List<String> parts = new ArrayList<String>();
+        if (database.getLiquibaseCatalogName() != null) {
+            parts.add(database.getLiquibaseCatalogName());
+        }
+        if (database.getLiquibaseSchemaName() != null) {
+            parts.add(database.getLiquibaseSchemaName());
+        }
+        parts.add(database.getDatabaseChangeLogLockTableName());
+
+        String name = "liquibase:";
+        for (String part : parts) {
+            name += (name.endsWith(":") ? "" : ".") + part;
+        }
+        if (name.length() > MAX_LOCK_NAME_LENGTH) {
+            name = "liquibase:" + Integer.toHexString(name.hashCode());
+        }
+        return database.escapeStringForDatabase(name);
+    }
+
+    /**
+     * Id of the lock for databases that use numeric locks. Oracle reserves the ids from 1073741824 on, so the id is always lower.
+     */
+    public static int getLockId(Database database) {
+        return getLockName(database).hashCode() & 0x3FFFFFFF;
+    }
+}
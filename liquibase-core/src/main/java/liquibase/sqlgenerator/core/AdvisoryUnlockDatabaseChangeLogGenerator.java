@@ -0,0 +1,45 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.Database;
+import liquibase.database.core.MSSQLDatabase;
+import liquibase.database.core.MySQLDatabase;
+import liquibase.database.core.OracleDatabase;
+import liquibase.database.core.PostgresDatabase;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.sql.Sql;
+import liquibase.sql.UnparsedSql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.statement.core.AdvisoryUnlockDatabaseChangeLogStatement;
+
+public class AdvisoryUnlockDatabaseChangeLogGenerator extends AbstractSqlGenerator<AdvisoryUnlockDatabaseChangeLogStatement> {
+
+    @Override
+    public boolean supports(AdvisoryUnlockDatabaseChangeLogStatement statement, Database database) {
+        return AdvisoryLockDatabaseChangeLogGenerator.supportsAdvisoryLock(database);
+    }
+
+    @Override
+    public ValidationErrors validate(AdvisoryUnlockDatabaseChangeLogStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        return new ValidationErrors();
+    }
+
+    @Override
+    public Sql[] generateSql(AdvisoryUnlockDatabaseChangeLogStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        String sql;
+        if (database instanceof PostgresDatabase) {
+            sql = "SELECT pg_advisory_unlock(" + AdvisoryLockDatabaseChangeLogGenerator.getLockId(database) + ")";
+        } else if (database instanceof MySQLDatabase) {
+            sql = "SELECT RELEASE_LOCK('" + AdvisoryLockDatabaseChangeLogGenerator.getLockName(database) + "')";
+        } else if (database instanceof OracleDatabase) {
+            sql = "SELECT DBMS_LOCK.RELEASE(" + AdvisoryLockDatabaseChangeLogGenerator.getLockId(database) + ") FROM DUAL";
+        } else if (database instanceof MSSQLDatabase) {
+            sql = "EXEC sp_releaseapplock @Resource = '" + AdvisoryLockDatabaseChangeLogGenerator.getLockName(database) + "', @LockOwner = 'Session'";
+        } else {
+            throw new UnexpectedLiquibaseException("Advisory locks are not supported on " + database.getShortName());
+        }
+        return new Sql[]{
+                new UnparsedSql(sql)
+        };
+    }
+}
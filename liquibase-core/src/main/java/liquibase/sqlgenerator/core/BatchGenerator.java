@@ -0,0 +1,41 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.BatchStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates the SQL of every statement in a {@link BatchStatement}, in order.
+ */
+public class BatchGenerator extends AbstractSqlGenerator<BatchStatement> {
+
+    @Override
+    public ValidationErrors validate(BatchStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        ValidationErrors validationErrors = new ValidationErrors();
+        validationErrors.checkRequiredField("statements", statement.getStatements());
+        for (SqlStatement batchedStatement : statement.getStatements()) {
+            validationErrors.addAll(SqlGeneratorFactory.getInstance().validate(batchedStatement, database));
+        }
+        return validationErrors;
+    }
+
+    @Override
+    public Sql[] generateSql(BatchStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        List<Sql> sql = new ArrayList<Sql>();
+        for (SqlStatement batchedStatement : statement.getStatements()) {
+            Sql[] generated = SqlGeneratorFactory.getInstance().generateSql(batchedStatement, database);
+            if (generated != null) {
+                sql.addAll(Arrays.asList(generated));
+            }
+        }
+        return sql.toArray(new Sql[sql.size()]);
+    }
+}
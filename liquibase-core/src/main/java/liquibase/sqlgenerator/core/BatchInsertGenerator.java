@@ -0,0 +1,42 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.change.ColumnConfig;
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.BatchInsertExecutablePreparedStatement;
+import liquibase.statement.core.InsertStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates one INSERT per row of a {@link BatchInsertExecutablePreparedStatement} so updateSQL output matches non-batched execution.
+ * The statement itself is executed through JDBC batching and does not use this SQL.
+ */
+public class BatchInsertGenerator extends AbstractSqlGenerator<BatchInsertExecutablePreparedStatement> {
+
+    @Override
+    public ValidationErrors validate(BatchInsertExecutablePreparedStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        ValidationErrors validationErrors = new ValidationErrors();
+        validationErrors.checkRequiredField("tableName", statement.getTableName());
+        validationErrors.checkRequiredField("columns", statement.getColumns());
+        return validationErrors;
+    }
+
+    @Override
+    public Sql[] generateSql(BatchInsertExecutablePreparedStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        List<Sql> sql = new ArrayList<Sql>();
+        for (List<ColumnConfig> row : statement.getRows()) {
+            InsertStatement insertStatement = new InsertStatement(statement.getCatalogName(), statement.getSchemaName(), statement.getTableName());
+            for (ColumnConfig column : row) {
+                insertStatement.addColumnValue(column.getName(), column.getValueObject());
+            }
+            sql.addAll(Arrays.asList(SqlGeneratorFactory.getInstance().generateSql(insertStatement, database)));
+        }
+        return sql.toArray(new Sql[sql.size()]);
+    }
+}
@@ -5,12 +5,18 @@ import liquibase.database.Database;
 import liquibase.exception.ValidationErrors;
 import liquibase.sql.Sql;
 import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.statement.BatchInsertExecutablePreparedStatement;
 import liquibase.statement.InsertExecutablePreparedStatement;
 
 /**
  * Dummy SQL generator for <code>InsertDataChange.ExecutableStatement</code><br>
  */
 public class InsertDataChangeGenerator extends AbstractSqlGenerator<InsertExecutablePreparedStatement> {
+    @Override
+    public boolean supports(InsertExecutablePreparedStatement statement, Database database) {
+        return !(statement instanceof BatchInsertExecutablePreparedStatement);
+    }
+
     @Override
     public ValidationErrors validate(InsertExecutablePreparedStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
         return new ValidationErrors();
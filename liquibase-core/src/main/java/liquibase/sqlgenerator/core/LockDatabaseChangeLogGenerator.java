@@ -4,6 +4,7 @@ import liquibase.database.Database;
 import liquibase.datatype.DataTypeFactory;
 import liquibase.exception.UnexpectedLiquibaseException;
 import liquibase.exception.ValidationErrors;
+import liquibase.lockservice.DatabaseChangeLogLock;
 import liquibase.sql.Sql;
 import liquibase.sqlgenerator.SqlGeneratorChain;
 import liquibase.sqlgenerator.SqlGeneratorFactory;
@@ -42,8 +43,16 @@ public class LockDatabaseChangeLogGenerator extends AbstractSqlGenerator<LockDat
         UpdateStatement updateStatement = new UpdateStatement(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogLockTableName());
         updateStatement.addNewColumnValue("LOCKED", true);
         updateStatement.addNewColumnValue("LOCKGRANTED", new Timestamp(new java.util.Date().getTime()));
-        updateStatement.addNewColumnValue("LOCKEDBY", hostname + " (" + hostaddress + ")");
-        updateStatement.setWhereClause(database.escapeColumnName(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogTableName(), "ID") + " = 1 AND " + database.escapeColumnName(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogTableName(), "LOCKED") + " = "+ DataTypeFactory.getInstance().fromDescription("boolean", database).objectToSql(false, database));
+        updateStatement.addNewColumnValue("LOCKEDBY", statement.getLockedBy() == null ? hostname + " (" + hostaddress + ")" : statement.getLockedBy());
+
+        DatabaseChangeLogLock expiredLock = statement.getExpiredLock();
+        String whereClause = database.escapeColumnName(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogTableName(), "ID") + " = 1 AND " + database.escapeColumnName(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogTableName(), "LOCKED") + " = " + DataTypeFactory.getInstance().fromDescription("boolean", database).objectToSql(expiredLock != null, database);
+        if (expiredLock != null) {
+            whereClause += " AND " + database.escapeColumnName(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogLockTableName(), "LOCKGRANTED") + " = ?"
+                    + " AND " + database.escapeColumnName(liquibaseCatalog, liquibaseSchema, database.getDatabaseChangeLogLockTableName(), "LOCKEDBY") + " = ?";
+            updateStatement.addWhereParameters(new Timestamp(expiredLock.getLockGranted().getTime()), expiredLock.getLockedBy());
+        }
+        updateStatement.setWhereClause(whereClause);
 
         return SqlGeneratorFactory.getInstance().generateSql(updateStatement, database);
 
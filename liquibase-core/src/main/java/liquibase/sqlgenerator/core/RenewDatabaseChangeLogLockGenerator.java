@@ -0,0 +1,38 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.Database;
+import liquibase.datatype.DataTypeFactory;
+import liquibase.exception.ValidationErrors;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.core.RenewDatabaseChangeLogLockStatement;
+import liquibase.statement.core.UpdateStatement;
+
+import java.sql.Timestamp;
+
+public class RenewDatabaseChangeLogLockGenerator extends AbstractSqlGenerator<RenewDatabaseChangeLogLockStatement> {
+
+    @Override
+    public ValidationErrors validate(RenewDatabaseChangeLogLockStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        ValidationErrors validationErrors = new ValidationErrors();
+        validationErrors.checkRequiredField("lockedBy", statement.getLockedBy());
+        return validationErrors;
+    }
+
+    @Override
+    public Sql[] generateSql(RenewDatabaseChangeLogLockStatement statement, Database database, SqlGeneratorChain sqlGeneratorChain) {
+        String liquibaseSchema = database.getLiquibaseSchemaName();
+        String liquibaseCatalog = database.getLiquibaseCatalogName();
+        String lockTable = database.getDatabaseChangeLogLockTableName();
+
+        UpdateStatement updateStatement = new UpdateStatement(liquibaseCatalog, liquibaseSchema, lockTable);
+        updateStatement.addNewColumnValue("LOCKGRANTED", new Timestamp(new java.util.Date().getTime()));
+        updateStatement.setWhereClause(database.escapeColumnName(liquibaseCatalog, liquibaseSchema, lockTable, "ID") + " = 1 AND "
+                + database.escapeColumnName(liquibaseCatalog, liquibaseSchema, lockTable, "LOCKED") + " = " + DataTypeFactory.getInstance().fromDescription("boolean", database).objectToSql(true, database) + " AND "
+                + database.escapeColumnName(liquibaseCatalog, liquibaseSchema, lockTable, "LOCKEDBY") + " = ?");
+        updateStatement.addWhereParameter(statement.getLockedBy());
+
+        return SqlGeneratorFactory.getInstance().generateSql(updateStatement, database);
+    }
+}
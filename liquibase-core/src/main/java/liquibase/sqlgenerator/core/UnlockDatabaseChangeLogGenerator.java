@@ -25,6 +25,10 @@ public class UnlockDatabaseChangeLogGenerator extends AbstractSqlGenerator<Unloc
         releaseStatement.addNewColumnValue("LOCKGRANTED", null);
         releaseStatement.addNewColumnValue("LOCKEDBY", null);
         releaseStatement.setWhereClause(database.escapeColumnName(database.getLiquibaseCatalogName(), liquibaseSchema, database.getDatabaseChangeLogTableName(), "ID")+" = 1");
+        if (statement.getLockedBy() != null) {
+            releaseStatement.setWhereClause(releaseStatement.getWhereClause() + " AND " + database.escapeColumnName(database.getLiquibaseCatalogName(), liquibaseSchema, database.getDatabaseChangeLogLockTableName(), "LOCKEDBY") + " = ?");
+            releaseStatement.addWhereParameter(statement.getLockedBy());
+        }
 
         return SqlGeneratorFactory.getInstance().generateSql(releaseStatement, database);
     }
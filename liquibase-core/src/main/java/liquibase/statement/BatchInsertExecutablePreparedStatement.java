@@ -0,0 +1,100 @@
+package liquibase.statement;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import liquibase.change.ColumnConfig;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.LogFactory;
+import liquibase.resource.ResourceAccessor;
+import liquibase.util.JdbcUtils;
+
+/**
+ * Handles INSERT execution of many rows through a single parameterized statement.
+ * Rows are bound with <code>addBatch</code> and sent to the database with <code>executeBatch</code> every <code>batchSize</code> rows.
+ * Each row must contain one {@link ColumnConfig} per entry in {@link #getColumns()}, in the same order.
+ */
+public class BatchInsertExecutablePreparedStatement extends InsertExecutablePreparedStatement {
+
+    private final List<List<ColumnConfig>> rows;
+    private final int batchSize;
+    private final boolean commitBatches;
+
+    public BatchInsertExecutablePreparedStatement(Database database, String catalogName, String schemaName, String tableName, List<ColumnConfig> columns, List<List<ColumnConfig>> rows, int batchSize, boolean commitBatches, ChangeSet changeSet, ResourceAccessor resourceAccessor) {
+        super(database, catalogName, schemaName, tableName, columns, changeSet, resourceAccessor);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        }
+        this.rows = rows;
+        this.batchSize = batchSize;
+        this.commitBatches = commitBatches;
+    }
+
+    public List<List<ColumnConfig>> getRows() {
+        return rows;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns true if the connection is committed after each batch is executed.
+     * Only meaningful for change sets that do not run in a transaction, otherwise a failure will leave earlier batches committed.
+     */
+    public boolean isCommitBatches() {
+        return commitBatches;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        List<ColumnConfig> cols = new ArrayList<ColumnConfig>(getColumns().size());
+        String sql = generateSql(cols);
+
+        int[] parameterIndexes = new int[cols.size()];
+        for (int i = 0; i < parameterIndexes.length; i++) {
+            parameterIndexes[i] = getColumns().indexOf(cols.get(i));
+        }
+
+        PreparedStatement stmt = factory.create(sql);
+        try {
+            int pending = 0;
+            int executed = 0;
+            for (List<ColumnConfig> row : rows) {
+                for (int i = 0; i < parameterIndexes.length; i++) {
+                    applyColumnParameter(stmt, i + 1, row.get(parameterIndexes[i]));
+                }
+                stmt.addBatch();
+                pending++;
+
+                if (pending >= batchSize) {
+                    executeBatch(stmt);
+                    executed += pending;
+                    pending = 0;
+                    LogFactory.getLogger().debug("Inserted " + executed + " of " + rows.size() + " rows into " + getTableName());
+                }
+            }
+            if (pending > 0) {
+                executeBatch(stmt);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        } finally {
+            closeResources();
+            JdbcUtils.closeStatement(stmt);
+        }
+    }
+
+    protected void executeBatch(PreparedStatement stmt) throws SQLException, DatabaseException {
+        stmt.executeBatch();
+        closeResources();
+        if (commitBatches) {
+            database.commit();
+        }
+    }
+}
@@ -78,16 +78,24 @@ public abstract class ExecutablePreparedStatementBase implements ExecutablePrepa
 	    } catch(SQLException e) {
 	        throw new DatabaseException(e);
 	    } finally {
-	        for (Closeable closeable : closeables) {
-                StreamUtil.closeQuietly(closeable);
-            }
+	        closeResources();
 	        JdbcUtils.closeStatement(stmt);
 	    }
 	}
 
 	protected abstract String generateSql(List<ColumnConfig> cols);
-	
-	private void applyColumnParameter(PreparedStatement stmt, int i, ColumnConfig col) throws SQLException, DatabaseException {
+
+	/**
+	 * Closes any LOB streams opened while binding parameters since the last call.
+	 */
+	protected void closeResources() {
+		for (Closeable closeable : closeables) {
+			StreamUtil.closeQuietly(closeable);
+		}
+		closeables.clear();
+	}
+
+	protected void applyColumnParameter(PreparedStatement stmt, int i, ColumnConfig col) throws SQLException, DatabaseException {
 		if(col.getValue() != null) {
 		    stmt.setString(i, col.getValue());
 		} else if(col.getValueBoolean() != null) {
@@ -108,7 +116,13 @@ public abstract class ExecutablePreparedStatementBase implements ExecutablePrepa
 		        stmt.setInt(i, number.intValue());
 		    }
 		} else if(col.getValueDate() != null) {
-		    stmt.setDate(i, new java.sql.Date(col.getValueDate().getTime()));
+		    if (col.getValueDate() instanceof java.sql.Timestamp) {
+		        stmt.setTimestamp(i, (java.sql.Timestamp) col.getValueDate());
+		    } else if (col.getValueDate() instanceof java.sql.Time) {
+		        stmt.setTime(i, (java.sql.Time) col.getValueDate());
+		    } else {
+		        stmt.setDate(i, new java.sql.Date(col.getValueDate().getTime()));
+		    }
 		} else if (col.getValueBlobFile() != null) {
 			try {
 				LOBContent<InputStream> lob = toBinaryStream(col.getValueBlobFile());
@@ -0,0 +1,13 @@
+package liquibase.statement;
+
+import liquibase.exception.DatabaseException;
+
+/**
+ * Callback passed to {@link liquibase.change.StreamingChange#generateStatements(liquibase.database.Database, SqlStatementHandler)}.
+ * Called once for each generated {@link SqlStatement}, in execution order.
+ */
+public interface SqlStatementHandler {
+
+    public void handle(SqlStatement statement) throws DatabaseException;
+
+}
@@ -0,0 +1,20 @@
+package liquibase.statement.core;
+
+import liquibase.statement.AbstractSqlStatement;
+
+/**
+ * Waits for the database's own lock on the changelog, held by the session until {@link AdvisoryUnlockDatabaseChangeLogStatement}.
+ * Queried for an int which is 1 if the lock was granted within the timeout.
+ */
+public class AdvisoryLockDatabaseChangeLogStatement extends AbstractSqlStatement {
+
+    private long timeoutSeconds;
+
+    public AdvisoryLockDatabaseChangeLogStatement(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package liquibase.statement.core;
+
+import liquibase.statement.AbstractSqlStatement;
+
+public class AdvisoryUnlockDatabaseChangeLogStatement extends AbstractSqlStatement {
+
+}
@@ -0,0 +1,24 @@
+package liquibase.statement.core;
+
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups statements that are sent to the database in a single JDBC batch.
+ * The SQL of every statement is generated as usual, so executors that do not support batching simply run it in order.
+ */
+public class BatchStatement extends AbstractSqlStatement {
+
+    private List<SqlStatement> statements = new ArrayList<SqlStatement>();
+
+    public BatchStatement(List<? extends SqlStatement> statements) {
+        this.statements.addAll(statements);
+    }
+
+    public List<SqlStatement> getStatements() {
+        return statements;
+    }
+}
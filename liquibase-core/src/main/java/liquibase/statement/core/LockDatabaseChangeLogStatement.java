@@ -1,7 +1,37 @@
 package liquibase.statement.core;
 
+import liquibase.lockservice.DatabaseChangeLogLock;
 import liquibase.statement.AbstractSqlStatement;
 
 public class LockDatabaseChangeLogStatement extends AbstractSqlStatement {
-    
+
+    private String lockedBy;
+    private DatabaseChangeLogLock expiredLock;
+
+    public LockDatabaseChangeLogStatement() {
+    }
+
+    /**
+     * @param lockedBy value of LOCKEDBY, defaults to the host name and address if null
+     */
+    public LockDatabaseChangeLogStatement(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    /**
+     * If set, the lock is taken over from this expired lock instead of being taken when it is unlocked.
+     * Nothing is updated if the lock was granted or renewed again since it was read.
+     */
+    public DatabaseChangeLogLock getExpiredLock() {
+        return expiredLock;
+    }
+
+    public LockDatabaseChangeLogStatement setExpiredLock(DatabaseChangeLogLock expiredLock) {
+        this.expiredLock = expiredLock;
+        return this;
+    }
 }
@@ -3,5 +3,20 @@ package liquibase.statement.core;
 import liquibase.statement.AbstractSqlStatement;
 
 public class UnlockDatabaseChangeLogStatement extends AbstractSqlStatement {
-}
 
+    private String lockedBy;
+
+    public UnlockDatabaseChangeLogStatement() {
+    }
+
+    /**
+     * @param lockedBy only unlock if LOCKEDBY still has this value, null to unlock regardless of who holds the lock
+     */
+    public UnlockDatabaseChangeLogStatement(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+}
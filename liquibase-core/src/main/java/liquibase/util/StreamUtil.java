@@ -161,20 +161,8 @@ public class StreamUtil {
         if (resourceAccessor == null) {
             return null;
         }
-        if (relativeToChangelogFile != null && relativeToChangelogFile) {
-            String base;
-            if (changeSet.getChangeLog() == null) {
-                base = changeSet.getFilePath();
-            } else {
-                base = changeSet.getChangeLog().getPhysicalFilePath().replaceAll("\\\\","/");
-            }
-            if (!base.contains("/")) {
-                base = ".";
-            }
-            file = base.replaceFirst("/[^/]*$", "") + "/" + file;
-        }
 
-        return singleInputStream(file, resourceAccessor);
+        return singleInputStream(resolvePath(file, relativeToChangelogFile, changeSet), resourceAccessor);
     }
 
     public static InputStream singleInputStream(String path, ResourceAccessor resourceAccessor) throws IOException {
@@ -206,6 +194,14 @@ public class StreamUtil {
             return null;
         }
 
+        return singleInputStream(resolvePath(file, relativeToChangelogFile, changeSet), resourceAccessor);
+    }
+
+    /**
+     * Returns the path {@link #openStream(String, Boolean, liquibase.changelog.ChangeSet, liquibase.resource.ResourceAccessor)} passes to the resource accessor,
+     * which is the given path resolved against the change set's changelog file if relativeToChangelogFile is true.
+     */
+    public static String resolvePath(String path, Boolean relativeToChangelogFile, ChangeSet changeSet) {
         if (relativeToChangelogFile != null && relativeToChangelogFile) {
             String base;
             if (changeSet.getChangeLog() == null) {
@@ -217,9 +213,8 @@ public class StreamUtil {
                 base = ".";
             }
 
-            file = base.replaceFirst("/[^/]*$", "") + "/" + file;
+            return base.replaceFirst("/[^/]*$", "") + "/" + path;
         }
-
-        return singleInputStream(file, resourceAccessor);
+        return path;
     }
 }
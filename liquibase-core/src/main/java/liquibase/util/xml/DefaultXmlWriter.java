@@ -14,25 +14,39 @@ import java.io.OutputStreamWriter;
 
 public class DefaultXmlWriter implements XmlWriter {
 
+    private Transformer transformer;
+
+    /**
+     * Writes the document. The transformer is created on the first call and reused by later calls on the same writer.
+     */
     @Override
     public void write(Document doc, OutputStream outputStream) throws IOException {
         try {
-            TransformerFactory factory = TransformerFactory.newInstance();
-            try {
-                factory.setAttribute("indent-number", 4);
-            } catch (Exception e) {
-                ; //guess we can't set it, that's ok
+            if (transformer == null) {
+                transformer = createTransformer();
             }
 
-            Transformer transformer = factory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-
             //need to nest outputStreamWriter to get around JDK 5 bug.  See http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6296446
-            transformer.transform(new DOMSource(doc), new StreamResult(new OutputStreamWriter(outputStream, "utf-8")));
+            OutputStreamWriter writer = new OutputStreamWriter(outputStream, "utf-8");
+            transformer.transform(new DOMSource(doc), new StreamResult(writer));
+            writer.flush();
         } catch (TransformerException e) {
             throw new IOException(e.getMessage());
         }
     }
+
+    protected Transformer createTransformer() throws TransformerException {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setAttribute("indent-number", 4);
+        } catch (Exception e) {
+            ; //guess we can't set it, that's ok
+        }
+
+        Transformer transformer = factory.newTransformer();
+        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        return transformer;
+    }
 }
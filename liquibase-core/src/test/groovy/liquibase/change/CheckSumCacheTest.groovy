@@ -0,0 +1,128 @@
+package liquibase.change
+
+import liquibase.resource.FileSystemResourceAccessor
+import spock.lang.Specification
+
+class CheckSumCacheTest extends Specification {
+
+    def "unchanged files are not hashed again"() {
+        given:
+        def dir = File.createTempFile("checksumcache", "")
+        dir.delete()
+        dir.mkdirs()
+        def dataFile = new File(dir, "data.csv")
+        dataFile.text = "id,name\n1,a\n"
+        def cacheFile = new File(dir, "checksums.properties")
+        def resourceAccessor = new FileSystemResourceAccessor()
+        def calls = 0
+        def generator = { calls++; CheckSum.compute(dataFile.text) } as CheckSumCache.Generator
+
+        when:
+        def cache = new CheckSumCache(cacheFile)
+        def first = cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        def second = cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        then:
+        calls == 1
+        first == second
+
+        when: "the cache is saved and loaded again"
+        cache.save()
+        def reloaded = new CheckSumCache(cacheFile).getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        then:
+        calls == 1
+        reloaded == first
+
+        when: "a different type is requested for the same file"
+        cache.getCheckSum("other", dataFile.absolutePath, resourceAccessor, generator)
+        then:
+        calls == 2
+
+        when: "the file changes"
+        dataFile.text = "id,name\n1,a\n2,b\n"
+        def changed = cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        then:
+        calls == 3
+        changed != first
+
+        cleanup:
+        dir.deleteDir()
+    }
+
+    def "cached checksums are reused without reading the file unless content is verified"() {
+        given:
+        def dir = File.createTempFile("checksumcache", "")
+        dir.delete()
+        dir.mkdirs()
+        def dataFile = new File(dir, "data.csv")
+        dataFile.text = "id,name\n1,a\n"
+        def resourceAccessor = new FileSystemResourceAccessor()
+        def digests = 0
+        def generator = { CheckSum.compute(dataFile.text) } as CheckSumCache.Generator
+        def cache = new CheckSumCache(new File(dir, "checksums.properties")) {
+            @Override
+            protected String computeContentDigest(URL url) {
+                digests++
+                return super.computeContentDigest(url)
+            }
+        }
+
+        when:
+        cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        then:
+        digests == 0
+
+        when:
+        cache.verifyContent = true
+        cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        then:
+        digests == 2
+
+        cleanup:
+        dir.deleteDir()
+    }
+
+    def "files rewritten with the same size and last modified time are hashed again when content is verified"() {
+        given:
+        def dir = File.createTempFile("checksumcache", "")
+        dir.delete()
+        dir.mkdirs()
+        def dataFile = new File(dir, "data.csv")
+        dataFile.text = "id,name\n1,a\n"
+        def lastModified = dataFile.lastModified()
+        def resourceAccessor = new FileSystemResourceAccessor()
+        def calls = 0
+        def generator = { calls++; CheckSum.compute(dataFile.text) } as CheckSumCache.Generator
+        def cache = new CheckSumCache(new File(dir, "checksums.properties"))
+        cache.verifyContent = true
+
+        when:
+        def first = cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+        dataFile.text = "id,name\n1,b\n"
+        dataFile.setLastModified(lastModified)
+        def second = cache.getCheckSum("test", dataFile.absolutePath, resourceAccessor, generator)
+
+        then:
+        calls == 2
+        second != first
+        second == CheckSum.compute("id,name\n1,b\n")
+
+        cleanup:
+        dir.deleteDir()
+    }
+
+    def "unresolvable paths are not cached"() {
+        given:
+        def calls = 0
+        def generator = { calls++; CheckSum.compute("x") } as CheckSumCache.Generator
+        def cache = new CheckSumCache(File.createTempFile("checksumcache", ".properties"))
+
+        when:
+        cache.getCheckSum("test", "does/not/exist.csv", new FileSystemResourceAccessor(), generator)
+        cache.getCheckSum("test", "does/not/exist.csv", new FileSystemResourceAccessor(), generator)
+
+        then:
+        calls == 2
+    }
+}
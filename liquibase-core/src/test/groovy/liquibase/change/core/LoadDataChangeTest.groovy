@@ -7,7 +7,9 @@ import liquibase.parser.core.ParsedNodeException;
 import liquibase.resource.ClassLoaderResourceAccessor
 import liquibase.snapshot.MockSnapshotGeneratorFactory
 import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.statement.BatchInsertExecutablePreparedStatement
 import liquibase.statement.SqlStatement;
+import liquibase.statement.SqlStatementHandler
 import liquibase.statement.core.InsertStatement
 import spock.lang.Unroll
 import liquibase.test.JUnitResourceAccessor
@@ -113,6 +115,78 @@ public class LoadDataChangeTest extends StandardChangeTest {
         Boolean.FALSE == ((InsertStatement) sqlStatements[1]).getColumnValue("active")
     }
 
+    def "batchSize generates a single batched insert"() throws Exception {
+        when:
+        LoadDataChange change = new LoadDataChange();
+        change.setSchemaName("SCHEMA_NAME");
+        change.setTableName("TABLE_NAME");
+        change.setFile("liquibase/change/core/sample.data1.csv");
+        change.setBatchSize(50);
+        change.setResourceAccessor(new ClassLoaderResourceAccessor());
+
+        SqlStatement[] sqlStatements = change.generateStatements(new MockDatabase());
+
+        then:
+        sqlStatements.length == 1
+        sqlStatements[0] instanceof BatchInsertExecutablePreparedStatement
+        ((BatchInsertExecutablePreparedStatement) sqlStatements[0]).batchSize == 50
+        ((BatchInsertExecutablePreparedStatement) sqlStatements[0]).columns*.name == ["name", "username"]
+        ((BatchInsertExecutablePreparedStatement) sqlStatements[0]).rows.size() == 2
+        ((BatchInsertExecutablePreparedStatement) sqlStatements[0]).rows[1]*.value == ["John Doe", "jdoe"]
+    }
+
+    def "batchSize is ignored when a column is computed"() throws Exception {
+        when:
+        LoadDataChange change = new LoadDataChange();
+        change.setTableName("TABLE_NAME");
+        change.setFile("liquibase/change/core/sample.data1.csv");
+        change.setBatchSize(50);
+        change.setResourceAccessor(new ClassLoaderResourceAccessor());
+
+        LoadDataColumnConfig nameConfig = new LoadDataColumnConfig();
+        nameConfig.setHeader("name");
+        nameConfig.setType("COMPUTED");
+        change.addColumn(nameConfig);
+
+        SqlStatement[] sqlStatements = change.generateStatements(new MockDatabase());
+
+        then:
+        sqlStatements.length == 2
+        sqlStatements[0] instanceof InsertStatement
+    }
+
+    def "streaming generateStatements passes each row to the handler"() throws Exception {
+        when:
+        LoadDataChange change = new LoadDataChange();
+        change.setTableName("TABLE_NAME");
+        change.setFile("liquibase/change/core/sample.data1.csv");
+        change.setResourceAccessor(new ClassLoaderResourceAccessor());
+
+        def handled = []
+        change.generateStatements(new MockDatabase(), { handled.add(it) } as SqlStatementHandler)
+
+        then:
+        handled.size() == 2
+        handled*.getColumnValue("username") == ["bjohnson", "jdoe"]
+    }
+
+    def "streaming generateStatements splits batches by batchSize"() throws Exception {
+        when:
+        LoadDataChange change = new LoadDataChange();
+        change.setTableName("TABLE_NAME");
+        change.setFile("liquibase/change/core/sample.data1.csv");
+        change.setBatchSize(1);
+        change.setResourceAccessor(new ClassLoaderResourceAccessor());
+
+        def handled = []
+        change.generateStatements(new MockDatabase(), { handled.add(it) } as SqlStatementHandler)
+
+        then:
+        handled.size() == 2
+        handled.every { it instanceof BatchInsertExecutablePreparedStatement && it.rows.size() == 1 }
+        handled[1].rows[0]*.value == ["John Doe", "jdoe"]
+    }
+
     def getConfirmationMessage() throws Exception {
         when:
         LoadDataChange refactoring = new LoadDataChange();
@@ -1,11 +1,17 @@
 package liquibase.changelog
 
+import liquibase.Contexts
+import liquibase.LabelExpression
+import liquibase.RuntimeEnvironment
 import liquibase.change.core.CreateTableChange
 import liquibase.change.core.RawSQLChange
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.parser.ChangeLogParserCofiguration
 import liquibase.parser.core.ParsedNode
 import liquibase.precondition.core.OrPrecondition
 import liquibase.precondition.core.PreconditionContainer
 import liquibase.precondition.core.RunningAsPrecondition
+import liquibase.sdk.database.MockDatabase
 import liquibase.sdk.supplier.resource.ResourceSupplier
 import liquibase.sdk.resource.MockResourceAccessor
 import spock.lang.Shared
@@ -84,6 +90,66 @@ create view sql_view as select * from sql_table;'''
         changeLog.getChangeSet(path, "auth", "with-dbms-and-context") == null
     }
 
+    def "getChangeSet is case insensitive and normalizes path separators"() {
+        when:
+        def changeLog = new DatabaseChangeLog("com/example/path.xml")
+        changeLog.addChangeSet(new ChangeSet("Id-1", "Auth", false, false, "com/example/path.xml", null, null, changeLog))
+
+        then:
+        changeLog.getChangeSet("COM\\example\\Path.xml", "auth", "id-1").id == "Id-1"
+        changeLog.getChangeSet("com/example/path.xml", "auth", "id-2") == null
+    }
+
+    def "getChangeSet sees change sets added after the first lookup"() {
+        when:
+        def path = "com/example/path.xml"
+        def changeLog = new DatabaseChangeLog(path)
+        changeLog.addChangeSet(new ChangeSet("1", "auth", false, false, path, null, null, changeLog))
+        assert changeLog.getChangeSet(path, "auth", "2") == null
+
+        changeLog.addChangeSet(new ChangeSet("2", "auth", false, false, path, null, null, changeLog))
+        changeLog.getChangeSets().add(new ChangeSet("3", "auth", false, false, path, null, null, changeLog))
+
+        then:
+        changeLog.getChangeSet(path, "auth", "2").id == "2"
+        changeLog.getChangeSet(path, "auth", "3").id == "3"
+        changeLog.getChangeSet(new RanChangeSet(path, "1", "auth", null, null, null, null, null, null)).id == "1"
+    }
+
+    def "getChangeSet sees change sets replaced or removed after the first lookup"() {
+        when:
+        def path = "com/example/path.xml"
+        def changeLog = new DatabaseChangeLog(path)
+        changeLog.addChangeSet(new ChangeSet("1", "auth", false, false, path, null, null, changeLog))
+        changeLog.addChangeSet(new ChangeSet("2", "auth", false, false, path, null, null, changeLog))
+        assert changeLog.getChangeSet(path, "auth", "1") != null
+
+        changeLog.getChangeSets().set(0, new ChangeSet("3", "auth", false, false, path, null, null, changeLog))
+        changeLog.getChangeSets().remove(1)
+        changeLog.getChangeSets().add(new ChangeSet("4", "auth", false, false, path, null, null, changeLog))
+
+        then:
+        changeLog.getChangeSet(path, "auth", "1") == null
+        changeLog.getChangeSet(path, "auth", "2") == null
+        changeLog.getChangeSet(path, "auth", "3").id == "3"
+        changeLog.getChangeSet(path, "auth", "4").id == "4"
+    }
+
+    def "normalizeChangeSetKey does not depend on the default locale"() {
+        when:
+        def defaultLocale = Locale.getDefault()
+        Locale.setDefault(new Locale("tr", "TR"))
+        def key
+        try {
+            key = DatabaseChangeLog.normalizeChangeSetKey("COM/EXAMPLE/INIT.XML", "ADMIN", "INIT-1")
+        } finally {
+            Locale.setDefault(defaultLocale)
+        }
+
+        then:
+        key == "com/example/init.xml::init-1::admin"
+    }
+
     def "load handles both changes and preconditions"() {
         when:
         def children = [
@@ -206,4 +272,112 @@ create view sql_view as select * from sql_table;'''
                                                               "com/example/children/file3.sql" ]
     }
 
+    def "parallel parsing merges included change sets in the same order as sequential parsing"() {
+        given:
+        def files = [:]
+        for (int i = 0; i < 30; i++) {
+            files["com/example/all/file" + String.format("%02d", i) + ".xml"] = test1Xml.replace('id="1"', 'id="' + i + '-1"').replace("</databaseChangeLog>", '<changeSet id="' + i + '-2" author="nvoxland"><sql>select ' + i + '</sql></changeSet></databaseChangeLog>')
+        }
+        files["com/example/first.xml"] = test1Xml
+        files["com/example/last.xml"] = test1Xml.replace("person", "last_person")
+        def resourceAccessor = new MockResourceAccessor(files)
+        def rootNode = new ParsedNode(null, "databaseChangeLog")
+                .addChildren([include: [file: "com/example/first.xml"]])
+                .addChildren([includeAll: [path: "com/example/all"]])
+                .addChildren([changeSet: [id: "1", author: "nvoxland", createTable: [tableName: "test_table"]]])
+                .addChildren([include: [file: "com/example/last.xml"]])
+        def parserConfiguration = LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration)
+
+        when:
+        def sequential = new DatabaseChangeLog("com/example/root.xml")
+        sequential.load(rootNode, resourceAccessor)
+
+        parserConfiguration.setParseThreads(4)
+        def parallel = new DatabaseChangeLog("com/example/root.xml")
+        parallel.load(rootNode, resourceAccessor)
+
+        then:
+        sequential.changeSets.size() == 63
+        parallel.changeSets.collect { it.toString(false) } == sequential.changeSets.collect { it.toString(false) }
+        parallel.preconditions.nestedPreconditions.size() == sequential.preconditions.nestedPreconditions.size()
+
+        cleanup:
+        parserConfiguration.setParseThreads(1)
+    }
+
+    def "parallel parsing resolves changelog parameters defined by several includes like sequential parsing"() {
+        given:
+        def header = '<databaseChangeLog xmlns="http://www.liquibase.org/xml/ns/dbchangelog" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance" ' +
+                'xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.3.xsd">'
+        def resourceAccessor = new MockResourceAccessor([
+                "com/example/a.xml": header + '<property name="scope.test.source" value="a"/><changeSet id="a" author="test"><sql>select \'${scope.test.source}\'</sql></changeSet></databaseChangeLog>',
+                "com/example/b.xml": header + '<property name="scope.test.source" value="b"/><changeSet id="b" author="test"><sql>select \'${scope.test.source}\'</sql></changeSet></databaseChangeLog>',
+                "com/example/c.xml": header + '<changeSet id="c" author="test"><sql>select \'${scope.test.source}\'</sql></changeSet></databaseChangeLog>',
+        ])
+        def rootNode = new ParsedNode(null, "databaseChangeLog")
+                .addChildren([include: [file: "com/example/a.xml"]])
+                .addChildren([include: [file: "com/example/b.xml"]])
+                .addChildren([include: [file: "com/example/c.xml"]])
+        def parserConfiguration = LiquibaseConfiguration.getInstance().getConfiguration(ChangeLogParserCofiguration)
+
+        when:
+        parserConfiguration.setParseThreads(4)
+        def results = []
+        for (int i = 0; i < 20; i++) {
+            def changeLog = new DatabaseChangeLog("com/example/root.xml")
+            def parameters = new ChangeLogParameters()
+            changeLog.setChangeLogParameters(parameters)
+            changeLog.load(rootNode, resourceAccessor)
+            results << (changeLog.changeSets.collect { ((RawSQLChange) it.changes[0]).sql } + parameters.getValue("scope.test.source"))
+        }
+
+        then:
+        results.unique() == [["select 'a'", "select 'a'", "select 'a'", "a"]]
+
+        cleanup:
+        parserConfiguration.setParseThreads(1)
+    }
+
+    def "parameter scopes read through to their parent and are checked again when merged"() {
+        given:
+        def parent = new ChangeLogParameters()
+        def first = parent.createScope()
+        def second = parent.createScope()
+
+        when:
+        first.set("scope.test.key", "first", (String) null, null, null)
+        second.set("scope.test.key", "second", (String) null, null, null)
+        def seenBySecond = second.getValue("scope.test.key")
+
+        then:
+        seenBySecond == "second"
+        parent.getValue("scope.test.key") == null
+        parent.mergeScope(first)
+        !parent.mergeScope(second)
+        parent.getValue("scope.test.key") == "first"
+        first.getValue("scope.test.key") == "first"
+    }
+
+    def "runtime environment is tracked per thread"() {
+        when:
+        def changeLog = new DatabaseChangeLog("com/example/test.xml")
+        def changeSet = new ChangeSet("1", "auth", false, false, "com/example/test.xml", null, null, changeLog)
+        def env = new RuntimeEnvironment(new MockDatabase(), new Contexts(), new LabelExpression())
+        env.markValidationFailed(changeSet)
+        changeLog.setRuntimeEnvironment(env)
+        def otherThreadEnv = null
+        def thread = new Thread({ otherThreadEnv = changeLog.getRuntimeEnvironment() })
+        thread.start()
+        thread.join()
+
+        then:
+        changeLog.getRuntimeEnvironment() == env
+        otherThreadEnv == null
+        env.isValidationFailed(changeSet)
+        !new RuntimeEnvironment(new MockDatabase(), new Contexts(), new LabelExpression()).isValidationFailed(changeSet)
+        changeSet.execute(changeLog, null, new MockDatabase()) == ChangeSet.ExecType.MARK_RAN
+
+        cleanup:
+        changeLog.setRuntimeEnvironment(null)
+    }
 }
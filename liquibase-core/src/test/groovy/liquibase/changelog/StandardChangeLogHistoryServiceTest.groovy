@@ -0,0 +1,93 @@
+package liquibase.changelog
+
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.DatabaseConnection
+import liquibase.database.core.H2Database
+import liquibase.executor.Executor
+import liquibase.executor.ExecutorService
+import liquibase.statement.core.BatchStatement
+import liquibase.statement.core.MarkChangeSetRanStatement
+import spock.lang.Specification
+
+class StandardChangeLogHistoryServiceTest extends Specification {
+
+    def connection = Mock(DatabaseConnection)
+    def executor = Mock(Executor)
+    def database = new H2Database()
+    def changeSet1 = new ChangeSet("1", "test", false, false, "com/example/test.xml", null, null, null)
+    def changeSet2 = new ChangeSet("2", "test", false, false, "com/example/test.xml", null, null, null)
+    def changeSet3 = new ChangeSet("3", "test", false, false, "com/example/test.xml", null, null, null)
+
+    def setup() {
+        database.setConnection(connection)
+        ExecutorService.getInstance().setExecutor(database, executor)
+    }
+
+    def cleanup() {
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).setChangeLogHistoryBatchSize(1)
+        ExecutorService.getInstance().reset()
+        ChangeLogHistoryServiceFactory.reset()
+    }
+
+    def "rows are written and committed one at a time by default"() {
+        when:
+        def service = ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database)
+        service.setExecType(changeSet1, ChangeSet.ExecType.EXECUTED)
+
+        then:
+        1 * executor.execute({ it instanceof MarkChangeSetRanStatement && it.changeSet == changeSet1 })
+
+        then:
+        1 * connection.commit()
+    }
+
+    def "batched rows are written in one batch when the update path flushes the history"() {
+        when:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).setChangeLogHistoryBatchSize(10)
+        def service = ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database)
+        service.setExecType(changeSet1, ChangeSet.ExecType.MARK_RAN)
+        service.setExecType(changeSet2, ChangeSet.ExecType.EXECUTED)
+
+        then:
+        0 * executor.execute(_)
+        0 * connection.commit()
+
+        when: "the database is committed without flushing"
+        database.commit()
+
+        then:
+        0 * executor.execute(_)
+        1 * connection.commit()
+
+        when:
+        AbstractChangeLogHistoryService.flushHistory(database)
+        database.commit()
+
+        then:
+        1 * executor.execute({ it instanceof BatchStatement && it.statements*.changeSet == [changeSet1, changeSet2] })
+
+        then:
+        1 * connection.commit()
+    }
+
+    def "batched rows are written and committed once the batch is full"() {
+        when:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration.class).setChangeLogHistoryBatchSize(2)
+        def service = ChangeLogHistoryServiceFactory.getInstance().getChangeLogService(database)
+        service.setExecType(changeSet1, ChangeSet.ExecType.EXECUTED)
+        service.setExecType(changeSet2, ChangeSet.ExecType.EXECUTED)
+        service.setExecType(changeSet3, ChangeSet.ExecType.EXECUTED)
+
+        then:
+        1 * executor.execute({ it instanceof BatchStatement && it.statements*.changeSet == [changeSet1, changeSet2] })
+        1 * connection.commit()
+
+        when:
+        service.flush()
+
+        then:
+        1 * executor.execute({ it instanceof MarkChangeSetRanStatement && it.changeSet == changeSet3 })
+        0 * connection.commit()
+    }
+}
@@ -0,0 +1,171 @@
+package liquibase.diff.core
+
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.diff.DiffResult
+import liquibase.diff.compare.CompareControl
+import liquibase.diff.compare.DatabaseObjectComparatorFactory
+import liquibase.snapshot.DatabaseSnapshot
+import liquibase.snapshot.SnapshotControl
+import liquibase.snapshot.SnapshotGeneratorFactory
+import liquibase.structure.DatabaseObject
+import liquibase.structure.core.Column
+import liquibase.structure.core.Index
+import liquibase.structure.core.Table
+import spock.lang.Specification
+
+import java.sql.DriverManager
+
+class StandardDiffGeneratorTest extends Specification {
+
+    def connections = []
+
+    def cleanup() {
+        connections.each {
+            it.createStatement().execute("shutdown")
+            it.close()
+        }
+    }
+
+    def "compare finds the same differences as looking up each object in the other snapshot"() {
+        given:
+        def reference = snapshot("diffReference", [
+                "create table person (id int primary key, name varchar(20), address varchar(50))",
+                "create table only_reference (id int)",
+                "create index idx_person_name on person(name)"])
+        def comparison = snapshot("diffComparison", [
+                "create table person (id int primary key, name varchar(40), phone varchar(20))",
+                "create table only_comparison (id int)",
+                "create index idx_person_phone on person(phone)"])
+
+        when:
+        def diffResult = new StandardDiffGenerator().compare(reference, comparison, new CompareControl())
+        def expected = lookupEachObject(reference, comparison)
+
+        then:
+        diffResult.missingObjects == expected.missingObjects
+        diffResult.unexpectedObjects == expected.unexpectedObjects
+        diffResult.changedObjects.keySet() == expected.changedObjects.keySet()
+
+        names(diffResult.getMissingObjects(Table)) == ["ONLY_REFERENCE"] as Set
+        names(diffResult.getUnexpectedObjects(Table)) == ["ONLY_COMPARISON"] as Set
+        names(diffResult.getMissingObjects(Column)) == ["ONLY_REFERENCE.ID", "PERSON.ADDRESS"] as Set
+        names(diffResult.getUnexpectedObjects(Column)) == ["ONLY_COMPARISON.ID", "PERSON.PHONE"] as Set
+        names(diffResult.getChangedObjects(Column).keySet()) == ["PERSON.NAME"] as Set
+        names(diffResult.getMissingObjects(Index)) == ["IDX_PERSON_NAME"] as Set
+        names(diffResult.getUnexpectedObjects(Index)) == ["IDX_PERSON_PHONE"] as Set
+    }
+
+    def "types compared on several threads give the same differences"() {
+        given:
+        def reference = snapshot("parallelReference", (1..20).collect { "create table t" + it + " (id int primary key, name varchar(20))" })
+        def comparison = snapshot("parallelComparison", (1..20).collect { "create table t" + it + " (id int primary key, name varchar(" + (it % 3 == 0 ? 30 : 20) + "))" })
+        def generator = new StandardDiffGenerator() {
+            @Override
+            protected int getComparisonThreads(Set<Class<? extends DatabaseObject>> types) {
+                return 4
+            }
+        }
+
+        when:
+        def diffResult = generator.compare(reference, comparison, new CompareControl())
+        def expected = lookupEachObject(reference, comparison)
+
+        then:
+        diffResult.missingObjects == expected.missingObjects
+        diffResult.unexpectedObjects == expected.unexpectedObjects
+        diffResult.changedObjects.keySet() == expected.changedObjects.keySet()
+        names(diffResult.getChangedObjects(Column).keySet()).size() == 6
+    }
+
+    def "types compared on several threads go through compareObjectType"() {
+        given:
+        def reference = snapshot("hookReference", ["create table person (id int primary key)"])
+        def comparison = snapshot("hookComparison", ["create table person (id int primary key)"])
+        def comparedTypes = Collections.synchronizedSet(new HashSet())
+        def generator = new StandardDiffGenerator() {
+            @Override
+            protected int getComparisonThreads(Set<Class<? extends DatabaseObject>> types) {
+                return 4
+            }
+
+            @Override
+            protected <T extends DatabaseObject> void compareObjectType(Class<T> type, DatabaseSnapshot referenceSnapshot, DatabaseSnapshot comparisonSnapshot, DiffResult diffResult) {
+                comparedTypes.add(type)
+                if (type == Table) {
+                    diffResult.addUnexpectedObject(new Table(null, null, "FROM_HOOK"))
+                } else {
+                    super.compareObjectType(type, referenceSnapshot, comparisonSnapshot, diffResult)
+                }
+            }
+        }
+        def compareControl = new CompareControl()
+
+        when:
+        def diffResult = generator.compare(reference, comparison, compareControl)
+
+        then:
+        comparedTypes == diffResult.compareControl.comparedTypes
+        comparedTypes.size() > 1
+        names(diffResult.getUnexpectedObjects(Table)) == ["FROM_HOOK"] as Set
+    }
+
+    def "comparisons remember same object results until they end"() {
+        given:
+        def factory = DatabaseObjectComparatorFactory.instance
+        def database = DatabaseFactory.instance.getDatabase("hsqldb")
+        def table1 = new Table(null, null, "a")
+        def table2 = new Table(null, null, "a")
+
+        when:
+        factory.startComparison()
+        def before = factory.isSameObject(table1, table2, database)
+        table2.name = "b"
+        def cached = factory.isSameObject(table1, table2, database)
+        factory.endComparison()
+
+        then:
+        before
+        cached
+        !factory.isSameObject(table1, table2, database)
+    }
+
+    private DatabaseSnapshot snapshot(String name, List<String> statements) {
+        def connection = DriverManager.getConnection("jdbc:hsqldb:mem:" + name, "SA", "")
+        connections.add(connection)
+        statements.each { connection.createStatement().execute(it) }
+        Database database = DatabaseFactory.instance.findCorrectDatabaseImplementation(new JdbcConnection(connection))
+        return SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database))
+    }
+
+    private DiffResult lookupEachObject(DatabaseSnapshot reference, DatabaseSnapshot comparison) {
+        def compareControl = new CompareControl()
+        def diffResult = new DiffResult(reference, comparison, compareControl)
+        def types = compareControl.comparedTypes
+        types.retainAll(reference.snapshotControl.typesToInclude)
+        for (Class<? extends DatabaseObject> type : types) {
+            for (DatabaseObject referenceObject : reference.get(type)) {
+                def comparisonObject = comparison.get(referenceObject)
+                if (comparisonObject == null) {
+                    diffResult.addMissingObject(referenceObject)
+                } else {
+                    def differences = DatabaseObjectComparatorFactory.instance.findDifferences(referenceObject, comparisonObject, comparison.database, compareControl)
+                    if (differences.hasDifferences()) {
+                        diffResult.addChangedObject(referenceObject, differences)
+                    }
+                }
+            }
+            for (DatabaseObject comparisonObject : comparison.get(type)) {
+                if (reference.get(comparisonObject) == null) {
+                    diffResult.addUnexpectedObject(comparisonObject)
+                }
+            }
+        }
+        return diffResult
+    }
+
+    private Set<String> names(Collection<? extends DatabaseObject> objects) {
+        return objects.collect { it instanceof Column ? it.relation.name + "." + it.name : it.name } as Set
+    }
+}
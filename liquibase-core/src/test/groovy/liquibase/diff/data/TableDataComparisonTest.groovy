@@ -0,0 +1,173 @@
+package liquibase.diff.data
+
+import liquibase.change.Change
+import liquibase.change.core.DeleteDataChange
+import liquibase.change.core.InsertDataChange
+import liquibase.change.core.UpdateDataChange
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.diff.DiffGeneratorFactory
+import liquibase.diff.compare.CompareControl
+import liquibase.diff.output.DiffOutputControl
+import liquibase.diff.output.changelog.DiffToChangeLog
+import liquibase.executor.ExecutorService
+import liquibase.exception.UnexpectedLiquibaseException
+import liquibase.snapshot.DatabaseSnapshot
+import liquibase.snapshot.SnapshotControl
+import liquibase.snapshot.SnapshotGeneratorFactory
+import liquibase.structure.core.Column
+import liquibase.structure.core.Data
+import liquibase.structure.core.ForeignKey
+import liquibase.structure.core.PrimaryKey
+import liquibase.structure.core.Table
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DriverManager
+
+class TableDataComparisonTest extends Specification {
+
+    List<Connection> connections = []
+
+    def cleanup() {
+        connections.each {
+            it.createStatement().execute("shutdown")
+            it.close()
+        }
+    }
+
+    def "changes make the comparison table contain the reference rows"() {
+        given:
+        def reference = database("dataReference", [
+                "create table person (id int primary key, name varchar(20), age int)",
+                "insert into person values (1, 'Ann', 30)",
+                "insert into person values (2, 'Bob', 40)",
+                "insert into person values (4, 'Dan', null)",
+                "insert into person values (5, 'Eve', 50)"])
+        def comparison = database("dataComparison", [
+                "create table person (id int primary key, name varchar(20), age int)",
+                "insert into person values (1, 'Ann', 30)",
+                "insert into person values (2, 'Bob', 41)",
+                "insert into person values (3, 'Cal', 20)",
+                "insert into person values (4, 'Dan', 10)"])
+
+        when:
+        def changes = []
+        def comparisonRun = compare(reference, comparison, "PERSON")
+        comparisonRun.compare(new DataChangeListener() {
+            @Override
+            void changeGenerated(Change change) {
+                changes.add(change)
+            }
+        })
+
+        then:
+        changes*.class == [UpdateDataChange, DeleteDataChange, UpdateDataChange, InsertDataChange]
+        changes[0].columns*.name == ["AGE"]
+        changes[0].whereParams*.valueObject == [2]
+        changes[1].whereParams*.valueObject == [3]
+        changes[2].columns*.valueObject == [null]
+        changes[3].columns*.valueObject == [5, "Eve", 50]
+        comparisonRun.comparedRows == 3
+        comparisonRun.insertedRows == 1
+        comparisonRun.updatedRows == 2
+        comparisonRun.deletedRows == 1
+
+        when:
+        changes.each { ExecutorService.instance.getExecutor(comparison).execute((Change) it) }
+
+        then:
+        rows(comparison, "person") == rows(reference, "person")
+    }
+
+    def "composite keys and empty tables are compared"() {
+        given:
+        def reference = database("compositeReference", [
+                "create table item (order_id int, line int, product varchar(10), primary key (order_id, line))",
+                "insert into item values (1, 1, 'a')",
+                "insert into item values (1, 2, 'b')",
+                "insert into item values (2, 1, 'c')"])
+        def comparison = database("compositeComparison", [
+                "create table item (order_id int, line int, product varchar(10), primary key (order_id, line))"])
+
+        when:
+        def changes = []
+        compare(reference, comparison, "ITEM").compare(new DataChangeListener() {
+            @Override
+            void changeGenerated(Change change) {
+                changes.add(change)
+            }
+        })
+        changes.each { ExecutorService.instance.getExecutor(comparison).execute((Change) it) }
+
+        then:
+        changes.size() == 3
+        rows(comparison, "item") == rows(reference, "item")
+    }
+
+    def "rows returned out of key order stop the comparison"() {
+        given:
+        def reference = database("orderReference", [
+                "create table code (id varchar_ignorecase(10) primary key)",
+                "insert into code values ('a')",
+                "insert into code values ('B')"])
+        def comparison = database("orderComparison", ["create table code (id varchar_ignorecase(10) primary key)"])
+
+        when:
+        compare(reference, comparison, "CODE").compare(new DataChangeListener() {
+            @Override
+            void changeGenerated(Change change) {
+            }
+        })
+
+        then:
+        def e = thrown(UnexpectedLiquibaseException)
+        e.message.contains("order of their primary key values")
+    }
+
+    def "diff changelogs include data changes of tables in both databases"() {
+        given:
+        def reference = database("changeLogReference", [
+                "create table person (id int primary key, name varchar(20))",
+                "insert into person values (1, 'Ann')"])
+        def comparison = database("changeLogComparison", [
+                "create table person (id int primary key, name varchar(20))",
+                "insert into person values (1, 'Bob')"])
+        def types = [Table, Column, PrimaryKey, ForeignKey, Data] as Set
+
+        when:
+        def diffResult = DiffGeneratorFactory.instance.compare(reference, comparison, new SnapshotControl(reference, types as Class[]), new SnapshotControl(comparison, types as Class[]), new CompareControl(types))
+        def changeSets = new DiffToChangeLog(diffResult, new DiffOutputControl()).generateChangeSets()
+
+        then:
+        changeSets*.changes.flatten()*.class == [UpdateDataChange]
+    }
+
+    private TableDataComparison compare(Database reference, Database comparison, String tableName) {
+        def referenceTable = snapshot(reference).get(new Table(null, null, tableName))
+        def comparisonTable = snapshot(comparison).get(new Table(null, null, tableName))
+        return new TableDataComparison(referenceTable, reference, comparisonTable, comparison, new DiffOutputControl(false, false, false)).setFetchSize(2)
+    }
+
+    private DatabaseSnapshot snapshot(Database database) {
+        return SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database))
+    }
+
+    private Database database(String name, List<String> statements) {
+        def connection = DriverManager.getConnection("jdbc:hsqldb:mem:" + name, "SA", "")
+        connections.add(connection)
+        statements.each { connection.createStatement().execute(it) }
+        return DatabaseFactory.instance.findCorrectDatabaseImplementation(new JdbcConnection(connection))
+    }
+
+    private List<List<Object>> rows(Database database, String table) {
+        def resultSet = ((JdbcConnection) database.connection).createStatement().executeQuery("select * from " + table + " order by 1, 2")
+        def rows = []
+        while (resultSet.next()) {
+            rows.add((1..resultSet.metaData.columnCount).collect { resultSet.getObject(it) })
+        }
+        resultSet.close()
+        return rows
+    }
+}
@@ -0,0 +1,138 @@
+package liquibase.diff.output.changelog
+
+import liquibase.changelog.ChangeSet
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.diff.DiffGeneratorFactory
+import liquibase.diff.DiffResult
+import liquibase.diff.compare.CompareControl
+import liquibase.diff.output.DiffOutputControl
+import liquibase.serializer.ChangeLogSerializerFactory
+import liquibase.snapshot.SnapshotControl
+import spock.lang.Specification
+
+import javax.xml.parsers.DocumentBuilderFactory
+import java.sql.Connection
+import java.sql.DriverManager
+
+class DiffToChangeLogFileTest extends Specification {
+
+    List<Connection> connections = []
+    File file
+
+    def setup() {
+        ChangeLogSerializerFactory.reset()
+        file = File.createTempFile("changelog", ".xml")
+        file.delete()
+    }
+
+    def cleanup() {
+        connections.each {
+            it.createStatement().execute("shutdown")
+            it.close()
+        }
+        file.delete()
+    }
+
+    def "changeSets are appended to existing changelogs as they are generated"() {
+        given:
+        def reference = database("fileReference", ["create table person (id int primary key)"])
+        def comparison = database("fileComparison", [])
+
+        when:
+        new DiffToChangeLog(diff(reference, comparison), new DiffOutputControl()).print(file.absolutePath)
+        def created = file.text
+        ((JdbcConnection) reference.connection).createStatement().execute("create table address (id int primary key)")
+        new DiffToChangeLog(diff(reference, comparison), new DiffOutputControl()).print(file.absolutePath)
+        def document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file)
+
+        then:
+        created.contains("PERSON")
+        !created.contains("ADDRESS")
+        document.documentElement.getElementsByTagName("changeSet").length == 6
+        file.text.contains("ADDRESS")
+        file.text.trim().endsWith("</databaseChangeLog>")
+    }
+
+    def "existing changelogs are not changed without differences"() {
+        given:
+        def reference = database("emptyReference", [])
+        def comparison = database("emptyComparison", [])
+        file.text = "<databaseChangeLog>\n</databaseChangeLog>\n"
+
+        when:
+        new DiffToChangeLog(diff(reference, comparison), new DiffOutputControl()).print(file.absolutePath)
+
+        then:
+        file.text == "<databaseChangeLog>\n</databaseChangeLog>\n"
+    }
+
+    def "existing changelogs are not changed when generation fails"() {
+        given:
+        def reference = database("failingReference", ["create table person (id int primary key)", "create table address (id int primary key)"])
+        def comparison = database("failingComparison", [])
+        def original = "<databaseChangeLog>\n</databaseChangeLog>\n"
+        file.text = original
+        def exportCalls = []
+        def outputControl = new DiffOutputControl() {
+            @Override
+            void waitForDataExport() {
+                exportCalls.add("wait")
+            }
+
+            @Override
+            void cancelDataExport() {
+                exportCalls.add("cancel")
+            }
+        }
+        def diffToChangeLog = new DiffToChangeLog(diff(reference, comparison), outputControl) {
+            @Override
+            void generateChangeSets(ChangeSetListener listener) {
+                super.generateChangeSets(new ChangeSetListener() {
+                    int generated
+
+                    @Override
+                    void changeSetGenerated(ChangeSet changeSet) {
+                        if (generated++ == 2) {
+                            throw new IllegalStateException("generation failed")
+                        }
+                        listener.changeSetGenerated(changeSet)
+                    }
+                })
+            }
+        }
+
+        when:
+        diffToChangeLog.print(file.absolutePath)
+
+        then:
+        thrown(IllegalStateException)
+        exportCalls == ["cancel"]
+        file.text == original
+        file.parentFile.listFiles().findAll { it.name.startsWith(file.name) && it.name.endsWith(".tmp") }.isEmpty()
+    }
+
+    def "empty changelogs are written in full"() {
+        given:
+        def reference = database("newReference", [])
+        def comparison = database("newComparison", [])
+
+        when:
+        new DiffToChangeLog(diff(reference, comparison), new DiffOutputControl()).print(file.absolutePath)
+
+        then:
+        DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file).documentElement.tagName == "databaseChangeLog"
+    }
+
+    private DiffResult diff(Database reference, Database comparison) {
+        return DiffGeneratorFactory.instance.compare(reference, comparison, new SnapshotControl(reference), new SnapshotControl(comparison), new CompareControl())
+    }
+
+    private Database database(String name, List<String> statements) {
+        def connection = DriverManager.getConnection("jdbc:hsqldb:mem:" + name, "SA", "")
+        connections.add(connection)
+        statements.each { connection.createStatement().execute(it) }
+        return DatabaseFactory.instance.findCorrectDatabaseImplementation(new JdbcConnection(connection))
+    }
+}
@@ -0,0 +1,176 @@
+package liquibase.diff.output.changelog.core
+
+import liquibase.CatalogAndSchema
+import liquibase.change.core.LoadDataChange
+import liquibase.database.Database
+import liquibase.database.DatabaseConnection
+import liquibase.database.DatabaseFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.diff.output.DiffOutputControl
+import liquibase.exception.DatabaseException
+import liquibase.exception.UnexpectedLiquibaseException
+import liquibase.snapshot.SnapshotConnectionSupplier
+import liquibase.snapshot.SnapshotControl
+import liquibase.snapshot.SnapshotGeneratorFactory
+import liquibase.structure.core.Data
+import liquibase.structure.core.Table
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DriverManager
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class MissingDataExternalFileChangeGeneratorTest extends Specification {
+
+    def url = "jdbc:hsqldb:mem:dataExport"
+    Connection connection
+    Database database
+    File dataDir
+
+    def setup() {
+        connection = DriverManager.getConnection(url, "SA", "")
+        def statement = connection.createStatement()
+        statement.execute("create table person (id int primary key, name varchar(20), amount decimal(10,2), score double, born date, seen timestamp, active boolean)")
+        statement.execute("insert into person values (1, 'Ann \"A\", Jr', 12.50, 1.5, '2001-02-03', '2001-02-03 04:05:06.7', true)")
+        statement.execute("insert into person values (2, null, null, null, null, null, null)")
+        statement.execute("create table address (id bigint primary key, street varchar(20))")
+        statement.execute("insert into address values (9000000000, 'Main')")
+        statement.close()
+        database = DatabaseFactory.instance.findCorrectDatabaseImplementation(new JdbcConnection(connection))
+        dataDir = File.createTempFile("data", "")
+        dataDir.delete()
+    }
+
+    def cleanup() {
+        connection.createStatement().execute("shutdown")
+        connection.close()
+        dataDir.deleteDir()
+    }
+
+    def "values are written with their type specific format"() {
+        when:
+        def change = (LoadDataChange) export(new MissingDataExternalFileChangeGenerator(dataDir.absolutePath), "PERSON")[0]
+
+        then:
+        new File(dataDir, "person.csv").getText("UTF-8") == '"ID","NAME","AMOUNT","SCORE","BORN","SEEN","ACTIVE"\n' +
+                '"1","Ann ""A"", Jr","12.50","1.5","2001-02-03","2001-02-03T04:05:06.700","true"\n' +
+                '"2","NULL","NULL","NULL","NULL","NULL","NULL"\n'
+        change.file == dataDir.absolutePath + "/person.csv"
+        change.encoding == "UTF-8"
+        change.columns*.name == ["ID", "NAME", "AMOUNT", "SCORE", "BORN", "SEEN", "ACTIVE"]
+        change.columns*.type == ["NUMERIC", "STRING", "NUMERIC", "NUMERIC", "DATE", "DATE", "BOOLEAN"]
+    }
+
+    def "tables are exported in the background over supplied connections"() {
+        given:
+        def opened = []
+        def generator = new MissingDataExternalFileChangeGenerator(dataDir.absolutePath).setFetchSize(1).setParallelConnections(2).setConnectionSupplier(new SnapshotConnectionSupplier() {
+            @Override
+            DatabaseConnection openConnection(Database database) throws DatabaseException {
+                def connection = new JdbcConnection(DriverManager.getConnection(url, "SA", ""))
+                synchronized (opened) {
+                    opened.add(connection)
+                }
+                return connection
+            }
+        })
+
+        when:
+        def changes = export(generator, "PERSON") + export(generator, "ADDRESS")
+        generator.waitForExports()
+
+        then:
+        changes*.tableName == ["PERSON", "ADDRESS"]
+        new File(dataDir, "person.csv").getText("UTF-8").readLines().size() == 3
+        new File(dataDir, "address.csv").getText("UTF-8") == '"ID","STREET"\n"9000000000","Main"\n'
+        opened.size() in [1, 2]
+        opened.every { it.closed }
+    }
+
+    def "failed background exports are reported when waiting"() {
+        given:
+        def generator = new MissingDataExternalFileChangeGenerator(dataDir.absolutePath).setConnectionSupplier(new SnapshotConnectionSupplier() {
+            @Override
+            DatabaseConnection openConnection(Database database) throws DatabaseException {
+                throw new DatabaseException("no connection")
+            }
+        })
+
+        when:
+        export(generator, "PERSON")
+        generator.waitForExports()
+
+        then:
+        def e = thrown(UnexpectedLiquibaseException)
+        e.cause instanceof DatabaseException
+    }
+
+    def "tables outside the default schema are exported to files named after their schema"() {
+        given:
+        def statement = connection.createStatement()
+        statement.execute("create schema other")
+        statement.execute("create table other.person (id int primary key)")
+        statement.execute("insert into other.person values (1)")
+        statement.close()
+        def generator = new MissingDataExternalFileChangeGenerator(dataDir.absolutePath)
+
+        when:
+        def changes = export(generator, "PERSON") + export(generator, "PERSON", "OTHER")
+
+        then:
+        changes*.file == [dataDir.absolutePath + "/person.csv", dataDir.absolutePath + "/other.person.csv"]
+        new File(dataDir, "person.csv").getText("UTF-8").readLines().size() == 3
+        new File(dataDir, "other.person.csv").getText("UTF-8") == '"ID"\n"1"\n'
+    }
+
+    def "exporting two tables to the same file fails"() {
+        given:
+        def generator = new MissingDataExternalFileChangeGenerator(dataDir.absolutePath) {
+            @Override
+            protected String getFileName(Table table, Database database) {
+                return "all.csv"
+            }
+        }
+
+        when:
+        export(generator, "PERSON")
+        export(generator, "ADDRESS")
+
+        then:
+        def e = thrown(UnexpectedLiquibaseException)
+        e.message.contains("all.csv")
+    }
+
+    def "cancelling closes the export connections"() {
+        given:
+        def opened = []
+        def opening = new CountDownLatch(1)
+        def generator = new MissingDataExternalFileChangeGenerator(dataDir.absolutePath).setConnectionSupplier(new SnapshotConnectionSupplier() {
+            @Override
+            DatabaseConnection openConnection(Database database) throws DatabaseException {
+                def connection = new JdbcConnection(DriverManager.getConnection(url, "SA", ""))
+                synchronized (opened) {
+                    opened.add(connection)
+                }
+                opening.countDown()
+                return connection
+            }
+        })
+
+        when:
+        export(generator, "PERSON")
+        opening.await(10, TimeUnit.SECONDS)
+        generator.cancelExports()
+
+        then:
+        opened.every { it.closed }
+        export(generator, "PERSON").size() == 1
+    }
+
+    private List export(MissingDataExternalFileChangeGenerator generator, String tableName, String schemaName = null) {
+        def schema = schemaName == null ? database.defaultSchema : new CatalogAndSchema(null, schemaName)
+        def table = SnapshotGeneratorFactory.instance.createSnapshot(schema, database, new SnapshotControl(database)).get(new Table(null, schemaName, tableName))
+        return generator.fixMissing(new Data().setTable(table), new DiffOutputControl(), database, database, null) as List
+    }
+}
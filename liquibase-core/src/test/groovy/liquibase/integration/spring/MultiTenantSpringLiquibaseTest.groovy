@@ -0,0 +1,156 @@
+package liquibase.integration.spring
+
+import liquibase.exception.DatabaseException
+import liquibase.exception.LiquibaseException
+import org.springframework.core.io.FileSystemResourceLoader
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.sql.DataSource
+import java.sql.DriverManager
+import java.sql.SQLException
+import java.util.concurrent.atomic.AtomicInteger
+
+class MultiTenantSpringLiquibaseTest extends Specification {
+
+    @Unroll("fail fast with #threads threads reports the first failure unchanged")
+    def "fail fast stops after the first failure"() {
+        given:
+        def dataSource = Mock(DataSource)
+        def liquibase = new MultiTenantSpringLiquibase()
+        liquibase.dataSource = dataSource
+        liquibase.schemas = ["a", "b", "c"]
+        liquibase.changeLog = "changelog.xml"
+        liquibase.parallelThreads = threads
+
+        when:
+        liquibase.afterPropertiesSet()
+
+        then:
+        def e = thrown(DatabaseException)
+        e.cause instanceof SQLException
+        (1..3) * dataSource.getConnection() >> { throw new SQLException("cannot connect") }
+
+        where:
+        threads << [1, 3]
+    }
+
+    def "fail fast lets running tenants finish and does not start the others"() {
+        given:
+        def dataSource = Mock(DataSource)
+        def liquibase = new MultiTenantSpringLiquibase()
+        liquibase.dataSource = dataSource
+        liquibase.schemas = ["a", "b", "c"]
+        liquibase.changeLog = "changelog.xml"
+        liquibase.parallelThreads = 2
+        def calls = new AtomicInteger()
+        def interrupted = false
+
+        when:
+        liquibase.afterPropertiesSet()
+
+        then:
+        def e = thrown(DatabaseException)
+        e.cause instanceof SQLException
+        !interrupted
+        2 * dataSource.getConnection() >> {
+            if (calls.incrementAndGet() > 1) {
+                try {
+                    Thread.sleep(500)
+                } catch (InterruptedException ignored) {
+                    interrupted = true
+                }
+            }
+            throw new SQLException("cannot connect")
+        }
+    }
+
+    @Unroll("continue on error with #threads threads attempts every tenant")
+    def "continue on error attempts every tenant and reports all failures"() {
+        given:
+        def dataSource = Mock(DataSource)
+        def liquibase = new MultiTenantSpringLiquibase()
+        liquibase.dataSource = dataSource
+        liquibase.schemas = ["a", "b", "c", "d"]
+        liquibase.changeLog = "changelog.xml"
+        liquibase.parallelThreads = threads
+        liquibase.failFast = false
+
+        when:
+        liquibase.afterPropertiesSet()
+
+        then:
+        def e = thrown(LiquibaseException)
+        e.message.startsWith("Liquibase failed for 4 of 4 tenants:")
+        ["a", "b", "c", "d"].every { e.message.contains("schema " + it + ": ") }
+        4 * dataSource.getConnection() >> { throw new SQLException("cannot connect") }
+
+        where:
+        threads << [1, 3]
+    }
+
+    def "the changelog is not shared between tenants by default"() {
+        expect:
+        !new MultiTenantSpringLiquibase().shareChangeLog
+    }
+
+    @Unroll("tenants with different parameters are migrated with their own values when shareChangeLog is #share and #threads threads")
+    def "tenants with different parameters are migrated with their own values"() {
+        given:
+        def dir = File.createTempFile("multitenant", "")
+        dir.delete()
+        dir.mkdirs()
+        def changeLogFile = new File(dir, "changelog.xml")
+        changeLogFile.text = '''<databaseChangeLog xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.3.xsd">
+    <changeSet id="1" author="test">
+        <createTable tableName="marker">
+            <column name="tenant" type="varchar(50)"/>
+        </createTable>
+    </changeSet>
+    <changeSet id="2" author="test">
+        <insert tableName="marker">
+            <column name="tenant" value="${database.defaultSchemaName}"/>
+        </insert>
+    </changeSet>
+</databaseChangeLog>'''
+        def url = "jdbc:hsqldb:mem:multitenant" + System.nanoTime()
+        def keepAlive = DriverManager.getConnection(url, "SA", "")
+        keepAlive.createStatement().execute("CREATE SCHEMA TENANT_A")
+        keepAlive.createStatement().execute("CREATE SCHEMA TENANT_B")
+
+        def liquibase = new MultiTenantSpringLiquibase()
+        liquibase.dataSource = new DriverManagerDataSource("org.hsqldb.jdbc.JDBCDriver", url, "SA", "")
+        liquibase.schemas = ["TENANT_A", "TENANT_B"]
+        liquibase.changeLog = "file:" + changeLogFile.absolutePath
+        liquibase.resourceLoader = new FileSystemResourceLoader()
+        liquibase.shareChangeLog = share
+        liquibase.parallelThreads = threads
+
+        when:
+        liquibase.afterPropertiesSet()
+
+        then:
+        ["TENANT_A", "TENANT_B"].every { schema ->
+            def resultSet = keepAlive.createStatement().executeQuery("SELECT TENANT FROM " + schema + ".MARKER")
+            def tenants = []
+            while (resultSet.next()) {
+                tenants << resultSet.getString(1)
+            }
+            tenants == [schema]
+        }
+
+        cleanup:
+        keepAlive?.createStatement()?.execute("SHUTDOWN")
+        dir.deleteDir()
+
+        where:
+        share | threads
+        false | 1
+        false | 2
+        true  | 1
+        true  | 2
+    }
+}
@@ -0,0 +1,198 @@
+package liquibase.lockservice
+
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.Database
+import liquibase.database.core.HsqlDatabase
+import liquibase.database.core.MySQLDatabase
+import liquibase.database.jvm.JdbcConnection
+import liquibase.exception.DatabaseException
+import liquibase.exception.LockException
+import liquibase.executor.Executor
+import liquibase.executor.ExecutorService
+import liquibase.executor.jvm.JdbcExecutor
+import liquibase.statement.SqlStatement
+import liquibase.statement.core.AdvisoryLockDatabaseChangeLogStatement
+import liquibase.statement.core.AdvisoryUnlockDatabaseChangeLogStatement
+import spock.lang.Specification
+
+import java.sql.DriverManager
+import java.sql.SQLException
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+
+/**
+ * Runs against an in-memory HSQLDB database, which has no advisory locks, so they are simulated by {@link AdvisoryLockExecutor}.
+ * The database is dropped when the last connection of a feature is closed.
+ */
+class AdvisoryLockServiceTest extends Specification {
+
+    Semaphore advisoryLock = new Semaphore(1)
+    List<Database> databases = []
+
+    def cleanup() {
+        databases.each { it.close() }
+        ExecutorService.getInstance().reset()
+        LiquibaseConfiguration.getInstance().reset()
+    }
+
+    def "supported where the database has advisory locks unless turned off"() {
+        expect:
+        new AdvisoryLockService().supports(new MySQLDatabase())
+        !new AdvisoryLockService().supports(new HsqlDatabase())
+
+        when:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setUseNativeChangeLogLock(false)
+
+        then:
+        !new AdvisoryLockService().supports(new MySQLDatabase())
+    }
+
+    def "waiting instance gets the lock as soon as it is released without polling the lock table"() {
+        when:
+        def first = createLockService(false)
+        def second = createLockService(false)
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setDatabaseChangeLogLockPollRate(60)
+        first.waitForLock()
+
+        def acquiredAt = null
+        def waiting = Thread.start {
+            second.waitForLock()
+            acquiredAt = System.currentTimeMillis()
+        }
+        Thread.sleep(200)
+        def secondLockedBeforeRelease = second.hasChangeLogLock()
+        def releasedAt = System.currentTimeMillis()
+        first.releaseLock()
+        waiting.join(10000)
+
+        then:
+        first.hasAdvisoryLock() == false
+        !secondLockedBeforeRelease
+        second.hasChangeLogLock()
+        second.hasAdvisoryLock()
+        acquiredAt - releasedAt < 5000
+        second.listLocks().length == 1
+
+        when:
+        second.releaseLock()
+
+        then:
+        advisoryLock.availablePermits() == 1
+        first.listLocks().length == 0
+    }
+
+    def "lock table is used when the database refuses the advisory lock"() {
+        when:
+        def first = createLockService(true)
+        def second = createLockService(true)
+        second.setChangeLogLockWaitTime(0)
+        first.waitForLock()
+        second.waitForLock()
+
+        then:
+        first.hasChangeLogLock()
+        !first.hasAdvisoryLock()
+        def e = thrown(LockException)
+        e.message.startsWith("Could not acquire change log lock.  Currently locked by")
+        advisoryLock.availablePermits() == 1
+    }
+
+    def "lock is not granted while another instance holds it"() {
+        when:
+        def first = createLockService(false)
+        def second = createLockService(false)
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setDatabaseChangeLogLockWaitTime(0)
+        first.waitForLock()
+        second.waitForLock()
+
+        then:
+        def e = thrown(LockException)
+        e.message.startsWith("Could not acquire change log lock.  Currently locked by")
+        first.hasChangeLogLock()
+        !second.hasChangeLogLock()
+        !second.hasAdvisoryLock()
+    }
+
+    def "lock timeout of the database is reported without polling the lock table"() {
+        when:
+        def first = createLockService(false)
+        first.waitForLock()
+
+        def polled = 0
+        def second = createLockService(false, new AdvisoryLockService() {
+            @Override
+            boolean acquireLock() throws LockException {
+                polled++
+                return super.acquireLock()
+            }
+        })
+        ((AdvisoryLockExecutor) ExecutorService.getInstance().getExecutor(databases[1])).timeoutWithError = true
+        second.setChangeLogLockWaitTime(0)
+        second.waitForLock()
+
+        then:
+        def e = thrown(LockException)
+        e.message.startsWith("Could not acquire change log lock.  Currently locked by")
+        polled == 0
+        !second.hasAdvisoryLock()
+        first.hasChangeLogLock()
+    }
+
+    private AdvisoryLockService createLockService(boolean refuseAdvisoryLock, AdvisoryLockService lockService = new AdvisoryLockService()) {
+        def database = new HsqlDatabase()
+        database.setConnection(new JdbcConnection(DriverManager.getConnection("jdbc:hsqldb:mem:advisorylock;shutdown=true", "SA", "")))
+        databases << database
+
+        def jdbcExecutor = new JdbcExecutor()
+        jdbcExecutor.setDatabase(database)
+        ExecutorService.getInstance().setExecutor(database, new AdvisoryLockExecutor(jdbcExecutor, advisoryLock, refuseAdvisoryLock))
+
+        lockService.setDatabase(database)
+        return lockService
+    }
+
+    /**
+     * Runs statements on the database, except for the advisory lock statements which take and release a semaphore shared by all instances.
+     * With timeoutWithError, running out of time fails like lock_timeout does on Postgres instead of returning 0.
+     */
+    static class AdvisoryLockExecutor implements Executor {
+        @Delegate
+        Executor delegate
+        Semaphore advisoryLock
+        boolean refuseAdvisoryLock
+        boolean timeoutWithError
+
+        AdvisoryLockExecutor(Executor delegate, Semaphore advisoryLock, boolean refuseAdvisoryLock) {
+            this.delegate = delegate
+            this.advisoryLock = advisoryLock
+            this.refuseAdvisoryLock = refuseAdvisoryLock
+        }
+
+        @Override
+        int queryForInt(SqlStatement sql) throws DatabaseException {
+            if (sql instanceof AdvisoryLockDatabaseChangeLogStatement) {
+                if (refuseAdvisoryLock) {
+                    throw new DatabaseException("advisory locks are not allowed")
+                }
+                if (advisoryLock.tryAcquire(((AdvisoryLockDatabaseChangeLogStatement) sql).timeoutSeconds, TimeUnit.SECONDS)) {
+                    return 1
+                }
+                if (timeoutWithError) {
+                    throw new DatabaseException("canceling statement due to lock timeout", new SQLException("canceling statement due to lock timeout", "55P03"))
+                }
+                return 0
+            }
+            return delegate.queryForInt(sql)
+        }
+
+        @Override
+        void execute(SqlStatement sql) throws DatabaseException {
+            if (sql instanceof AdvisoryUnlockDatabaseChangeLogStatement) {
+                advisoryLock.release()
+                return
+            }
+            delegate.execute(sql)
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package liquibase.lockservice
+
+import liquibase.changelog.ChangeSet
+import liquibase.changelog.DatabaseChangeLog
+import liquibase.changelog.visitor.UpdateVisitor
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.Database
+import liquibase.database.DatabaseConnection
+import liquibase.database.core.HsqlDatabase
+import liquibase.database.jvm.JdbcConnection
+import liquibase.exception.DatabaseException
+import liquibase.exception.LockException
+import liquibase.executor.Executor
+import liquibase.executor.ExecutorService
+import liquibase.statement.core.RawSqlStatement
+import spock.lang.Specification
+
+import java.sql.DriverManager
+
+/**
+ * Runs against an in-memory HSQLDB database, which is dropped when the last connection of a feature is closed.
+ * Lease expiry is measured on a clock the features move forward, only the heartbeat runs in real time.
+ */
+class StandardLockServiceLeaseTest extends Specification {
+
+    List<StandardLockService> lockServices = []
+    List<Database> databases = []
+    long now = 1000000
+
+    def setup() {
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setDatabaseChangeLogLockLeaseTime(1)
+    }
+
+    def cleanup() {
+        lockServices.each { it.reset() }
+        databases.each { it.close() }
+        ExecutorService.getInstance().reset()
+        LiquibaseConfiguration.getInstance().reset()
+        LockServiceFactory.reset()
+    }
+
+    def "lease is renewed by the heartbeat until the lock is released"() {
+        when:
+        def holder = createLockService(true)
+        holder.acquireLock()
+        def lock = holder.listLocks()[0]
+        def renewedLock = waitForRenewal(holder, lock)
+        holder.releaseLock()
+
+        then:
+        lock.lockedBy ==~ /.* \(.*\) \[lease 1s [0-9a-f]{8}\]/
+        StandardLockService.getLeaseTime(lock.lockedBy) == 1
+        renewedLock.lockedBy == lock.lockedBy
+        renewedLock.lockGranted.after(lock.lockGranted)
+        holder.listLocks().length == 0
+        !Thread.getAllStackTraces().keySet()*.name.contains("liquibase-lock-heartbeat")
+    }
+
+    def "lock is held without a lease if there is no connection to renew it on"() {
+        when:
+        def holder = createLockService(false)
+        holder.acquireLock()
+
+        then:
+        StandardLockService.getLeaseTime(holder.listLocks()[0].lockedBy) == null
+    }
+
+    def "expired lease is taken over by only one waiting instance"() {
+        when:
+        def first = createLockService(false)
+        def second = createLockService(false)
+        lock(first, "killed-host (10.0.0.1) [lease 1s 0123abcd]")
+
+        def lockedBeforeExpiry = [first.acquireLock(), second.acquireLock()]
+        now += 1000
+        def firstTookOver = first.acquireLock()
+        def secondTookOver = second.acquireLock()
+
+        then:
+        lockedBeforeExpiry == [false, false]
+        firstTookOver
+        !secondTookOver
+        first.listLocks()[0].lockedBy != "killed-host (10.0.0.1) [lease 1s 0123abcd]"
+    }
+
+    def "renewed lease is not taken over"() {
+        when:
+        def holder = createLockService(true)
+        def waiter = createLockService(false)
+        holder.acquireLock()
+        def attempts = []
+        def lock = holder.listLocks()[0]
+        5.times {
+            attempts << waiter.acquireLock()
+            now += 2000
+            lock = waitForRenewal(holder, lock)
+        }
+
+        then:
+        attempts == [false] * 5
+        holder.hasChangeLogLock()
+    }
+
+    def "locks without a lease are never taken over"() {
+        when:
+        def waiter = createLockService(false)
+        lock(waiter, "old-host (10.0.0.1)")
+        def attempts = []
+        3.times {
+            attempts << waiter.acquireLock()
+            now += 10000
+        }
+
+        then:
+        attempts == [false] * 3
+    }
+
+    def "releasing a lease that was taken over fails"() {
+        when:
+        def holder = createLockService(true)
+        holder.acquireLock()
+        execute(holder, "UPDATE DATABASECHANGELOGLOCK SET LOCKEDBY = 'other-host (10.0.0.2)'")
+        holder.releaseLock()
+
+        then:
+        def e = thrown(LockException)
+        e.message.contains("was taken over by another instance")
+        !holder.hasChangeLogLock()
+        holder.listLocks()[0].lockedBy == "other-host (10.0.0.2)"
+    }
+
+    def "lease is lost when it cannot be renewed for the lease time"() {
+        given:
+        LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setDatabaseChangeLogLockLeaseTime(60)
+        def holder = createLockService(true)
+        holder.acquireLock()
+        def owner = holder.listLocks()[0].lockedBy
+        def failingExecutor = Mock(Executor) {
+            update(_) >> { throw new DatabaseException("connection lost") }
+        }
+
+        when:
+        now += 30000
+        def renewedBeforeLeaseTime = holder.renewLease(owner, databases[0], failingExecutor)
+        holder.checkLease()
+        now += 30000
+        def renewedAfterLeaseTime = holder.renewLease(owner, databases[0], failingExecutor)
+        holder.checkLease()
+
+        then:
+        renewedBeforeLeaseTime
+        !renewedAfterLeaseTime
+        def e = thrown(LockException)
+        e.message.contains("lease was lost")
+    }
+
+    def "change sets are not run after the lease was taken over"() {
+        given:
+        def database = openDatabase()
+        def holder = (StandardLockService) LockServiceFactory.getInstance().getLockService(database)
+        def takenOverExecutor = Mock(Executor) {
+            update(_) >> 0
+        }
+
+        when:
+        def renewed = holder.renewLease("host (10.0.0.1) [lease 1s 0123abcd]", database, takenOverExecutor)
+        new UpdateVisitor(database).visit(new ChangeSet("1", "test", false, false, "changelog.xml", null, null, null), new DatabaseChangeLog("changelog.xml"), database, null)
+
+        then:
+        !renewed
+        thrown(LockException)
+    }
+
+    private StandardLockService createLockService(boolean withConnectionSupplier) {
+        def lockService = new StandardLockService() {
+            @Override
+            protected long currentTimeMillis() {
+                return now
+            }
+        }
+        lockService.setDatabase(openDatabase())
+        if (withConnectionSupplier) {
+            lockService.setConnectionSupplier(new LockConnectionSupplier() {
+                @Override
+                DatabaseConnection openConnection(Database database) throws DatabaseException {
+                    return new JdbcConnection(DriverManager.getConnection("jdbc:hsqldb:mem:locklease;shutdown=true", "SA", ""))
+                }
+            })
+        }
+        lockServices << lockService
+        return lockService
+    }
+
+    private Database openDatabase() {
+        def database = new HsqlDatabase()
+        database.setConnection(new JdbcConnection(DriverManager.getConnection("jdbc:hsqldb:mem:locklease;shutdown=true", "SA", "")))
+        databases << database
+        return database
+    }
+
+    /**
+     * Waits until the heartbeat of the holder renewed the given lock, and returns the renewed lock.
+     */
+    private DatabaseChangeLogLock waitForRenewal(StandardLockService holder, DatabaseChangeLogLock lock) {
+        long deadline = System.currentTimeMillis() + 10000
+        while (System.currentTimeMillis() < deadline) {
+            def current = holder.listLocks()[0]
+            if (current.lockGranted != lock.lockGranted) {
+                return current
+            }
+            Thread.sleep(50)
+        }
+        throw new IllegalStateException("Lease was not renewed within 10 seconds")
+    }
+
+    private void lock(StandardLockService lockService, String lockedBy) {
+        lockService.init()
+        execute(lockService, "UPDATE DATABASECHANGELOGLOCK SET LOCKED = TRUE, LOCKGRANTED = CURRENT_TIMESTAMP, LOCKEDBY = '" + lockedBy + "'")
+    }
+
+    private void execute(StandardLockService lockService, String sql) {
+        def database = databases[lockServices.indexOf(lockService)]
+        ExecutorService.getInstance().getExecutor(database).execute(new RawSqlStatement(sql))
+        database.commit()
+    }
+}
@@ -0,0 +1,102 @@
+package liquibase.parser.core.precompiled
+
+import liquibase.changelog.ChangeLogParameters
+import liquibase.parser.ChangeLogParserFactory
+import liquibase.parser.core.xml.XMLChangeLogSAXParser
+import liquibase.resource.FileSystemResourceAccessor
+import spock.lang.Specification
+
+class PrecompiledChangeLogParserTest extends Specification {
+
+    def dir
+
+    def setup() {
+        dir = File.createTempFile("precompiled", "")
+        dir.delete()
+        dir.mkdirs()
+        new File(dir, "master.xml").text = """<databaseChangeLog xmlns="http://www.liquibase.org/xml/ns/dbchangelog"
+        xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+        xsi:schemaLocation="http://www.liquibase.org/xml/ns/dbchangelog http://www.liquibase.org/xml/ns/dbchangelog/dbchangelog-3.3.xsd">
+    <property name="table.name" value="person"/>
+    <changeSet id="1" author="test">
+        <createTable tableName="\${table.name}">
+            <column name="id" type="int"/>
+        </createTable>
+    </changeSet>
+    <include file="child.yaml" relativeToChangelogFile="true"/>
+</databaseChangeLog>"""
+        new File(dir, "child.yaml").text = """databaseChangeLog:
+  - changeSet:
+      id: 2
+      author: test
+      changes:
+        - addColumn:
+            tableName: \${table.name}
+            columns:
+              - column:
+                  name: \${column.name}
+                  type: varchar(50)
+"""
+    }
+
+    def cleanup() {
+        dir.deleteDir()
+    }
+
+    def "compiled changelogs load the same change sets as a normal parse"() {
+        given:
+        def resourceAccessor = new FileSystemResourceAccessor(dir.absolutePath)
+        def compileParameters = new ChangeLogParameters()
+        compileParameters.set("column.name", "address")
+
+        when:
+        def files = PrecompiledChangeLogParser.compile("master.xml", compileParameters, resourceAccessor, dir)
+
+        then:
+        files*.name.sort() == ["child.yaml.compiled", "master.xml.compiled"]
+
+        when:
+        def parameters = new ChangeLogParameters()
+        parameters.set("column.name", "address")
+        def parser = ChangeLogParserFactory.instance.getParser("master.xml", resourceAccessor)
+        def changeLog = parser.parse("master.xml", parameters, resourceAccessor)
+        def expected = new XMLChangeLogSAXParser().parse("master.xml", new ChangeLogParameters(), resourceAccessor)
+
+        then:
+        parser instanceof PrecompiledChangeLogParser
+        new PrecompiledChangeLogParser().readSnapshot("master.xml", new ChangeLogParameters(), resourceAccessor) != null
+        changeLog.changeSets*.toString(false) == expected.changeSets*.toString(false)
+        changeLog.changeSets[0].changes[0].tableName == "person"
+        changeLog.changeSets[1].changes[0].tableName == "person"
+        changeLog.changeSets[1].changes[0].columns[0].name == "address"
+        parameters.getValue("table.name") == "person"
+    }
+
+    def "snapshots are not used once the source or a parameter it uses changes"() {
+        given:
+        def resourceAccessor = new FileSystemResourceAccessor(dir.absolutePath)
+        def compileParameters = new ChangeLogParameters()
+        compileParameters.set("column.name", "address")
+        PrecompiledChangeLogParser.compile("master.xml", compileParameters, resourceAccessor, dir)
+        def parser = new PrecompiledChangeLogParser()
+
+        def parameters = new ChangeLogParameters()
+        parameters.set("table.name", "person")
+        parameters.set("column.name", "address")
+        def otherParameters = new ChangeLogParameters()
+        otherParameters.set("table.name", "person")
+        otherParameters.set("column.name", "email")
+
+        expect:
+        parser.readSnapshot("child.yaml", parameters, resourceAccessor) != null
+        parser.readSnapshot("child.yaml", otherParameters, resourceAccessor) == null
+
+        when:
+        new File(dir, "child.yaml").text = new File(dir, "child.yaml").text.replace("varchar(50)", "varchar(100)")
+        def changeLog = parser.parse("child.yaml", parameters, resourceAccessor)
+
+        then:
+        parser.readSnapshot("child.yaml", parameters, resourceAccessor) == null
+        changeLog.changeSets[0].changes[0].columns[0].type == "varchar(100)"
+    }
+}
@@ -0,0 +1,69 @@
+package liquibase.serializer.core
+
+import liquibase.change.core.CreateTableChange
+import liquibase.change.core.InsertDataChange
+import liquibase.change.ColumnConfig
+import liquibase.changelog.ChangeSet
+import liquibase.serializer.core.json.JsonChangeLogSerializer
+import liquibase.serializer.core.xml.XMLChangeLogSerializer
+import liquibase.serializer.core.yaml.YamlChangeLogSerializer
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class StreamingChangeLogSerializerTest extends Specification {
+
+    @Unroll("#featureName: #serializer.class.simpleName")
+    def "streamed changelogs are the same as written changelogs"() {
+        given:
+        def changeSets = [changeSet("1", new CreateTableChange(tableName: "person")), changeSet("2", insert("Ann <& \"Bob\"")), changeSet("3", insert("Cid"))]
+
+        when:
+        def written = new ByteArrayOutputStream()
+        serializer.write(changeSets, written)
+
+        def streamed = new ByteArrayOutputStream()
+        serializer.writeHeader(streamed)
+        changeSets.each { serializer.writeChangeSet(it, streamed) }
+        serializer.writeFooter(streamed)
+
+        then:
+        new String(streamed.toByteArray(), "UTF-8") == new String(written.toByteArray(), "UTF-8")
+
+        where:
+        serializer << [new XMLChangeLogSerializer(), new YamlChangeLogSerializer(), new JsonChangeLogSerializer()]
+    }
+
+    @Unroll("#featureName: #serializer.class.simpleName")
+    def "changeSets can be streamed without a header to append them to a changelog"() {
+        given:
+        def changeSets = [changeSet("1", new CreateTableChange(tableName: "person")), changeSet("2", insert("Ann"))]
+
+        when:
+        def written = new ByteArrayOutputStream()
+        serializer.class.newInstance().write(changeSets, written)
+
+        def header = new ByteArrayOutputStream()
+        serializer.class.newInstance().writeHeader(header)
+        def appended = new ByteArrayOutputStream()
+        changeSets.each { serializer.writeChangeSet(it, appended) }
+        serializer.writeFooter(appended)
+
+        then:
+        new String(header.toByteArray(), "UTF-8") + new String(appended.toByteArray(), "UTF-8") == new String(written.toByteArray(), "UTF-8")
+
+        where:
+        serializer << [new XMLChangeLogSerializer(), new YamlChangeLogSerializer(), new JsonChangeLogSerializer()]
+    }
+
+    private ChangeSet changeSet(String id, change) {
+        def changeSet = new ChangeSet(id, "test", false, false, null, null, null, null)
+        changeSet.addChange(change)
+        return changeSet
+    }
+
+    private InsertDataChange insert(String name) {
+        def change = new InsertDataChange(tableName: "person")
+        change.addColumn(new ColumnConfig(name: "name", value: name))
+        return change
+    }
+}
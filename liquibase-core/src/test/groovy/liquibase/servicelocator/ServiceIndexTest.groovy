@@ -0,0 +1,93 @@
+package liquibase.servicelocator
+
+import liquibase.change.Change
+import liquibase.change.core.CreateTableChange
+import liquibase.database.Database
+import liquibase.database.core.H2Database
+import liquibase.executor.Executor
+import liquibase.lockservice.LockService
+import liquibase.logging.Logger
+import liquibase.logging.core.DefaultLogger
+import liquibase.resource.ClassLoaderResourceAccessor
+import liquibase.snapshot.SnapshotGenerator
+import liquibase.sqlgenerator.SqlGenerator
+import liquibase.sqlgenerator.core.AbstractSqlGenerator
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ServiceIndexTest extends Specification {
+
+    File directory
+
+    def setup() {
+        directory = File.createTempFile("serviceIndex", "")
+        directory.delete()
+        directory.mkdirs()
+    }
+
+    def cleanup() {
+        directory.deleteDir()
+        System.clearProperty("liquibase.scan.index")
+        ServiceLocator.reset()
+    }
+
+    def "indexes are written and read back"() {
+        when:
+        def classes = new File(ServiceIndex.protectionDomain.codeSource.location.toURI())
+        def index = ServiceIndex.create(classes, ["liquibase.logging", "liquibase.database.core"], ServiceIndex.classLoader)
+        def file = new File(directory, ServiceIndex.INDEX_FILE)
+        index.write(file)
+        def read = ServiceIndex.read(file.toURI().toURL())
+
+        then:
+        read.root == directory.toURI().toURL().toString()
+        read.packages as List == ["liquibase.database.core", "liquibase.logging"]
+        read.getImplementations(Logger.name, ["liquibase"]).contains(DefaultLogger.name)
+        read.getImplementations(Database.name, ["liquibase"]).contains(H2Database.name)
+        read.getImplementations(Database.name, ["liquibase.logging"]).isEmpty()
+        read.getImplementations(Change.name, ["liquibase"]).isEmpty()
+        !read.getImplementations("liquibase.logging.core.AbstractLogger", ["liquibase"]).isEmpty()
+        read.getImplementations(AbstractSqlGenerator.name, ["liquibase"]).isEmpty()
+    }
+
+    def "only public concrete classes with a no-argument constructor are indexed"() {
+        when:
+        def classes = new File(ServiceIndex.protectionDomain.codeSource.location.toURI())
+        def implementations = ServiceIndex.create(classes, ["liquibase"], ServiceIndex.classLoader).getImplementations(Change.name, ["liquibase"])
+
+        then:
+        implementations.contains(CreateTableChange.name)
+        !implementations.contains("liquibase.change.AbstractChange")
+        !implementations.contains(Change.name)
+    }
+
+    def "indexes cover the package urls of their own jar or directory"() {
+        when:
+        def index = new ServiceIndex("jar:file:/lib/liquibase-core.jar!/", new TreeSet(["liquibase.change"]), new TreeMap())
+
+        then:
+        index.covers(new URL("jar:file:/lib/liquibase-core.jar!/liquibase/change/"), "liquibase/change")
+        index.covers(new URL("jar:file:/lib/liquibase-core.jar!/liquibase/change/core"), "liquibase/change/core/")
+        !index.covers(new URL("jar:file:/lib/liquibase-core.jar!/liquibase/"), "liquibase")
+        !index.covers(new URL("jar:file:/lib/liquibase-core.jar!/liquibase/changelog/"), "liquibase/changelog")
+        !index.covers(new URL("jar:file:/lib/extension.jar!/liquibase/change/"), "liquibase/change")
+    }
+
+    @Unroll
+    def "indexed service locator finds the same #type.simpleName classes as scanning"() {
+        when:
+        def indexed = new ServiceLocator(new ClassLoaderResourceAccessor())
+        def indexedClasses = indexed.findClasses(type) as Set
+
+        System.setProperty("liquibase.scan.index", "false")
+        def scanned = new ServiceLocator(new ClassLoaderResourceAccessor())
+        def scannedClasses = scanned.findClasses(type) as Set
+
+        then:
+        indexedClasses.size() > 0
+        indexedClasses == scannedClasses
+
+        where:
+        type << [Change, SqlGenerator, Database, SnapshotGenerator, Executor, LockService, Logger]
+    }
+}
@@ -0,0 +1,194 @@
+package liquibase.snapshot
+
+import liquibase.CatalogAndSchema
+import liquibase.database.Database
+import liquibase.database.DatabaseConnection
+import liquibase.database.DatabaseFactory
+import liquibase.database.core.*
+import liquibase.database.jvm.JdbcConnection
+import liquibase.exception.DatabaseException
+import liquibase.serializer.core.string.StringSnapshotSerializerReadable
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.sql.Connection
+import java.sql.DriverManager
+
+class JdbcDatabaseSnapshotTest extends Specification {
+
+    def url = "jdbc:hsqldb:mem:parallelSnapshot"
+    Connection connection
+    Database database
+
+    def setup() {
+        connection = DriverManager.getConnection(url, "SA", "")
+        def statement = connection.createStatement()
+        statement.execute("create table parent (id int primary key, name varchar(20) unique)")
+        statement.execute("create table child (id int primary key, parent_id int, constraint fk_child_parent foreign key (parent_id) references parent(id))")
+        statement.execute("create index idx_child_parent on child(parent_id)")
+        statement.execute("create view parent_view as select id from parent")
+        (1..5).each { statement.execute("create table other_" + it + " (id int primary key, value varchar(10))") }
+        statement.close()
+        database = DatabaseFactory.instance.findCorrectDatabaseImplementation(new JdbcConnection(connection))
+    }
+
+    def cleanup() {
+        connection.createStatement().execute("shutdown")
+        connection.close()
+    }
+
+    def "parallel snapshots match snapshots read on a single connection"() {
+        given:
+        def opened = Collections.synchronizedList([])
+        def control = new SnapshotControl(database)
+        control.parallelConnections = 3
+        control.connectionSupplier = new SnapshotConnectionSupplier() {
+            @Override
+            DatabaseConnection openConnection(Database database) throws DatabaseException {
+                def connection = new JdbcConnection(DriverManager.getConnection(url, "SA", ""))
+                opened.add(connection)
+                return connection
+            }
+        }
+
+        when:
+        def expected = serialize(SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database)))
+        def parallel = serialize(SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control))
+
+        then:
+        parallel == expected
+        parallel.contains("FK_CHILD_PARENT")
+        opened.size() == 3
+        opened.every { it.closed }
+    }
+
+    def "snapshots are read on the database connection when other connections cannot be opened"() {
+        given:
+        def control = new SnapshotControl(database)
+        control.connectionSupplier = new SnapshotConnectionSupplier() {
+            @Override
+            DatabaseConnection openConnection(Database database) throws DatabaseException {
+                throw new DatabaseException("cannot connect")
+            }
+        }
+
+        expect:
+        serialize(SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control)) == serialize(SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database)))
+    }
+
+    @Unroll("fetch mode #mode reads the same snapshot")
+    def "fetch modes control bulk selects without changing the snapshot"() {
+        given:
+        def control = new SnapshotControl(database)
+        control.fetchMode = mode
+
+        when:
+        def snapshot = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control)
+        def columns = snapshot.metadataQueryStatistics.find { it.method == "getColumns" }
+
+        then:
+        serialize(snapshot) == serialize(SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database)))
+        columns.bulkQueries == bulkQueries
+        columns.singleQueries == singleQueries
+        columns.rows > 0
+        snapshot.metadataQueryStatistics.find { it.method == "getPrimaryKeys" }.bulkQueries == 0
+
+        where:
+        mode                             | bulkQueries | singleQueries
+        SnapshotControl.FetchMode.BULK   | 1           | 0
+        SnapshotControl.FetchMode.SINGLE | 0           | 8
+    }
+
+    def "default policy uses the number of tables in the schema"() {
+        when:
+        def control = new SnapshotControl(database)
+        control.bulkFetchPolicy = new DefaultBulkFetchPolicy().setLargeSchemaTables(5)
+        def large = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control).metadataQueryStatistics.find { it.method == "getColumns" }
+
+        control = new SnapshotControl(database)
+        control.bulkFetchPolicy = new DefaultBulkFetchPolicy().setSmallSchemaTables(10)
+        def small = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control).metadataQueryStatistics.find { it.method == "getColumns" }
+
+        control = new SnapshotControl(database)
+        control.bulkFetchPolicy = new DefaultBulkFetchPolicy().setThreshold("getColumns", 1)
+        def threshold = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control).metadataQueryStatistics.find { it.method == "getColumns" }
+
+        then:
+        large.queries == 1
+        large.bulkQueries == 1
+        small.bulkQueries == 0
+        threshold.singleQueries == 1
+        threshold.bulkQueries == 1
+    }
+
+    def "default policy follows the suggestion of each method on embedded databases"() {
+        given:
+        def suggestedOnly = new SnapshotControl(database)
+        suggestedOnly.bulkFetchPolicy = new BulkFetchPolicy() {
+            @Override
+            boolean shouldBulkSelect(String method, CatalogAndSchema schema, int singleQueries, boolean suggested, DatabaseSnapshot snapshot) {
+                return suggested
+            }
+        }
+
+        when:
+        def expected = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, suggestedOnly).metadataQueryStatistics
+        def actual = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database)).metadataQueryStatistics
+
+        then:
+        actual.collect { [it.method, it.singleQueries, it.bulkQueries] } == expected.collect { [it.method, it.singleQueries, it.bulkQueries] }
+    }
+
+    @Unroll("default table count limits for #db.shortName")
+    def "default policy adapts to the number of tables on networked databases"() {
+        expect:
+        new DefaultBulkFetchPolicy().getSmallSchemaTables(db) == small
+        new DefaultBulkFetchPolicy().getLargeSchemaTables(db) == large
+        new DefaultBulkFetchPolicy().setSmallSchemaTables(10).setLargeSchemaTables(20).getSmallSchemaTables(db) == 10
+        new DefaultBulkFetchPolicy().setSmallSchemaTables(10).setLargeSchemaTables(20).getLargeSchemaTables(db) == 20
+
+        where:
+        db                         | small | large
+        new OracleDatabase()       | 3     | 100
+        new DB2Database()          | 3     | 100
+        new PostgresDatabase()     | 3     | 250
+        new MSSQLDatabase()        | 3     | 250
+        new MySQLDatabase()        | 3     | 250
+        new HsqlDatabase()         | -1    | Integer.MAX_VALUE
+        new H2Database()           | -1    | Integer.MAX_VALUE
+    }
+
+    def "table counts are escaped as string literals"() {
+        when:
+        def sql = new DefaultBulkFetchPolicy().getCountTablesSql(new CatalogAndSchema(null, "O'BRIEN"), database)
+
+        then:
+        sql.contains("'O''BRIEN'")
+    }
+
+    def "custom policies are asked before each lookup that is not cached"() {
+        given:
+        def calls = []
+        def control = new SnapshotControl(database)
+        control.bulkFetchPolicy = new BulkFetchPolicy() {
+            @Override
+            boolean shouldBulkSelect(String method, CatalogAndSchema schema, int singleQueries, boolean suggested, DatabaseSnapshot snapshot) {
+                calls.add(method + ":" + schema.schemaName + ":" + singleQueries)
+                return false
+            }
+        }
+
+        when:
+        def snapshot = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, control)
+
+        then:
+        calls.contains("getTables.TABLE:PUBLIC:0")
+        calls.contains("getColumns:PUBLIC:1")
+        !calls.any { it.startsWith("getPrimaryKeys") }
+        snapshot.metadataQueryStatistics.every { it.bulkQueries == 0 }
+    }
+
+    private String serialize(DatabaseSnapshot snapshot) {
+        return new StringSnapshotSerializerReadable().serialize(snapshot, true)
+    }
+}
@@ -0,0 +1,72 @@
+package liquibase.snapshot
+
+import liquibase.change.AddColumnConfig
+import liquibase.change.core.AddColumnChange
+import liquibase.change.core.RawSQLChange
+import liquibase.changelog.ChangeSet
+import liquibase.sdk.database.MockDatabase
+import liquibase.structure.core.Schema
+import liquibase.structure.core.Table
+import spock.lang.Specification
+
+class MetadataCacheTest extends Specification {
+
+    def database = new MockDatabase()
+    def person = new Table().setName("person").setSchema(new Schema(null, null))
+    def address = new Table().setName("address").setSchema(new Schema(null, null))
+    def snapshot = Mock(DatabaseSnapshot)
+    def cache = Spy(MetadataCache, constructorArgs: [database])
+
+    def setup() {
+        snapshot.get({ it instanceof Table }) >> { args -> args[0].name == "person" ? person : null }
+        snapshot.get(Table) >> ([person] as Set)
+    }
+
+    def "checks are answered from the cached snapshot"() {
+        when:
+        def personExists = cache.has(new Table().setName("person").setSchema(new Schema(null, null)))
+        def addressExists = cache.has(address)
+
+        then:
+        personExists
+        !addressExists
+        1 * cache.createSnapshot(_, _) >> snapshot
+        0 * cache.hasInDatabase(_)
+    }
+
+    def "checks on objects affected by an executed change set go to the database"() {
+        given:
+        def changeSet = new ChangeSet("1", "test", false, false, "com/example/test.xml", null, null, null)
+        def change = new AddColumnChange()
+        change.tableName = "person"
+        change.addColumn(new AddColumnConfig().setName("name").setType("varchar(50)"))
+        changeSet.addChange(change)
+
+        when:
+        cache.has(person)
+        cache.invalidate(changeSet)
+        def personExists = cache.has(person)
+        def addressExists = cache.has(address)
+
+        then:
+        personExists
+        !addressExists
+        _ * cache.createSnapshot(_, _) >> snapshot
+        1 * cache.hasInDatabase(person) >> true
+    }
+
+    def "change sets that do not report what they affect clear the cache"() {
+        given:
+        def changeSet = new ChangeSet("1", "test", false, false, "com/example/test.xml", null, null, null)
+        changeSet.addChange(new RawSQLChange("create table address (id int)"))
+
+        when:
+        cache.has(person)
+        cache.invalidate(changeSet)
+        cache.has(address)
+
+        then:
+        2 * cache.createSnapshot(_, _) >> snapshot
+        0 * cache.hasInDatabase(_)
+    }
+}
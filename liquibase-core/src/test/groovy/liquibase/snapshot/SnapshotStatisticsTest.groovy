@@ -0,0 +1,63 @@
+package liquibase.snapshot
+
+import liquibase.command.SnapshotCommand
+import liquibase.database.Database
+import liquibase.database.DatabaseFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.structure.core.Column
+import liquibase.structure.core.Table
+import spock.lang.Specification
+
+import java.sql.Connection
+import java.sql.DriverManager
+
+class SnapshotStatisticsTest extends Specification {
+
+    Connection connection
+    Database database
+
+    def setup() {
+        connection = DriverManager.getConnection("jdbc:hsqldb:mem:snapshotStatistics", "SA", "")
+        def statement = connection.createStatement()
+        statement.execute("create table person (id int primary key, name varchar(20))")
+        statement.execute("create table address (id int primary key, street varchar(20), city varchar(20))")
+        statement.close()
+        database = DatabaseFactory.instance.findCorrectDatabaseImplementation(new JdbcConnection(connection))
+    }
+
+    def cleanup() {
+        connection.createStatement().execute("shutdown")
+        connection.close()
+    }
+
+    def "snapshots count objects and metadata queries"() {
+        when:
+        def statistics = SnapshotGeneratorFactory.instance.createSnapshot(database.defaultSchema, database, new SnapshotControl(database)).statistics
+        def types = statistics.objectTypeStatistics.collectEntries { [it.type, it] }
+        def columns = statistics.metadataQueryStatistics.find { it.method == "getColumns" }
+
+        then:
+        types[Table].objects == 2
+        types[Column].objects == 5
+        statistics.objectTypeStatistics*.type.name == statistics.objectTypeStatistics*.type.name.sort()
+        columns.queries > 0
+        columns.rows >= 5
+        columns.queries + columns.cacheHits >= 2
+        statistics.queries == statistics.metadataQueryStatistics*.queries.sum()
+        statistics.objectTypeStatistics*.time.sum() <= statistics.time + statistics.objectTypeStatistics.size()
+        statistics.toString().startsWith("Snapshot took ")
+        statistics.toString().contains("\n    Table: 2 objects, 0 not found, ")
+        statistics.toString().contains("\n    getColumns: ")
+    }
+
+    def "snapshot command keeps the statistics of the last snapshot"() {
+        when:
+        def command = new SnapshotCommand()
+        command.database = database
+        command.setSchemas(database.defaultSchema)
+        command.execute()
+
+        then:
+        command.snapshotStatistics.objectTypeStatistics.find { it.type == Table }.objects == 2
+    }
+}
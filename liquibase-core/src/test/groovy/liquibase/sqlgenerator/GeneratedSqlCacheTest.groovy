@@ -0,0 +1,132 @@
+package liquibase.sqlgenerator
+
+import liquibase.Contexts
+import liquibase.LabelExpression
+import liquibase.RuntimeEnvironment
+import liquibase.change.ChangeFactory
+import liquibase.change.ColumnConfig
+import liquibase.change.core.CreateTableChange
+import liquibase.changelog.ChangeSet
+import liquibase.configuration.GlobalConfiguration
+import liquibase.configuration.LiquibaseConfiguration
+import liquibase.database.Database
+import liquibase.database.ObjectQuotingStrategy
+import liquibase.database.core.H2Database
+import liquibase.servicelocator.LiquibaseService
+import liquibase.statement.SqlStatement
+import spock.lang.Specification
+
+class GeneratedSqlCacheTest extends Specification {
+
+    Database database = new H2Database()
+
+    def setup() {
+        SqlGeneratorFactory.reset()
+    }
+
+    def cleanup() {
+        RuntimeEnvironment.setCurrent(null)
+        LiquibaseConfiguration.getInstance().reset()
+    }
+
+    def "statements and sql are generated once per run"() {
+        when:
+        RuntimeEnvironment.setCurrent(new RuntimeEnvironment(database, new Contexts(), new LabelExpression()))
+        def change = createChange()
+        use(change)
+        def statements = GeneratedSqlCache.generateStatements(change, database)
+        def sql = SqlGeneratorFactory.instance.generateSql(statements, database)
+
+        then:
+        change.generated == 1
+        GeneratedSqlCache.generateStatements(change, database).is(statements)
+        SqlGeneratorFactory.instance.generateSql(statements, database)[0].is(sql[0])
+        sql[0].toSql().startsWith("CREATE TABLE person")
+    }
+
+    def "statements are generated every time outside of a run or when the cache is disabled"() {
+        when:
+        if (disabled) {
+            LiquibaseConfiguration.getInstance().getConfiguration(GlobalConfiguration).setGeneratedSqlCache(false)
+            RuntimeEnvironment.setCurrent(new RuntimeEnvironment(database, new Contexts(), new LabelExpression()))
+        }
+        def change = createChange()
+        use(change)
+        def statements = GeneratedSqlCache.generateStatements(change, database)
+
+        then:
+        change.generated > 2
+        !GeneratedSqlCache.generateStatements(change, database).is(statements)
+        !SqlGeneratorFactory.instance.generateSql(statements, database)[0].is(SqlGeneratorFactory.instance.generateSql(statements, database)[0])
+
+        where:
+        disabled << [false, true]
+    }
+
+    def "statements of volatile changes are generated every time"() {
+        when:
+        RuntimeEnvironment.setCurrent(new RuntimeEnvironment(database, new Contexts(), new LabelExpression()))
+        def change = createChange()
+        change.changeVolatile = true
+        def statements = GeneratedSqlCache.generateStatements(change, database)
+
+        then:
+        !GeneratedSqlCache.generateStatements(change, database).is(statements)
+        change.generated == 2
+    }
+
+    def "statements are generated again after the change set ran or the quoting strategy changed"() {
+        when:
+        def runtimeEnvironment = new RuntimeEnvironment(database, new Contexts(), new LabelExpression())
+        RuntimeEnvironment.setCurrent(runtimeEnvironment)
+        def change = createChange()
+        def changeSet = new ChangeSet("1", "test", false, false, "test.xml", null, null, null)
+        changeSet.addChange(change)
+        def statements = GeneratedSqlCache.generateStatements(change, database)
+        runtimeEnvironment.generatedSqlCache.remove(changeSet)
+        def afterRemove = GeneratedSqlCache.generateStatements(change, database)
+        database.objectQuotingStrategy = ObjectQuotingStrategy.QUOTE_ALL_OBJECTS
+        def afterQuotingChange = GeneratedSqlCache.generateStatements(change, database)
+        def quotedSql = SqlGeneratorFactory.instance.generateSql(afterQuotingChange, database)
+
+        then:
+        !afterRemove.is(statements)
+        !afterQuotingChange.is(afterRemove)
+        GeneratedSqlCache.generateStatements(change, database).is(afterQuotingChange)
+        quotedSql[0].toSql().startsWith('CREATE TABLE "person"')
+    }
+
+    private CountingCreateTableChange createChange() {
+        def change = new CountingCreateTableChange()
+        change.tableName = "person"
+        change.addColumn(new ColumnConfig().setName("id").setType("int"))
+        ChangeFactory.instance.getChangeMetaData(change) //analyzing the metadata generates statements for every database
+        change.generated = 0
+        return change
+    }
+
+    private void use(CountingCreateTableChange change) {
+        change.warn(database)
+        change.validate(database)
+        change.supports(database)
+        change.generateRollbackStatementsVolatile(database)
+        change.getAffectedDatabaseObjects(database)
+    }
+
+    @LiquibaseService(skip = true)
+    static class CountingCreateTableChange extends CreateTableChange {
+        int generated
+        boolean changeVolatile
+
+        @Override
+        SqlStatement[] generateStatements(Database database) {
+            generated++
+            return super.generateStatements(database)
+        }
+
+        @Override
+        boolean generateStatementsVolatile(Database database) {
+            return changeVolatile || super.generateStatementsVolatile(database)
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package liquibase.statement
+
+import liquibase.change.ColumnConfig
+import liquibase.database.PreparedStatementFactory
+import liquibase.database.jvm.JdbcConnection
+import liquibase.sdk.database.MockDatabase
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.sql.PreparedStatement
+
+class BatchInsertExecutablePreparedStatementTest extends Specification {
+
+    @Unroll("execute with #rowCount rows and batchSize #batchSize")
+    def "execute flushes every batchSize rows"() {
+        given:
+        def columns = [new ColumnConfig().setName("id"), new ColumnConfig().setName("name")]
+        def rows = []
+        for (int i = 0; i < rowCount; i++) {
+            rows.add([new ColumnConfig().setName("id").setValueNumeric(i), new ColumnConfig().setName("name").setValue("name " + i)])
+        }
+        def statement = new BatchInsertExecutablePreparedStatement(new MockDatabase(), null, null, "test_table", columns, rows, batchSize, false, null, null)
+
+        def preparedStatement = Mock(PreparedStatement)
+        def connection = Mock(JdbcConnection)
+        connection.prepareStatement(_ as String) >> preparedStatement
+
+        when:
+        statement.execute(new PreparedStatementFactory(connection))
+
+        then:
+        rowCount * preparedStatement.addBatch()
+        expectedExecutes * preparedStatement.executeBatch() >> new int[0]
+        0 * preparedStatement.execute()
+        1 * preparedStatement.close()
+
+        where:
+        rowCount | batchSize | expectedExecutes
+        0        | 10        | 0
+        1        | 10        | 1
+        10       | 10        | 1
+        11       | 10        | 2
+        25       | 5         | 5
+    }
+
+    def "generated sql binds every column once"() {
+        given:
+        def columns = [new ColumnConfig().setName("id"), new ColumnConfig().setName("name")]
+        def rows = [[new ColumnConfig().setName("id").setValueNumeric(1), new ColumnConfig().setName("name")]]
+        def statement = new BatchInsertExecutablePreparedStatement(new MockDatabase(), null, null, "test_table", columns, rows, 100, false, null, null)
+
+        def preparedStatement = Mock(PreparedStatement)
+        def connection = Mock(JdbcConnection)
+
+        when:
+        statement.execute(new PreparedStatementFactory(connection))
+
+        then:
+        1 * connection.prepareStatement("INSERT INTO test_table(id, name) VALUES(?, ?)") >> preparedStatement
+        1 * preparedStatement.setInt(1, 1)
+        1 * preparedStatement.setNull(2, java.sql.Types.NULL)
+        1 * preparedStatement.executeBatch() >> new int[0]
+    }
+
+    def "batchSize must be positive"() {
+        when:
+        new BatchInsertExecutablePreparedStatement(new MockDatabase(), null, null, "test_table", [], [], 0, false, null, null)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -160,6 +160,18 @@ public class LiquibaseTest {
         assertSame(liquibase.getResourceAccessor(), liquibase.getFileOpener());
     }
 
+    @Test
+    public void resetServices_onlyWhenEnabled() throws LiquibaseException {
+        Liquibase liquibase = new Liquibase("com/example/test.xml", mockResourceAccessor, mockDatabase);
+        liquibase.setResetServices(false);
+        liquibase.resetServices();
+        verify(mockLockServiceFactory, never()).resetAll();
+
+        liquibase.setResetServices(true);
+        liquibase.resetServices();
+        verify(mockLockServiceFactory).resetAll();
+    }
+
     @Test
     public void setCurrentDateTimeFunction() throws LiquibaseException {
         Database database = mockDatabase;
@@ -1,5 +1,6 @@
 package liquibase.changelog;
 
+import liquibase.ContextExpression;
 import liquibase.Contexts;
 import liquibase.RuntimeEnvironment;
 import liquibase.changelog.filter.ChangeSetFilterResult;
@@ -11,12 +12,21 @@ import liquibase.database.core.MySQLDatabase;
 import static org.junit.Assert.*;
 
 import liquibase.exception.LiquibaseException;
+import liquibase.sql.visitor.ReplaceSqlVisitor;
+import liquibase.sql.visitor.SqlVisitor;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ChangeLogIteratorTest {
     private DatabaseChangeLog changeLog;
@@ -75,6 +85,57 @@ public class ChangeLogIteratorTest {
         assertEquals("1", testChangeLogVisitor.visitedChangeSets.get(2).getId());
     }
 
+    @Test
+    public void runChangeSet_concurrentRunsWithDifferentContextsSeeTheirOwnSqlVisitors() throws Exception {
+        final DatabaseChangeLog sharedChangeLog = new DatabaseChangeLog();
+        for (int i = 0; i < 500; i++) {
+            ChangeSet changeSet = new ChangeSet(String.valueOf(i), "nvoxland", false, false, "/path/to/changelog", null, null, null);
+            for (String context : new String[]{"test1", "test2"}) {
+                ReplaceSqlVisitor visitor = new ReplaceSqlVisitor();
+                visitor.setReplace("x");
+                visitor.setWith(context);
+                visitor.setContexts(new ContextExpression(context));
+                changeSet.addSqlVisitor(visitor);
+            }
+            sharedChangeLog.addChangeSet(changeSet);
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Set<String>>> results = new ArrayList<Future<Set<String>>>();
+            for (final String context : new String[]{"test1", "test2"}) {
+                results.add(executor.submit(new Callable<Set<String>>() {
+                    @Override
+                    public Set<String> call() throws Exception {
+                        final Set<String> seen = Collections.synchronizedSet(new HashSet<String>());
+                        start.await();
+                        for (int run = 0; run < 20; run++) {
+                            new ChangeLogIterator(sharedChangeLog, new ContextChangeSetFilter(new Contexts(context))).run(new TestChangeSetVisitor() {
+                                @Override
+                                public void visit(ChangeSet changeSet, DatabaseChangeLog databaseChangeLog, Database database, Set<ChangeSetFilterResult> filterResults) throws LiquibaseException {
+                                    for (SqlVisitor visitor : changeSet.getSqlVisitors(RuntimeEnvironment.getCurrent())) {
+                                        seen.add(((ReplaceSqlVisitor) visitor).getWith());
+                                    }
+                                }
+                            }, new RuntimeEnvironment(null, new Contexts(context), null));
+                        }
+                        return seen;
+                    }
+                }));
+            }
+            start.countDown();
+
+            assertEquals(Collections.singleton("test1"), results.get(0).get());
+            assertEquals(Collections.singleton("test2"), results.get(1).get());
+        } finally {
+            executor.shutdownNow();
+        }
+        for (ChangeSet changeSet : sharedChangeLog.getChangeSets()) {
+            assertEquals(2, changeSet.getSqlVisitors().size());
+        }
+    }
+
     private static class TestChangeSetVisitor implements ChangeSetVisitor {
 
         public List<ChangeSet> visitedChangeSets = new ArrayList<ChangeSet>();
@@ -2,6 +2,7 @@ package liquibase.changelog.filter;
 
 import liquibase.ContextExpression;
 import liquibase.Contexts;
+import liquibase.RuntimeEnvironment;
 import liquibase.changelog.ChangeSet;
 
 import static org.junit.Assert.*;
@@ -120,9 +121,7 @@ public class ContextChangeSetFilterTest {
         ChangeSet changeSet = new ChangeSet(null, null, false, false, null, null, null, null);
         changeSet.addSqlVisitor(new TestSqlVisitor("test1"));
 
-        assertTrue(filter.accepts(changeSet).isAccepted());
-
-        assertEquals(1, changeSet.getSqlVisitors().size());
+        assertEquals(1, acceptAndCountSqlVisitors(filter, changeSet));
     }
 
     @Test
@@ -132,9 +131,7 @@ public class ContextChangeSetFilterTest {
         ChangeSet changeSet = new ChangeSet(null, null, false, false, null, null, null, null);
         changeSet.addSqlVisitor(new TestSqlVisitor("test1"));
 
-        assertTrue(filter.accepts(changeSet).isAccepted());
-
-        assertEquals(1, changeSet.getSqlVisitors().size());
+        assertEquals(1, acceptAndCountSqlVisitors(filter, changeSet));
     }
 
     @Test
@@ -144,9 +141,7 @@ public class ContextChangeSetFilterTest {
         ChangeSet changeSet = new ChangeSet(null, null, false, false, null, null, null, null);
         changeSet.addSqlVisitor(new TestSqlVisitor("TEST1"));
 
-        assertTrue(filter.accepts(changeSet).isAccepted());
-
-        assertEquals(1, changeSet.getSqlVisitors().size());
+        assertEquals(1, acceptAndCountSqlVisitors(filter, changeSet));
     }
 
     @Test
@@ -156,8 +151,28 @@ public class ContextChangeSetFilterTest {
         ChangeSet changeSet = new ChangeSet(null, null, false, false, null, null, null, null);
         changeSet.addSqlVisitor(new TestSqlVisitor("TEST1"));
 
-        assertTrue(filter.accepts(changeSet).isAccepted());
+        assertEquals(1, acceptAndCountSqlVisitors(filter, changeSet));
+    }
 
+    @Test
+    public void visitorContextFilterNoMatch() {
+        ContextChangeSetFilter filter = new ContextChangeSetFilter(new Contexts("test1"));
+
+        ChangeSet changeSet = new ChangeSet(null, null, false, false, null, null, null, null);
+        changeSet.addSqlVisitor(new TestSqlVisitor("test2"));
+
+        assertEquals(0, acceptAndCountSqlVisitors(filter, changeSet));
         assertEquals(1, changeSet.getSqlVisitors().size());
     }
+
+    private int acceptAndCountSqlVisitors(ContextChangeSetFilter filter, ChangeSet changeSet) {
+        RuntimeEnvironment runtimeEnvironment = new RuntimeEnvironment(null, null, null);
+        RuntimeEnvironment.setCurrent(runtimeEnvironment);
+        try {
+            assertTrue(filter.accepts(changeSet).isAccepted());
+        } finally {
+            RuntimeEnvironment.setCurrent(null);
+        }
+        return changeSet.getSqlVisitors(runtimeEnvironment).size();
+    }
 }
@@ -0,0 +1,65 @@
+package liquibase.changelog.filter;
+
+import liquibase.change.CheckSum;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.RanChangeSet;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class RanChangeSetIndexTest {
+
+    @Test
+    public void getCandidates_noneRun() {
+        RanChangeSetIndex index = new RanChangeSetIndex(new ArrayList<RanChangeSet>());
+
+        assertEquals(0, index.getCandidates(new ChangeSet("1", "testAuthor", false, false, "path/changelog", null, null, null)).size());
+    }
+
+    @Test
+    public void getCandidates() {
+        ArrayList<RanChangeSet> ranChanges = new ArrayList<RanChangeSet>();
+        RanChangeSet first = new RanChangeSet("path/changelog", "1", "testAuthor", CheckSum.parse("12345"), new Date(), null, null, null, null);
+        RanChangeSet firstUpperCase = new RanChangeSet("classpath:PATH/changelog", "1", "TESTAUTHOR", CheckSum.parse("12345"), new Date(), null, null, null, null);
+        RanChangeSet second = new RanChangeSet("path/changelog", "2", "testAuthor", CheckSum.parse("12345"), new Date(), null, null, null, null);
+        ranChanges.add(first);
+        ranChanges.add(firstUpperCase);
+        ranChanges.add(second);
+
+        RanChangeSetIndex index = new RanChangeSetIndex(ranChanges);
+
+        List<RanChangeSet> candidates = index.getCandidates(new ChangeSet("1", "testAuthor", false, false, "path/changelog", null, null, null));
+        assertEquals(2, candidates.size());
+        assertSame(first, candidates.get(0));
+        assertSame(firstUpperCase, candidates.get(1));
+
+        assertEquals(2, index.getCandidates(new ChangeSet("1", "testAuthor", false, false, "CLASSPATH:path\\changelog", null, null, null)).size());
+        assertEquals(1, index.getCandidates(new ChangeSet("2", "testAuthor", false, false, "path/changelog", null, null, null)).size());
+        assertEquals(0, index.getCandidates(new ChangeSet("3", "testAuthor", false, false, "path/changelog", null, null, null)).size());
+        assertEquals(0, index.getCandidates(new ChangeSet("1", "otherAuthor", false, false, "path/changelog", null, null, null)).size());
+        assertEquals(0, index.getCandidates(new ChangeSet("1", "testAuthor", false, false, "other/changelog", null, null, null)).size());
+    }
+
+    @Test
+    public void filtersKeepTheirOwnMatchingRules() {
+        ArrayList<RanChangeSet> ranChanges = new ArrayList<RanChangeSet>();
+        ranChanges.add(new RanChangeSet("classpath:path/changelog", "1", "testAuthor", CheckSum.parse("12345"), new Date(), null, null, null, null));
+        RanChangeSetIndex index = new RanChangeSetIndex(ranChanges);
+
+        AlreadyRanChangeSetFilter alreadyRanFilter = new AlreadyRanChangeSetFilter(ranChanges);
+        NotRanChangeSetFilter notRanFilter = new NotRanChangeSetFilter(ranChanges);
+        alreadyRanFilter.setRanChangeSetIndex(index);
+        notRanFilter.setRanChangeSetIndex(index);
+
+        ChangeSet withoutPrefix = new ChangeSet("1", "TESTAUTHOR", false, false, "path/changelog", null, null, null);
+        assertFalse("classpath prefix is only ignored by ShouldRunChangeSetFilter", alreadyRanFilter.accepts(withoutPrefix).isAccepted());
+        assertTrue(notRanFilter.accepts(withoutPrefix).isAccepted());
+
+        ChangeSet withPrefix = new ChangeSet("1", "TESTAUTHOR", false, false, "classpath:path/changelog", null, null, null);
+        assertTrue("author match is case insensitive", alreadyRanFilter.accepts(withPrefix).isAccepted());
+        assertFalse(notRanFilter.accepts(withPrefix).isAccepted());
+    }
+}
@@ -0,0 +1,129 @@
+package liquibase.snapshot;
+
+import liquibase.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * Micro-benchmark of {@link ResultSetCache.RowIndex} against the string key permutations ResultSetCache used to index rows with.
+ * Indexes synthetic getColumns rows and looks up every table and every column, the way a bulk column fetch is used by a schema snapshot.
+ * Not run as part of the test suite. Run the main method with optional table and column counts, such as "5000 30".
+ */
+public class ResultSetCacheBenchmark {
+
+    public static void main(String[] args) {
+        int tables = args.length > 0 ? Integer.valueOf(args[0]) : 5000;
+        int columns = args.length > 1 ? Integer.valueOf(args[1]) : 30;
+        List<CachedRow> rows = createRows(tables, columns);
+        System.out.println(rows.size() + " rows in " + tables + " tables");
+
+        for (int run = 0; run < 5; run++) {
+            System.out.println("Run " + (run + 1) + ":");
+            measure("  permutation keys", new PermutationIndex(), rows, tables, columns);
+            measure("  row index       ", new RowIndexBenchmark(), rows, tables, columns);
+        }
+    }
+
+    private static void measure(String name, Benchmark benchmark, List<CachedRow> rows, int tables, int columns) {
+        long memoryBefore = usedMemory();
+        long start = System.nanoTime();
+        for (CachedRow row : rows) {
+            benchmark.add(row, new String[]{row.getString("TABLE_NAME"), row.getString("COLUMN_NAME")});
+        }
+        long indexed = System.nanoTime();
+        long memoryAfter = usedMemory();
+
+        int found = 0;
+        for (int table = 0; table < tables; table++) {
+            found += benchmark.get(new String[]{"TABLE_" + table, null}).size();
+            for (int column = 0; column < columns; column++) {
+                found += benchmark.get(new String[]{"TABLE_" + table, "COLUMN_" + column}).size();
+            }
+        }
+        long lookedUp = System.nanoTime();
+
+        System.out.println(name + ": index " + (indexed - start) / 1000000 + "ms, lookups " + (lookedUp - indexed) / 1000000 + "ms, "
+                + (memoryAfter - memoryBefore) / 1024 + "KB retained, " + found + " rows found");
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<CachedRow> createRows(int tables, int columns) {
+        List<CachedRow> rows = new ArrayList<CachedRow>();
+        for (int table = 0; table < tables; table++) {
+            String tableName = "TABLE_" + table;
+            for (int column = 0; column < columns; column++) {
+                Map<String, Object> values = new HashMap<String, Object>();
+                values.put("TABLE_CAT", "CATALOG");
+                values.put("TABLE_SCHEM", "SCHEMA");
+                values.put("TABLE_NAME", tableName);
+                values.put("COLUMN_NAME", "COLUMN_" + column);
+                values.put("DATA_TYPE", 12);
+                rows.add(new CachedRow(values));
+            }
+        }
+        return rows;
+    }
+
+    private interface Benchmark {
+        void add(CachedRow row, String[] parameters);
+
+        List<CachedRow> get(String[] parameters);
+    }
+
+    private static class RowIndexBenchmark implements Benchmark {
+        private ResultSetCache.RowIndex index = new ResultSetCache.RowIndex(false);
+
+        @Override
+        public void add(CachedRow row, String[] parameters) {
+            index.add(row, parameters);
+        }
+
+        @Override
+        public List<CachedRow> get(String[] parameters) {
+            return index.get(parameters);
+        }
+    }
+
+    /**
+     * Every row stored under each of the 2^n lower cased keys made by replacing any of its parameters with null.
+     */
+    private static class PermutationIndex implements Benchmark {
+        private Map<String, List<CachedRow>> cache = new HashMap<String, List<CachedRow>>();
+
+        @Override
+        public void add(CachedRow row, String[] parameters) {
+            for (String key : permute(parameters, 0)) {
+                List<CachedRow> keyRows = cache.get(key);
+                if (keyRows == null) {
+                    keyRows = new ArrayList<CachedRow>();
+                    cache.put(key, keyRows);
+                }
+                keyRows.add(row);
+            }
+        }
+
+        @Override
+        public List<CachedRow> get(String[] parameters) {
+            return cache.get(StringUtils.join(parameters, ":").toLowerCase());
+        }
+
+        private List<String> permute(String[] params, int fromIndex) {
+            String[] nullVersion = Arrays.copyOf(params, params.length);
+            nullVersion[fromIndex] = null;
+            if (params.length == fromIndex + 1) {
+                return Arrays.asList(StringUtils.join(params, ":").toLowerCase(), StringUtils.join(nullVersion, ":").toLowerCase());
+            }
+            List<String> permutations = new ArrayList<String>();
+            permutations.addAll(permute(params, fromIndex + 1));
+            permutations.addAll(permute(nullVersion, fromIndex + 1));
+            return permutations;
+        }
+    }
+}
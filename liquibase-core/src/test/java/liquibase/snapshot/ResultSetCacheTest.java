@@ -1,42 +1,147 @@
 package liquibase.snapshot;
 
-import org.hamcrest.Matcher;
+import liquibase.database.Database;
+import liquibase.database.core.H2Database;
+import liquibase.exception.DatabaseException;
 import org.junit.Test;
 
-import java.util.Arrays;
+import java.sql.SQLException;
+import java.util.*;
 
-import static org.hamcrest.Matchers.contains;
-import static org.hamcrest.Matchers.containsInAnyOrder;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertThat;
+import static org.junit.Assert.*;
 
 public class ResultSetCacheTest {
 
-//    @Test
-//    public void permutations() {
-//        assertEquals(4, new ResultSetCache().permutations(new String[]{"a", "b"}).length);
-//        assertEquals(8, new ResultSetCache().permutations(new String[]{"a", "b", "c"}).length);
-//        assertEquals(16, new ResultSetCache().permutations(new String[]{"a", "b", "c", "d"}).length);
-//        assertEquals(32, new ResultSetCache().permutations(new String[]{"a", "b", "c", "d", "e"}).length);
-//
-//        assertThat(Arrays.asList(new ResultSetCache().permutations(new String[]{"a"})), containsInAnyOrder(new String[] {"a"}, new String[] {null}));
-//
-//        assertThat(Arrays.asList(new ResultSetCache().permutations(new String[]{"a", "b"})), containsInAnyOrder(
-//                new String[]{"a", "b"},
-//                new String[]{null, "b"},
-//                new String[]{"a", null},
-//                new String[]{null, null}
-//        ));
-//
-//        assertThat(Arrays.asList(new ResultSetCache().permutations(new String[]{"a", "b", "c"})), containsInAnyOrder(
-//                new String[]{"a", "b", "c"},
-//                new String[]{"a", "b", null},
-//                new String[]{"a", null, "c"},
-//                new String[]{null, "b", "c"},
-//                new String[]{null, null, "c"},
-//                new String[]{"a", null, null},
-//                new String[]{null, "b", null},
-//                new String[]{null, null, null}
-//        ));
-//    }
+    @Test
+    public void rowIndex_trailingWildcards() {
+        ResultSetCache.RowIndex index = new ResultSetCache.RowIndex(false);
+        CachedRow a1 = row("A", "ID");
+        CachedRow b1 = row("B", "ID");
+        CachedRow a2 = row("A", "NAME");
+        index.add(a1, new String[]{"A", "ID"});
+        index.add(b1, new String[]{"B", "ID"});
+        index.add(a2, new String[]{"A", "NAME"});
+
+        assertEquals(Arrays.asList(a1, b1, a2), index.get(new String[]{null, null}));
+        assertEquals(Arrays.asList(a1, a2), index.get(new String[]{"A", null}));
+        assertEquals(Arrays.asList(a2), index.get(new String[]{"a", "name"}));
+        assertNull(index.get(new String[]{"A", "OTHER"}));
+        assertNull(index.get(new String[]{"C", null}));
+    }
+
+    @Test
+    public void rowIndex_leadingWildcards() {
+        ResultSetCache.RowIndex index = new ResultSetCache.RowIndex(false);
+        CachedRow a1 = row("A", "ID");
+        CachedRow b1 = row("B", "ID");
+        CachedRow a2 = row("A", "NAME");
+        index.add(a1, new String[]{"A", "ID"});
+        index.add(b1, new String[]{"B", "ID"});
+        index.add(a2, new String[]{"A", "NAME"});
+
+        assertEquals(Arrays.asList(a1, b1), index.get(new String[]{null, "id"}));
+        assertNull(index.get(new String[]{null, "OTHER"}));
+    }
+
+    @Test
+    public void rowIndex_nullValuesOnlyMatchWildcards() {
+        ResultSetCache.RowIndex index = new ResultSetCache.RowIndex(false);
+        CachedRow row = row("A", null);
+        index.add(row, new String[]{"A", null});
+
+        assertEquals(Arrays.asList(row), index.get(new String[]{"A", null}));
+        assertNull(index.get(new String[]{"A", "null"}));
+    }
+
+    @Test
+    public void rowIndex_caseSensitive() {
+        ResultSetCache.RowIndex index = new ResultSetCache.RowIndex(true);
+        CachedRow upper = row("A", "ID");
+        CachedRow lower = row("a", "ID");
+        index.add(upper, new String[]{"A", "ID"});
+        index.add(lower, new String[]{"a", "ID"});
+
+        assertEquals(Arrays.asList(upper), index.get(new String[]{"A", null}));
+        assertEquals(Arrays.asList(lower), index.get(new String[]{"a", "ID"}));
+        assertNull(index.get(new String[]{"a", "id"}));
+    }
+
+    @Test
+    public void get_answersLaterLookupsFromCachedRows() throws DatabaseException {
+        ResultSetCache cache = new ResultSetCache("getColumns", null);
+        Database database = new H2Database();
+        List<CachedRow> rows = Arrays.asList(row("A", "ID"), row("A", "NAME"));
+        TestExtractor extractor = new TestExtractor(database, "A", null, rows);
+
+        assertEquals(rows, cache.get(extractor));
+        assertEquals(rows.subList(1, 2), cache.get(new TestExtractor(database, "a", "name", rows)));
+        assertEquals(1, cache.getStatistics().getSingleQueries());
+        assertEquals(2, cache.getStatistics().getRows());
+    }
+
+    @Test
+    public void get_bulkSelectReplacesSingleFetches() throws DatabaseException {
+        ResultSetCache cache = new ResultSetCache("getColumns", null);
+        Database database = new H2Database();
+        List<CachedRow> rows = Arrays.asList(row("A", "ID"), row("B", "ID"), row("C", "ID"), row("D", "ID"));
+
+        for (String table : new String[]{"A", "B", "C"}) {
+            assertEquals(1, cache.get(new TestExtractor(database, table, null, rows)).size());
+        }
+        assertEquals(1, cache.get(new TestExtractor(database, "D", null, rows)).size());
+        assertEquals(4, cache.get(new TestExtractor(database, null, null, rows)).size());
+        assertEquals(0, cache.get(new TestExtractor(database, "E", null, rows)).size());
+        assertEquals(3, cache.getStatistics().getSingleQueries());
+        assertEquals(1, cache.getStatistics().getBulkQueries());
+    }
+
+    static CachedRow row(String table, String column) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("TABLE_CAT", "CAT");
+        values.put("TABLE_SCHEM", "SCHEM");
+        values.put("TABLE_NAME", table);
+        values.put("COLUMN_NAME", column);
+        return new CachedRow(values);
+    }
+
+    private static class TestExtractor extends ResultSetCache.SingleResultSetExtractor {
+        private final Database database;
+        private final String table;
+        private final String column;
+        private final List<CachedRow> rows;
+
+        TestExtractor(Database database, String table, String column, List<CachedRow> rows) {
+            super(database);
+            this.database = database;
+            this.table = table;
+            this.column = column;
+            this.rows = rows;
+        }
+
+        @Override
+        public ResultSetCache.RowData rowKeyParameters(CachedRow row) {
+            return new ResultSetCache.RowData(row.getString("TABLE_CAT"), row.getString("TABLE_SCHEM"), database, row.getString("TABLE_NAME"), row.getString("COLUMN_NAME"));
+        }
+
+        @Override
+        public ResultSetCache.RowData wantedKeyParameters() {
+            return new ResultSetCache.RowData("CAT", "SCHEM", database, table, column);
+        }
+
+        @Override
+        public List<CachedRow> fastFetchQuery() throws SQLException, DatabaseException {
+            List<CachedRow> matches = new ArrayList<CachedRow>();
+            for (CachedRow row : rows) {
+                if (row.getString("TABLE_NAME").equalsIgnoreCase(table) && (column == null || row.getString("COLUMN_NAME").equalsIgnoreCase(column))) {
+                    matches.add(row);
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        public List<CachedRow> bulkFetchQuery() throws SQLException, DatabaseException {
+            return rows;
+        }
+    }
 }
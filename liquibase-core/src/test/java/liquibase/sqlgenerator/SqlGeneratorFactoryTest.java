@@ -125,6 +125,33 @@ public class SqlGeneratorFactoryTest {
         assertEquals(1, allGenerators.size());        
     }
 
+    @Test
+    public void getGenerators_afterWarmup() {
+        AddAutoIncrementStatement statement = new AddAutoIncrementStatement(null, null, "person", "name", "varchar(255)", null, null);
+        SortedSet<SqlGenerator> generators = SqlGeneratorFactory.getInstance().getGenerators(statement, new H2Database());
+
+        SqlGeneratorFactory.reset();
+        SqlGeneratorFactory.getInstance().warmup();
+        SortedSet<SqlGenerator> warmedUpGenerators = SqlGeneratorFactory.getInstance().getGenerators(statement, new H2Database());
+
+        assertEquals(1, warmedUpGenerators.size());
+        assertEquals(generators.first().getClass(), warmedUpGenerators.first().getClass());
+    }
+
+    @Test
+    public void getGenerators_seesGeneratorsRegisteredLater() {
+        AddAutoIncrementStatement statement = new AddAutoIncrementStatement(null, null, "person", "name", "varchar(255)", null, null);
+        assertEquals(1, SqlGeneratorFactory.getInstance().getGenerators(statement, new H2Database()).size());
+
+        SqlGenerator generator = addGenerator(AddAutoIncrementStatement.class, H2Database.class, 1000);
+        SortedSet<SqlGenerator> generators = SqlGeneratorFactory.getInstance().getGenerators(statement, new H2Database());
+        assertEquals(2, generators.size());
+        assertSame(generator, generators.first());
+
+        SqlGeneratorFactory.getInstance().unregister(generator);
+        assertEquals(1, SqlGeneratorFactory.getInstance().getGenerators(statement, new H2Database()).size());
+    }
+
     private SqlGenerator addGenerator(final Class<? extends SqlStatement> sqlStatementClass, final Class<? extends Database> sqlDatabaseClass, final int level) {
     	
         SqlGenerator generator = new SqlGenerator() {
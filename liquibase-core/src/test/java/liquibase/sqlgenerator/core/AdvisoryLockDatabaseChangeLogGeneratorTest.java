@@ -0,0 +1,63 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.Database;
+import liquibase.database.core.*;
+import liquibase.sqlgenerator.AbstractSqlGeneratorTest;
+import liquibase.statement.core.AdvisoryLockDatabaseChangeLogStatement;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdvisoryLockDatabaseChangeLogGeneratorTest extends AbstractSqlGeneratorTest<AdvisoryLockDatabaseChangeLogStatement> {
+
+    public AdvisoryLockDatabaseChangeLogGeneratorTest() throws Exception {
+        super(new AdvisoryLockDatabaseChangeLogGenerator());
+    }
+
+    @Override
+    protected AdvisoryLockDatabaseChangeLogStatement createSampleSqlStatement() {
+        return new AdvisoryLockDatabaseChangeLogStatement(300);
+    }
+
+    @Override
+    protected boolean shouldBeImplementation(Database database) {
+        return database instanceof PostgresDatabase
+                || database instanceof MySQLDatabase
+                || database instanceof OracleDatabase
+                || database instanceof MSSQLDatabase;
+    }
+
+    @Test
+    public void generateSql() {
+        PostgresDatabase postgres = new PostgresDatabase();
+        int lockId = AdvisoryLockDatabaseChangeLogGenerator.getLockId(postgres);
+        assertEquals("SELECT CASE WHEN set_config('lock_timeout', '300s', true) IS NULL THEN 0 WHEN pg_advisory_lock(" + lockId + ")::text IS NULL THEN 0 ELSE 1 END",
+                generatorUnderTest.generateSql(createSampleSqlStatement(), postgres, null)[0].toSql());
+        assertTrue(generatorUnderTest.generateSql(new AdvisoryLockDatabaseChangeLogStatement(0), postgres, null)[0].toSql().contains("'1ms'"));
+
+        assertEquals("SELECT COALESCE(GET_LOCK('liquibase:DATABASECHANGELOGLOCK', 300), 0)",
+                generatorUnderTest.generateSql(createSampleSqlStatement(), new MySQLDatabase(), null)[0].toSql());
+
+        OracleDatabase oracle = new OracleDatabase();
+        assertEquals("SELECT CASE DBMS_LOCK.REQUEST(" + AdvisoryLockDatabaseChangeLogGenerator.getLockId(oracle) + ", 6, 300) WHEN 0 THEN 1 WHEN 4 THEN 1 ELSE 0 END FROM DUAL",
+                generatorUnderTest.generateSql(createSampleSqlStatement(), oracle, null)[0].toSql());
+
+        assertTrue(generatorUnderTest.generateSql(createSampleSqlStatement(), new MSSQLDatabase(), null)[0].toSql().contains("@Resource = 'liquibase:DATABASECHANGELOGLOCK', @LockMode = 'Exclusive', @LockOwner = 'Session', @LockTimeout = 300000"));
+    }
+
+    @Test
+    public void lockNameAndId() {
+        MySQLDatabase database = new MySQLDatabase();
+        database.setLiquibaseSchemaName("migrations");
+        assertEquals("liquibase:migrations.DATABASECHANGELOGLOCK", AdvisoryLockDatabaseChangeLogGenerator.getLockName(database));
+
+        database.setLiquibaseSchemaName("a_schema_name_that_is_long_enough_to_push_the_lock_name_over_the_limit");
+        String longName = AdvisoryLockDatabaseChangeLogGenerator.getLockName(database);
+        assertTrue(longName.startsWith("liquibase:"));
+        assertTrue(longName.length() <= 64);
+
+        assertTrue(AdvisoryLockDatabaseChangeLogGenerator.getLockId(database) >= 0);
+        assertTrue(AdvisoryLockDatabaseChangeLogGenerator.getLockId(database) < 1073741824);
+    }
+}
@@ -0,0 +1,37 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.Database;
+import liquibase.database.core.*;
+import liquibase.sqlgenerator.AbstractSqlGeneratorTest;
+import liquibase.statement.core.AdvisoryUnlockDatabaseChangeLogStatement;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdvisoryUnlockDatabaseChangeLogGeneratorTest extends AbstractSqlGeneratorTest<AdvisoryUnlockDatabaseChangeLogStatement> {
+
+    public AdvisoryUnlockDatabaseChangeLogGeneratorTest() throws Exception {
+        super(new AdvisoryUnlockDatabaseChangeLogGenerator());
+    }
+
+    @Override
+    protected AdvisoryUnlockDatabaseChangeLogStatement createSampleSqlStatement() {
+        return new AdvisoryUnlockDatabaseChangeLogStatement();
+    }
+
+    @Override
+    protected boolean shouldBeImplementation(Database database) {
+        return database instanceof PostgresDatabase
+                || database instanceof MySQLDatabase
+                || database instanceof OracleDatabase
+                || database instanceof MSSQLDatabase;
+    }
+
+    @Test
+    public void generateSql() {
+        assertEquals("SELECT RELEASE_LOCK('liquibase:DATABASECHANGELOGLOCK')",
+                generatorUnderTest.generateSql(createSampleSqlStatement(), new MySQLDatabase(), null)[0].toSql());
+        assertEquals("EXEC sp_releaseapplock @Resource = 'liquibase:DATABASECHANGELOGLOCK', @LockOwner = 'Session'",
+                generatorUnderTest.generateSql(createSampleSqlStatement(), new MSSQLDatabase(), null)[0].toSql());
+    }
+}
@@ -0,0 +1,27 @@
+package liquibase.sqlgenerator.core;
+
+import liquibase.database.core.H2Database;
+import liquibase.sqlgenerator.AbstractSqlGeneratorTest;
+import liquibase.statement.core.RenewDatabaseChangeLogLockStatement;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class RenewDatabaseChangeLogLockGeneratorTest extends AbstractSqlGeneratorTest<RenewDatabaseChangeLogLockStatement> {
+
+    public RenewDatabaseChangeLogLockGeneratorTest() throws Exception {
+        super(new RenewDatabaseChangeLogLockGenerator());
+    }
+
+    @Override
+    protected RenewDatabaseChangeLogLockStatement createSampleSqlStatement() {
+        return new RenewDatabaseChangeLogLockStatement("host (127.0.0.1) [lease 60s 0123abcd]");
+    }
+
+    @Test
+    public void generateSql() {
+        String sql = generatorUnderTest.generateSql(createSampleSqlStatement(), new H2Database(), null)[0].toSql();
+        assertTrue(sql, sql.startsWith("UPDATE DATABASECHANGELOGLOCK SET LOCKGRANTED = '"));
+        assertTrue(sql, sql.endsWith("WHERE ID = 1 AND LOCKED = TRUE AND LOCKEDBY = 'host (127.0.0.1) [lease 60s 0123abcd]'"));
+    }
+}
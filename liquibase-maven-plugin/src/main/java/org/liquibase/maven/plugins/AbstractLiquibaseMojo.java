@@ -330,6 +330,9 @@ public abstract class AbstractLiquibaseMojo extends AbstractMojo {
                     null,
                     changelogCatalogName,
                     changelogSchemaName);
+            if (isLockLeaseRenewed()) {
+                CommandLineUtils.attachLockConnectionSupplier(database, artifactClassLoader, url, username, dbPassword, driver, databaseClass, null);
+            }
             liquibase = createLiquibase(getFileOpener(artifactClassLoader), database);
 
             getLog().debug("expressionVars = " + String.valueOf(expressionVars));
@@ -424,6 +427,13 @@ public abstract class AbstractLiquibaseMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Whether the goal holds the changelog lock while it changes the database, so its lease is renewed on a separate connection.
+     */
+    protected boolean isLockLeaseRenewed() {
+        return false;
+    }
+
     protected ClassLoader getMavenArtifactClassLoader() throws MojoExecutionException {
         try {
             return MavenUtils.getArtifactClassloader(project,
@@ -18,6 +18,11 @@ public abstract class AbstractLiquibaseUpdateMojo extends AbstractLiquibaseChang
    */
   protected int changesToApply;
 
+  @Override
+  protected boolean isLockLeaseRenewed() {
+    return true;
+  }
+
   @Override
   protected void performLiquibaseTask(Liquibase liquibase) throws LiquibaseException {
     super.performLiquibaseTask(liquibase);
@@ -0,0 +1,110 @@
+package org.liquibase.maven.plugins;
+
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.configuration.GlobalConfiguration;
+import liquibase.configuration.LiquibaseConfiguration;
+import liquibase.exception.LiquibaseException;
+import liquibase.parser.core.precompiled.PrecompiledChangeLogParser;
+import liquibase.resource.CompositeResourceAccessor;
+import liquibase.resource.FileSystemResourceAccessor;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Writes precompiled snapshots of a changelog and the changelogs it includes, so they do not need to be parsed again at runtime.
+ * Does not connect to a database. Snapshots are only used at runtime while the changelog files and the parameters they use are unchanged.
+ *
+ * @goal compileChangeLog
+ * @phase process-classes
+ * @requiresDependencyResolution runtime
+ */
+public class LiquibaseCompileChangeLogMojo extends AbstractMojo {
+
+    /**
+     * Specifies the change log file to compile.
+     *
+     * @parameter expression="${liquibase.changeLogFile}"
+     * @required
+     */
+    protected String changeLogFile;
+
+    /**
+     * The directory the snapshots are written to. It should be on the runtime classpath, next to the changelog files.
+     *
+     * @parameter expression="${liquibase.compileOutputDirectory}" default-value="${project.build.outputDirectory}"
+     */
+    protected File outputDirectory;
+
+    /**
+     * Changelog parameters to use while compiling. They should match the parameters passed at runtime.
+     *
+     * @parameter
+     */
+    private Properties expressionVars;
+
+    /**
+     * Set this to 'true' to skip compiling the changelog.
+     *
+     * @parameter expression="${liquibase.skip}" default-value="false"
+     */
+    protected boolean skip;
+
+    /**
+     * The Maven project that plugin is running under.
+     *
+     * @parameter expression="${project}"
+     * @required
+     * @readonly
+     */
+    protected MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        LiquibaseConfiguration liquibaseConfiguration = LiquibaseConfiguration.getInstance();
+        if (!liquibaseConfiguration.getConfiguration(GlobalConfiguration.class).getShouldRun()) {
+            getLog().info("Liquibase did not run because " + liquibaseConfiguration.describeValueLookupLogic(GlobalConfiguration.class, GlobalConfiguration.SHOULD_RUN) + " was set to false");
+            return;
+        }
+        if (skip) {
+            getLog().warn("Liquibase skipped due to maven configuration");
+            return;
+        }
+        if (changeLogFile == null) {
+            throw new MojoFailureException("The changeLogFile must be specified.");
+        }
+
+        ClassLoader classLoader;
+        try {
+            classLoader = MavenUtils.getArtifactClassloader(project, true, false, getClass(), getLog(), false);
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("Failed to create artifact classloader", e);
+        }
+
+        ChangeLogParameters changeLogParameters = new ChangeLogParameters();
+        if (expressionVars != null) {
+            for (Map.Entry<Object, Object> var : expressionVars.entrySet()) {
+                changeLogParameters.set(var.getKey().toString(), var.getValue());
+            }
+        }
+
+        try {
+            List<File> files = PrecompiledChangeLogParser.compile(changeLogFile.trim(), changeLogParameters,
+                    new CompositeResourceAccessor(new MavenResourceAccessor(classLoader), new FileSystemResourceAccessor(project.getBasedir().getAbsolutePath())),
+                    outputDirectory);
+            for (File file : files) {
+                getLog().debug("Wrote " + file.getAbsolutePath());
+            }
+            getLog().info("Wrote " + files.size() + " precompiled changelog file(s) to " + outputDirectory.getAbsolutePath());
+        } catch (LiquibaseException e) {
+            throw new MojoExecutionException("Error compiling " + changeLogFile + ": " + e.getMessage(), e);
+        }
+    }
+}